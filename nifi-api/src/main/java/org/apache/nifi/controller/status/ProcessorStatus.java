@@ -39,6 +39,8 @@ public class ProcessorStatus implements Cloneable {
     private long bytesWritten;
     private int invocations;
     private long processingNanos;
+    private long cpuNanos;
+    private long allocatedBytes;
     private int flowFilesRemoved;
     private long averageLineageDuration;
     private int activeThreadCount;
@@ -161,6 +163,28 @@ public class ProcessorStatus implements Cloneable {
         this.processingNanos = processingNanos;
     }
 
+    /**
+     * @return the CPU time, in nanoseconds, that the threads running this processor spent on it, or 0 if CPU time is not being measured
+     */
+    public long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    public void setCpuNanos(final long cpuNanos) {
+        this.cpuNanos = cpuNanos;
+    }
+
+    /**
+     * @return the number of bytes of heap that the threads running this processor allocated while running it, or 0 if allocations are not being measured
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public void setAllocatedBytes(final long allocatedBytes) {
+        this.allocatedBytes = allocatedBytes;
+    }
+
     public long getAverageLineageDuration(final TimeUnit timeUnit) {
         return TimeUnit.MILLISECONDS.convert(averageLineageDuration, timeUnit);
     }
@@ -261,6 +285,8 @@ public class ProcessorStatus implements Cloneable {
         clonedObj.outputBytes = outputBytes;
         clonedObj.outputCount = outputCount;
         clonedObj.processingNanos = processingNanos;
+        clonedObj.cpuNanos = cpuNanos;
+        clonedObj.allocatedBytes = allocatedBytes;
         clonedObj.averageLineageDuration = averageLineageDuration;
         clonedObj.flowFilesRemoved = flowFilesRemoved;
         clonedObj.runStatus = runStatus;
@@ -301,6 +327,10 @@ public class ProcessorStatus implements Cloneable {
         builder.append(invocations);
         builder.append(", processingNanos=");
         builder.append(processingNanos);
+        builder.append(", cpuNanos=");
+        builder.append(cpuNanos);
+        builder.append(", allocatedBytes=");
+        builder.append(allocatedBytes);
         builder.append(", activeThreadCount=");
         builder.append(activeThreadCount);
         builder.append(", terminatedThreadCount=");
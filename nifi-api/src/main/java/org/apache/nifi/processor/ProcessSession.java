@@ -24,14 +24,18 @@ import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.ByteBufferCallback;
+import org.apache.nifi.processor.io.FileRegionCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
 import org.apache.nifi.provenance.ProvenanceReporter;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.List;
@@ -733,6 +737,80 @@ public interface ProcessSession {
      */
     void read(FlowFile source, boolean allowSessionStreamManagement, InputStreamCallback reader) throws FlowFileAccessException;
 
+    /**
+     * Executes the given callback against the contents corresponding to the
+     * given FlowFile, providing the content as a read-only ByteBuffer. Where the
+     * Content Repository supports it, the buffer is a view of the stored content
+     * rather than a copy of it; otherwise, the content is read into memory first.
+     *
+     * <i>Note</i>: The ByteBuffer provided to the given ByteBufferCallback
+     * will not be accessible once this method has completed its execution.
+     *
+     * @param source flowfile to retrieve content of
+     * @param reader that will be called with the flowfile content
+     * @throws IllegalStateException if detected that this method is being
+     *             called from within a write callback of another method or has an OutputStream
+     *             open (via a call to {@link #write(FlowFile)}) in this session for the given FlowFile
+     * @throws FlowFileHandlingException if the given FlowFile is already
+     *             transferred or removed or doesn't belong to this session. Automatic
+     *             rollback will occur.
+     * @throws MissingFlowFileException if the given FlowFile content cannot be
+     *             found. The FlowFile should no longer be referenced, will be internally
+     *             destroyed, and the session is automatically rolled back and what is left
+     *             of the FlowFile is destroyed.
+     * @throws FlowFileAccessException if some IO problem occurs accessing
+     *             FlowFile content or if the FlowFile is too large to be represented by a ByteBuffer
+     */
+    default void readBuffer(FlowFile source, ByteBufferCallback reader) throws FlowFileAccessException {
+        if (source.getSize() > Integer.MAX_VALUE) {
+            throw new FlowFileAccessException(source + " is too large to be read into a ByteBuffer");
+        }
+
+        read(source, in -> {
+            final byte[] content = new byte[(int) source.getSize()];
+            int offset = 0;
+            while (offset < content.length) {
+                final int len = in.read(content, offset, content.length - offset);
+                if (len < 0) {
+                    throw new EOFException("Expected " + content.length + " bytes of content for " + source + " but only found " + offset);
+                }
+                offset += len;
+            }
+
+            reader.process(ByteBuffer.wrap(content).asReadOnlyBuffer());
+        });
+    }
+
+    /**
+     * Executes the given callback against the contents corresponding to the
+     * given FlowFile, providing the content as a region of a FileChannel, if
+     * the Content Repository stores the content in a form that allows it. This
+     * allows content to be transferred to a socket or another file using
+     * {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * without being copied through the JVM heap. If the content is not available
+     * as a region of a FileChannel, the callback is not invoked and the caller
+     * should instead use {@link #read(FlowFile, InputStreamCallback)}.
+     *
+     * @param source flowfile to retrieve content of
+     * @param reader that will be called with the region holding the flowfile content
+     * @return <code>true</code> if the callback was invoked, <code>false</code> if the content
+     *             is not available as a region of a FileChannel
+     * @throws IllegalStateException if detected that this method is being
+     *             called from within a write callback of another method or has an OutputStream
+     *             open (via a call to {@link #write(FlowFile)}) in this session for the given FlowFile
+     * @throws FlowFileHandlingException if the given FlowFile is already
+     *             transferred or removed or doesn't belong to this session. Automatic
+     *             rollback will occur.
+     * @throws MissingFlowFileException if the given FlowFile content cannot be
+     *             found. The FlowFile should no longer be referenced, will be internally
+     *             destroyed, and the session is automatically rolled back and what is left
+     *             of the FlowFile is destroyed.
+     * @throws FlowFileAccessException if some IO problem occurs accessing FlowFile content
+     */
+    default boolean readFileRegion(FlowFile source, FileRegionCallback reader) throws FlowFileAccessException {
+        return false;
+    }
+
     /**
      * Combines the content of all given source FlowFiles into a single given
      * destination FlowFile.
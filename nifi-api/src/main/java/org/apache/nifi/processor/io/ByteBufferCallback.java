@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A callback that is given the content of a FlowFile as a read-only ByteBuffer.
+ */
+public interface ByteBufferCallback {
+
+    /**
+     * Provides the content of a FlowFile as a read-only ByteBuffer whose position is 0
+     * and whose limit is the size of the FlowFile. The buffer may be a view of memory that is
+     * shared with the Content Repository and must not be accessed once this method returns.
+     *
+     * @param buffer the content of the FlowFile
+     * @throws IOException if issues processing the content
+     */
+    void process(ByteBuffer buffer) throws IOException;
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * A callback that is given the content of a FlowFile as a region of a FileChannel, so that the content
+ * can be transferred to another channel without being copied through the JVM heap.
+ */
+public interface FileRegionCallback {
+
+    /**
+     * Provides the content of a FlowFile as a region of a read-only FileChannel. The channel may hold
+     * other content before and after the region, so only the given region may be read. The channel is
+     * closed once this method returns.
+     *
+     * @param channel the channel holding the content of the FlowFile
+     * @param position the position within the channel at which the content of the FlowFile begins
+     * @param count the number of bytes of content
+     * @throws IOException if issues processing the content
+     */
+    void process(FileChannel channel, long position, long count) throws IOException;
+
+}
@@ -34,6 +34,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -42,19 +43,79 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * <p>
+ * A snapshot that holds all active records in a ConcurrentHashMap and writes them all to a single 'checkpoint' file.
+ * </p>
+ *
+ * <p>
+ * If a max incremental ratio greater than 0 is configured, the snapshot keeps track of which records have changed since the
+ * last full snapshot was written. As long as the number of changed records does not exceed the configured ratio of the total
+ * number of records, only the changed records are written, to a 'checkpoint.delta' file that is applied on top of the full
+ * snapshot upon recovery. The delta is cumulative, so each delta replaces the previous one. Once the number of changed records
+ * exceeds the ratio, the full snapshot is rewritten and the delta is discarded. This makes the amount of data copied and written for a
+ * checkpoint proportional to the churn of the records rather than to the number of records.
+ * </p>
+ *
+ * <p>
+ * The delta file is always applied upon recovery, if it corresponds to the full snapshot, regardless of whether or not
+ * incremental snapshots are enabled, so incremental snapshots can be disabled without losing any data.
+ * </p>
+ */
 public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T> {
     private static final Logger logger = LoggerFactory.getLogger(HashMapSnapshot.class);
-    private static final int ENCODING_VERSION = 1;
+    static final int ENCODING_VERSION = 1;
+    private static final String DELTA_ENCODING_NAME = HashMapSnapshot.class.getName() + ".Delta";
+    private static final int DELTA_ENCODING_VERSION = 1;
 
-    private final ConcurrentMap<Object, T> recordMap = new ConcurrentHashMap<>();
+    private final Map<Object, T> recordMap;
     private final SerDeFactory<T> serdeFactory;
     private final Set<String> swapLocations = Collections.synchronizedSet(new HashSet<>());
     private final File storageDirectory;
+    private final double maxIncrementalRatio;
+
+    // Only tracked when incremental snapshots are enabled. Maps the ID of each Record that has changed since the last full snapshot was
+    // written to a sequence number that identifies its most recent change, and the ID of each Record that has been removed since the last
+    // full snapshot was written to the DELETE or SWAP_OUT record that removed it.
+    private final ConcurrentMap<Object, Long> modifiedRecordIds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Object, T> removedRecords = new ConcurrentHashMap<>();
+    private final AtomicLong modificationSequence = new AtomicLong(0L);
+    private volatile boolean fullSnapshotExists = false;
+    private volatile long fullSnapshotTransactionId = -1L;
 
     public HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory) {
+        this(storageDirectory, serdeFactory, 0D);
+    }
+
+    /**
+     * @param storageDirectory the directory to write the snapshot to
+     * @param serdeFactory the factory for the SerDe that is used to serialize records
+     * @param maxIncrementalRatio the max ratio of changed records to total records for which only the changed records are written
+     *            when a snapshot is written, or 0 to always write all records
+     */
+    public HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final double maxIncrementalRatio) {
+        this(storageDirectory, serdeFactory, maxIncrementalRatio, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Creates a snapshot that holds its records in the given map, which must be thread-safe. Used by the {@link OffHeapSnapshot}
+     * so that records are recovered straight into off-heap memory.
+     */
+    HashMapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final double maxIncrementalRatio, final Map<Object, T> recordMap) {
+        if (maxIncrementalRatio < 0D) {
+            throw new IllegalArgumentException("Max Incremental Ratio cannot be negative");
+        }
+
+        this.recordMap = recordMap;
         this.serdeFactory = serdeFactory;
         this.storageDirectory = storageDirectory;
+        this.maxIncrementalRatio = maxIncrementalRatio;
+    }
+
+    private boolean isIncremental() {
+        return maxIncrementalRatio > 0D;
     }
 
     private SnapshotHeader validateHeader(final DataInputStream dataIn) throws IOException {
@@ -92,6 +153,12 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
 
     @Override
     public SnapshotRecovery<T> recover() throws IOException {
+        final File partialDeltaFile = getPartialDeltaFile();
+        if (partialDeltaFile.exists()) {
+            // We crashed while writing a delta; the previous delta, if any, is still intact.
+            Files.delete(partialDeltaFile.toPath());
+        }
+
         final File partialFile = getPartialFile();
         final File snapshotFile = getSnapshotFile();
         final boolean partialExists = partialFile.exists();
@@ -153,12 +220,92 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
             for (int i = 0; i < numSwapRecords; i++) {
                 swapLocations.add(dataIn.readUTF());
             }
-            this.swapLocations.addAll(swapLocations);
 
             logger.info("{} restored {} Records and {} Swap Files from Snapshot, ending with Transaction ID {}",
                 new Object[] {this, numRecords, swapLocations.size(), maxTransactionId});
 
-            return new StandardSnapshotRecovery<>(recordMap, swapLocations, snapshotFile, maxTransactionId);
+            fullSnapshotExists = true;
+            fullSnapshotTransactionId = maxTransactionId;
+
+            final long recoveredTransactionId = recoverDelta(maxTransactionId, swapLocations);
+            this.swapLocations.addAll(swapLocations);
+
+            return new StandardSnapshotRecovery<>(recordMap, swapLocations, snapshotFile, recoveredTransactionId);
+        }
+    }
+
+    /**
+     * Applies the delta file, if one exists and was written on top of the full snapshot that has been recovered
+     *
+     * @param snapshotTransactionId the max Transaction ID of the full snapshot that has been recovered
+     * @param swapLocations the swap locations recovered from the full snapshot, which will be replaced by those in the delta
+     * @return the max Transaction ID of the recovered state
+     * @throws IOException if unable to read the delta file
+     */
+    private long recoverDelta(final long snapshotTransactionId, final Set<String> swapLocations) throws IOException {
+        final File deltaFile = getDeltaFile();
+        if (!deltaFile.exists()) {
+            return snapshotTransactionId;
+        }
+
+        try (final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(new FileInputStream(deltaFile)))) {
+            final String deltaEncoding = dataIn.readUTF();
+            if (!DELTA_ENCODING_NAME.equals(deltaEncoding)) {
+                throw new IOException("Write-Ahead Log Snapshot Delta located at " + deltaFile + " is not a valid Snapshot Delta file");
+            }
+
+            final int deltaVersion = dataIn.readInt();
+            if (deltaVersion > DELTA_ENCODING_VERSION) {
+                throw new IOException("Write-Ahead Log Snapshot Delta located at " + deltaFile + " was written using version "
+                    + deltaVersion + "; cannot restore using Version " + DELTA_ENCODING_VERSION);
+            }
+
+            final String serdeEncoding = dataIn.readUTF();
+            final int serdeVersion = dataIn.readInt();
+            final long baseTransactionId = dataIn.readLong();
+            final long maxTransactionId = dataIn.readLong();
+            final int numRecords = dataIn.readInt();
+
+            if (baseTransactionId != snapshotTransactionId) {
+                // The full snapshot was rewritten after this delta was written but we were not able to delete the delta, so the full
+                // snapshot already contains all of the changes in the delta.
+                logger.info("{} ignoring Snapshot Delta written on top of Transaction ID {} because the Snapshot ends with Transaction ID {}",
+                    this, baseTransactionId, snapshotTransactionId);
+                return snapshotTransactionId;
+            }
+
+            final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
+            serde.readHeader(dataIn);
+
+            for (int i = 0; i < numRecords; i++) {
+                final T record = serde.deserializeRecord(dataIn, serdeVersion);
+                if (record == null) {
+                    throw new EOFException();
+                }
+
+                final Object recordId = serde.getRecordIdentifier(record);
+                final UpdateType updateType = serde.getUpdateType(record);
+                final boolean removed = updateType == UpdateType.DELETE || updateType == UpdateType.SWAP_OUT;
+                if (removed) {
+                    recordMap.remove(recordId);
+                } else {
+                    recordMap.put(recordId, record);
+                }
+
+                // Continue tracking the changes so that the next delta still contains all changes since the full snapshot.
+                if (isIncremental()) {
+                    markModified(recordId, removed ? record : null);
+                }
+            }
+
+            final int numSwapRecords = dataIn.readInt();
+            swapLocations.clear();
+            for (int i = 0; i < numSwapRecords; i++) {
+                swapLocations.add(dataIn.readUTF());
+            }
+
+            logger.info("{} applied {} changed Records from Snapshot Delta, ending with Transaction ID {}", this, numRecords, maxTransactionId);
+            return maxTransactionId;
         }
     }
 
@@ -176,6 +323,7 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
             switch (updateType) {
                 case DELETE:
                     recordMap.remove(recordId);
+                    markModified(recordId, record);
                     break;
                 case SWAP_OUT:
                     final String location = serdeFactory.getLocation(record);
@@ -186,6 +334,7 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
                     } else {
                         recordMap.remove(recordId);
                         this.swapLocations.add(location);
+                        markModified(recordId, record);
                     }
                     break;
                 case SWAP_IN:
@@ -198,14 +347,30 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
                         swapLocations.remove(swapLocation);
                     }
                     recordMap.put(recordId, record);
+                    markModified(recordId, null);
                     break;
                 default:
                     recordMap.put(recordId, record);
+                    markModified(recordId, null);
                     break;
             }
         }
     }
 
+    private void markModified(final Object recordId, final T removalRecord) {
+        if (!isIncremental()) {
+            return;
+        }
+
+        if (removalRecord == null) {
+            removedRecords.remove(recordId);
+        } else {
+            removedRecords.put(recordId, removalRecord);
+        }
+
+        modifiedRecordIds.put(recordId, modificationSequence.incrementAndGet());
+    }
+
     @Override
     public int getRecordCount() {
         return recordMap.size();
@@ -223,7 +388,33 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
 
     @Override
     public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId, final Set<String> swapFileLocations) {
-        return new Snapshot(new HashMap<>(recordMap), new HashSet<>(swapFileLocations), maxTransactionId);
+        if (!isIncremental()) {
+            return new Snapshot(new HashMap<>(recordMap), new HashSet<>(swapFileLocations), maxTransactionId);
+        }
+
+        // This is called while updates are blocked, so if only a delta is due, copy only the changed records rather than the whole map.
+        final Map<Object, Long> modifications = new HashMap<>(modifiedRecordIds);
+        final int recordCount = recordMap.size();
+        final boolean delta = fullSnapshotExists && modifications.size() <= maxIncrementalRatio * Math.max(1, recordCount);
+        final Map<Object, T> records = delta ? null : new HashMap<>(recordMap);
+
+        final Map<Object, T> modifiedRecords = new HashMap<>(modifications.size());
+        for (final Object recordId : modifications.keySet()) {
+            T record = recordMap.get(recordId);
+            if (record == null) {
+                record = removedRecords.get(recordId);
+            }
+
+            if (record != null) {
+                modifiedRecords.put(recordId, record);
+            }
+        }
+
+        if (delta) {
+            return new Snapshot(null, recordCount, new HashSet<>(swapFileLocations), maxTransactionId, fullSnapshotTransactionId, modifiedRecords, modifications);
+        }
+
+        return new Snapshot(records, recordCount, new HashSet<>(swapFileLocations), maxTransactionId, -1L, modifiedRecords, modifications);
     }
 
     private int getVersion() {
@@ -238,8 +429,89 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         return new File(storageDirectory, "checkpoint");
     }
 
+    private File getPartialDeltaFile() {
+        return new File(storageDirectory, "checkpoint.delta.partial");
+    }
+
+    private File getDeltaFile() {
+        return new File(storageDirectory, "checkpoint.delta");
+    }
+
     @Override
     public synchronized void writeSnapshot(final SnapshotCapture<T> snapshot) throws IOException {
+        final Snapshot incrementalSnapshot = (snapshot instanceof HashMapSnapshot.Snapshot) ? (Snapshot) snapshot : null;
+        if (incrementalSnapshot != null && incrementalSnapshot.isDelta()) {
+            if (incrementalSnapshot.getBaseTransactionId() != fullSnapshotTransactionId) {
+                throw new IOException("Cannot write Snapshot Delta for Transaction ID " + snapshot.getMaxTransactionId() + " because it was prepared on top of the Snapshot "
+                    + "for Transaction ID " + incrementalSnapshot.getBaseTransactionId() + " but the Snapshot has since been rewritten for Transaction ID " + fullSnapshotTransactionId);
+            }
+
+            writeDelta(incrementalSnapshot);
+            return;
+        }
+
+        writeFullSnapshot(snapshot);
+
+        // The full snapshot now contains all changes up to this point, so stop tracking them, unless they've been changed again since the snapshot was prepared.
+        if (incrementalSnapshot != null && incrementalSnapshot.getModificationSequences() != null) {
+            for (final Map.Entry<Object, Long> entry : incrementalSnapshot.getModificationSequences().entrySet()) {
+                final Object recordId = entry.getKey();
+                if (modifiedRecordIds.remove(recordId, entry.getValue())) {
+                    final T modifiedRecord = incrementalSnapshot.getModifiedRecords().get(recordId);
+                    if (modifiedRecord != null) {
+                        removedRecords.remove(recordId, modifiedRecord);
+                    }
+                }
+            }
+        }
+
+        fullSnapshotExists = true;
+        fullSnapshotTransactionId = snapshot.getMaxTransactionId();
+
+        // The delta, if any, is now obsolete. If we fail to delete it, it will be ignored upon recovery because it was written on top of a different snapshot.
+        final File deltaFile = getDeltaFile();
+        if (deltaFile.exists() && !deltaFile.delete()) {
+            logger.warn("Unable to delete obsolete Snapshot Delta file " + deltaFile);
+        }
+    }
+
+    private void writeDelta(final Snapshot snapshot) throws IOException {
+        final SerDe<T> serde = serdeFactory.createSerDe(null);
+        final File partialDeltaFile = getPartialDeltaFile();
+        final Map<Object, T> modifiedRecords = snapshot.getModifiedRecords();
+
+        try (final FileOutputStream fileOut = new FileOutputStream(partialDeltaFile);
+            final OutputStream bufferedOut = new BufferedOutputStream(fileOut);
+            final DataOutputStream dataOut = new DataOutputStream(bufferedOut)) {
+
+            dataOut.writeUTF(DELTA_ENCODING_NAME);
+            dataOut.writeInt(DELTA_ENCODING_VERSION);
+            dataOut.writeUTF(serde.getClass().getName());
+            dataOut.writeInt(serde.getVersion());
+            dataOut.writeLong(snapshot.getBaseTransactionId());
+            dataOut.writeLong(snapshot.getMaxTransactionId());
+            dataOut.writeInt(modifiedRecords.size());
+            serde.writeHeader(dataOut);
+
+            for (final T record : modifiedRecords.values()) {
+                serde.serializeRecord(record, dataOut);
+            }
+
+            dataOut.writeInt(snapshot.getSwapLocations().size());
+            for (final String swapLocation : snapshot.getSwapLocations()) {
+                dataOut.writeUTF(swapLocation);
+            }
+
+            dataOut.flush();
+            fileOut.getChannel().force(false);
+        }
+
+        // Atomically replace the previous delta, so that there is always a complete delta on disk.
+        Files.move(partialDeltaFile.toPath(), getDeltaFile().toPath(), StandardCopyOption.ATOMIC_MOVE);
+        logger.debug("{} wrote Snapshot Delta with {} changed Records out of {} Records", this, modifiedRecords.size(), snapshot.getRecordCount());
+    }
+
+    private void writeFullSnapshot(final SnapshotCapture<T> snapshot) throws IOException {
         final SerDe<T> serde = serdeFactory.createSerDe(null);
 
         final File snapshotFile = getSnapshotFile();
@@ -310,20 +582,42 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
     }
 
 
+    /**
+     * A capture of the Records to write. If only a delta is due, only the changed Records are captured, and {@link #getRecords()} returns
+     * just those Records, while {@link #getRecordCount()} still returns the total number of Records.
+     */
     public class Snapshot implements SnapshotCapture<T> {
         private final Map<Object, T> records;
+        private final int recordCount;
         private final long maxTransactionId;
         private final Set<String> swapLocations;
+        private final long baseTransactionId;
+        private final Map<Object, T> modifiedRecords;
+        private final Map<Object, Long> modificationSequences;
 
         public Snapshot(final Map<Object, T> records, final Set<String> swapLocations, final long maxTransactionId) {
+            this(records, records.size(), swapLocations, maxTransactionId, -1L, null, null);
+        }
+
+        private Snapshot(final Map<Object, T> records, final int recordCount, final Set<String> swapLocations, final long maxTransactionId,
+                         final long baseTransactionId, final Map<Object, T> modifiedRecords, final Map<Object, Long> modificationSequences) {
             this.records = records;
+            this.recordCount = recordCount;
             this.swapLocations = swapLocations;
             this.maxTransactionId = maxTransactionId;
+            this.baseTransactionId = baseTransactionId;
+            this.modifiedRecords = modifiedRecords;
+            this.modificationSequences = modificationSequences;
         }
 
         @Override
         public final Map<Object, T> getRecords() {
-            return records;
+            return isDelta() ? modifiedRecords : records;
+        }
+
+        @Override
+        public int getRecordCount() {
+            return recordCount;
         }
 
         @Override
@@ -335,6 +629,22 @@ public class HashMapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T
         public Set<String> getSwapLocations() {
             return swapLocations;
         }
+
+        private boolean isDelta() {
+            return records == null;
+        }
+
+        private long getBaseTransactionId() {
+            return baseTransactionId;
+        }
+
+        private Map<Object, T> getModifiedRecords() {
+            return modifiedRecords;
+        }
+
+        private Map<Object, Long> getModificationSequences() {
+            return modificationSequences;
+        }
     }
 
     private class SnapshotHeader {
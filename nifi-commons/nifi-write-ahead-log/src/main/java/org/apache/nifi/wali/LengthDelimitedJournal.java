@@ -19,6 +19,7 @@ package org.apache.nifi.wali;
 
 import org.apache.nifi.stream.io.ByteCountingInputStream;
 import org.apache.nifi.stream.io.LimitingInputStream;
+import org.apache.nifi.stream.io.StreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wali.SerDe;
@@ -27,7 +28,9 @@ import org.wali.UpdateType;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -42,12 +45,23 @@ import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.LongSupplier;
 
 public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private static final Logger logger = LoggerFactory.getLogger(LengthDelimitedJournal.class);
@@ -58,6 +72,8 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private static final byte TRANSACTION_FOLLOWS = 64;
     private static final byte JOURNAL_COMPLETE = 127;
     private static final int NUL_BYTE = 0;
+    private static final int MAX_READ_AHEAD_TRANSACTIONS = 1024;
+    private static final long MAX_READ_AHEAD_BYTES = 32 * 1024 * 1024;
 
     private final File journalFile;
     private final File overflowDirectory;
@@ -65,6 +81,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private final SerDeFactory<T> serdeFactory;
     private final ObjectPool<ByteArrayDataOutputStream> streamPool;
     private final int maxInHeapSerializationBytes;
+    private final LongSupplier transactionIdGenerator;
 
     private SerDe<T> serde;
     private FileOutputStream fileOut;
@@ -84,6 +101,22 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
     public LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId,
                                   final int maxInHeapSerializationBytes) {
+        this(journalFile, serdeFactory, streamPool, initialTransactionId, maxInHeapSerializationBytes, null);
+    }
+
+    /**
+     * Creates a journal whose Transaction IDs are obtained from the given generator rather than being assigned sequentially
+     * by the journal itself. This allows several journals to share a single, globally ordered sequence of Transaction IDs.
+     *
+     * @param journalFile the file to write to or recover from
+     * @param serdeFactory the factory used to create the SerDe
+     * @param streamPool the pool of buffers used for serialization
+     * @param initialTransactionId the Transaction ID that the journal starts at
+     * @param maxInHeapSerializationBytes the max number of bytes to serialize in heap before overflowing to an external file
+     * @param transactionIdGenerator the generator of Transaction IDs, or <code>null</code> to assign Transaction IDs sequentially starting at the initial Transaction ID
+     */
+    public LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId,
+                                  final int maxInHeapSerializationBytes, final LongSupplier transactionIdGenerator) {
         this.journalFile = journalFile;
         this.overflowDirectory = new File(journalFile.getParentFile(), "overflow-" + getBaseFilename(journalFile));
         this.serdeFactory = serdeFactory;
@@ -93,6 +126,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         this.initialTransactionId = initialTransactionId;
         this.currentTransactionId = initialTransactionId;
         this.maxInHeapSerializationBytes = maxInHeapSerializationBytes;
+        this.transactionIdGenerator = transactionIdGenerator;
     }
 
     public void dispose() {
@@ -215,11 +249,16 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         }
 
         final int serdeHeaderLength = in.readInt();
-        final InputStream serdeHeaderIn = new LimitingInputStream(in, serdeHeaderLength);
-        final DataInputStream dis = new DataInputStream(serdeHeaderIn);
-        serde.readHeader(dis);
+        if (serdeHeaderLength < 0) {
+            throw new IOException("Cannot read journal file " + journalFile + " because it indicates a serializer/deserializer header length of " + serdeHeaderLength);
+        }
+
+        // Keep a copy of the header so that additional SerDes can be created, if the journal is to be recovered using multiple threads.
+        final byte[] serdeHeader = new byte[serdeHeaderLength];
+        in.readFully(serdeHeader);
+        serde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
 
-        return new SerDeAndVersion(serde, serdeVersion);
+        return new SerDeAndVersion(serde, serdeVersion, serdeClassName, serdeHeader);
     }
 
 
@@ -248,9 +287,9 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
             try {
                 DataOutputStream dataOut = bados.getDataOutputStream();
+                final boolean previousStateRequired = serde.isPreviousStateRequired();
                 for (final T record : records) {
-                    final Object recordId = serde.getRecordIdentifier(record);
-                    final T previousRecordState = recordLookup.lookup(recordId);
+                    final T previousRecordState = previousStateRequired ? recordLookup.lookup(serde.getRecordIdentifier(record)) : null;
                     serde.serializeEdit(previousRecordState, record, dataOut);
 
                     final int size = bados.getByteArrayOutputStream().size();
@@ -308,7 +347,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
                 checkState();
 
                 try {
-                    transactionId = currentTransactionId++;
+                    transactionId = nextTransactionId();
                     transactionCount++;
 
                     transactionPreamble.clear();
@@ -345,6 +384,17 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     }
 
 
+    // guarded by synchronized block
+    private long nextTransactionId() {
+        if (transactionIdGenerator == null) {
+            return currentTransactionId++;
+        }
+
+        final long transactionId = transactionIdGenerator.getAsLong();
+        currentTransactionId = transactionId + 1;
+        return transactionId;
+    }
+
     private void checkState() throws IOException {
         final Throwable cause = this.poisonCause;
         if (cause != null) {
@@ -411,157 +461,521 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
     @Override
     public JournalRecovery recoverRecords(final Map<Object, T> recordMap, final Set<String> swapLocations) throws IOException {
-        long maxTransactionId = -1L;
-        int updateCount = 0;
+        return recoverRecords(recordMap, swapLocations, null);
+    }
 
-        boolean eofException = false;
+    @Override
+    public JournalRecovery recoverRecords(final Map<Object, T> recordMap, final Set<String> swapLocations, final ExecutorService deserializationExecutor) throws IOException {
         logger.info("Recovering records from journal {}", journalFile);
-        final double journalLength = journalFile.length();
 
-        try (final InputStream fis = new FileInputStream(journalFile);
-            final InputStream bufferedIn = new BufferedInputStream(fis);
-            final ByteCountingInputStream byteCountingIn = new ByteCountingInputStream(bufferedIn);
-            final DataInputStream in = new DataInputStream(byteCountingIn)) {
+        try (final TransactionReader reader = openTransactionReader(deserializationExecutor)) {
+            while (reader.hasNextTransaction()) {
+                reader.applyNextTransaction(recordMap, swapLocations);
+            }
+
+            logger.info("Successfully recovered {} updates from journal {}", reader.getUpdateCount(), journalFile);
+            return new StandardJournalRecovery(reader.getUpdateCount(), reader.getMaxTransactionId(), reader.isEOFExceptionEncountered());
+        }
+    }
 
+    /**
+     * Opens a reader that can be used to recover the transactions in this journal one at a time. This allows the transactions of several journals
+     * to be interleaved, in Transaction ID order, when recovering a repository whose updates are spread across multiple journals.
+     *
+     * @return a reader for the transactions in this journal
+     * @throws IOException if unable to open the journal or read its header
+     */
+    TransactionReader openTransactionReader() throws IOException {
+        return openTransactionReader(null);
+    }
+
+    /**
+     * Opens a reader that can be used to recover the transactions in this journal one at a time. If an executor is provided and the journal's SerDe
+     * supports concurrent deserialization, the reader reads ahead of the transaction being applied and deserializes the transactions that it has
+     * read using the executor, so that deserialization is spread across many threads while the transactions are still applied in order.
+     *
+     * @param deserializationExecutor the executor to use for deserializing transactions, or <code>null</code> to deserialize each transaction when it is applied
+     * @return a reader for the transactions in this journal
+     * @throws IOException if unable to open the journal or read its header
+     */
+    TransactionReader openTransactionReader(final ExecutorService deserializationExecutor) throws IOException {
+        return new TransactionReader(deserializationExecutor);
+    }
+
+    /**
+     * Reads the transactions of a journal one at a time, applying each transaction to the given record map and swap locations only after
+     * the entire transaction has been read.
+     */
+    class TransactionReader implements Closeable {
+        private final InputStream fis;
+        private final ByteCountingInputStream byteCountingIn;
+        private final DataInputStream in;
+        private final double journalLength;
+
+        // We don't want to apply the updates in a transaction until we've finished recovering the entire
+        // transaction. Otherwise, we could apply say 8 out of 10 updates and then hit an EOF. In such a case,
+        // we want to rollback the entire transaction. We handle this by not updating recordMap or swapLocations
+        // variables directly but instead keeping track of the things that occurred and then once we've read the
+        // entire transaction, we can apply those updates to the recordMap and swapLocations.
+        private final Map<Object, T> transactionRecordMap = new HashMap<>();
+        private final Set<Object> idsRemoved = new HashSet<>();
+        private final Set<String> swapLocationsRemoved = new HashSet<>();
+        private final Set<String> swapLocationsAdded = new HashSet<>();
+
+        // When deserializing concurrently, the transactions that have been read from the journal but not yet applied, in the order that they were written.
+        // Each is deserialized by a SerDe that is taken from the idle SerDes, or created if there are none idle.
+        private final ExecutorService deserializationExecutor;
+        private final Deque<ReadAheadTransaction> readAheadTransactions = new ArrayDeque<>();
+        private final Queue<SerDe<T>> idleSerDes = new ConcurrentLinkedQueue<>();
+        private long readAheadBytes = 0L;
+        private boolean readAheadComplete = false;
+        private boolean readAheadEOF = false;
+        private Exception readAheadFailure = null;
+        private boolean readAheadTrailingNulBytes = false;
+
+        private SerDeAndVersion serdeAndVersion;
+        private boolean concurrentDeserialization = false;
+        private boolean finished = false;
+        private boolean eofException = false;
+        private long nextTransactionId = -1L;
+        private int nextTransactionLength;
+        private long maxTransactionId = -1L;
+        private int updateCount = 0;
+        private long consumedAtLog = 0L;
+
+        private TransactionReader(final ExecutorService deserializationExecutor) throws IOException {
+            this.deserializationExecutor = deserializationExecutor;
+            journalLength = journalFile.length();
+            fis = new FileInputStream(journalFile);
+            byteCountingIn = new ByteCountingInputStream(new BufferedInputStream(fis));
+            in = new DataInputStream(byteCountingIn);
+
+            try {
+                readHeader();
+            } catch (final Throwable t) {
+                close();
+                throw t;
+            }
+        }
+
+        private void readHeader() throws IOException {
             try {
                 // Validate that the header is what we expect and obtain the appropriate SerDe and Version information
-                final SerDeAndVersion serdeAndVersion = validateHeader(in);
-                final SerDe<T> serde = serdeAndVersion.getSerDe();
+                serdeAndVersion = validateHeader(in);
+                concurrentDeserialization = deserializationExecutor != null && serdeAndVersion.getSerDe().isConcurrentDeserializationSupported();
 
                 // Ensure that we get a valid transaction indicator
-                int transactionIndicator = in.read();
-                if (transactionIndicator != TRANSACTION_FOLLOWS && transactionIndicator != JOURNAL_COMPLETE && transactionIndicator != -1) {
-                    throw new IOException("After reading " + byteCountingIn.getBytesConsumed() + " bytes from " + journalFile + ", encountered unexpected value of "
-                        + transactionIndicator + " for the Transaction Indicator. This journal may have been corrupted.");
+                finished = !readTransactionPreamble();
+            } catch (final EOFException eof) {
+                handleEOF();
+            } catch (final Exception e) {
+                handleFailure(e);
+            }
+
+            if (concurrentDeserialization && !finished) {
+                logger.debug("Deserializing transactions from journal {} concurrently", journalFile);
+                readAhead();
+                completeIfNoReadAheadTransactions();
+            }
+        }
+
+        /**
+         * Reads the Transaction Indicator and, if a transaction follows, the Transaction ID and length of the transaction
+         *
+         * @return <code>true</code> if a transaction follows, <code>false</code> if there are no more transactions in the journal
+         * @throws IOException if unable to read from the journal or the Transaction Indicator is not valid
+         */
+        private boolean readTransactionPreamble() throws IOException {
+            final int transactionIndicator = in.read();
+            if (transactionIndicator != TRANSACTION_FOLLOWS && transactionIndicator != JOURNAL_COMPLETE && transactionIndicator != -1) {
+                throw new IOException("After reading " + byteCountingIn.getBytesConsumed() + " bytes from " + journalFile + ", encountered unexpected value of "
+                    + transactionIndicator + " for the Transaction Indicator. This journal may have been corrupted.");
+            }
+
+            if (transactionIndicator != TRANSACTION_FOLLOWS) {
+                return false;
+            }
+
+            // Format is <Transaction ID: 8 bytes> <Transaction Length: 4 bytes> <Transaction data: # of bytes indicated by Transaction Length Field>
+            nextTransactionId = in.readLong();
+            maxTransactionId = Math.max(maxTransactionId, nextTransactionId);
+            nextTransactionLength = in.readInt();
+            return true;
+        }
+
+        private void handleEOF() {
+            finished = true;
+            eofException = true;
+            logger.warn("Encountered unexpected End-of-File when reading journal file {}; assuming that NiFi was shutdown unexpectedly and continuing recovery", journalFile);
+        }
+
+        private void handleFailure(final Exception e) throws IOException {
+            handleFailure(e, remainingBytesAllNul(in));
+        }
+
+        private void handleFailure(final Exception e, final boolean remainingBytesAllNul) throws IOException {
+            finished = true;
+
+            // If the stream consists solely of NUL bytes, then we want to treat it
+            // the same as an EOF because we see this happen when we suddenly lose power
+            // while writing to a file. However, if that is not the case, then something else has gone wrong.
+            // In such a case, there is not much that we can do but to re-throw the Exception.
+            if (remainingBytesAllNul) {
+                logger.warn("Failed to recover some of the data from Write-Ahead Log Journal because encountered trailing NUL bytes. "
+                    + "This will sometimes happen after a sudden power loss. The rest of this journal file will be skipped for recovery purposes."
+                    + "The following Exception was encountered while recovering the updates to the journal:", e);
+            } else if (e instanceof IOException) {
+                throw (IOException) e;
+            } else if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else {
+                throw new IOException("Failed to recover records from journal " + journalFile, e);
+            }
+        }
+
+        /**
+         * @return <code>true</code> if there is another complete or partial transaction to read from the journal
+         */
+        public boolean hasNextTransaction() {
+            return !finished;
+        }
+
+        /**
+         * @return the Transaction ID of the next transaction to be applied, or <code>-1</code> if there are no more transactions
+         */
+        public long getNextTransactionId() {
+            if (finished) {
+                return -1L;
+            }
+
+            return concurrentDeserialization ? readAheadTransactions.getFirst().getTransactionId() : nextTransactionId;
+        }
+
+        /**
+         * Reads the next transaction from the journal and, if the entire transaction could be read, applies it to the given record map and swap locations
+         *
+         * @param recordMap the map of Record ID to Record that the transaction should be applied to
+         * @param swapLocations the set of swap locations that the transaction should be applied to
+         * @throws IOException if unable to read from the journal
+         */
+        public void applyNextTransaction(final Map<Object, T> recordMap, final Set<String> swapLocations) throws IOException {
+            if (finished) {
+                throw new IllegalStateException("Cannot apply next transaction from journal " + journalFile + " because there are no more transactions");
+            }
+
+            if (concurrentDeserialization) {
+                applyNextReadAheadTransaction(recordMap, swapLocations);
+            } else {
+                try {
+                    readTransaction(recordMap, swapLocations);
+                    finished = !readTransactionPreamble();
+                } catch (final EOFException eof) {
+                    handleEOF();
+                    return;
+                } catch (final Exception e) {
+                    handleFailure(e);
+                    return;
                 }
+            }
 
-                long consumedAtLog = 0L;
-
-                // We don't want to apply the updates in a transaction until we've finished recovering the entire
-                // transaction. Otherwise, we could apply say 8 out of 10 updates and then hit an EOF. In such a case,
-                // we want to rollback the entire transaction. We handle this by not updating recordMap or swapLocations
-                // variables directly but instead keeping track of the things that occurred and then once we've read the
-                // entire transaction, we can apply those updates to the recordMap and swapLocations.
-                final Map<Object, T> transactionRecordMap = new HashMap<>();
-                final Set<Object> idsRemoved = new HashSet<>();
-                final Set<String> swapLocationsRemoved = new HashSet<>();
-                final Set<String> swapLocationsAdded = new HashSet<>();
-                int transactionUpdates = 0;
-
-                // While we have a transaction to recover, recover it
-                while (transactionIndicator == TRANSACTION_FOLLOWS) {
-                    transactionRecordMap.clear();
-                    idsRemoved.clear();
-                    swapLocationsRemoved.clear();
-                    swapLocationsAdded.clear();
-                    transactionUpdates = 0;
-
-                    // Format is <Transaction ID: 8 bytes> <Transaction Length: 4 bytes> <Transaction data: # of bytes indicated by Transaction Length Field>
-                    final long transactionId = in.readLong();
-                    maxTransactionId = Math.max(maxTransactionId, transactionId);
-                    final int transactionLength = in.readInt();
-
-                    // Use SerDe to deserialize the update. We use a LimitingInputStream to ensure that the SerDe is not able to read past its intended
-                    // length, in case there is a bug in the SerDe. We then use a ByteCountingInputStream so that we can ensure that all of the data has
-                    // been read and throw EOFException otherwise.
-                    final InputStream transactionLimitingIn = new LimitingInputStream(in, transactionLength);
-                    final ByteCountingInputStream transactionByteCountingIn = new ByteCountingInputStream(transactionLimitingIn);
-                    final DataInputStream transactionDis = new DataInputStream(transactionByteCountingIn);
-
-                    while (transactionByteCountingIn.getBytesConsumed() < transactionLength || serde.isMoreInExternalFile()) {
-                        final T record = serde.deserializeEdit(transactionDis, recordMap, serdeAndVersion.getVersion());
-
-                        // Update our RecordMap so that we have the most up-to-date version of the Record.
-                        final Object recordId = serde.getRecordIdentifier(record);
-                        final UpdateType updateType = serde.getUpdateType(record);
-
-                        switch (updateType) {
-                            case DELETE: {
-                                idsRemoved.add(recordId);
-                                transactionRecordMap.remove(recordId);
-                                break;
-                            }
-                            case SWAP_IN: {
-                                final String location = serde.getLocation(record);
-                                if (location == null) {
-                                    logger.error("Recovered SWAP_IN record from edit log, but it did not contain a Location; skipping record");
-                                } else {
-                                    swapLocationsRemoved.add(location);
-                                    swapLocationsAdded.remove(location);
-                                    transactionRecordMap.put(recordId, record);
-                                }
-                                break;
-                            }
-                            case SWAP_OUT: {
-                                final String location = serde.getLocation(record);
-                                if (location == null) {
-                                    logger.error("Recovered SWAP_OUT record from edit log, but it did not contain a Location; skipping record");
-                                } else {
-                                    swapLocationsRemoved.remove(location);
-                                    swapLocationsAdded.add(location);
-                                    idsRemoved.add(recordId);
-                                    transactionRecordMap.remove(recordId);
-                                }
-
-                                break;
-                            }
-                            default: {
-                                transactionRecordMap.put(recordId, record);
-                                idsRemoved.remove(recordId);
-                                break;
-                            }
-                        }
+            // If we have a very large journal (for instance, if checkpoint is not called for a long time, or if there is a problem rolling over
+            // the journal), then we want to occasionally notify the user that we are, in fact, making progress, so that it doesn't appear that
+            // NiFi has become "stuck".
+            final long consumed = byteCountingIn.getBytesConsumed();
+            if (consumed - consumedAtLog > 50_000_000) {
+                final double percentage = consumed / journalLength * 100D;
+                final String pct = new DecimalFormat("#.00").format(percentage);
+                logger.info("{}% of the way finished recovering journal {}, having recovered {} updates", pct, journalFile, updateCount);
+                consumedAtLog = consumed;
+            }
+        }
 
-                        transactionUpdates++;
-                    }
+        private void readTransaction(final Map<Object, T> recordMap, final Set<String> swapLocations) throws IOException {
+            final SerDe<T> serde = serdeAndVersion.getSerDe();
+            clearTransactionState();
+            int transactionUpdates = 0;
+
+            // Use SerDe to deserialize the update. We use a LimitingInputStream to ensure that the SerDe is not able to read past its intended
+            // length, in case there is a bug in the SerDe. We then use a ByteCountingInputStream so that we can ensure that all of the data has
+            // been read and throw EOFException otherwise.
+            final InputStream transactionLimitingIn = new LimitingInputStream(in, nextTransactionLength);
+            final ByteCountingInputStream transactionByteCountingIn = new ByteCountingInputStream(transactionLimitingIn);
+            final DataInputStream transactionDis = new DataInputStream(transactionByteCountingIn);
+
+            while (transactionByteCountingIn.getBytesConsumed() < nextTransactionLength || serde.isMoreInExternalFile()) {
+                final T record = serde.deserializeEdit(transactionDis, recordMap, serdeAndVersion.getVersion());
+                addToTransaction(serde, record);
+                transactionUpdates++;
+            }
 
-                    // Apply the transaction
-                    for (final Object id : idsRemoved) {
-                        recordMap.remove(id);
+            applyTransaction(recordMap, swapLocations, transactionUpdates);
+        }
+
+        private void clearTransactionState() {
+            transactionRecordMap.clear();
+            idsRemoved.clear();
+            swapLocationsRemoved.clear();
+            swapLocationsAdded.clear();
+        }
+
+        private void addToTransaction(final SerDe<T> serde, final T record) {
+            // Update our RecordMap so that we have the most up-to-date version of the Record.
+            final Object recordId = serde.getRecordIdentifier(record);
+            final UpdateType updateType = serde.getUpdateType(record);
+
+            switch (updateType) {
+                case DELETE: {
+                    idsRemoved.add(recordId);
+                    transactionRecordMap.remove(recordId);
+                    break;
+                }
+                case SWAP_IN: {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_IN record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        swapLocationsRemoved.add(location);
+                        swapLocationsAdded.remove(location);
+                        transactionRecordMap.put(recordId, record);
                     }
-                    recordMap.putAll(transactionRecordMap);
-                    swapLocations.removeAll(swapLocationsRemoved);
-                    swapLocations.addAll(swapLocationsAdded);
-                    updateCount += transactionUpdates;
-
-                    // Check if there is another transaction to read
-                    transactionIndicator = in.read();
-                    if (transactionIndicator != TRANSACTION_FOLLOWS && transactionIndicator != JOURNAL_COMPLETE && transactionIndicator != -1) {
-                        throw new IOException("After reading " + byteCountingIn.getBytesConsumed() + " bytes from " + journalFile + ", encountered unexpected value of "
-                            + transactionIndicator + " for the Transaction Indicator. This journal may have been corrupted.");
+                    break;
+                }
+                case SWAP_OUT: {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_OUT record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        swapLocationsRemoved.remove(location);
+                        swapLocationsAdded.add(location);
+                        idsRemoved.add(recordId);
+                        transactionRecordMap.remove(recordId);
                     }
 
-                    // If we have a very large journal (for instance, if checkpoint is not called for a long time, or if there is a problem rolling over
-                    // the journal), then we want to occasionally notify the user that we are, in fact, making progress, so that it doesn't appear that
-                    // NiFi has become "stuck".
-                    final long consumed = byteCountingIn.getBytesConsumed();
-                    if (consumed - consumedAtLog > 50_000_000) {
-                        final double percentage = consumed / journalLength * 100D;
-                        final String pct = new DecimalFormat("#.00").format(percentage);
-                        logger.info("{}% of the way finished recovering journal {}, having recovered {} updates", pct, journalFile, updateCount);
-                        consumedAtLog = consumed;
+                    break;
+                }
+                default: {
+                    transactionRecordMap.put(recordId, record);
+                    idsRemoved.remove(recordId);
+                    break;
+                }
+            }
+        }
+
+        private void applyTransaction(final Map<Object, T> recordMap, final Set<String> swapLocations, final int transactionUpdates) {
+            for (final Object id : idsRemoved) {
+                recordMap.remove(id);
+            }
+            recordMap.putAll(transactionRecordMap);
+            swapLocations.removeAll(swapLocationsRemoved);
+            swapLocations.addAll(swapLocationsAdded);
+            updateCount += transactionUpdates;
+        }
+
+        /**
+         * Reads transactions from the journal and submits them to be deserialized, until enough transactions have been read ahead of the one being applied
+         * or there are no more transactions to read. Any problem that is encountered is recorded so that it can be handled once all of the transactions
+         * that precede it have been applied.
+         */
+        private void readAhead() {
+            while (!readAheadComplete && (readAheadTransactions.isEmpty()
+                    || (readAheadTransactions.size() < MAX_READ_AHEAD_TRANSACTIONS && readAheadBytes < MAX_READ_AHEAD_BYTES))) {
+                try {
+                    final long transactionId = nextTransactionId;
+                    final byte[] transactionBytes = new byte[nextTransactionLength];
+                    final long transactionOffset = byteCountingIn.getBytesConsumed();
+                    in.readFully(transactionBytes);
+
+                    final Future<DeserializedTransaction> future = deserializationExecutor.submit(() -> deserializeTransaction(transactionBytes));
+                    readAheadTransactions.addLast(new ReadAheadTransaction(transactionId, transactionOffset, transactionBytes.length, future));
+                    readAheadBytes += transactionBytes.length;
+
+                    readAheadComplete = !readTransactionPreamble();
+                } catch (final EOFException eof) {
+                    readAheadComplete = true;
+                    readAheadEOF = true;
+                } catch (final Exception e) {
+                    readAheadComplete = true;
+                    readAheadFailure = e;
+
+                    try {
+                        readAheadTrailingNulBytes = remainingBytesAllNul(in);
+                    } catch (final IOException ioe) {
+                        e.addSuppressed(ioe);
                     }
                 }
-            } catch (final EOFException eof) {
-                eofException = true;
-                logger.warn("Encountered unexpected End-of-File when reading journal file {}; assuming that NiFi was shutdown unexpectedly and continuing recovery", journalFile);
+            }
+        }
+
+        private DeserializedTransaction deserializeTransaction(final byte[] transactionBytes) throws IOException {
+            SerDe<T> serde = idleSerDes.poll();
+            if (serde == null) {
+                serde = serdeAndVersion.createSerDe();
+            }
+
+            final ByteCountingInputStream transactionByteCountingIn = new ByteCountingInputStream(new ByteArrayInputStream(transactionBytes));
+            final DataInputStream transactionDis = new DataInputStream(transactionByteCountingIn);
+            final List<T> records = new ArrayList<>();
+
+            try {
+                while (transactionByteCountingIn.getBytesConsumed() < transactionBytes.length || serde.isMoreInExternalFile()) {
+                    records.add(serde.deserializeEdit(transactionDis, Collections.emptyMap(), serdeAndVersion.getVersion()));
+                }
             } catch (final Exception e) {
-                // If the stream consists solely of NUL bytes, then we want to treat it
-                // the same as an EOF because we see this happen when we suddenly lose power
-                // while writing to a file. However, if that is not the case, then something else has gone wrong.
-                // In such a case, there is not much that we can do but to re-throw the Exception.
-                if (remainingBytesAllNul(in)) {
-                    logger.warn("Failed to recover some of the data from Write-Ahead Log Journal because encountered trailing NUL bytes. "
-                        + "This will sometimes happen after a sudden power loss. The rest of this journal file will be skipped for recovery purposes."
-                        + "The following Exception was encountered while recovering the updates to the journal:", e);
+                // Do not return the SerDe to the idle SerDes, as its state is unknown.
+                return new DeserializedTransaction(e, transactionByteCountingIn.getBytesConsumed());
+            }
+
+            idleSerDes.offer(serde);
+            return new DeserializedTransaction(records);
+        }
+
+        private void applyNextReadAheadTransaction(final Map<Object, T> recordMap, final Set<String> swapLocations) throws IOException {
+            final ReadAheadTransaction transaction = readAheadTransactions.removeFirst();
+            readAheadBytes -= transaction.getLength();
+
+            final DeserializedTransaction deserialized;
+            try {
+                deserialized = transaction.getFuture().get();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                cancelReadAhead();
+                throw new IOException("Interrupted while recovering records from journal " + journalFile, ie);
+            } catch (final ExecutionException ee) {
+                cancelReadAhead();
+                throw new IOException("Failed to recover records from journal " + journalFile, ee.getCause());
+            }
+
+            final Exception failure = deserialized.getFailure();
+            if (failure != null) {
+                cancelReadAhead();
+                if (failure instanceof EOFException) {
+                    handleEOF();
                 } else {
-                    throw e;
+                    handleFailure(failure, remainingFileBytesAllNul(transaction.getOffset() + deserialized.getBytesConsumed()));
                 }
+
+                return;
+            }
+
+            final SerDe<T> serde = serdeAndVersion.getSerDe();
+            clearTransactionState();
+            for (final T record : deserialized.getRecords()) {
+                addToTransaction(serde, record);
+            }
+            applyTransaction(recordMap, swapLocations, deserialized.getRecords().size());
+
+            readAhead();
+            completeIfNoReadAheadTransactions();
+        }
+
+        private void completeIfNoReadAheadTransactions() throws IOException {
+            if (!readAheadTransactions.isEmpty()) {
+                return;
+            }
+
+            if (readAheadEOF) {
+                handleEOF();
+            } else if (readAheadFailure != null) {
+                handleFailure(readAheadFailure, readAheadTrailingNulBytes);
+            } else {
+                finished = true;
             }
         }
 
-        logger.info("Successfully recovered {} updates from journal {}", updateCount, journalFile);
-        return new StandardJournalRecovery(updateCount, maxTransactionId, eofException);
+        private boolean remainingFileBytesAllNul(final long offset) throws IOException {
+            try (final InputStream fileIn = new FileInputStream(journalFile);
+                 final InputStream bufferedIn = new BufferedInputStream(fileIn)) {
+                StreamUtils.skip(bufferedIn, offset);
+                return remainingBytesAllNul(bufferedIn);
+            }
+        }
+
+        private void cancelReadAhead() {
+            for (final ReadAheadTransaction transaction : readAheadTransactions) {
+                transaction.getFuture().cancel(false);
+            }
+
+            readAheadTransactions.clear();
+            readAheadBytes = 0L;
+        }
+
+        public int getUpdateCount() {
+            return updateCount;
+        }
+
+        public long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+
+        public boolean isEOFExceptionEncountered() {
+            return eofException;
+        }
+
+        @Override
+        public void close() throws IOException {
+            cancelReadAhead();
+            fis.close();
+        }
+    }
+
+    private class ReadAheadTransaction {
+        private final long transactionId;
+        private final long offset;
+        private final int length;
+        private final Future<DeserializedTransaction> future;
+
+        public ReadAheadTransaction(final long transactionId, final long offset, final int length, final Future<DeserializedTransaction> future) {
+            this.transactionId = transactionId;
+            this.offset = offset;
+            this.length = length;
+            this.future = future;
+        }
+
+        public long getTransactionId() {
+            return transactionId;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public Future<DeserializedTransaction> getFuture() {
+            return future;
+        }
+    }
+
+    private class DeserializedTransaction {
+        private final List<T> records;
+        private final Exception failure;
+        private final long bytesConsumed;
+
+        public DeserializedTransaction(final List<T> records) {
+            this.records = records;
+            this.failure = null;
+            this.bytesConsumed = -1L;
+        }
+
+        public DeserializedTransaction(final Exception failure, final long bytesConsumed) {
+            this.records = Collections.emptyList();
+            this.failure = failure;
+            this.bytesConsumed = bytesConsumed;
+        }
+
+        public List<T> getRecords() {
+            return records;
+        }
+
+        public Exception getFailure() {
+            return failure;
+        }
+
+        public long getBytesConsumed() {
+            return bytesConsumed;
+        }
     }
 
     /**
@@ -598,10 +1012,24 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private class SerDeAndVersion {
         private final SerDe<T> serde;
         private final int version;
+        private final String serdeClassName;
+        private final byte[] serdeHeader;
 
-        public SerDeAndVersion(final SerDe<T> serde, final int version) {
+        public SerDeAndVersion(final SerDe<T> serde, final int version, final String serdeClassName, final byte[] serdeHeader) {
             this.serde = serde;
             this.version = version;
+            this.serdeClassName = serdeClassName;
+            this.serdeHeader = serdeHeader;
+        }
+
+        /**
+         * @return a new SerDe that is initialized in the same way as the SerDe returned by {@link #getSerDe()}
+         * @throws IOException if unable to initialize the SerDe from the journal's header
+         */
+        public SerDe<T> createSerDe() throws IOException {
+            final SerDe<T> newSerDe = serdeFactory.createSerDe(serdeClassName);
+            newSerDe.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+            return newSerDe;
         }
 
         public SerDe<T> getSerDe() {
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map of primitive long keys to primitive long values. This avoids the boxed keys and values
+ * and the per-entry objects of a java.util.HashMap, so that very large indices cost only 16 bytes per slot.
+ * Keys may be any value other than {@link Long#MIN_VALUE}, which is used to denote an empty slot.
+ * This class is not thread-safe.
+ */
+class LongKeyedIndex {
+    static final long NO_VALUE = -1L;
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int size = 0;
+    private int resizeThreshold;
+
+    LongKeyedIndex(final int initialCapacity) {
+        final int capacity = Integer.highestOneBit(Math.max(16, (int) (initialCapacity / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(final long key) {
+        // Spread the bits of the key so that sequential keys do not cluster.
+        long hash = key * 0x9E3779B97F4A7C15L;
+        hash ^= (hash >>> 32);
+        return (int) hash & (keys.length - 1);
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value associated with the key, or {@link #NO_VALUE} if the key is not present
+     */
+    long get(final long key) {
+        int index = slot(key);
+        while (true) {
+            final long existing = keys[index];
+            if (existing == key) {
+                return values[index];
+            }
+            if (existing == EMPTY_KEY) {
+                return NO_VALUE;
+            }
+
+            index = (index + 1) & (keys.length - 1);
+        }
+    }
+
+    /**
+     * Associates the given value with the given key
+     *
+     * @param key the key
+     * @param value the value
+     * @return the value previously associated with the key, or {@link #NO_VALUE} if the key was not present
+     */
+    long put(final long key, final long value) {
+        if (key == EMPTY_KEY) {
+            throw new IllegalArgumentException("Cannot index key " + key);
+        }
+
+        int index = slot(key);
+        while (true) {
+            final long existing = keys[index];
+            if (existing == key) {
+                final long previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            if (existing == EMPTY_KEY) {
+                keys[index] = key;
+                values[index] = value;
+                if (++size > resizeThreshold) {
+                    resize();
+                }
+                return NO_VALUE;
+            }
+
+            index = (index + 1) & (keys.length - 1);
+        }
+    }
+
+    /**
+     * Removes the given key
+     *
+     * @param key the key to remove
+     * @return the value that was associated with the key, or {@link #NO_VALUE} if the key was not present
+     */
+    long remove(final long key) {
+        final int mask = keys.length - 1;
+        int index = slot(key);
+        while (true) {
+            final long existing = keys[index];
+            if (existing == EMPTY_KEY) {
+                return NO_VALUE;
+            }
+            if (existing == key) {
+                break;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        final long previous = values[index];
+
+        // Shift back any entries that follow in the same probe sequence so that lookups never stop short at the freed slot.
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY_KEY) {
+            final int ideal = slot(keys[next]);
+            final boolean movable = (next > gap) ? (ideal <= gap || ideal > next) : (ideal <= gap && ideal > next);
+            if (movable) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        keys[gap] = EMPTY_KEY;
+        size--;
+        return previous;
+    }
+
+    private void resize() {
+        final long[] oldKeys = keys;
+        final long[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copies all keys into the given array and all values into the other given array, in the same order
+     *
+     * @param keyDestination the array to copy keys into, which must have a length of at least {@link #size()}
+     * @param valueDestination the array to copy values into, which must have a length of at least {@link #size()}
+     */
+    void copyTo(final long[] keyDestination, final long[] valueDestination) {
+        int copied = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY_KEY) {
+                keyDestination[copied] = keys[i];
+                valueDestination[copied] = values[i];
+                copied++;
+            }
+        }
+    }
+}
@@ -0,0 +1,712 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wali.SerDe;
+import org.wali.SerDeFactory;
+import org.wali.UpdateType;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>
+ * A snapshot that, rather than keeping every active record on the heap as the {@link HashMapSnapshot} does, keeps each record
+ * in its serialized form in direct (off-heap) memory. Records are indexed by a primitive long-keyed index, which requires that
+ * the Record Identifiers provided by the SerDe are Longs, as is the case for FlowFiles. Records are deserialized only when
+ * they are looked up. The heap cost of the snapshot is therefore roughly 16-32 bytes per record, regardless of the size of the
+ * records, at the expense of deserializing a record each time that it is looked up.
+ * </p>
+ *
+ * <p>
+ * The records are divided into segments, each of which is guarded by its own lock, and each segment appends records to
+ * a list of direct buffers. Space that is freed by updating or removing a record is reclaimed by compacting the segment once
+ * less than half of its allocated memory is in use. Direct memory is limited by the JVM's -XX:MaxDirectMemorySize setting,
+ * which must be large enough to hold all active records.
+ * </p>
+ *
+ * <p>
+ * The snapshot is written to disk using the same format as the {@link HashMapSnapshot}, without deserializing the records,
+ * so that the two implementations may be used interchangeably. Upon recovery, the records are read from disk using the
+ * {@link HashMapSnapshot}, which stores each record off-heap as soon as it has been read.
+ * </p>
+ */
+public class OffHeapSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T> {
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapSnapshot.class);
+    private static final int DEFAULT_SEGMENT_COUNT = 16;
+    private static final int DEFAULT_MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int LENGTH_BYTES = 4;
+
+    private final File storageDirectory;
+    private final SerDeFactory<T> serdeFactory;
+    private final Segment[] segments;
+    private final int maxChunkSize;
+    private final Set<String> swapLocations = Collections.synchronizedSet(new HashSet<>());
+
+    // The SerDe header that was written before any records were serialized. This is used to prepare SerDes for reading
+    // records back and is written as the SerDe header of the snapshot file.
+    private final String serdeEncoding;
+    private final int serdeVersion;
+    private final byte[] serdeHeader;
+
+    public OffHeapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory) {
+        this(storageDirectory, serdeFactory, DEFAULT_SEGMENT_COUNT, DEFAULT_MAX_CHUNK_SIZE);
+    }
+
+    public OffHeapSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final int segmentCount, final int maxChunkSize) {
+        if (segmentCount < 1) {
+            throw new IllegalArgumentException("Segment Count must be positive");
+        }
+        if (maxChunkSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Max Chunk Size must be at least " + MIN_CHUNK_SIZE + " bytes");
+        }
+
+        this.storageDirectory = storageDirectory;
+        this.serdeFactory = serdeFactory;
+        this.maxChunkSize = maxChunkSize;
+
+        final SerDe<T> headerSerde = serdeFactory.createSerDe(null);
+        this.serdeEncoding = headerSerde.getClass().getName();
+        this.serdeVersion = headerSerde.getVersion();
+        this.serdeHeader = writeSerDeHeader(headerSerde);
+
+        this.segments = new OffHeapSnapshot.Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private static byte[] writeSerDeHeader(final SerDe<?> serde) {
+        try (final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             final DataOutputStream dos = new DataOutputStream(baos)) {
+            serde.writeHeader(dos);
+            dos.flush();
+            return baos.toByteArray();
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Failed to write SerDe header", ioe);
+        }
+    }
+
+    private SerDe<T> createReadSerDe() {
+        final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
+        try {
+            serde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Failed to read SerDe header", ioe);
+        }
+
+        return serde;
+    }
+
+    private static long toLongId(final Object recordId) {
+        if (recordId instanceof Long) {
+            return (Long) recordId;
+        }
+        if (recordId instanceof Number) {
+            return ((Number) recordId).longValue();
+        }
+
+        throw new IllegalArgumentException("Cannot store record with identifier " + recordId + " in " + OffHeapSnapshot.class.getSimpleName()
+            + " because it requires Record Identifiers to be Longs");
+    }
+
+    private Segment getSegment(final long recordId) {
+        final long hash = recordId * 0x9E3779B97F4A7C15L;
+        return segments[(int) Math.floorMod(hash ^ (hash >>> 32), (long) segments.length)];
+    }
+
+    @Override
+    public SnapshotRecovery<T> recover() throws IOException {
+        // The on-disk format is the same as that of the HashMapSnapshot, so use it to read the records, but have it put each record
+        // straight into the off-heap segments as it is read, so that the recovered records are never all held on the heap.
+        final Map<Object, T> liveRecords = new LiveRecordMap();
+        final HashMapSnapshot<T> fileSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, 0D, liveRecords);
+        final SnapshotRecovery<T> recovery = fileSnapshot.recover();
+
+        swapLocations.addAll(recovery.getRecoveredSwapLocations());
+        logger.info("{} recovered {} Records off-heap", this, getRecordCount());
+
+        // Return a view of the records that writes through to the off-heap segments, so that updates replayed from the journals are
+        // applied to the snapshot without materializing all records on the heap.
+        return new StandardSnapshotRecovery<>(liveRecords, recovery.getRecoveredSwapLocations(), recovery.getRecoveryFile(), recovery.getMaxTransactionId());
+    }
+
+    @Override
+    public void update(final Collection<T> records) {
+        for (final T record : records) {
+            final Object recordId = serdeFactory.getRecordIdentifier(record);
+            final long id = toLongId(recordId);
+            final UpdateType updateType = serdeFactory.getUpdateType(record);
+
+            switch (updateType) {
+                case DELETE:
+                    getSegment(id).remove(id);
+                    break;
+                case SWAP_OUT:
+                    final String location = serdeFactory.getLocation(record);
+                    if (location == null) {
+                        logger.error("Received Record (ID=" + recordId + ") with UpdateType of SWAP_OUT but "
+                            + "no indicator of where the Record is to be Swapped Out to; these records may be "
+                            + "lost when the repository is restored!");
+                    } else {
+                        getSegment(id).remove(id);
+                        this.swapLocations.add(location);
+                    }
+                    break;
+                case SWAP_IN:
+                    final String swapLocation = serdeFactory.getLocation(record);
+                    if (swapLocation == null) {
+                        logger.error("Received Record (ID=" + recordId + ") with UpdateType of SWAP_IN but no "
+                            + "indicator of where the Record is to be Swapped In from; these records may be duplicated "
+                            + "when the repository is restored!");
+                    } else {
+                        swapLocations.remove(swapLocation);
+                    }
+                    getSegment(id).put(id, record);
+                    break;
+                default:
+                    getSegment(id).put(id, record);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public int getRecordCount() {
+        int count = 0;
+        for (final Segment segment : segments) {
+            count += segment.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of bytes of direct memory that are currently allocated for records
+     */
+    public long getAllocatedBytes() {
+        long allocated = 0L;
+        for (final Segment segment : segments) {
+            allocated += segment.getAllocatedBytes();
+        }
+        return allocated;
+    }
+
+    @Override
+    public T lookup(final Object recordId) {
+        final long id = toLongId(recordId);
+        return getSegment(id).get(id);
+    }
+
+    @Override
+    public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId) {
+        return prepareSnapshot(maxTransactionId, this.swapLocations);
+    }
+
+    @Override
+    public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId, final Set<String> swapFileLocations) {
+        final List<SegmentCapture> segmentCaptures = new ArrayList<>(segments.length);
+        for (final Segment segment : segments) {
+            segmentCaptures.add(segment.capture());
+        }
+
+        return new Capture(segmentCaptures, new HashSet<>(swapFileLocations), maxTransactionId);
+    }
+
+    @Override
+    public synchronized void writeSnapshot(final SnapshotCapture<T> snapshot) throws IOException {
+        final File snapshotFile = new File(storageDirectory, "checkpoint");
+        final File partialFile = new File(storageDirectory, "checkpoint.partial");
+
+        // As with the HashMapSnapshot, we write to a 'partial' file, then delete the existing Snapshot file and rename the 'partial' file,
+        // so that there is always a viable Snapshot file, even if NiFi crashes while the snapshot is being written.
+        if (!snapshotFile.exists() && partialFile.exists()) {
+            final boolean rename = partialFile.renameTo(snapshotFile);
+            if (!rename) {
+                throw new IOException("Failed to rename partial snapshot file " + partialFile + " to " + snapshotFile);
+            }
+        }
+
+        try (final FileOutputStream fileOut = new FileOutputStream(partialFile);
+             final OutputStream bufferedOut = new BufferedOutputStream(fileOut);
+             final DataOutputStream dataOut = new DataOutputStream(bufferedOut)) {
+
+            dataOut.writeUTF(HashMapSnapshot.class.getName());
+            dataOut.writeInt(HashMapSnapshot.ENCODING_VERSION);
+
+            if (snapshot instanceof OffHeapSnapshot.Capture) {
+                // Copy the serialized form of each record directly from the off-heap segments.
+                final Capture capture = (Capture) snapshot;
+                dataOut.writeUTF(serdeEncoding);
+                dataOut.writeInt(serdeVersion);
+                dataOut.writeLong(snapshot.getMaxTransactionId());
+                dataOut.writeInt(capture.getRecordCount());
+                dataOut.write(serdeHeader);
+
+                byte[] copyBuffer = new byte[8192];
+                for (final SegmentCapture segmentCapture : capture.getSegmentCaptures()) {
+                    for (int i = 0; i < segmentCapture.size(); i++) {
+                        final ByteBuffer serialized = segmentCapture.getSerializedRecord(i);
+                        final int length = serialized.remaining();
+                        if (length > copyBuffer.length) {
+                            copyBuffer = new byte[length];
+                        }
+
+                        serialized.get(copyBuffer, 0, length);
+                        dataOut.write(copyBuffer, 0, length);
+                    }
+                }
+            } else {
+                final SerDe<T> serde = serdeFactory.createSerDe(null);
+                dataOut.writeUTF(serde.getClass().getName());
+                dataOut.writeInt(serde.getVersion());
+                dataOut.writeLong(snapshot.getMaxTransactionId());
+                dataOut.writeInt(snapshot.getRecords().size());
+                serde.writeHeader(dataOut);
+
+                for (final T record : snapshot.getRecords().values()) {
+                    serde.serializeRecord(record, dataOut);
+                }
+            }
+
+            dataOut.writeInt(snapshot.getSwapLocations().size());
+            for (final String swapLocation : snapshot.getSwapLocations()) {
+                dataOut.writeUTF(swapLocation);
+            }
+
+            dataOut.flush();
+            fileOut.getChannel().force(false);
+        }
+
+        if (snapshotFile.exists()) {
+            if (!snapshotFile.delete()) {
+                logger.warn("Unable to delete existing Snapshot file " + snapshotFile);
+            }
+        }
+
+        final boolean rename = partialFile.renameTo(snapshotFile);
+        if (!rename) {
+            throw new IOException("Failed to rename partial snapshot file " + partialFile + " to " + snapshotFile);
+        }
+
+        // Any delta that was written by a HashMapSnapshot is now encapsulated in the snapshot.
+        final File deltaFile = new File(storageDirectory, "checkpoint.delta");
+        if (deltaFile.exists() && !deltaFile.delete()) {
+            logger.warn("Unable to delete obsolete Snapshot Delta file " + deltaFile);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapSnapshot[" + storageDirectory + "]";
+    }
+
+    /**
+     * A set of records that are stored off-heap, along with the index of their locations. Records are appended to 'chunks' of direct memory.
+     * The location of a record is encoded as the index of the chunk in the upper 32 bits and the offset into the chunk in the lower 32 bits.
+     * At that location, the length of the serialized record is written as a 4-byte int, followed by the serialized record.
+     * Chunks are never modified except to append records, so a capture of the segment can continue to read its records
+     * while the segment is updated or compacted.
+     */
+    private class Segment {
+        private final LongKeyedIndex index = new LongKeyedIndex(1024);
+        private final ExposedByteArrayOutputStream serializationBuffer = new ExposedByteArrayOutputStream();
+        private final DataOutputStream serializationOut = new DataOutputStream(serializationBuffer);
+        private final SerDe<T> writeSerde;
+        private final SerDe<T> readSerde;
+
+        private List<ByteBuffer> chunks = new ArrayList<>();
+        private ByteBuffer currentChunk;
+        private int writeOffset;
+        private long allocatedBytes = 0L;
+        private long liveBytes = 0L;
+
+        Segment() {
+            writeSerde = serdeFactory.createSerDe(null);
+            writeSerDeHeader(writeSerde);
+            readSerde = createReadSerDe();
+        }
+
+        synchronized int size() {
+            return index.size();
+        }
+
+        synchronized long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        synchronized void put(final long recordId, final T record) {
+            serializationBuffer.reset();
+            try {
+                writeSerde.serializeRecord(record, serializationOut);
+                serializationOut.flush();
+            } catch (final IOException ioe) {
+                throw new UncheckedIOException("Failed to serialize Record with ID " + recordId, ioe);
+            }
+
+            final long location = append(ByteBuffer.wrap(serializationBuffer.getBuffer(), 0, serializationBuffer.size()));
+            final long previousLocation = index.put(recordId, location);
+            if (previousLocation != LongKeyedIndex.NO_VALUE) {
+                release(previousLocation);
+            }
+
+            compactIfNecessary();
+        }
+
+        synchronized void remove(final long recordId) {
+            final long location = index.remove(recordId);
+            if (location != LongKeyedIndex.NO_VALUE) {
+                release(location);
+                compactIfNecessary();
+            }
+        }
+
+        synchronized T get(final long recordId) {
+            final long location = index.get(recordId);
+            if (location == LongKeyedIndex.NO_VALUE) {
+                return null;
+            }
+
+            return deserialize(readSerde, read(chunks, location));
+        }
+
+        synchronized boolean contains(final long recordId) {
+            return index.get(recordId) != LongKeyedIndex.NO_VALUE;
+        }
+
+        synchronized SegmentCapture capture() {
+            final long[] recordIds = new long[index.size()];
+            final long[] locations = new long[index.size()];
+            index.copyTo(recordIds, locations);
+            return new SegmentCapture(recordIds, locations, new ArrayList<>(chunks));
+        }
+
+        private long append(final ByteBuffer serialized) {
+            final int length = serialized.remaining();
+            final int required = length + LENGTH_BYTES;
+            if (currentChunk == null || currentChunk.capacity() - writeOffset < required) {
+                // Grow chunks geometrically so that small repositories do not reserve a lot of direct memory.
+                final long preferredSize = Math.min(maxChunkSize, Math.max(MIN_CHUNK_SIZE, allocatedBytes));
+                final int chunkSize = (int) Math.max(preferredSize, required);
+                currentChunk = ByteBuffer.allocateDirect(chunkSize);
+                chunks.add(currentChunk);
+                writeOffset = 0;
+                allocatedBytes += chunkSize;
+            }
+
+            final int offset = writeOffset;
+            final ByteBuffer destination = currentChunk.duplicate();
+            destination.position(offset);
+            destination.putInt(length);
+            destination.put(serialized);
+
+            writeOffset += required;
+            liveBytes += required;
+            return ((long) (chunks.size() - 1) << 32) | offset;
+        }
+
+        private void release(final long location) {
+            final ByteBuffer chunk = chunks.get((int) (location >>> 32));
+            liveBytes -= chunk.getInt((int) location) + LENGTH_BYTES;
+        }
+
+        private void compactIfNecessary() {
+            if (chunks.size() < 2 || liveBytes * 2 > allocatedBytes) {
+                return;
+            }
+
+            final List<ByteBuffer> previousChunks = chunks;
+            final long[] recordIds = new long[index.size()];
+            final long[] locations = new long[index.size()];
+            index.copyTo(recordIds, locations);
+
+            chunks = new ArrayList<>();
+            currentChunk = null;
+            writeOffset = 0;
+            allocatedBytes = 0L;
+            liveBytes = 0L;
+
+            for (int i = 0; i < recordIds.length; i++) {
+                final long location = append(read(previousChunks, locations[i]));
+                index.put(recordIds[i], location);
+            }
+
+            logger.debug("Compacted off-heap segment of {} Records from {} chunks to {} chunks", recordIds.length, previousChunks.size(), chunks.size());
+        }
+    }
+
+    private static ByteBuffer read(final List<ByteBuffer> chunks, final long location) {
+        final ByteBuffer chunk = chunks.get((int) (location >>> 32));
+        final int offset = (int) location;
+        final int length = chunk.getInt(offset);
+
+        final ByteBuffer serialized = chunk.duplicate();
+        serialized.limit(offset + LENGTH_BYTES + length);
+        serialized.position(offset + LENGTH_BYTES);
+        return serialized;
+    }
+
+    private T deserialize(final SerDe<T> serde, final ByteBuffer serialized) {
+        try {
+            return serde.deserializeRecord(new DataInputStream(new ByteBufferInputStream(serialized)), serdeVersion);
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException("Failed to deserialize Record from off-heap snapshot", ioe);
+        }
+    }
+
+    private class SegmentCapture {
+        private final long[] recordIds;
+        private final long[] locations;
+        private final List<ByteBuffer> chunks;
+
+        SegmentCapture(final long[] recordIds, final long[] locations, final List<ByteBuffer> chunks) {
+            this.recordIds = recordIds;
+            this.locations = locations;
+            this.chunks = chunks;
+        }
+
+        int size() {
+            return recordIds.length;
+        }
+
+        long getRecordId(final int index) {
+            return recordIds[index];
+        }
+
+        ByteBuffer getSerializedRecord(final int index) {
+            return read(chunks, locations[index]);
+        }
+    }
+
+    /**
+     * A point-in-time capture of the snapshot. The records are deserialized lazily, as the Map returned by {@link #getRecords()} is iterated.
+     * Looking up a single record in that Map requires iterating over the records.
+     */
+    private class Capture implements SnapshotCapture<T> {
+        private final List<SegmentCapture> segmentCaptures;
+        private final Set<String> swapLocations;
+        private final long maxTransactionId;
+        private final int recordCount;
+
+        Capture(final List<SegmentCapture> segmentCaptures, final Set<String> swapLocations, final long maxTransactionId) {
+            this.segmentCaptures = segmentCaptures;
+            this.swapLocations = swapLocations;
+            this.maxTransactionId = maxTransactionId;
+            this.recordCount = segmentCaptures.stream().mapToInt(SegmentCapture::size).sum();
+        }
+
+        List<SegmentCapture> getSegmentCaptures() {
+            return segmentCaptures;
+        }
+
+        @Override
+        public int getRecordCount() {
+            return recordCount;
+        }
+
+        @Override
+        public Map<Object, T> getRecords() {
+            return new AbstractMap<Object, T>() {
+                @Override
+                public int size() {
+                    return recordCount;
+                }
+
+                @Override
+                public Set<Entry<Object, T>> entrySet() {
+                    return new AbstractSet<Entry<Object, T>>() {
+                        @Override
+                        public int size() {
+                            return recordCount;
+                        }
+
+                        @Override
+                        public Iterator<Entry<Object, T>> iterator() {
+                            return new CaptureIterator(segmentCaptures);
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+
+        @Override
+        public Set<String> getSwapLocations() {
+            return swapLocations;
+        }
+    }
+
+    private class CaptureIterator implements Iterator<Map.Entry<Object, T>> {
+        private final List<SegmentCapture> segmentCaptures;
+        private final SerDe<T> serde = createReadSerDe();
+        private int segmentIndex = 0;
+        private int recordIndex = 0;
+
+        CaptureIterator(final List<SegmentCapture> segmentCaptures) {
+            this.segmentCaptures = segmentCaptures;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (segmentIndex < segmentCaptures.size() && recordIndex >= segmentCaptures.get(segmentIndex).size()) {
+                segmentIndex++;
+                recordIndex = 0;
+            }
+
+            return segmentIndex < segmentCaptures.size();
+        }
+
+        @Override
+        public Map.Entry<Object, T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final SegmentCapture segmentCapture = segmentCaptures.get(segmentIndex);
+            final int index = recordIndex++;
+            final T record = deserialize(serde, segmentCapture.getSerializedRecord(index));
+            return new AbstractMap.SimpleImmutableEntry<>(segmentCapture.getRecordId(index), record);
+        }
+    }
+
+    /**
+     * A live view of the records in the snapshot. Modifications to the view are applied to the snapshot. In order to avoid deserializing
+     * records unnecessarily, {@link #put(Object, Object)} and {@link #remove(Object)} always return <code>null</code> rather than the
+     * previous value. Iteration covers the records that exist when the iterator is created and skips any that are removed during iteration.
+     */
+    private class LiveRecordMap extends AbstractMap<Object, T> {
+        @Override
+        public int size() {
+            return getRecordCount();
+        }
+
+        @Override
+        public T get(final Object key) {
+            return lookup(key);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            final long id = toLongId(key);
+            return getSegment(id).contains(id);
+        }
+
+        @Override
+        public T put(final Object key, final T value) {
+            final long id = toLongId(key);
+            getSegment(id).put(id, value);
+            return null;
+        }
+
+        @Override
+        public T remove(final Object key) {
+            final long id = toLongId(key);
+            getSegment(id).remove(id);
+            return null;
+        }
+
+        @Override
+        public Set<Entry<Object, T>> entrySet() {
+            return new AbstractSet<Entry<Object, T>>() {
+                @Override
+                public int size() {
+                    return getRecordCount();
+                }
+
+                @Override
+                public Iterator<Entry<Object, T>> iterator() {
+                    final List<SegmentCapture> segmentCaptures = new ArrayList<>(segments.length);
+                    for (final Segment segment : segments) {
+                        segmentCaptures.add(segment.capture());
+                    }
+
+                    return new CaptureIterator(segmentCaptures);
+                }
+            };
+        }
+    }
+
+    private static class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        ExposedByteArrayOutputStream() {
+            super(4096);
+        }
+
+        byte[] getBuffer() {
+            return buf;
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
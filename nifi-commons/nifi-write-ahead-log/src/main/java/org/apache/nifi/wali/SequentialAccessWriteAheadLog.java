@@ -19,6 +19,7 @@ package org.apache.nifi.wali;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -27,6 +28,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -53,6 +60,14 @@ import org.wali.WriteAheadRepository;
  * that records are recovered correctly if two threads simultaneously update the write-ahead log
  * with updates for the same record.
  * </p>
+ *
+ * <p>
+ * Optionally, the repository may be configured to use "group commit." In this mode, calls to {@link #update(Collection, boolean)}
+ * do not write to the journal themselves. Instead, the update is queued and a single writer thread drains all pending updates,
+ * writes them to the journal as a single transaction, and performs at most one fsync for the entire group before allowing the
+ * callers to return. When many threads update the repository concurrently, this greatly reduces contention on the journal
+ * and the number of fsyncs that must be performed, at the cost of serializing all updates on the writer thread.
+ * </p>
  */
 public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T> {
     private static final int PARTITION_INDEX = 0;
@@ -60,6 +75,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     private static final Pattern JOURNAL_FILENAME_PATTERN = Pattern.compile("\\d+\\.journal");
     private static final int MAX_BUFFERS = 64;
     private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_GROUP_COMMIT_UPDATES = 1024;
 
     private final File storageDirectory;
     private final File journalsDirectory;
@@ -83,11 +99,48 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     private WriteAheadJournal<T> journal;
     private volatile long nextTransactionId = 0L;
 
+    private final boolean groupCommit;
+    private final BlockingQueue<PendingUpdate<T>> pendingUpdates = new LinkedBlockingQueue<>();
+    private volatile boolean shutdown = false;
+    private Thread groupCommitThread;
+
     public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory) throws IOException {
         this(storageDirectory, serdeFactory, SyncListener.NOP_SYNC_LISTENER);
     }
 
     public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, false);
+    }
+
+    public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener, final boolean groupCommit) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, groupCommit, 0D);
+    }
+
+    /**
+     * @param storageDirectory the directory to store the journals and snapshot in
+     * @param serdeFactory the factory for the SerDe that is used to serialize records
+     * @param syncListener the listener to notify when the repository is synced to disk
+     * @param groupCommit whether or not updates should be written to the journal using group commit
+     * @param maxIncrementalSnapshotRatio the max ratio of changed records to total records for which a checkpoint writes only the changed records,
+     *            or 0 to always write all records. See {@link HashMapSnapshot}.
+     * @throws IOException if unable to create the storage directories
+     */
+    public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener, final boolean groupCommit,
+                                         final double maxIncrementalSnapshotRatio) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, groupCommit, new HashMapSnapshot<>(storageDirectory, serdeFactory, maxIncrementalSnapshotRatio));
+    }
+
+    /**
+     * @param storageDirectory the directory to store the journals in
+     * @param serdeFactory the factory for the SerDe that is used to serialize records
+     * @param syncListener the listener to notify when the repository is synced to disk
+     * @param groupCommit whether or not updates should be written to the journal using group commit
+     * @param snapshot the snapshot that holds the active records, such as a {@link HashMapSnapshot} or an {@link OffHeapSnapshot}
+     * @param <S> the type of the snapshot, which must also be able to look up records by their identifiers
+     * @throws IOException if unable to create the storage directories
+     */
+    public <S extends WriteAheadSnapshot<T> & RecordLookup<T>> SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory,
+                                                                                         final SyncListener syncListener, final boolean groupCommit, final S snapshot) throws IOException {
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new IOException("Directory " + storageDirectory + " does not exist and cannot be created");
         }
@@ -95,9 +148,8 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             throw new IOException("File " + storageDirectory + " is a regular file and not a directory");
         }
 
-        final HashMapSnapshot<T> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
-        this.snapshot = hashMapSnapshot;
-        this.recordLookup = hashMapSnapshot;
+        this.snapshot = snapshot;
+        this.recordLookup = snapshot;
 
         this.storageDirectory = storageDirectory;
         this.journalsDirectory = new File(storageDirectory, "journals");
@@ -109,6 +161,7 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
         this.serdeFactory = serdeFactory;
         this.syncListener = (syncListener == null) ? SyncListener.NOP_SYNC_LISTENER : syncListener;
+        this.groupCommit = groupCommit;
     }
 
     @Override
@@ -117,6 +170,10 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             throw new IllegalStateException("Cannot update repository until record recovery has been performed");
         }
 
+        if (groupCommit) {
+            return updateGroupCommit(records, forceSync);
+        }
+
         journalReadLock.lock();
         try {
             journal.update(records, recordLookup);
@@ -134,6 +191,126 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
         return PARTITION_INDEX;
     }
 
+    private int updateGroupCommit(final Collection<T> records, final boolean forceSync) throws IOException {
+        if (shutdown) {
+            throw new IOException("Cannot update Write-Ahead Log at " + storageDirectory + " because it has been shutdown");
+        }
+
+        final PendingUpdate<T> pendingUpdate = new PendingUpdate<>(records, forceSync);
+        pendingUpdates.add(pendingUpdate);
+
+        // If we were shutdown while queuing the update, the writer thread may already have finished draining the queue.
+        if (shutdown && pendingUpdates.remove(pendingUpdate)) {
+            throw new IOException("Cannot update Write-Ahead Log at " + storageDirectory + " because it has been shutdown");
+        }
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    pendingUpdate.getFuture().get();
+                    break;
+                } catch (final InterruptedException ie) {
+                    // If the writer thread has not yet taken the update, it will never be written, so the caller can be told that it failed.
+                    // Otherwise, the update will be written regardless, so wait for it rather than report a failure for an update that succeeds.
+                    if (pendingUpdates.remove(pendingUpdate)) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for update to be written to Write-Ahead Log at " + storageDirectory, ie);
+                    }
+
+                    interrupted = true;
+                }
+            }
+        } catch (final ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException("Failed to write update to Write-Ahead Log at " + storageDirectory, cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return PARTITION_INDEX;
+    }
+
+    private void writePendingUpdates() {
+        final List<PendingUpdate<T>> group = new ArrayList<>();
+        final List<T> groupRecords = new ArrayList<>();
+
+        while (!shutdown || !pendingUpdates.isEmpty()) {
+            group.clear();
+            groupRecords.clear();
+
+            try {
+                final PendingUpdate<T> firstUpdate = pendingUpdates.poll(100, TimeUnit.MILLISECONDS);
+                if (firstUpdate == null) {
+                    continue;
+                }
+
+                group.add(firstUpdate);
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            pendingUpdates.drainTo(group, MAX_GROUP_COMMIT_UPDATES - 1);
+
+            boolean forceSync = false;
+            for (final PendingUpdate<T> pendingUpdate : group) {
+                groupRecords.addAll(pendingUpdate.getRecords());
+                forceSync |= pendingUpdate.isForceSync();
+            }
+
+            try {
+                journalReadLock.lock();
+                try {
+                    journal.update(groupRecords, recordLookup);
+
+                    if (forceSync) {
+                        journal.fsync();
+                        syncListener.onSync(PARTITION_INDEX);
+                    }
+
+                    snapshot.update(groupRecords);
+                } finally {
+                    journalReadLock.unlock();
+                }
+
+                logger.debug("Group commit wrote {} records from {} updates to Write-Ahead Log at {}", groupRecords.size(), group.size(), storageDirectory);
+                for (final PendingUpdate<T> pendingUpdate : group) {
+                    pendingUpdate.getFuture().complete(null);
+                }
+            } catch (final Throwable t) {
+                for (final PendingUpdate<T> pendingUpdate : group) {
+                    pendingUpdate.getFuture().completeExceptionally(t);
+                }
+            }
+        }
+
+        final IOException shutdownException = new IOException("Cannot update Write-Ahead Log at " + storageDirectory + " because it has been shutdown");
+        PendingUpdate<T> pendingUpdate;
+        while ((pendingUpdate = pendingUpdates.poll()) != null) {
+            pendingUpdate.getFuture().completeExceptionally(shutdownException);
+        }
+    }
+
+    private synchronized void startGroupCommitThread() {
+        if (groupCommitThread != null) {
+            return;
+        }
+
+        groupCommitThread = new Thread(this::writePendingUpdates, "Write-Ahead Log Group Commit " + storageDirectory.getName());
+        groupCommitThread.setDaemon(true);
+        groupCommitThread.start();
+    }
+
     @Override
     public synchronized Collection<T> recoverRecords() throws IOException {
         if (recovered) {
@@ -183,27 +360,33 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
         int journalFilesSkipped = 0;
         long maxTransactionId = snapshotTransactionId;
 
-        for (final File journalFile : orderedJournalFiles) {
-            final long journalMinTransactionId = getMinTransactionId(journalFile);
-            if (journalMinTransactionId < snapshotTransactionId) {
-                logger.debug("Will not recover records from journal file {} because the minimum Transaction ID for that journal is {} and the Transaction ID recovered from Snapshot was {}",
-                    journalFile, journalMinTransactionId, snapshotTransactionId);
-
-                journalFilesSkipped++;
-                continue;
-            }
+        // Transactions are always applied in order, but if the SerDe allows, the deserialization of the transactions is spread across all available cores.
+        final ExecutorService deserializationExecutor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (final File journalFile : orderedJournalFiles) {
+                final long journalMinTransactionId = getMinTransactionId(journalFile);
+                if (journalMinTransactionId < snapshotTransactionId) {
+                    logger.debug("Will not recover records from journal file {} because the minimum Transaction ID for that journal is {} and the Transaction ID recovered from Snapshot was {}",
+                        journalFile, journalMinTransactionId, snapshotTransactionId);
+
+                    journalFilesSkipped++;
+                    continue;
+                }
 
-            logger.debug("Min Transaction ID for journal {} is {}, so will recover records from journal", journalFile, journalMinTransactionId);
-            journalFilesRecovered++;
+                logger.debug("Min Transaction ID for journal {} is {}, so will recover records from journal", journalFile, journalMinTransactionId);
+                journalFilesRecovered++;
 
-            try (final WriteAheadJournal<T> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
-                final JournalRecovery journalRecovery = journal.recoverRecords(recoveredRecords, swapLocations);
-                final int updates = journalRecovery.getUpdateCount();
+                try (final WriteAheadJournal<T> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
+                    final JournalRecovery journalRecovery = journal.recoverRecords(recoveredRecords, swapLocations, deserializationExecutor);
+                    final int updates = journalRecovery.getUpdateCount();
 
-                logger.debug("Recovered {} updates from journal {}", updates, journalFile);
-                totalUpdates += updates;
-                maxTransactionId = Math.max(maxTransactionId, journalRecovery.getMaxTransactionId());
+                    logger.debug("Recovered {} updates from journal {}", updates, journalFile);
+                    totalUpdates += updates;
+                    maxTransactionId = Math.max(maxTransactionId, journalRecovery.getMaxTransactionId());
+                }
             }
+        } finally {
+            deserializationExecutor.shutdownNow();
         }
 
         logger.debug("Recovered {} updates from {} journal files and skipped {} journal files because their data was already encapsulated in the snapshot",
@@ -218,6 +401,10 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
 
         checkpoint(this.recoveredSwapLocations);
 
+        if (groupCommit) {
+            startGroupCommitThread();
+        }
+
         return recoveredRecords.values();
     }
 
@@ -324,14 +511,30 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
         final long totalNanos = System.nanoTime() - startNanos;
         final long millis = TimeUnit.NANOSECONDS.toMillis(totalNanos);
         logger.info("Checkpointed Write-Ahead Log with {} Records and {} Swap Files in {} milliseconds (Stop-the-world time = {} milliseconds), max Transaction ID {}",
-                snapshotCapture.getRecords().size(), snapshotCapture.getSwapLocations().size(), millis, stopTheWorldMillis, snapshotCapture.getMaxTransactionId());
+                snapshotCapture.getRecordCount(), snapshotCapture.getSwapLocations().size(), millis, stopTheWorldMillis, snapshotCapture.getMaxTransactionId());
 
-        return snapshotCapture.getRecords().size();
+        return snapshotCapture.getRecordCount();
     }
 
 
     @Override
     public void shutdown() throws IOException {
+        shutdown = true;
+
+        final Thread writerThread;
+        synchronized (this) {
+            writerThread = groupCommitThread;
+        }
+
+        if (writerThread != null) {
+            try {
+                writerThread.join();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for pending updates to be written to Write-Ahead Log at " + storageDirectory, ie);
+            }
+        }
+
         journalWriteLock.lock();
         try {
             if (journal != null) {
@@ -341,4 +544,27 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             journalWriteLock.unlock();
         }
     }
+
+    private static class PendingUpdate<T> {
+        private final Collection<T> records;
+        private final boolean forceSync;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        public PendingUpdate(final Collection<T> records, final boolean forceSync) {
+            this.records = records;
+            this.forceSync = forceSync;
+        }
+
+        public Collection<T> getRecords() {
+            return records;
+        }
+
+        public boolean isForceSync() {
+            return forceSync;
+        }
+
+        public CompletableFuture<Void> getFuture() {
+            return future;
+        }
+    }
 }
@@ -23,6 +23,14 @@ import java.util.Set;
 public interface SnapshotCapture<T> {
     Map<Object, T> getRecords();
 
+    /**
+     * @return the total number of Records in the snapshot, which may be more than the number of Records returned by {@link #getRecords()}
+     *         if only the changed Records were captured
+     */
+    default int getRecordCount() {
+        return getRecords().size();
+    }
+
     long getMaxTransactionId();
 
     Set<String> getSwapLocations();
@@ -0,0 +1,448 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wali.SerDeFactory;
+import org.wali.SyncListener;
+import org.wali.WriteAheadRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * This implementation of WriteAheadRepository stripes updates across several journals, one for each of the configured
+ * storage directories, rather than writing all updates to a single journal as the {@link SequentialAccessWriteAheadLog} does.
+ * This allows the repository to make use of the write bandwidth of several disks and reduces contention between threads
+ * that are updating the repository concurrently.
+ * </p>
+ *
+ * <p>
+ * All journals share a single sequence of Transaction IDs. When the repository is checkpointed, the state of all stripes is
+ * written to a single {@link HashMapSnapshot} in the first storage directory. Upon recovery, the transactions of all journals
+ * are replayed on top of the snapshot in Transaction ID order, so that the most recent update to a Record always wins,
+ * regardless of which journal it was written to.
+ * </p>
+ *
+ * <p>
+ * The first storage directory uses the same layout as the {@link SequentialAccessWriteAheadLog}, so a repository that was
+ * written by the {@link SequentialAccessWriteAheadLog} can be recovered by this implementation. The reverse is not true:
+ * if the repository has been written to by this implementation, the journals in any storage directory other than the first
+ * will be ignored by the {@link SequentialAccessWriteAheadLog}.
+ * </p>
+ *
+ * <p>
+ * As with the {@link SequentialAccessWriteAheadLog}, this implementation makes the assumption that only a single thread will ever
+ * issue updates for a given Record at any one time.
+ * </p>
+ */
+public class StripedSequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T> {
+    private static final Logger logger = LoggerFactory.getLogger(StripedSequentialAccessWriteAheadLog.class);
+    private static final Pattern JOURNAL_FILENAME_PATTERN = Pattern.compile("\\d+\\.journal");
+    private static final int MAX_BUFFERS = 64;
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES = 5 * 1024 * 1024; // 5 MB
+
+    private final File storageDirectory;
+    private final List<File> journalsDirectories;
+    private final SerDeFactory<T> serdeFactory;
+    private final SyncListener syncListener;
+    private final Set<String> recoveredSwapLocations = new HashSet<>();
+
+    private final ReadWriteLock journalRWLock = new ReentrantReadWriteLock();
+    private final Lock journalReadLock = journalRWLock.readLock();
+    private final Lock journalWriteLock = journalRWLock.writeLock();
+    private final ObjectPool<ByteArrayDataOutputStream> streamPool = new BlockingQueuePool<>(MAX_BUFFERS,
+        () -> new ByteArrayDataOutputStream(BUFFER_SIZE),
+        stream -> stream.getByteArrayOutputStream().size() < BUFFER_SIZE,
+        stream -> stream.getByteArrayOutputStream().reset());
+
+    private final WriteAheadSnapshot<T> snapshot;
+    private final RecordLookup<T> recordLookup;
+
+    private final AtomicLong nextTransactionId = new AtomicLong(0L);
+    private final AtomicInteger stripeCounter = new AtomicInteger(0);
+    private final List<WriteAheadJournal<T>> journals;
+    private volatile boolean recovered = false;
+
+    public StripedSequentialAccessWriteAheadLog(final List<File> storageDirectories, final SerDeFactory<T> serdeFactory) throws IOException {
+        this(storageDirectories, serdeFactory, SyncListener.NOP_SYNC_LISTENER);
+    }
+
+    public StripedSequentialAccessWriteAheadLog(final List<File> storageDirectories, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
+        this(storageDirectories, serdeFactory, syncListener, 0D);
+    }
+
+    /**
+     * @param storageDirectories the directories to write the journals to; the snapshot is written to the first directory
+     * @param serdeFactory the factory for the SerDe that is used to serialize records
+     * @param syncListener the listener to notify when the repository is synced to disk
+     * @param maxIncrementalSnapshotRatio the max ratio of changed records to total records for which a checkpoint writes only the changed records,
+     *            or 0 to always write all records. See {@link HashMapSnapshot}.
+     * @throws IOException if unable to create the storage directories
+     */
+    public StripedSequentialAccessWriteAheadLog(final List<File> storageDirectories, final SerDeFactory<T> serdeFactory, final SyncListener syncListener,
+                                                final double maxIncrementalSnapshotRatio) throws IOException {
+        this(storageDirectories, serdeFactory, syncListener, new HashMapSnapshot<>(getSnapshotDirectory(storageDirectories), serdeFactory, maxIncrementalSnapshotRatio));
+    }
+
+    /**
+     * @param storageDirectories the directories to write the journals to
+     * @param serdeFactory the factory for the SerDe that is used to serialize records
+     * @param syncListener the listener to notify when the repository is synced to disk
+     * @param snapshot the snapshot that holds the active records, which should store its files in the first storage directory
+     * @param <S> the type of the snapshot, which must also be able to look up records by their identifiers
+     * @throws IOException if unable to create the storage directories
+     */
+    public <S extends WriteAheadSnapshot<T> & RecordLookup<T>> StripedSequentialAccessWriteAheadLog(final List<File> storageDirectories, final SerDeFactory<T> serdeFactory,
+                                                                                                final SyncListener syncListener, final S snapshot) throws IOException {
+        final File snapshotDirectory = getSnapshotDirectory(storageDirectories);
+
+        final List<File> journalsDirectories = new ArrayList<>(storageDirectories.size());
+        for (final File directory : storageDirectories) {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Directory " + directory + " does not exist and cannot be created");
+            }
+            if (!directory.isDirectory()) {
+                throw new IOException("File " + directory + " is a regular file and not a directory");
+            }
+
+            final File journalsDirectory = new File(directory, "journals");
+            if (!journalsDirectory.exists() && !journalsDirectory.mkdirs()) {
+                throw new IOException("Directory " + journalsDirectory + " does not exist and cannot be created");
+            }
+
+            journalsDirectories.add(journalsDirectory);
+        }
+
+        this.storageDirectory = snapshotDirectory;
+        this.journalsDirectories = Collections.unmodifiableList(journalsDirectories);
+        this.journals = new ArrayList<>(Collections.nCopies(journalsDirectories.size(), null));
+
+        this.snapshot = snapshot;
+        this.recordLookup = snapshot;
+
+        this.serdeFactory = serdeFactory;
+        this.syncListener = (syncListener == null) ? SyncListener.NOP_SYNC_LISTENER : syncListener;
+    }
+
+    private static File getSnapshotDirectory(final List<File> storageDirectories) {
+        if (storageDirectories == null || storageDirectories.isEmpty()) {
+            throw new IllegalArgumentException("At least one storage directory must be specified");
+        }
+
+        return storageDirectories.get(0);
+    }
+
+    /**
+     * @return the number of journals that updates are striped across
+     */
+    public int getStripeCount() {
+        return journalsDirectories.size();
+    }
+
+    @Override
+    public int update(final Collection<T> records, final boolean forceSync) throws IOException {
+        if (!recovered) {
+            throw new IllegalStateException("Cannot update repository until record recovery has been performed");
+        }
+
+        final int stripeIndex = Math.floorMod(stripeCounter.getAndIncrement(), journals.size());
+
+        journalReadLock.lock();
+        try {
+            final WriteAheadJournal<T> journal = journals.get(stripeIndex);
+            journal.update(records, recordLookup);
+
+            if (forceSync) {
+                journal.fsync();
+                syncListener.onSync(stripeIndex);
+            }
+
+            snapshot.update(records);
+        } finally {
+            journalReadLock.unlock();
+        }
+
+        return stripeIndex;
+    }
+
+    @Override
+    public synchronized Collection<T> recoverRecords() throws IOException {
+        if (recovered) {
+            throw new IllegalStateException("Cannot recover records from repository because record recovery has already commenced");
+        }
+
+        logger.info("Recovering records from Striped Write-Ahead Log at {} with {} stripes", storageDirectory, journalsDirectories.size());
+
+        final long recoverStart = System.nanoTime();
+        recovered = true;
+        final SnapshotRecovery<T> snapshotRecovery = snapshot.recover();
+        this.recoveredSwapLocations.addAll(snapshotRecovery.getRecoveredSwapLocations());
+
+        final Map<Object, T> recoveredRecords = snapshotRecovery.getRecords();
+        final Set<String> swapLocations = snapshotRecovery.getRecoveredSwapLocations();
+        final long snapshotTransactionId = snapshotRecovery.getMaxTransactionId();
+
+        final List<File> journalFiles = new ArrayList<>();
+        for (final File journalsDirectory : journalsDirectories) {
+            final File[] files = journalsDirectory.listFiles(this::isJournalFile);
+            if (files == null) {
+                throw new IOException("Cannot access the list of files in directory " + journalsDirectory + "; please ensure that appropriate file permissions are set.");
+            }
+
+            Collections.addAll(journalFiles, files);
+        }
+
+        logger.info("Recovered {} records and {} swap files from Snapshot at {} with Max Transaction ID of {}. Now recovering records from {} journal files",
+            recoveredRecords.size(), swapLocations.size(), storageDirectory, snapshotTransactionId, journalFiles.size());
+
+        // Open a reader for each journal that is not already encapsulated in the snapshot. Because each journal contains
+        // a strictly increasing sequence of Transaction IDs, we can replay all of the journals in global Transaction ID order
+        // by always applying the next transaction of whichever journal has the smallest next Transaction ID.
+        final List<LengthDelimitedJournal<T>.TransactionReader> readers = new ArrayList<>();
+        final Comparator<LengthDelimitedJournal<T>.TransactionReader> transactionIdComparator = Comparator.comparingLong(journalReader -> journalReader.getNextTransactionId());
+        final PriorityQueue<LengthDelimitedJournal<T>.TransactionReader> readerQueue = new PriorityQueue<>(transactionIdComparator);
+
+        int totalUpdates = 0;
+        int journalFilesSkipped = 0;
+        long maxTransactionId = snapshotTransactionId;
+
+        // Each reader reads ahead of the transaction being applied and, if the SerDe allows, deserializes the transactions that it has read
+        // using this executor, so that deserialization is spread across all available cores while transactions are still applied in order.
+        final ExecutorService deserializationExecutor = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (final File journalFile : journalFiles) {
+                final long journalMinTransactionId = getMinTransactionId(journalFile);
+                if (journalMinTransactionId < snapshotTransactionId) {
+                    logger.debug("Will not recover records from journal file {} because the minimum Transaction ID for that journal is {} and the Transaction ID recovered from Snapshot was {}",
+                        journalFile, journalMinTransactionId, snapshotTransactionId);
+
+                    journalFilesSkipped++;
+                    continue;
+                }
+
+                final LengthDelimitedJournal<T> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L);
+                final LengthDelimitedJournal<T>.TransactionReader reader = journal.openTransactionReader(deserializationExecutor);
+                readers.add(reader);
+
+                if (reader.hasNextTransaction()) {
+                    readerQueue.add(reader);
+                }
+            }
+
+            LengthDelimitedJournal<T>.TransactionReader reader;
+            while ((reader = readerQueue.poll()) != null) {
+                reader.applyNextTransaction(recoveredRecords, swapLocations);
+
+                if (reader.hasNextTransaction()) {
+                    readerQueue.add(reader);
+                }
+            }
+
+            for (final LengthDelimitedJournal<T>.TransactionReader journalReader : readers) {
+                totalUpdates += journalReader.getUpdateCount();
+                maxTransactionId = Math.max(maxTransactionId, journalReader.getMaxTransactionId());
+            }
+        } finally {
+            for (final LengthDelimitedJournal<T>.TransactionReader journalReader : readers) {
+                try {
+                    journalReader.close();
+                } catch (final IOException ioe) {
+                    logger.warn("Failed to close journal after recovering records from it", ioe);
+                }
+            }
+
+            deserializationExecutor.shutdownNow();
+        }
+
+        logger.debug("Recovered {} updates from {} journal files and skipped {} journal files because their data was already encapsulated in the snapshot",
+            totalUpdates, readers.size(), journalFilesSkipped);
+        nextTransactionId.set(maxTransactionId + 1);
+
+        final long recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - recoverStart);
+        logger.info("Successfully recovered {} records in {} milliseconds. Now checkpointing to ensure that Write-Ahead Log is in a consistent state", recoveredRecords.size(), recoveryMillis);
+
+        this.recoveredSwapLocations.addAll(swapLocations);
+
+        checkpoint(this.recoveredSwapLocations);
+
+        return recoveredRecords.values();
+    }
+
+    private long getMinTransactionId(final File journalFile) {
+        final String filename = journalFile.getName();
+        final String numeral = filename.substring(0, filename.indexOf("."));
+        return Long.parseLong(numeral);
+    }
+
+    private boolean isJournalFile(final File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+
+        final String filename = file.getName();
+        return JOURNAL_FILENAME_PATTERN.matcher(filename).matches();
+    }
+
+    @Override
+    public synchronized Set<String> getRecoveredSwapLocations() throws IOException {
+        if (!recovered) {
+            throw new IllegalStateException("Cannot retrieve the Recovered Swap Locations until record recovery has been performed");
+        }
+
+        return Collections.unmodifiableSet(this.recoveredSwapLocations);
+    }
+
+    public SnapshotCapture<T> captureSnapshot() {
+        return snapshot.prepareSnapshot(nextTransactionId.get() - 1);
+    }
+
+    @Override
+    public int checkpoint() throws IOException {
+        return checkpoint(null);
+    }
+
+    private int checkpoint(final Set<String> swapLocations) throws IOException {
+        final SnapshotCapture<T> snapshotCapture;
+
+        final long startNanos = System.nanoTime();
+        final List<File> existingJournals = new ArrayList<>();
+        journalWriteLock.lock();
+        try {
+            if (!isCheckpointRequired()) {
+                logger.debug("Will not checkpoint Write-Ahead Log because no updates have occurred since last checkpoint");
+                return snapshot.getRecordCount();
+            }
+
+            for (final WriteAheadJournal<T> journal : journals) {
+                if (journal == null) {
+                    continue;
+                }
+
+                try {
+                    journal.fsync();
+                } catch (final Exception e) {
+                    logger.error("Failed to synch Write-Ahead Log's journal to disk at {}", storageDirectory, e);
+                }
+
+                try {
+                    journal.close();
+                } catch (final Exception e) {
+                    logger.error("Failed to close Journal while attempting to checkpoint Write-Ahead Log at {}", storageDirectory);
+                }
+            }
+
+            syncListener.onGlobalSync();
+
+            for (final File journalsDirectory : journalsDirectories) {
+                final File[] existingFiles = journalsDirectory.listFiles(this::isJournalFile);
+                if (existingFiles != null) {
+                    Collections.addAll(existingJournals, existingFiles);
+                }
+            }
+
+            final long maxTransactionId = nextTransactionId.get() - 1;
+            if (swapLocations == null) {
+                snapshotCapture = snapshot.prepareSnapshot(maxTransactionId);
+            } else {
+                snapshotCapture = snapshot.prepareSnapshot(maxTransactionId, swapLocations);
+            }
+
+            for (int i = 0; i < journalsDirectories.size(); i++) {
+                final File journalsDirectory = journalsDirectories.get(i);
+
+                // As with the SequentialAccessWriteAheadLog, we name the journal file <next transaction id>.journal. If an empty
+                // journal file already exists with that name, we don't want to create a new file on top of it because it would get
+                // deleted below when we clean up old journals. So we increment the Transaction ID and try again.
+                File journalFile = new File(journalsDirectory, nextTransactionId.get() + ".journal");
+                while (journalFile.exists()) {
+                    journalFile = new File(journalsDirectory, nextTransactionId.incrementAndGet() + ".journal");
+                }
+
+                final WriteAheadJournal<T> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, nextTransactionId.get(),
+                    DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES, nextTransactionId::getAndIncrement);
+                journal.writeHeader();
+                journals.set(i, journal);
+            }
+
+            logger.debug("Created {} new Journals starting with Transaction ID {}", journals.size(), nextTransactionId.get());
+        } finally {
+            journalWriteLock.unlock();
+        }
+
+        final long stopTheWorldMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        snapshot.writeSnapshot(snapshotCapture);
+
+        for (final File existingJournal : existingJournals) {
+            final LengthDelimitedJournal<T> journal = new LengthDelimitedJournal<>(existingJournal, serdeFactory, streamPool, 0L);
+            journal.dispose();
+        }
+
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        logger.info("Checkpointed Striped Write-Ahead Log with {} Records and {} Swap Files in {} milliseconds (Stop-the-world time = {} milliseconds), max Transaction ID {}",
+            snapshotCapture.getRecordCount(), snapshotCapture.getSwapLocations().size(), millis, stopTheWorldMillis, snapshotCapture.getMaxTransactionId());
+
+        return snapshotCapture.getRecordCount();
+    }
+
+    // guarded by journalWriteLock
+    private boolean isCheckpointRequired() {
+        for (final WriteAheadJournal<T> journal : journals) {
+            if (journal == null || !journal.isHealthy() || journal.getSummary().getTransactionCount() > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void shutdown() throws IOException {
+        journalWriteLock.lock();
+        try {
+            for (final WriteAheadJournal<T> journal : journals) {
+                if (journal != null) {
+                    journal.close();
+                }
+            }
+        } finally {
+            journalWriteLock.unlock();
+        }
+    }
+}
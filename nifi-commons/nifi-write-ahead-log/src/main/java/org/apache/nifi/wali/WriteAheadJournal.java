@@ -22,11 +22,26 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 public interface WriteAheadJournal<T> extends Closeable {
 
     JournalRecovery recoverRecords(Map<Object, T> recordMap, Set<String> swapLocations) throws IOException;
 
+    /**
+     * Recovers the records from the journal, deserializing the updates concurrently using the given executor if the journal supports doing so.
+     * Regardless, the updates are applied to the given record map and swap locations in the order in which they were written.
+     *
+     * @param recordMap the map of Record ID to Record that the updates should be applied to
+     * @param swapLocations the set of swap locations that the updates should be applied to
+     * @param deserializationExecutor the executor to use for deserializing updates
+     * @return a summary of the recovery
+     * @throws IOException if unable to read from the journal
+     */
+    default JournalRecovery recoverRecords(Map<Object, T> recordMap, Set<String> swapLocations, ExecutorService deserializationExecutor) throws IOException {
+        return recoverRecords(recordMap, swapLocations);
+    }
+
     /**
      * Updates the journal with the given set of records
      *
@@ -185,4 +185,25 @@ public interface SerDe<T> {
     default boolean isMoreInExternalFile() throws IOException {
         return false;
     }
+
+    /**
+     * Indicates whether or not the updates in a journal may be deserialized concurrently, each by a separate instance of this SerDe that has been
+     * created by the SerDeFactory and initialized via {@link #readHeader(DataInputStream)}. This is possible only if {@link #deserializeEdit(DataInputStream, Map, int)}
+     * does not make use of the current states of the records, as those states are not known until all previous updates have been applied.
+     *
+     * @return <code>true</code> if edits may be deserialized concurrently by separate instances, <code>false</code> otherwise
+     */
+    default boolean isConcurrentDeserializationSupported() {
+        return false;
+    }
+
+    /**
+     * Indicates whether or not {@link #serializeEdit(Object, Object, DataOutputStream)} makes use of the previous state of the record. If not, the
+     * write-ahead log passes <code>null</code> as the previous state rather than looking it up, which may require the record to be deserialized.
+     *
+     * @return <code>true</code> if the previous state of the record must be provided when serializing an edit, <code>false</code> otherwise
+     */
+    default boolean isPreviousStateRequired() {
+        return true;
+    }
 }
@@ -35,6 +35,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -115,6 +116,92 @@ public class TestHashMapSnapshot {
         assertEquals(records, recoveredRecords);
     }
 
+    @Test
+    public void testIncrementalSnapshotRoundTrip() throws IOException {
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, 0.6D);
+        assertEquals(0, snapshot.recover().getRecords().size());
+
+        for (int i = 0; i < 10; i++) {
+            snapshot.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.CREATE)));
+        }
+
+        // No full snapshot exists yet, so all records must be written.
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(10L));
+        final File snapshotFile = new File(storageDirectory, "checkpoint");
+        final File deltaFile = new File(storageDirectory, "checkpoint.delta");
+        final long fullSnapshotLength = snapshotFile.length();
+        assertFalse(deltaFile.exists());
+
+        final DummyRecord update1 = new DummyRecord("1", UpdateType.UPDATE);
+        update1.setProperties(Collections.singletonMap("updated", "true"));
+        snapshot.update(Collections.singleton(update1));
+        snapshot.update(Collections.singleton(new DummyRecord("2", UpdateType.DELETE)));
+
+        final DummyRecord swapOut3 = new DummyRecord("3", UpdateType.SWAP_OUT);
+        swapOut3.setSwapLocation("swapFile-3");
+        snapshot.update(Collections.singleton(swapOut3));
+
+        // Only 3 of the 10 records changed, so only those records should be captured and only a delta should be written.
+        final SnapshotCapture<DummyRecord> deltaCapture = snapshot.prepareSnapshot(20L);
+        assertEquals(3, deltaCapture.getRecords().size());
+        assertEquals(8, deltaCapture.getRecordCount());
+        snapshot.writeSnapshot(deltaCapture);
+        assertTrue(deltaFile.exists());
+        assertEquals(fullSnapshotLength, snapshotFile.length());
+
+        final HashMapSnapshot<DummyRecord> recoverySnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, 0.6D);
+        final SnapshotRecovery<DummyRecord> recovery = recoverySnapshot.recover();
+        assertEquals(20L, recovery.getMaxTransactionId());
+        assertEquals(Collections.singleton("swapFile-3"), recovery.getRecoveredSwapLocations());
+
+        final Map<Object, DummyRecord> recoveredRecords = recovery.getRecords();
+        assertEquals(8, recoveredRecords.size());
+        assertEquals("true", recoveredRecords.get("1").getProperties().get("updated"));
+        assertFalse(recoveredRecords.containsKey("2"));
+        assertFalse(recoveredRecords.containsKey("3"));
+
+        // The delta must be cumulative, so changes recovered from the delta must be retained in the next delta.
+        recoverySnapshot.update(Collections.singleton(new DummyRecord("4", UpdateType.DELETE)));
+        recoverySnapshot.writeSnapshot(recoverySnapshot.prepareSnapshot(30L));
+        assertTrue(deltaFile.exists());
+
+        final Map<Object, DummyRecord> secondRecovery = new HashMapSnapshot<>(storageDirectory, serdeFactory, 0.6D).recover().getRecords();
+        assertEquals(7, secondRecovery.size());
+        assertFalse(secondRecovery.containsKey("2"));
+        assertFalse(secondRecovery.containsKey("4"));
+        assertEquals("true", secondRecovery.get("1").getProperties().get("updated"));
+    }
+
+    @Test
+    public void testIncrementalSnapshotCompactsWhenRatioExceeded() throws IOException {
+        final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, 0.2D);
+        snapshot.recover();
+
+        for (int i = 0; i < 10; i++) {
+            snapshot.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.CREATE)));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(10L));
+
+        snapshot.update(Collections.singleton(new DummyRecord("0", UpdateType.DELETE)));
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(11L));
+
+        final File deltaFile = new File(storageDirectory, "checkpoint.delta");
+        assertTrue(deltaFile.exists());
+
+        for (int i = 1; i < 5; i++) {
+            snapshot.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.DELETE)));
+        }
+
+        // 5 of the remaining 5 records changed, which exceeds the ratio, so the full snapshot is rewritten and the delta removed.
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(12L));
+        assertFalse(deltaFile.exists());
+
+        final SnapshotRecovery<DummyRecord> recovery = new HashMapSnapshot<>(storageDirectory, serdeFactory).recover();
+        assertEquals(12L, recovery.getMaxTransactionId());
+        assertEquals(5, recovery.getRecords().size());
+        assertFalse(recovery.getRecords().containsKey("0"));
+    }
+
     @Test
     public void testOOMEWhenWritingResultsInPreviousSnapshotStillRecoverable() throws IOException {
         final HashMapSnapshot<DummyRecord> snapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
@@ -21,6 +21,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.wali.DummyRecord;
 import org.wali.DummyRecordSerde;
+import org.wali.SerDe;
 import org.wali.SerDeFactory;
 import org.wali.SingletonSerDeFactory;
 import org.wali.UpdateType;
@@ -42,6 +43,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -136,6 +139,39 @@ public class TestLengthDelimitedJournal {
         }
     }
 
+    @Test
+    public void testPreviousStateNotLookedUpWhenNotRequired() throws IOException {
+        final DummyRecordSerde statelessSerde = new DummyRecordSerde() {
+            @Override
+            public boolean isPreviousStateRequired() {
+                return false;
+            }
+        };
+
+        final AtomicInteger lookupCount = new AtomicInteger(0);
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, new SingletonSerDeFactory<>(statelessSerde), streamPool, 0L)) {
+            journal.writeHeader();
+
+            journal.update(Collections.singleton(new DummyRecord("1", UpdateType.CREATE)), id -> {
+                lookupCount.incrementAndGet();
+                return null;
+            });
+            journal.update(Collections.singleton(new DummyRecord("1", UpdateType.UPDATE).setProperty("abc", "123")), id -> {
+                lookupCount.incrementAndGet();
+                return null;
+            });
+        }
+
+        assertEquals(0, lookupCount.get());
+
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, new SingletonSerDeFactory<>(statelessSerde), streamPool, 0L)) {
+            final Map<Object, DummyRecord> recordMap = new HashMap<>();
+            journal.recoverRecords(recordMap, new HashSet<>());
+
+            assertEquals(Collections.singletonMap("abc", "123"), recordMap.get("1").getProperties());
+        }
+    }
+
     @Test
     public void testUpdateOnlyAppliedIfEntireTransactionApplied() throws IOException {
         try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
@@ -558,4 +594,144 @@ public class TestLengthDelimitedJournal {
             assertEquals(0, recordMap.size());
         }
     }
+
+    @Test
+    public void testConcurrentDeserializationMatchesSequentialRecovery() throws IOException {
+        final SerDeFactory<DummyRecord> concurrentSerdeFactory = new ConcurrentDummyRecordSerdeFactory();
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, concurrentSerdeFactory, streamPool, 0L)) {
+            journal.writeHeader();
+
+            for (int i = 0; i < 5000; i++) {
+                final List<DummyRecord> transaction = new ArrayList<>();
+                transaction.add(new DummyRecord(String.valueOf(i), UpdateType.CREATE).setProperty("iteration", String.valueOf(i)));
+                transaction.add(new DummyRecord(String.valueOf(i / 2), UpdateType.UPDATE).setProperty("updated", String.valueOf(i)));
+
+                if (i % 3 == 0) {
+                    transaction.add(new DummyRecord(String.valueOf(i / 3), UpdateType.DELETE));
+                }
+                if (i % 100 == 0) {
+                    final DummyRecord swapOut = new DummyRecord(String.valueOf(i), UpdateType.SWAP_OUT);
+                    swapOut.setSwapLocation("swap-" + i);
+                    transaction.add(swapOut);
+                }
+
+                journal.update(transaction, id -> null);
+            }
+        }
+
+        final Map<Object, DummyRecord> sequentialRecords = new HashMap<>();
+        final Set<String> sequentialSwapLocations = new HashSet<>();
+        final JournalRecovery sequentialRecovery;
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, concurrentSerdeFactory, streamPool, 0L)) {
+            sequentialRecovery = journal.recoverRecords(sequentialRecords, sequentialSwapLocations);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, concurrentSerdeFactory, streamPool, 0L)) {
+            final Map<Object, DummyRecord> concurrentRecords = new HashMap<>();
+            final Set<String> concurrentSwapLocations = new HashSet<>();
+            final JournalRecovery concurrentRecovery = journal.recoverRecords(concurrentRecords, concurrentSwapLocations, executor);
+
+            assertEquals(sequentialRecovery.getUpdateCount(), concurrentRecovery.getUpdateCount());
+            assertEquals(sequentialRecovery.getMaxTransactionId(), concurrentRecovery.getMaxTransactionId());
+            assertFalse(concurrentRecovery.isEOFExceptionEncountered());
+            assertEquals(sequentialRecords, concurrentRecords);
+            assertEquals(sequentialSwapLocations, concurrentSwapLocations);
+            assertFalse(concurrentSwapLocations.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentDeserializationOfTruncatedJournal() throws IOException {
+        final SerDeFactory<DummyRecord> concurrentSerdeFactory = new ConcurrentDummyRecordSerdeFactory();
+        final DummyRecord firstRecord = new DummyRecord("1", UpdateType.CREATE);
+        final DummyRecord secondRecord = new DummyRecord("2", UpdateType.CREATE);
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, concurrentSerdeFactory, streamPool, 0L)) {
+            journal.writeHeader();
+            journal.update(Collections.singleton(firstRecord), key -> null);
+            journal.update(Collections.singleton(secondRecord), key -> null);
+            journal.update(Collections.singleton(new DummyRecord("1", UpdateType.UPDATE)), key -> null);
+        }
+
+        try (final FileOutputStream fos = new FileOutputStream(journalFile, true)) {
+            fos.getChannel().truncate(journalFile.length() - 8);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, concurrentSerdeFactory, streamPool, 0L)) {
+            final Map<Object, DummyRecord> recordMap = new HashMap<>();
+            final JournalRecovery recovery = journal.recoverRecords(recordMap, new HashSet<>(), executor);
+            assertTrue(recovery.isEOFExceptionEncountered());
+            assertEquals(2L, recovery.getMaxTransactionId());
+            assertEquals(2, recovery.getUpdateCount());
+            assertEquals(firstRecord, recordMap.get("1"));
+            assertEquals(secondRecord, recordMap.get("2"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentDeserializationWithTrailingNulBytes() throws IOException {
+        final SerDeFactory<DummyRecord> concurrentSerdeFactory = new ConcurrentDummyRecordSerdeFactory();
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, concurrentSerdeFactory, streamPool, 0L)) {
+            journal.writeHeader();
+            journal.update(Arrays.asList(new DummyRecord("1", UpdateType.CREATE), new DummyRecord("2", UpdateType.CREATE)), id -> null);
+            journal.update(Collections.singleton(new DummyRecord("1", UpdateType.UPDATE).setProperty("abc", "123")), id -> null);
+            journal.update(Collections.singleton(new DummyRecord("2", UpdateType.DELETE)), id -> null);
+        }
+
+        // Replace the end of the last transaction with NUL bytes, as we often see after a sudden power loss.
+        final byte[] contents = Files.readAllBytes(journalFile.toPath());
+        final byte[] withNuls = Arrays.copyOf(Arrays.copyOfRange(contents, 0, contents.length - 8), contents.length + 20);
+        try (final OutputStream fos = new FileOutputStream(journalFile)) {
+            fos.write(withNuls);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, concurrentSerdeFactory, streamPool, 0L)) {
+            final Map<Object, DummyRecord> recordMap = new HashMap<>();
+            journal.recoverRecords(recordMap, new HashSet<>(), executor);
+
+            assertEquals(2, recordMap.size());
+            assertEquals(Collections.singletonMap("abc", "123"), recordMap.get("1").getProperties());
+            assertNotNull(recordMap.get("2"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a new SerDe each time that one is requested, as is necessary for concurrent deserialization
+     */
+    private static class ConcurrentDummyRecordSerdeFactory implements SerDeFactory<DummyRecord> {
+        private final DummyRecordSerde serde = new DummyRecordSerde();
+
+        @Override
+        public SerDe<DummyRecord> createSerDe(final String encodingName) {
+            return new DummyRecordSerde() {
+                @Override
+                public boolean isConcurrentDeserializationSupported() {
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        public Object getRecordIdentifier(final DummyRecord record) {
+            return serde.getRecordIdentifier(record);
+        }
+
+        @Override
+        public UpdateType getUpdateType(final DummyRecord record) {
+            return serde.getUpdateType(record);
+        }
+
+        @Override
+        public String getLocation(final DummyRecord record) {
+            return serde.getLocation(record);
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestLongKeyedIndex {
+
+    @Test
+    public void testPutGetRemove() {
+        final LongKeyedIndex index = new LongKeyedIndex(4);
+        assertEquals(LongKeyedIndex.NO_VALUE, index.put(1L, 10L));
+        assertEquals(10L, index.put(1L, 11L));
+        assertEquals(11L, index.get(1L));
+        assertEquals(LongKeyedIndex.NO_VALUE, index.get(2L));
+        assertEquals(1, index.size());
+
+        assertEquals(11L, index.remove(1L));
+        assertEquals(LongKeyedIndex.NO_VALUE, index.remove(1L));
+        assertEquals(LongKeyedIndex.NO_VALUE, index.get(1L));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        final LongKeyedIndex index = new LongKeyedIndex(16);
+        final Map<Long, Long> expected = new HashMap<>();
+        final Random random = new Random(42L);
+
+        for (int i = 0; i < 200_000; i++) {
+            final long key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                final Long previous = expected.remove(key);
+                assertEquals(previous == null ? LongKeyedIndex.NO_VALUE : previous, index.remove(key));
+            } else {
+                final long value = random.nextInt(Integer.MAX_VALUE);
+                final Long previous = expected.put(key, value);
+                assertEquals(previous == null ? LongKeyedIndex.NO_VALUE : previous, index.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+
+        final long[] keys = new long[index.size()];
+        final long[] values = new long[index.size()];
+        index.copyTo(keys, values);
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(expected.get(keys[i]).longValue(), values[i]);
+        }
+    }
+}
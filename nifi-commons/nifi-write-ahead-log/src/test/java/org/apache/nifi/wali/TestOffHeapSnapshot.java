@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wali.DummyRecord;
+import org.wali.DummyRecordSerde;
+import org.wali.SerDeFactory;
+import org.wali.SingletonSerDeFactory;
+import org.wali.SyncListener;
+import org.wali.UpdateType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestOffHeapSnapshot {
+
+    private final File storageDirectory = new File("target/test-offheap-snapshot");
+    private SerDeFactory<DummyRecord> serdeFactory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        if (!storageDirectory.exists()) {
+            Files.createDirectories(storageDirectory.toPath());
+        }
+
+        final File[] childFiles = storageDirectory.listFiles();
+        for (final File childFile : childFiles) {
+            deleteRecursively(childFile);
+        }
+
+        serdeFactory = new SingletonSerDeFactory<>(new LongIdRecordSerde());
+    }
+
+    @Test
+    public void testSuccessfulRoundTrip() throws IOException {
+        final OffHeapSnapshot<DummyRecord> snapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory);
+
+        for (int i = 0; i < 10; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            record.setProperties(Collections.singletonMap("key", String.valueOf(i)));
+            snapshot.update(Collections.singleton(record));
+        }
+
+        for (int i = 2; i < 10; i += 2) {
+            snapshot.update(Collections.singleton(new DummyRecord(String.valueOf(i), UpdateType.DELETE)));
+        }
+
+        for (int i = 1; i < 10; i += 2) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.SWAP_OUT);
+            record.setSwapLocation("swapFile-" + i);
+            snapshot.update(Collections.singleton(record));
+        }
+
+        final DummyRecord swapIn7 = new DummyRecord("7", UpdateType.SWAP_IN);
+        swapIn7.setSwapLocation("swapFile-7");
+        snapshot.update(Collections.singleton(swapIn7));
+
+        assertEquals(2, snapshot.getRecordCount());
+        assertEquals("0", snapshot.lookup(0L).getProperties().get("key"));
+        assertEquals(swapIn7, snapshot.lookup(7L));
+        assertNull(snapshot.lookup(2L));
+
+        final Set<String> swappedOutLocations = new HashSet<>();
+        swappedOutLocations.add("swapFile-1");
+        swappedOutLocations.add("swapFile-3");
+        swappedOutLocations.add("swapFile-5");
+        swappedOutLocations.add("swapFile-9");
+
+        final SnapshotCapture<DummyRecord> capture = snapshot.prepareSnapshot(180L);
+        assertEquals(180L, capture.getMaxTransactionId());
+        assertEquals(swappedOutLocations, capture.getSwapLocations());
+
+        final Map<Object, DummyRecord> records = new HashMap<>(capture.getRecords());
+        assertEquals(2, records.size());
+        assertTrue(records.containsKey(0L));
+        assertTrue(records.containsKey(7L));
+
+        snapshot.writeSnapshot(capture);
+
+        final OffHeapSnapshot<DummyRecord> recoverySnapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory);
+        final SnapshotRecovery<DummyRecord> recovery = recoverySnapshot.recover();
+        assertEquals(180L, recovery.getMaxTransactionId());
+        assertEquals(swappedOutLocations, recovery.getRecoveredSwapLocations());
+        assertEquals(records, new HashMap<>(recovery.getRecords()));
+        assertEquals(2, recoverySnapshot.getRecordCount());
+    }
+
+    @Test
+    public void testSnapshotIsReadableByHashMapSnapshot() throws IOException {
+        final OffHeapSnapshot<DummyRecord> snapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory);
+        final Map<Object, DummyRecord> expected = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            snapshot.update(Collections.singleton(record));
+            expected.put((long) i, record);
+        }
+
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(50L));
+
+        final HashMapSnapshot<DummyRecord> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        final SnapshotRecovery<DummyRecord> recovery = hashMapSnapshot.recover();
+        assertEquals(50L, recovery.getMaxTransactionId());
+        assertEquals(expected, recovery.getRecords());
+    }
+
+    @Test
+    public void testRecoversSnapshotAndDeltaOfHashMapSnapshot() throws IOException {
+        final HashMapSnapshot<DummyRecord> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory, 0.5D);
+        final Map<Object, DummyRecord> expected = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            hashMapSnapshot.update(Collections.singleton(record));
+            expected.put((long) i, record);
+        }
+        hashMapSnapshot.writeSnapshot(hashMapSnapshot.prepareSnapshot(10L));
+
+        // Written as a delta, which the recovery must apply to the records of the full snapshot
+        final DummyRecord updated = new DummyRecord("3", UpdateType.UPDATE);
+        updated.setProperties(Collections.singletonMap("key", "updated"));
+        hashMapSnapshot.update(Collections.singleton(updated));
+        hashMapSnapshot.update(Collections.singleton(new DummyRecord("4", UpdateType.DELETE)));
+        hashMapSnapshot.writeSnapshot(hashMapSnapshot.prepareSnapshot(11L));
+        expected.put(3L, updated);
+        expected.remove(4L);
+
+        final OffHeapSnapshot<DummyRecord> recoverySnapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory);
+        final SnapshotRecovery<DummyRecord> recovery = recoverySnapshot.recover();
+        assertEquals(11L, recovery.getMaxTransactionId());
+        assertEquals(expected, new HashMap<>(recovery.getRecords()));
+        assertEquals(9, recoverySnapshot.getRecordCount());
+        assertEquals("updated", recoverySnapshot.lookup(3L).getProperties().get("key"));
+    }
+
+    @Test
+    public void testRecoveredRecordsWriteThrough() throws IOException {
+        final OffHeapSnapshot<DummyRecord> snapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory);
+        snapshot.update(Collections.singleton(new DummyRecord("1", UpdateType.CREATE)));
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(1L));
+
+        final OffHeapSnapshot<DummyRecord> recoverySnapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory);
+        final Map<Object, DummyRecord> recoveredRecords = recoverySnapshot.recover().getRecords();
+
+        final DummyRecord record2 = new DummyRecord("2", UpdateType.CREATE);
+        recoveredRecords.put(2L, record2);
+        recoveredRecords.remove(1L);
+
+        assertEquals(1, recoverySnapshot.getRecordCount());
+        assertNull(recoverySnapshot.lookup(1L));
+        assertEquals(record2, recoverySnapshot.lookup(2L));
+        assertEquals(Collections.singletonMap(2L, record2), new HashMap<>(recoveredRecords));
+    }
+
+    @Test
+    public void testUpdatedRecordsAreCompacted() {
+        final OffHeapSnapshot<DummyRecord> snapshot = new OffHeapSnapshot<>(storageDirectory, serdeFactory, 1, 64 * 1024);
+
+        final List<DummyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            records.add(new DummyRecord(String.valueOf(i), UpdateType.CREATE));
+        }
+
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            for (final DummyRecord record : records) {
+                record.setProperties(Collections.singletonMap("iteration", String.valueOf(iteration)));
+            }
+            snapshot.update(records);
+        }
+
+        assertEquals(100, snapshot.getRecordCount());
+        assertTrue(snapshot.getAllocatedBytes() <= 4 * 64 * 1024);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("999", snapshot.lookup((long) i).getProperties().get("iteration"));
+        }
+    }
+
+    @Test
+    public void testNonNumericRecordIdentifierRejected() {
+        final SerDeFactory<DummyRecord> stringIdFactory = new SingletonSerDeFactory<>(new DummyRecordSerde());
+        final OffHeapSnapshot<DummyRecord> snapshot = new OffHeapSnapshot<>(storageDirectory, stringIdFactory);
+        assertThrows(IllegalArgumentException.class, () -> snapshot.update(Collections.singleton(new DummyRecord("abc", UpdateType.CREATE))));
+    }
+
+    @Test
+    public void testSequentialAccessWriteAheadLogWithOffHeapSnapshot() throws IOException {
+        final File walDirectory = new File(storageDirectory, "wal");
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = new SequentialAccessWriteAheadLog<>(walDirectory, serdeFactory, SyncListener.NOP_SYNC_LISTENER, false,
+            new OffHeapSnapshot<>(walDirectory, serdeFactory));
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final List<DummyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.add(new DummyRecord(String.valueOf(i), UpdateType.CREATE));
+        }
+        repo.update(records, false);
+        repo.checkpoint();
+
+        repo.update(Collections.singleton(new DummyRecord("3", UpdateType.DELETE)), false);
+        repo.shutdown();
+
+        final SequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = new SequentialAccessWriteAheadLog<>(walDirectory, serdeFactory, SyncListener.NOP_SYNC_LISTENER, false,
+            new OffHeapSnapshot<>(walDirectory, serdeFactory));
+        final Set<DummyRecord> recovered = new HashSet<>(recoveryRepo.recoverRecords());
+        records.remove(3);
+        assertEquals(new HashSet<>(records), recovered);
+        recoveryRepo.shutdown();
+    }
+
+    private void deleteRecursively(final File file) throws IOException {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        Files.delete(file.toPath());
+    }
+
+    private static class LongIdRecordSerde extends DummyRecordSerde {
+        @Override
+        public Object getRecordIdentifier(final DummyRecord record) {
+            return Long.valueOf(record.getId());
+        }
+    }
+}
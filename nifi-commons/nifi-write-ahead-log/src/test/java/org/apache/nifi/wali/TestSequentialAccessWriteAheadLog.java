@@ -24,6 +24,7 @@ import org.wali.DummyRecord;
 import org.wali.DummyRecordSerde;
 import org.wali.SerDeFactory;
 import org.wali.SingletonSerDeFactory;
+import org.wali.SyncListener;
 import org.wali.UpdateType;
 import org.wali.WriteAheadRepository;
 
@@ -182,6 +183,89 @@ public class TestSequentialAccessWriteAheadLog {
         assertEquals(expected, new HashSet<>(recovered));
     }
 
+    @Test
+    public void testGroupCommitWithConcurrentUpdates(TestInfo testInfo) throws IOException, InterruptedException {
+        final File storageDir = new File(new File("target"), testInfo.getTestMethod().get().getName());
+        deleteRecursively(storageDir);
+        assertTrue(storageDir.mkdirs());
+
+        final SerDeFactory<DummyRecord> serdeFactory = new SingletonSerDeFactory<>(new DummyRecordSerde());
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = new SequentialAccessWriteAheadLog<>(storageDir, serdeFactory, SyncListener.NOP_SYNC_LISTENER, true);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final int numThreads = 8;
+        final int updatesPerThread = 500;
+        final Set<DummyRecord> expected = Collections.synchronizedSet(new HashSet<>());
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+
+        final Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < updatesPerThread; j++) {
+                    final DummyRecord record = new DummyRecord(threadIndex + "-" + j, UpdateType.CREATE);
+
+                    try {
+                        repo.update(Collections.singleton(record), j % 10 == 0);
+                        expected.add(record);
+                    } catch (final Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            });
+        }
+
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty());
+        repo.shutdown();
+
+        assertThrows(IOException.class, () -> repo.update(Collections.singleton(new DummyRecord("after-shutdown", UpdateType.CREATE)), false));
+
+        final SequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = createRecoveryRepo(testInfo);
+        final Collection<DummyRecord> recovered = recoveryRepo.recoverRecords();
+        assertEquals(numThreads * updatesPerThread, recovered.size());
+        assertEquals(expected, new HashSet<>(recovered));
+        recoveryRepo.shutdown();
+    }
+
+    @Test
+    public void testGroupCommitInterruptedUpdateWrittenOnlyIfSuccessful(TestInfo testInfo) throws IOException {
+        final File storageDir = new File(new File("target"), testInfo.getTestMethod().get().getName());
+        deleteRecursively(storageDir);
+        assertTrue(storageDir.mkdirs());
+
+        final SerDeFactory<DummyRecord> serdeFactory = new SingletonSerDeFactory<>(new DummyRecordSerde());
+        final SequentialAccessWriteAheadLog<DummyRecord> repo = new SequentialAccessWriteAheadLog<>(storageDir, serdeFactory, SyncListener.NOP_SYNC_LISTENER, true);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        // An interrupted update either fails and is never written, or succeeds with the interrupt flag still set
+        final Set<DummyRecord> written = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+
+            Thread.currentThread().interrupt();
+            try {
+                repo.update(Collections.singleton(record), false);
+                written.add(record);
+            } catch (final IOException ignored) {
+            }
+
+            assertTrue(Thread.interrupted());
+        }
+
+        repo.shutdown();
+
+        final SequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = createRecoveryRepo(testInfo);
+        assertEquals(written, new HashSet<>(recoveryRepo.recoverRecords()));
+        recoveryRepo.shutdown();
+    }
+
     private SequentialAccessWriteAheadLog<DummyRecord> createRecoveryRepo(TestInfo testInfo) throws IOException {
         final File targetDir = new File("target");
         final File storageDir = new File(targetDir, testInfo.getTestMethod().get().getName());
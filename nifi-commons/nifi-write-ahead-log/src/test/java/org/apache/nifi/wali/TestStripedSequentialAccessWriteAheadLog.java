@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import org.wali.DummyRecord;
+import org.wali.DummyRecordSerde;
+import org.wali.SerDeFactory;
+import org.wali.SingletonSerDeFactory;
+import org.wali.UpdateType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestStripedSequentialAccessWriteAheadLog {
+    private static final int STRIPE_COUNT = 3;
+
+    @Test
+    public void testUpdatesAreStripedAcrossJournals(TestInfo testInfo) throws IOException {
+        final List<File> storageDirs = createStorageDirectories(testInfo);
+        final StripedSequentialAccessWriteAheadLog<DummyRecord> repo = createRepo(storageDirs);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final List<DummyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            final DummyRecord record = new DummyRecord(String.valueOf(i), UpdateType.CREATE);
+            repo.update(Collections.singleton(record), false);
+            records.add(record);
+        }
+
+        repo.shutdown();
+
+        for (final File storageDir : storageDirs) {
+            final File[] journalFiles = new File(storageDir, "journals").listFiles();
+            assertEquals(1, journalFiles.length);
+            assertTrue(journalFiles[0].length() > 0);
+        }
+
+        final StripedSequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = createRepo(storageDirs);
+        final Collection<DummyRecord> recovered = recoveryRepo.recoverRecords();
+        assertEquals(new HashSet<>(records), new HashSet<>(recovered));
+        recoveryRepo.shutdown();
+    }
+
+    @Test
+    public void testRecoveryAppliesTransactionsInOrderAcrossStripes(TestInfo testInfo) throws IOException {
+        final List<File> storageDirs = createStorageDirectories(testInfo);
+        final StripedSequentialAccessWriteAheadLog<DummyRecord> repo = createRepo(storageDirs);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        repo.update(Arrays.asList(new DummyRecord("1", UpdateType.CREATE), new DummyRecord("2", UpdateType.CREATE)), false);
+        repo.checkpoint();
+
+        // Each update is written to a different stripe than the one before it, so the final state of each record
+        // can only be recovered correctly if the transactions are replayed in Transaction ID order.
+        for (int i = 0; i < 10; i++) {
+            final DummyRecord update = new DummyRecord("1", UpdateType.UPDATE);
+            update.setProperties(Collections.singletonMap("iteration", String.valueOf(i)));
+            repo.update(Collections.singleton(update), false);
+        }
+
+        repo.update(Collections.singleton(new DummyRecord("2", UpdateType.DELETE)), false);
+        repo.update(Collections.singleton(new DummyRecord("3", UpdateType.CREATE)), false);
+
+        final DummyRecord swapOut = new DummyRecord("3", UpdateType.SWAP_OUT);
+        swapOut.setSwapLocation("swap");
+        repo.update(Collections.singleton(swapOut), true);
+
+        repo.shutdown();
+
+        final StripedSequentialAccessWriteAheadLog<DummyRecord> recoveryRepo = createRepo(storageDirs);
+        final Map<String, DummyRecord> recovered = recoveryRepo.recoverRecords().stream()
+            .collect(Collectors.toMap(DummyRecord::getId, Function.identity()));
+
+        assertEquals(1, recovered.size());
+        assertEquals("9", recovered.get("1").getProperties().get("iteration"));
+        assertFalse(recovered.containsKey("2"));
+        assertEquals(Collections.singleton("swap"), recoveryRepo.getRecoveredSwapLocations());
+        recoveryRepo.shutdown();
+    }
+
+    @Test
+    public void testRecoverFromSequentialAccessWriteAheadLog(TestInfo testInfo) throws IOException {
+        final List<File> storageDirs = createStorageDirectories(testInfo);
+        final SerDeFactory<DummyRecord> serdeFactory = new SingletonSerDeFactory<>(new DummyRecordSerde());
+
+        final SequentialAccessWriteAheadLog<DummyRecord> sequentialRepo = new SequentialAccessWriteAheadLog<>(storageDirs.get(0), serdeFactory);
+        assertTrue(sequentialRepo.recoverRecords().isEmpty());
+
+        final List<DummyRecord> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.add(new DummyRecord(String.valueOf(i), UpdateType.CREATE));
+        }
+
+        sequentialRepo.update(records, false);
+        sequentialRepo.shutdown();
+
+        final StripedSequentialAccessWriteAheadLog<DummyRecord> stripedRepo = createRepo(storageDirs);
+        assertEquals(new HashSet<>(records), new HashSet<>(stripedRepo.recoverRecords()));
+        stripedRepo.shutdown();
+    }
+
+    private StripedSequentialAccessWriteAheadLog<DummyRecord> createRepo(final List<File> storageDirs) throws IOException {
+        final SerDeFactory<DummyRecord> serdeFactory = new SingletonSerDeFactory<>(new DummyRecordSerde());
+        return new StripedSequentialAccessWriteAheadLog<>(storageDirs, serdeFactory);
+    }
+
+    private List<File> createStorageDirectories(final TestInfo testInfo) {
+        final File testDir = new File(new File("target"), testInfo.getTestMethod().get().getName());
+        deleteRecursively(testDir);
+
+        final List<File> storageDirs = new ArrayList<>();
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            final File storageDir = new File(testDir, "stripe-" + i);
+            assertTrue(storageDir.mkdirs());
+            storageDirs.add(storageDir);
+        }
+
+        return storageDirs;
+    }
+
+    private void deleteRecursively(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                deleteRecursively(child);
+            }
+        }
+
+        file.delete();
+    }
+}
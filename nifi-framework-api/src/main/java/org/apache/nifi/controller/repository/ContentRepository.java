@@ -22,6 +22,8 @@ import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Set;
@@ -269,6 +271,64 @@ public interface ContentRepository {
         return true;
     }
 
+    /**
+     * Optional operation that provides the content of the given claim as a read-only ByteBuffer. Implementations may return a view of
+     * memory that is shared with other readers (for instance, a memory-mapped region of the underlying file), so the caller must not assume
+     * that the buffer remains valid once the claim's claimant count has been decremented to 0. Once the caller is done with the buffer, it
+     * should pass it to {@link #releaseBuffer(ContentClaim, ByteBuffer)} and must not access it afterward.
+     *
+     * @param claim the content claim to read
+     * @return a read-only ByteBuffer whose position is 0 and whose limit is the length of the claim
+     * @throws IOException if unable to read
+     * @throws UnsupportedOperationException if this repository does not implement this capability.
+     * @see #isBufferReadSupported()
+     */
+    default ByteBuffer readBuffer(ContentClaim claim) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Indicates that the caller is done with a ByteBuffer that was returned by {@link #readBuffer(ContentClaim)}, so that the repository may
+     * release the memory that backs it. The buffer must not be accessed once this method has been called.
+     *
+     * @param claim the content claim that was read
+     * @param buffer the buffer that was returned by {@link #readBuffer(ContentClaim)} for the claim
+     */
+    default void releaseBuffer(ContentClaim claim, ByteBuffer buffer) {
+    }
+
+    /**
+     * Indicates whether or not the repository supports reading the content of a claim as a ByteBuffer via the {@link #readBuffer(ContentClaim)} method
+     * @return <code>true</code> if the operation is supported, <code>false</code> otherwise
+     */
+    default boolean isBufferReadSupported() {
+        return false;
+    }
+
+    /**
+     * Optional operation that opens a read-only FileChannel to the file that holds the content of the given claim, so that the content can be
+     * transferred directly to another channel (for instance, via {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)})
+     * without being copied through the JVM heap. The content of the claim begins at {@link ContentClaim#getOffset()} within the channel and is
+     * {@link ContentClaim#getLength()} bytes long. The caller is responsible for closing the channel.
+     *
+     * @param claim the content claim to read
+     * @return a FileChannel to the file holding the content of the claim
+     * @throws IOException if unable to open the channel
+     * @throws UnsupportedOperationException if this repository does not implement this capability.
+     * @see #isChannelReadSupported()
+     */
+    default FileChannel readChannel(ContentClaim claim) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Indicates whether or not the repository supports obtaining a FileChannel to the content of a claim via the {@link #readChannel(ContentClaim)} method
+     * @return <code>true</code> if the operation is supported, <code>false</code> otherwise
+     */
+    default boolean isChannelReadSupported() {
+        return false;
+    }
+
     /**
      * Obtains an OutputStream to the content for the given claim.
      *
@@ -26,7 +26,9 @@ import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.search.SearchableField;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface ProvenanceRepository extends ProvenanceEventRepository {
@@ -241,4 +243,15 @@ public interface ProvenanceRepository extends ProvenanceEventRepository {
      * name
      */
     long getContainerUsableSpace(String containerName) throws IOException;
+
+    /**
+     * Returns statistics about the ingestion of Provenance Events, such as the number of events that are waiting
+     * to be stored or that were discarded without being stored, for diagnostic purposes
+     *
+     * @return the value of each statistic, keyed by a description of the statistic, or an empty map if the
+     *         repository does not track any
+     */
+    default Map<String, Long> getIngestStatistics() {
+        return Collections.emptyMap();
+    }
 }
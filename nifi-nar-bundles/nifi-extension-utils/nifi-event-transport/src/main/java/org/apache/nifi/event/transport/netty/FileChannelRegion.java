@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.event.transport.netty;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * A region of a FileChannel to be sent as a single message, optionally followed by a delimiter
+ */
+public class FileChannelRegion {
+
+    private final FileChannel channel;
+
+    private final long position;
+
+    private final long count;
+
+    private final byte[] delimiter;
+
+    public FileChannelRegion(final FileChannel channel, final long position, final long count, final byte[] delimiter) {
+        this.channel = channel;
+        this.position = position;
+        this.count = count;
+        this.delimiter = delimiter;
+    }
+
+    public FileChannel getChannel() {
+        return channel;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public byte[] getDelimiter() {
+        return delimiter;
+    }
+}
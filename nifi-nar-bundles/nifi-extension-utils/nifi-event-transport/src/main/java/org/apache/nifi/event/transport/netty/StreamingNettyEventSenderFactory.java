@@ -19,6 +19,7 @@ package org.apache.nifi.event.transport.netty;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import org.apache.nifi.event.transport.configuration.TransportProtocol;
 import org.apache.nifi.event.transport.netty.channel.LogExceptionChannelHandler;
+import org.apache.nifi.event.transport.netty.codec.FileChannelRegionMessageEncoder;
 import org.apache.nifi.event.transport.netty.codec.InputStreamMessageEncoder;
 import org.apache.nifi.logging.ComponentLog;
 
@@ -31,6 +32,7 @@ import java.util.Arrays;
 public class StreamingNettyEventSenderFactory extends NettyEventSenderFactory<InputStream> {
     /**
      * Netty Event Sender Factory using InputStream. Uses a custom InputStreamMessageEncoder and a ChunkedWriteHandler.
+     * Events may also be sent as a FileChannelRegion, which is encoded using a FileChannelRegionMessageEncoder.
      *
      * @param log Component Log
      * @param address Remote Address
@@ -41,10 +43,12 @@ public class StreamingNettyEventSenderFactory extends NettyEventSenderFactory<In
         super(address, port, protocol);
         final LogExceptionChannelHandler logExceptionChannelHandler = new LogExceptionChannelHandler(log);
         final InputStreamMessageEncoder inputStreamMessageEncoder = new InputStreamMessageEncoder();
+        final FileChannelRegionMessageEncoder fileChannelRegionMessageEncoder = new FileChannelRegionMessageEncoder();
 
         setHandlerSupplier(() -> Arrays.asList(
                 new ChunkedWriteHandler(),
                 inputStreamMessageEncoder,
+                fileChannelRegionMessageEncoder,
                 logExceptionChannelHandler
         ));
     }
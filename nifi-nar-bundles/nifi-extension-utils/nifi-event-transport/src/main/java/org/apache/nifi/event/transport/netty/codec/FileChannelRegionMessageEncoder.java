@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.event.transport.netty.codec;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedNioFile;
+import org.apache.nifi.event.transport.netty.FileChannelRegion;
+
+import java.util.List;
+
+/**
+ * Message encoder for a FileChannelRegion. Without TLS, the region is written as a Netty FileRegion so that the transport can send it
+ * with FileChannel.transferTo and avoid copying the content through user space. With TLS, the content must be encrypted, so the region is
+ * wrapped in a ChunkedNioFile for use with a ChunkedWriter. Adds the delimiter of the region, if any, to the end of the output objects.
+ */
+@ChannelHandler.Sharable
+public class FileChannelRegionMessageEncoder extends MessageToMessageEncoder<FileChannelRegion> {
+
+    private static final int CHUNK_SIZE = 65536;
+
+    @Override
+    protected void encode(ChannelHandlerContext context, FileChannelRegion region, List<Object> out) throws Exception {
+        if (context.pipeline().get(SslHandler.class) == null) {
+            out.add(new DefaultFileRegion(region.getChannel(), region.getPosition(), region.getCount()));
+        } else {
+            out.add(new ChunkedNioFile(region.getChannel(), region.getPosition(), region.getCount(), CHUNK_SIZE));
+        }
+
+        if (region.getDelimiter() != null) {
+            out.add(Unpooled.wrappedBuffer(region.getDelimiter()));
+        }
+    }
+}
@@ -224,5 +224,17 @@ public class NiFiMetricsRegistry extends AbstractMetricsRegistry {
                 .labelNames("instance", "component_type", "component_name", "component_id", "parent_id",
                         "source_id", "source_name", "destination_id", "destination_name")
                 .register(registry));
+
+        nameToGaugeMap.put("PROCESSOR_CPU_TIME", Gauge.build()
+                .name("nifi_processor_cpu_time")
+                .help("The CPU time (in nanoseconds) that the threads running this processor spent on it; only populated when component profiling is enabled")
+                .labelNames("instance", "component_type", "component_name", "component_id", "parent_id")
+                .register(registry));
+
+        nameToGaugeMap.put("PROCESSOR_ALLOCATED_BYTES", Gauge.build()
+                .name("nifi_processor_allocated_bytes")
+                .help("The number of heap bytes that the threads running this processor allocated while running it; only populated when component profiling is enabled")
+                .labelNames("instance", "component_type", "component_name", "component_id", "parent_id")
+                .register(registry));
     }
 }
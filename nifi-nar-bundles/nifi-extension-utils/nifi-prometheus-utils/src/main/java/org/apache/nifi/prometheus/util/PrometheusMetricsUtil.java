@@ -168,6 +168,10 @@ public class PrometheusMetricsUtil {
                 nifiMetricsRegistry.setDataPoint(processorStatus.getAverageLineageDuration(), "AVERAGE_LINEAGE_DURATION",
                         instanceId, procComponentType, procComponentName, procComponentId, parentId, "", "", "", "");
 
+                nifiMetricsRegistry.setDataPoint(processorStatus.getCpuNanos(), "PROCESSOR_CPU_TIME", instanceId, procComponentType, procComponentName, procComponentId, parentId);
+                nifiMetricsRegistry.setDataPoint(processorStatus.getAllocatedBytes(), "PROCESSOR_ALLOCATED_BYTES",
+                        instanceId, procComponentType, procComponentName, procComponentId, parentId);
+
                 nifiMetricsRegistry.setDataPoint(status.getActiveThreadCount() == null ? 0 : status.getActiveThreadCount(), "AMOUNT_THREADS_TOTAL_ACTIVE",
                         instanceId, procComponentType, procComponentName, procComponentId, parentId);
                 nifiMetricsRegistry.setDataPoint(status.getTerminatedThreadCount() == null ? 0 : status.getTerminatedThreadCount(), "AMOUNT_THREADS_TOTAL_TERMINATED",
@@ -27,6 +27,7 @@ public class JVMControllerDiagnosticsSnapshotDTO implements Cloneable {
     private Boolean clusterCoordinator;
     private Integer maxTimerDrivenThreads;
     private Integer maxEventDrivenThreads;
+    private Integer maxIoBoundThreads;
 
     @ApiModelProperty("Whether or not this node is primary node")
     public Boolean getPrimaryNode() {
@@ -64,6 +65,15 @@ public class JVMControllerDiagnosticsSnapshotDTO implements Cloneable {
         this.maxEventDrivenThreads = maxEventDrivenThreads;
     }
 
+    @ApiModelProperty("The maximum number of threads for running I/O-bound processors")
+    public Integer getMaxIoBoundThreads() {
+        return maxIoBoundThreads;
+    }
+
+    public void setMaxIoBoundThreads(Integer maxIoBoundThreads) {
+        this.maxIoBoundThreads = maxIoBoundThreads;
+    }
+
     @Override
     public JVMControllerDiagnosticsSnapshotDTO clone() {
         final JVMControllerDiagnosticsSnapshotDTO clone = new JVMControllerDiagnosticsSnapshotDTO();
@@ -71,6 +81,7 @@ public class JVMControllerDiagnosticsSnapshotDTO implements Cloneable {
         clone.primaryNode = primaryNode;
         clone.maxEventDrivenThreads = maxEventDrivenThreads;
         clone.maxTimerDrivenThreads = maxTimerDrivenThreads;
+        clone.maxIoBoundThreads = maxIoBoundThreads;
         return clone;
     }
 
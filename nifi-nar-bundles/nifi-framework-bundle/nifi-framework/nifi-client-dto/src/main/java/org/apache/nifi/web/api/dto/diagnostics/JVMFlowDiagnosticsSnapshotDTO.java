@@ -32,6 +32,7 @@ public class JVMFlowDiagnosticsSnapshotDTO implements Cloneable {
     private String timeZone;
     private Integer activeTimerDrivenThreads;
     private Integer activeEventDrivenThreads;
+    private Integer activeIoBoundThreads;
     private Set<BundleDTO> bundlesLoaded;
 
     @ApiModelProperty("How long this node has been running, formatted as hours:minutes:seconds.milliseconds")
@@ -71,6 +72,15 @@ public class JVMFlowDiagnosticsSnapshotDTO implements Cloneable {
         this.activeEventDrivenThreads = activeEventDrivenThreads;
     }
 
+    @ApiModelProperty("The number of threads that are active running I/O-bound processors")
+    public Integer getActiveIoBoundThreads() {
+        return activeIoBoundThreads;
+    }
+
+    public void setActiveIoBoundThreads(Integer activeIoBoundThreads) {
+        this.activeIoBoundThreads = activeIoBoundThreads;
+    }
+
     @ApiModelProperty("The NiFi Bundles (NARs) that are loaded by NiFi")
     public Set<BundleDTO> getBundlesLoaded() {
         return bundlesLoaded;
@@ -85,6 +95,7 @@ public class JVMFlowDiagnosticsSnapshotDTO implements Cloneable {
         final JVMFlowDiagnosticsSnapshotDTO clone = new JVMFlowDiagnosticsSnapshotDTO();
         clone.activeEventDrivenThreads = activeEventDrivenThreads;
         clone.activeTimerDrivenThreads = activeTimerDrivenThreads;
+        clone.activeIoBoundThreads = activeIoBoundThreads;
         clone.bundlesLoaded = bundlesLoaded == null ? null : new HashSet<>(bundlesLoaded);
         clone.timeZone = timeZone;
         clone.uptime = uptime;
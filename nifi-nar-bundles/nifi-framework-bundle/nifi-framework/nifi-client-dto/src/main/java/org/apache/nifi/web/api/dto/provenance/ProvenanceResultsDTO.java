@@ -33,6 +33,7 @@ import java.util.Set;
 public class ProvenanceResultsDTO {
 
     private List<ProvenanceEventDTO> provenanceEvents;
+    private List<ProvenanceEventAggregateDTO> unsampledEvents;
     private String total;
     private Long totalCount;
     private Date generated;
@@ -69,6 +70,21 @@ public class ProvenanceResultsDTO {
         this.provenanceEvents = provenanceEvents;
     }
 
+    /**
+     * @return counts of the events that matched the search criteria but were not recorded because their flowfiles were not sampled
+     */
+    @ApiModelProperty(
+            value = "The number of events, per component, event type and minute, that matched the search criteria but were not recorded "
+                    + "because provenance sampling is enabled and their flowfiles were not sampled. Only included when the search criteria consist of no more than a component id, event type and time range."
+    )
+    public List<ProvenanceEventAggregateDTO> getUnsampledEvents() {
+        return unsampledEvents;
+    }
+
+    public void setUnsampledEvents(List<ProvenanceEventAggregateDTO> unsampledEvents) {
+        this.unsampledEvents = unsampledEvents;
+    }
+
     /**
      * @return total number of results formatted
      */
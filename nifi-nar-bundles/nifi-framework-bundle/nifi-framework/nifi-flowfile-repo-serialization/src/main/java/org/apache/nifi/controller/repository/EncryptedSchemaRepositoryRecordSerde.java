@@ -258,4 +258,14 @@ public class EncryptedSchemaRepositoryRecordSerde implements SerDe<SerializedRep
     public int getVersion() {
         return wrappedSerDe.getVersion();
     }
+
+    @Override
+    public boolean isConcurrentDeserializationSupported() {
+        return wrappedSerDe.isConcurrentDeserializationSupported();
+    }
+
+    @Override
+    public boolean isPreviousStateRequired() {
+        return false;
+    }
 }
@@ -121,6 +121,18 @@ public class SchemaRepositoryRecordSerde extends RepositoryRecordSerde implement
         throw new EOFException();
     }
 
+    @Override
+    public boolean isConcurrentDeserializationSupported() {
+        // Each edit contains the entire record, so the current state of the record is never needed.
+        return true;
+    }
+
+    @Override
+    public boolean isPreviousStateRequired() {
+        // Each edit is serialized as the entire record
+        return false;
+    }
+
     @Override
     public SerializedRepositoryRecord deserializeRecord(final DataInputStream in, final int version) throws IOException {
         if (recordIterator != null) {
@@ -22,6 +22,7 @@ import org.apache.nifi.cluster.manager.NodeResponse;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventAggregateDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceRequestDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceResultsDTO;
@@ -34,6 +35,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -79,6 +81,7 @@ public class ProvenanceQueryEndpointMerger implements EndpointResponseMerger {
         final ProvenanceResultsDTO results = clientDto.getResults();
         final ProvenanceRequestDTO request = clientDto.getRequest();
         final List<ProvenanceEventDTO> allResults = new ArrayList<>(1024);
+        Map<String, ProvenanceEventAggregateDTO> unsampledEvents = null;
 
         final Set<String> errors = new HashSet<>();
         Date oldestEventDate = new Date();
@@ -113,6 +116,21 @@ public class ProvenanceQueryEndpointMerger implements EndpointResponseMerger {
                 }
             }
 
+            // sum the counts of the unsampled events of each component across the cluster
+            if (nodeResultDto != null && nodeResultDto.getUnsampledEvents() != null) {
+                if (unsampledEvents == null) {
+                    unsampledEvents = new LinkedHashMap<>();
+                }
+
+                for (final ProvenanceEventAggregateDTO aggregateDto : nodeResultDto.getUnsampledEvents()) {
+                    final String key = aggregateDto.getComponentId() + ":" + aggregateDto.getEventType() + ":" + aggregateDto.getTimestamp().getTime();
+                    unsampledEvents.merge(key, aggregateDto, (existing, added) -> {
+                        existing.setCount(existing.getCount() + added.getCount());
+                        return existing;
+                    });
+                }
+            }
+
             if (nodeResultDto.getOldestEvent() != null && nodeResultDto.getOldestEvent().before(oldestEventDate)) {
                 oldestEventDate = nodeResultDto.getOldestEvent();
             }
@@ -192,6 +210,7 @@ public class ProvenanceQueryEndpointMerger implements EndpointResponseMerger {
         }
 
         results.setProvenanceEvents(selectedResults);
+        results.setUnsampledEvents(unsampledEvents == null ? null : new ArrayList<>(unsampledEvents.values()));
         results.setOldestEvent(oldestEventDate);
         results.setGenerated(new Date());
         clientDto.setPercentCompleted(percentageComplete);
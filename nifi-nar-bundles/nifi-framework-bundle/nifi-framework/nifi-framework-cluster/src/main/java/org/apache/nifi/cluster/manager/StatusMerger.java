@@ -725,6 +725,7 @@ public class StatusMerger {
 
         target.setMaxEventDrivenThreads(add(target.getMaxEventDrivenThreads(), toMerge.getMaxEventDrivenThreads()));
         target.setMaxTimerDrivenThreads(add(target.getMaxTimerDrivenThreads(), toMerge.getMaxTimerDrivenThreads()));
+        target.setMaxIoBoundThreads(add(target.getMaxIoBoundThreads(), toMerge.getMaxIoBoundThreads()));
         target.setClusterCoordinator(null);
         target.setPrimaryNode(null);
     }
@@ -736,6 +737,7 @@ public class StatusMerger {
 
         target.setActiveEventDrivenThreads(add(target.getActiveEventDrivenThreads(), toMerge.getActiveEventDrivenThreads()));
         target.setActiveTimerDrivenThreads(add(target.getActiveTimerDrivenThreads(), toMerge.getActiveTimerDrivenThreads()));
+        target.setActiveIoBoundThreads(add(target.getActiveIoBoundThreads(), toMerge.getActiveIoBoundThreads()));
         target.setBundlesLoaded(null);
         target.setUptime(null);
 
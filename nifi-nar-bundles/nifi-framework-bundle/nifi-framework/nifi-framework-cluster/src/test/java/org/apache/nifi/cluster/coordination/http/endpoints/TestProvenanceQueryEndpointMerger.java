@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.cluster.coordination.http.endpoints;
+
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventAggregateDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceRequestDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceResultsDTO;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestProvenanceQueryEndpointMerger {
+    private static final Date MINUTE = new Date(1_600_000_020_000L);
+    private static final Date NEXT_MINUTE = new Date(1_600_000_080_000L);
+
+    @Test
+    public void testUnsampledEventCountsSummedAcrossNodes() {
+        final NodeIdentifier node1 = new NodeIdentifier("1234", "localhost", 9000, "localhost", 9001, "localhost", 9002, 9003, false);
+        final NodeIdentifier node2 = new NodeIdentifier("xyz", "localhost", 8000, "localhost", 8001, "localhost", 8002, 8003, false);
+
+        final Map<NodeIdentifier, ProvenanceDTO> dtoMap = new HashMap<>();
+        dtoMap.put(node1, createProvenance(
+            createAggregate("processor-1", "RECEIVE", MINUTE, 10L),
+            createAggregate("processor-1", "DROP", MINUTE, 3L)));
+        dtoMap.put(node2, createProvenance(
+            createAggregate("processor-1", "RECEIVE", MINUTE, 5L),
+            createAggregate("processor-1", "RECEIVE", NEXT_MINUTE, 7L),
+            createAggregate("processor-2", "RECEIVE", MINUTE, 1L)));
+
+        final ProvenanceDTO clientDto = createProvenance();
+        new ProvenanceQueryEndpointMerger().mergeResponses(clientDto, dtoMap, Collections.emptySet(), Collections.emptySet());
+
+        final List<ProvenanceEventAggregateDTO> unsampledEvents = clientDto.getResults().getUnsampledEvents();
+        assertEquals(4, unsampledEvents.size());
+
+        final Map<String, Long> counts = unsampledEvents.stream()
+            .collect(Collectors.toMap(dto -> dto.getComponentId() + ":" + dto.getEventType() + ":" + dto.getTimestamp().getTime(), ProvenanceEventAggregateDTO::getCount));
+        assertEquals(Long.valueOf(15L), counts.get("processor-1:RECEIVE:" + MINUTE.getTime()));
+        assertEquals(Long.valueOf(7L), counts.get("processor-1:RECEIVE:" + NEXT_MINUTE.getTime()));
+        assertEquals(Long.valueOf(3L), counts.get("processor-1:DROP:" + MINUTE.getTime()));
+        assertEquals(Long.valueOf(1L), counts.get("processor-2:RECEIVE:" + MINUTE.getTime()));
+    }
+
+    @Test
+    public void testNoUnsampledEventsWhenNodesDoNotSample() {
+        final NodeIdentifier node1 = new NodeIdentifier("1234", "localhost", 9000, "localhost", 9001, "localhost", 9002, 9003, false);
+        final ProvenanceDTO nodeDto = createProvenance();
+        nodeDto.getResults().setUnsampledEvents(null);
+
+        final ProvenanceDTO clientDto = createProvenance();
+        new ProvenanceQueryEndpointMerger().mergeResponses(clientDto, Collections.singletonMap(node1, nodeDto), Collections.emptySet(), Collections.emptySet());
+
+        assertNull(clientDto.getResults().getUnsampledEvents());
+    }
+
+    private ProvenanceDTO createProvenance(final ProvenanceEventAggregateDTO... unsampledEvents) {
+        final ProvenanceRequestDTO request = new ProvenanceRequestDTO();
+        request.setMaxResults(100);
+
+        final ProvenanceResultsDTO results = new ProvenanceResultsDTO();
+        results.setProvenanceEvents(Collections.emptyList());
+        results.setTotalCount(0L);
+        results.setUnsampledEvents(Arrays.stream(unsampledEvents).collect(Collectors.toList()));
+
+        final ProvenanceDTO dto = new ProvenanceDTO();
+        dto.setRequest(request);
+        dto.setResults(results);
+        dto.setPercentCompleted(100);
+        dto.setFinished(true);
+        return dto;
+    }
+
+    private ProvenanceEventAggregateDTO createAggregate(final String componentId, final String eventType, final Date timestamp, final long count) {
+        final ProvenanceEventAggregateDTO dto = new ProvenanceEventAggregateDTO();
+        dto.setComponentId(componentId);
+        dto.setComponentType("Processor");
+        dto.setEventType(eventType);
+        dto.setTimestamp(timestamp);
+        dto.setCount(count);
+        return dto;
+    }
+}
@@ -147,18 +147,26 @@ public final class StandardConnection implements Connection, ConnectionEventList
 
     @Override
     public void triggerDestinationEvent() {
-        if (getDestination().getSchedulingStrategy() == SchedulingStrategy.EVENT_DRIVEN) {
-            scheduler.registerEvent(getDestination());
+        final Connectable destination = getDestination();
+        if (isEventRegistrationRequired(destination.getSchedulingStrategy())) {
+            scheduler.registerEvent(destination);
         }
     }
 
     @Override
     public void triggerSourceEvent() {
-        if (getSource().getSchedulingStrategy() == SchedulingStrategy.EVENT_DRIVEN) {
-            scheduler.registerEvent(getSource());
+        final Connectable source = getSource();
+        if (isEventRegistrationRequired(source.getSchedulingStrategy())) {
+            scheduler.registerEvent(source);
         }
     }
 
+    private boolean isEventRegistrationRequired(final SchedulingStrategy schedulingStrategy) {
+        // Timer-Driven components act upon events only if the scheduler is configured to do so, which is checked only for those components
+        return schedulingStrategy == SchedulingStrategy.EVENT_DRIVEN
+            || (schedulingStrategy == SchedulingStrategy.TIMER_DRIVEN && scheduler.isEventRegistrationRequired(schedulingStrategy));
+    }
+
     @Override
     public Authorizable getSourceAuthorizable() {
         final Connectable sourceConnectable = getSource();
@@ -350,6 +358,11 @@ public final class StandardConnection implements Connection, ConnectionEventList
         return flowFileQueue.poll(expiredRecords, PollStrategy.UNPENALIZED_FLOWFILES);
     }
 
+    @Override
+    public List<FlowFileRecord> poll(final int maxResults, final Set<FlowFileRecord> expiredRecords) {
+        return flowFileQueue.poll(maxResults, expiredRecords, PollStrategy.UNPENALIZED_FLOWFILES);
+    }
+
     @Override
     public boolean equals(final Object other) {
         if (!(other instanceof Connection)) {
@@ -17,6 +17,7 @@
 package org.apache.nifi.controller;
 
 import org.apache.nifi.annotation.behavior.EventDriven;
+import org.apache.nifi.annotation.behavior.IOBound;
 import org.apache.nifi.annotation.behavior.InputRequirement;
 import org.apache.nifi.annotation.behavior.PrimaryNodeOnly;
 import org.apache.nifi.annotation.behavior.SideEffectFree;
@@ -41,6 +42,7 @@ public class ProcessorDetails {
     private final boolean eventDrivenSupported;
     private final boolean batchSupported;
     private final boolean executionNodeRestricted;
+    private final boolean ioBound;
     private final InputRequirement.Requirement inputRequirement;
     private final TerminationAwareLogger componentLog;
     private final BundleCoordinate bundleCoordinate;
@@ -58,6 +60,7 @@ public class ProcessorDetails {
         this.triggerWhenAnyDestinationAvailable = procClass.isAnnotationPresent(TriggerWhenAnyDestinationAvailable.class);
         this.eventDrivenSupported = procClass.isAnnotationPresent(EventDriven.class) && !triggeredSerially && !triggerWhenEmpty;
         this.executionNodeRestricted = procClass.isAnnotationPresent(PrimaryNodeOnly.class);
+        this.ioBound = procClass.isAnnotationPresent(IOBound.class);
 
         final boolean inputRequirementPresent = procClass.isAnnotationPresent(InputRequirement.class);
         if (inputRequirementPresent) {
@@ -103,6 +106,10 @@ public class ProcessorDetails {
         return executionNodeRestricted;
     }
 
+    public boolean isIOBound() {
+        return ioBound;
+    }
+
     public InputRequirement.Requirement getInputRequirement() {
         return inputRequirement;
     }
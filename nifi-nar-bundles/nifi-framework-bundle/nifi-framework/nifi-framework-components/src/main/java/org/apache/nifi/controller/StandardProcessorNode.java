@@ -18,6 +18,7 @@ package org.apache.nifi.controller;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.nifi.annotation.behavior.IOBound;
 import org.apache.nifi.annotation.behavior.InputRequirement.Requirement;
 import org.apache.nifi.annotation.behavior.Restricted;
 import org.apache.nifi.annotation.behavior.SideEffectFree;
@@ -378,6 +379,15 @@ public class StandardProcessorNode extends ProcessorNode implements Connectable
         return processorRef.get().isExecutionNodeRestricted();
     }
 
+    /**
+     * @return true if the processor has the {@link IOBound} annotation,
+     *         false otherwise.
+     */
+    @Override
+    public boolean isIOBound() {
+        return processorRef.get().isIOBound();
+    }
+
     /**
      * Indicates whether flow file content made by this processor must be
      * persisted
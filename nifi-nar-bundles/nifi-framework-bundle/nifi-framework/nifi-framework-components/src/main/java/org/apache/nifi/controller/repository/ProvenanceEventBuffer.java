@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.provenance.ProvenanceEventType;
+
+import java.util.Arrays;
+
+/**
+ * Bookkeeping that a {@link StandardProcessSession} uses while determining which Provenance Events to register when it is committed.
+ * Rather than holding objects per FlowFile, the buffer keeps its state in a few parallel arrays:
+ * <ul>
+ *     <li>The set of event types that have been registered for each FlowFile UUID, as a bit mask of {@link ProvenanceEventType} ordinals in an open-addressed table.</li>
+ *     <li>The CREATE, CONTENT_MODIFIED and ATTRIBUTES_MODIFIED events that the framework generates implicitly, as an event type and the Repository Record that the
+ *     event is for. These events are built only when the Provenance Repository iterates over them, and are built directly from the committed state of the FlowFile.</li>
+ * </ul>
+ * A buffer is used by a single thread for the duration of a single commit.
+ */
+final class ProvenanceEventBuffer {
+    private static final ProvenanceEventType[] EVENT_TYPES = ProvenanceEventType.values();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] flowFileUuids;
+    private long[] eventTypeMasks;
+    private int flowFileCount = 0;
+
+    private byte[] implicitEventTypes;
+    private StandardRepositoryRecord[] implicitEventRecords;
+    private int implicitEventCount = 0;
+
+    ProvenanceEventBuffer(final int expectedFlowFiles) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity * 2 < expectedFlowFiles * 3) {
+            capacity <<= 1;
+        }
+
+        flowFileUuids = new String[capacity];
+        eventTypeMasks = new long[capacity];
+        implicitEventTypes = new byte[Math.max(expectedFlowFiles, 1)];
+        implicitEventRecords = new StandardRepositoryRecord[Math.max(expectedFlowFiles, 1)];
+    }
+
+    static long mask(final ProvenanceEventType... eventTypes) {
+        long mask = 0L;
+        for (final ProvenanceEventType eventType : eventTypes) {
+            mask |= 1L << eventType.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Records that an event of the given type has been registered for the FlowFile with the given UUID
+     */
+    void registerEventType(final String flowFileUuid, final ProvenanceEventType eventType) {
+        final int index = indexOf(flowFileUuid);
+        if (flowFileUuids[index] == null) {
+            flowFileUuids[index] = flowFileUuid;
+            eventTypeMasks[index] = 1L << eventType.ordinal();
+
+            flowFileCount++;
+            if (flowFileCount * 3 > flowFileUuids.length * 2) {
+                grow();
+            }
+        } else {
+            eventTypeMasks[index] |= 1L << eventType.ordinal();
+        }
+    }
+
+    /**
+     * @return <code>true</code> if any event has been registered for the FlowFile with the given UUID
+     */
+    boolean isEventRegistered(final String flowFileUuid) {
+        return flowFileUuids[indexOf(flowFileUuid)] != null;
+    }
+
+    /**
+     * @return <code>true</code> if an event whose type is in the given mask has been registered for the FlowFile with the given UUID
+     */
+    boolean isEventRegistered(final String flowFileUuid, final long eventTypeMask) {
+        final int index = indexOf(flowFileUuid);
+        return flowFileUuids[index] != null && (eventTypeMasks[index] & eventTypeMask) != 0L;
+    }
+
+    private int indexOf(final String flowFileUuid) {
+        final int mask = flowFileUuids.length - 1;
+        int hash = flowFileUuid.hashCode();
+        hash ^= (hash >>> 16);
+
+        int index = hash & mask;
+        while (true) {
+            final String existing = flowFileUuids[index];
+            if (existing == null || existing.equals(flowFileUuid)) {
+                return index;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        final String[] oldUuids = flowFileUuids;
+        final long[] oldMasks = eventTypeMasks;
+
+        flowFileUuids = new String[oldUuids.length * 2];
+        eventTypeMasks = new long[oldMasks.length * 2];
+        for (int i = 0; i < oldUuids.length; i++) {
+            final String uuid = oldUuids[i];
+            if (uuid != null) {
+                final int index = indexOf(uuid);
+                flowFileUuids[index] = uuid;
+                eventTypeMasks[index] = oldMasks[i];
+            }
+        }
+    }
+
+    /**
+     * Adds an event of the given type that is to be generated for the FlowFile of the given Repository Record
+     */
+    void addImplicitEvent(final ProvenanceEventType eventType, final StandardRepositoryRecord record) {
+        if (implicitEventCount == implicitEventRecords.length) {
+            final int newLength = implicitEventRecords.length * 2;
+            implicitEventTypes = Arrays.copyOf(implicitEventTypes, newLength);
+            implicitEventRecords = Arrays.copyOf(implicitEventRecords, newLength);
+        }
+
+        implicitEventTypes[implicitEventCount] = (byte) eventType.ordinal();
+        implicitEventRecords[implicitEventCount] = record;
+        implicitEventCount++;
+    }
+
+    int getImplicitEventCount() {
+        return implicitEventCount;
+    }
+
+    ProvenanceEventType getImplicitEventType(final int index) {
+        return EVENT_TYPES[implicitEventTypes[index]];
+    }
+
+    StandardRepositoryRecord getImplicitEventRecord(final int index) {
+        return implicitEventRecords[index];
+    }
+}
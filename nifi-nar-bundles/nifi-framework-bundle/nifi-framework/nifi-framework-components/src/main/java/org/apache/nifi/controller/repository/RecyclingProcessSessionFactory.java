@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.lifecycle.TaskTermination;
+import org.apache.nifi.processor.ProcessSessionFactory;
+
+import java.util.Queue;
+
+/**
+ * A ProcessSessionFactory that, rather than always creating a new session, hands out a session that was previously recycled by a task of the
+ * same component, if there is one. Once the task that uses the factory has completed, the framework calls {@link #recycleSession()} to return
+ * the session to the component's pool, which only happens if the factory created a single session and that session holds no uncommitted state.
+ * The pool belongs to the component's scheduled task rather than to the threads that run it, so that the recycled sessions are released as
+ * soon as the component is stopped.
+ * A recycled session refuses to be used until it is handed out again, so a component that holds on to a session past the end of its task
+ * fails fast rather than operating on a session that belongs to another task.
+ *
+ * This factory must only be used for components that are known to be done with their sessions when they return from onTrigger.
+ */
+public class RecyclingProcessSessionFactory implements ProcessSessionFactory {
+
+    private final RepositoryContext context;
+    private final TaskTermination taskTermination;
+    private final Queue<StandardProcessSession> recycledSessions;
+
+    private StandardProcessSession createdSession;
+    private int sessionsCreated = 0;
+
+    public RecyclingProcessSessionFactory(final RepositoryContext context, final TaskTermination taskTermination, final Queue<StandardProcessSession> recycledSessions) {
+        this.context = context;
+        this.taskTermination = taskTermination;
+        this.recycledSessions = recycledSessions;
+    }
+
+    @Override
+    public StandardProcessSession createSession() {
+        StandardProcessSession session = recycledSessions.poll();
+        if (session == null) {
+            session = new StandardProcessSession(context, taskTermination);
+        } else {
+            session.reuse();
+        }
+
+        if (sessionsCreated++ == 0) {
+            createdSession = session;
+        }
+
+        return session;
+    }
+
+    /**
+     * Returns the session that this factory created to the component's pool, if it can be reused. This must only be called by the
+     * thread that the task ran on, after the task has completed.
+     *
+     * @return <code>true</code> if the session was recycled, <code>false</code> if no session was created, more than one was, or the session
+     * still holds state that was neither committed nor rolled back
+     */
+    public boolean recycleSession() {
+        if (sessionsCreated != 1 || !createdSession.isRecyclable()) {
+            return false;
+        }
+
+        createdSession.recycle();
+        recycledSessions.offer(createdSession);
+        return true;
+    }
+}
@@ -49,6 +49,8 @@ import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.exception.TerminatedTaskException;
+import org.apache.nifi.processor.io.ByteBufferCallback;
+import org.apache.nifi.processor.io.FileRegionCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -74,10 +76,11 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -123,6 +126,8 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     private static final Logger LOG = LoggerFactory.getLogger(StandardProcessSession.class);
     private static final Logger claimLog = LoggerFactory.getLogger(StandardProcessSession.class.getSimpleName() + ".claims");
     private static final int MAX_ROLLBACK_FLOWFILES_TO_LOG = 5;
+    private static final long CREATION_EVENT_TYPES = ProvenanceEventBuffer.mask(ProvenanceEventType.CREATE, ProvenanceEventType.FORK, ProvenanceEventType.CLONE,
+        ProvenanceEventType.JOIN, ProvenanceEventType.RECEIVE, ProvenanceEventType.FETCH);
 
     private final Map<Long, StandardRepositoryRecord> records = new ConcurrentHashMap<>();
     private final Map<String, StandardFlowFileEvent> connectionCounts = new ConcurrentHashMap<>();
@@ -133,7 +138,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     private final Map<FlowFile, Integer> readRecursionSet = new HashMap<>();// set used to track what is currently being operated on to prevent logic failures if recursive calls occurring
     private final Set<FlowFile> writeRecursionSet = new HashSet<>();
     private final Map<FlowFile, Path> deleteOnCommit = new HashMap<>();
-    private final long sessionId;
+    private long sessionId;
     private final String connectableDescription;
 
     private Map<String, Long> countersOnCommit;
@@ -175,6 +180,10 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     private StateMap localState;
     private StateMap clusterState;
 
+    // set when the session has been handed back to a RecyclingProcessSessionFactory, so that any further use of it can be detected
+    private boolean recycled = false;
+    private Exception recycledAt = null;
+
     public StandardProcessSession(final RepositoryContext context, final TaskTermination taskTermination) {
         this.context = context;
         this.taskTermination = taskTermination;
@@ -188,6 +197,11 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
     }
 
     private void verifyTaskActive() {
+        if (recycled) {
+            throw new IllegalStateException(this + " for " + connectableDescription + " was recycled when the task that created it completed, so it can no longer be used. "
+                + "A Processor must not hold on to a Process Session after onTrigger returns.", recycledAt);
+        }
+
         if (taskTermination.isTerminated()) {
             rollback(false, true);
             throw new TerminatedTaskException();
@@ -657,11 +671,6 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         return combined;
     }
 
-    private void addEventType(final Map<String, BitSet> map, final String id, final ProvenanceEventType eventType) {
-        final BitSet eventTypes = map.computeIfAbsent(id, key -> new BitSet());
-        eventTypes.set(eventType.ordinal());
-    }
-
     private StandardRepositoryRecord getRecord(final FlowFile flowFile) {
         return records.get(flowFile.getId());
     }
@@ -674,7 +683,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         // in case the Processor developer submitted the same events to the reporter. So we use a LinkedHashSet
         // for this, so that we are able to ensure that the events are submitted in the proper order.
         final Set<ProvenanceEventRecord> recordsToSubmit = new LinkedHashSet<>();
-        final Map<String, BitSet> eventTypesPerFlowFileId = new HashMap<>();
+        final ProvenanceEventBuffer eventBuffer = new ProvenanceEventBuffer(checkpoint.records.size());
 
         final Set<ProvenanceEventRecord> processorGenerated = checkpoint.reportedEvents;
 
@@ -698,10 +707,10 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
 
                 // Register the FORK event for each child and each parent.
                 for (final String childUuid : event.getChildUuids()) {
-                    addEventType(eventTypesPerFlowFileId, childUuid, event.getEventType());
+                    eventBuffer.registerEventType(childUuid, event.getEventType());
                 }
                 for (final String parentUuid : event.getParentUuids()) {
-                    addEventType(eventTypesPerFlowFileId, parentUuid, event.getEventType());
+                    eventBuffer.registerEventType(parentUuid, event.getEventType());
                 }
             }
         }
@@ -712,7 +721,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                 final ProvenanceEventType eventType = event.getEventType();
                 if (eventType == ProvenanceEventType.JOIN) {
                     recordsToSubmit.add(event);
-                    addEventType(eventTypesPerFlowFileId, event.getFlowFileUuid(), event.getEventType());
+                    eventBuffer.registerEventType(event.getFlowFileUuid(), event.getEventType());
                 }
             }
         }
@@ -730,12 +739,12 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
             }
 
             recordsToSubmit.add(event);
-            addEventType(eventTypesPerFlowFileId, event.getFlowFileUuid(), event.getEventType());
+            eventBuffer.registerEventType(event.getFlowFileUuid(), event.getEventType());
 
             final List<String> childUuids = event.getChildUuids();
             if (childUuids != null) {
                 for (final String childUuid : childUuids) {
-                    addEventType(eventTypesPerFlowFileId, childUuid, event.getEventType());
+                    eventBuffer.registerEventType(childUuid, event.getEventType());
                 }
             }
         }
@@ -752,7 +761,7 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                 }
 
                 recordsToSubmit.add(event);
-                addEventType(eventTypesPerFlowFileId, event.getFlowFileUuid(), event.getEventType());
+                eventBuffer.registerEventType(event.getFlowFileUuid(), event.getEventType());
             }
         }
 
@@ -772,28 +781,15 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
 
             final boolean newFlowFile = repoRecord.getOriginal() == null;
             if (contentChanged && !newFlowFile) {
-                recordsToSubmit.add(provenanceReporter.build(curFlowFile, ProvenanceEventType.CONTENT_MODIFIED).build());
-                addEventType(eventTypesPerFlowFileId, flowFileId, ProvenanceEventType.CONTENT_MODIFIED);
+                eventBuffer.addImplicitEvent(ProvenanceEventType.CONTENT_MODIFIED, repoRecord);
+                eventBuffer.registerEventType(flowFileId, ProvenanceEventType.CONTENT_MODIFIED);
                 eventAdded = true;
             }
 
             if (checkpoint.createdFlowFiles.contains(flowFileId)) {
-                final BitSet registeredTypes = eventTypesPerFlowFileId.get(flowFileId);
-                boolean creationEventRegistered = false;
-                if (registeredTypes != null) {
-                    if (registeredTypes.get(ProvenanceEventType.CREATE.ordinal())
-                        || registeredTypes.get(ProvenanceEventType.FORK.ordinal())
-                        || registeredTypes.get(ProvenanceEventType.CLONE.ordinal())
-                        || registeredTypes.get(ProvenanceEventType.JOIN.ordinal())
-                        || registeredTypes.get(ProvenanceEventType.RECEIVE.ordinal())
-                        || registeredTypes.get(ProvenanceEventType.FETCH.ordinal())) {
-
-                        creationEventRegistered = true;
-                    }
-                }
-
+                final boolean creationEventRegistered = eventBuffer.isEventRegistered(flowFileId, CREATION_EVENT_TYPES);
                 if (!creationEventRegistered) {
-                    recordsToSubmit.add(provenanceReporter.build(curFlowFile, ProvenanceEventType.CREATE).build());
+                    eventBuffer.addImplicitEvent(ProvenanceEventType.CREATE, repoRecord);
                     eventAdded = true;
                 }
             }
@@ -803,14 +799,15 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                 // created for the FlowFile. We do this because all events contain both the
                 // newest and the original attributes, so generating an ATTRIBUTES_MODIFIED
                 // event is redundant if another already exists.
-                if (!eventTypesPerFlowFileId.containsKey(flowFileId)) {
-                    recordsToSubmit.add(provenanceReporter.build(curFlowFile, ProvenanceEventType.ATTRIBUTES_MODIFIED).build());
-                    addEventType(eventTypesPerFlowFileId, flowFileId, ProvenanceEventType.ATTRIBUTES_MODIFIED);
+                if (!eventBuffer.isEventRegistered(flowFileId)) {
+                    eventBuffer.addImplicitEvent(ProvenanceEventType.ATTRIBUTES_MODIFIED, repoRecord);
+                    eventBuffer.registerEventType(flowFileId, ProvenanceEventType.ATTRIBUTES_MODIFIED);
                 }
             }
         }
 
-        // We want to submit the 'recordsToSubmit' collection, followed by the auto-terminated events to the Provenance Repository.
+        // We want to submit the 'recordsToSubmit' collection, followed by the implicit events in the 'eventBuffer' and then the auto-terminated
+        // events to the Provenance Repository.
         // We want to do this with a single call to ProvenanceEventRepository#registerEvents because it may be much more efficient
         // to do so.
         // However, we want to modify the events in 'recordsToSubmit' to obtain the data from the most recent version of the FlowFiles
@@ -832,13 +829,14 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         final Iterable<ProvenanceEventRecord> iterable = new Iterable<ProvenanceEventRecord>() {
             final Iterator<ProvenanceEventRecord> recordsToSubmitIterator = recordsToSubmit.iterator();
             final Iterator<ProvenanceEventRecord> autoTermIterator = autoTermEvents == null ? null : autoTermEvents.iterator();
+            int implicitEventIndex = 0;
 
             @Override
             public Iterator<ProvenanceEventRecord> iterator() {
                 return new Iterator<ProvenanceEventRecord>() {
                     @Override
                     public boolean hasNext() {
-                        return recordsToSubmitIterator.hasNext() || autoTermIterator != null && autoTermIterator.hasNext();
+                        return recordsToSubmitIterator.hasNext() || implicitEventIndex < eventBuffer.getImplicitEventCount() || autoTermIterator != null && autoTermIterator.hasNext();
                     }
 
                     @Override
@@ -853,6 +851,9 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
                             // exists in our system -- all other representations are volatile representations that have not been
                             // exposed.
                             return enrich(rawEvent, flowFileRecordMap, checkpoint.records, rawEvent.getEventType() != ProvenanceEventType.SEND, commitNanos);
+                        } else if (implicitEventIndex < eventBuffer.getImplicitEventCount()) {
+                            final int index = implicitEventIndex++;
+                            return buildImplicitEvent(eventBuffer.getImplicitEventType(index), eventBuffer.getImplicitEventRecord(index), commitNanos);
                         } else if (autoTermIterator != null && autoTermIterator.hasNext()) {
                             return enrich(autoTermIterator.next(), flowFileRecordMap, checkpoint.records, true, commitNanos);
                         }
@@ -934,39 +935,54 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         final FlowFileRecord eventFlowFile = flowFileRecordMap.get(rawEvent.getFlowFileUuid());
         if (eventFlowFile != null) {
             final StandardRepositoryRecord repoRecord = records.get(eventFlowFile.getId());
+            enrich(recordBuilder, eventFlowFile, repoRecord, updateAttributes, rawEvent.getEventDuration() < 0, commitNanos);
+        }
+        return recordBuilder.build();
+    }
 
-            if (repoRecord.getCurrent() != null && repoRecord.getCurrentClaim() != null) {
-                final ContentClaim currentClaim = repoRecord.getCurrentClaim();
-                final long currentOffset = repoRecord.getCurrentClaimOffset();
-                final long size = eventFlowFile.getSize();
+    /**
+     * Builds one of the events that the framework generates implicitly on commit. Because the event is built from the committed
+     * state of the FlowFile to begin with, there is no need to build a raw event first and then copy it in order to enrich it.
+     */
+    private ProvenanceEventRecord buildImplicitEvent(final ProvenanceEventType eventType, final StandardRepositoryRecord repoRecord, final long commitNanos) {
+        final FlowFileRecord flowFile = repoRecord.getCurrent();
+        final ProvenanceEventBuilder recordBuilder = provenanceReporter.build(flowFile, eventType);
+        enrich(recordBuilder, flowFile, repoRecord, true, true, commitNanos);
+        return recordBuilder.build();
+    }
 
-                final ResourceClaim resourceClaim = currentClaim.getResourceClaim();
-                recordBuilder.setCurrentContentClaim(resourceClaim.getContainer(), resourceClaim.getSection(), resourceClaim.getId(), currentOffset + currentClaim.getOffset(), size);
-            }
+    private void enrich(final ProvenanceEventBuilder recordBuilder, final FlowFileRecord eventFlowFile, final StandardRepositoryRecord repoRecord,
+                        final boolean updateAttributes, final boolean updateDuration, final long commitNanos) {
+        if (repoRecord.getCurrent() != null && repoRecord.getCurrentClaim() != null) {
+            final ContentClaim currentClaim = repoRecord.getCurrentClaim();
+            final long currentOffset = repoRecord.getCurrentClaimOffset();
+            final long size = eventFlowFile.getSize();
 
-            if (repoRecord.getOriginal() != null && repoRecord.getOriginalClaim() != null) {
-                final ContentClaim originalClaim = repoRecord.getOriginalClaim();
-                final long originalOffset = repoRecord.getOriginal().getContentClaimOffset();
-                final long originalSize = repoRecord.getOriginal().getSize();
+            final ResourceClaim resourceClaim = currentClaim.getResourceClaim();
+            recordBuilder.setCurrentContentClaim(resourceClaim.getContainer(), resourceClaim.getSection(), resourceClaim.getId(), currentOffset + currentClaim.getOffset(), size);
+        }
 
-                final ResourceClaim resourceClaim = originalClaim.getResourceClaim();
-                recordBuilder.setPreviousContentClaim(resourceClaim.getContainer(), resourceClaim.getSection(), resourceClaim.getId(), originalOffset + originalClaim.getOffset(), originalSize);
-            }
+        if (repoRecord.getOriginal() != null && repoRecord.getOriginalClaim() != null) {
+            final ContentClaim originalClaim = repoRecord.getOriginalClaim();
+            final long originalOffset = repoRecord.getOriginal().getContentClaimOffset();
+            final long originalSize = repoRecord.getOriginal().getSize();
 
-            final FlowFileQueue originalQueue = repoRecord.getOriginalQueue();
-            if (originalQueue != null) {
-                recordBuilder.setSourceQueueIdentifier(originalQueue.getIdentifier());
-            }
+            final ResourceClaim resourceClaim = originalClaim.getResourceClaim();
+            recordBuilder.setPreviousContentClaim(resourceClaim.getContainer(), resourceClaim.getSection(), resourceClaim.getId(), originalOffset + originalClaim.getOffset(), originalSize);
+        }
 
-            if (updateAttributes) {
-                recordBuilder.setAttributes(repoRecord.getOriginalAttributes(), repoRecord.getUpdatedAttributes());
-            }
+        final FlowFileQueue originalQueue = repoRecord.getOriginalQueue();
+        if (originalQueue != null) {
+            recordBuilder.setSourceQueueIdentifier(originalQueue.getIdentifier());
+        }
 
-            if (rawEvent.getEventDuration() < 0) {
-                recordBuilder.setEventDuration(TimeUnit.NANOSECONDS.toMillis(commitNanos - repoRecord.getStartNanos()));
-            }
+        if (updateAttributes) {
+            recordBuilder.setAttributes(repoRecord.getOriginalAttributes(), repoRecord.getUpdatedAttributes());
+        }
+
+        if (updateDuration) {
+            recordBuilder.setEventDuration(TimeUnit.NANOSECONDS.toMillis(commitNanos - repoRecord.getStartNanos()));
         }
-        return recordBuilder.build();
     }
 
     /**
@@ -1279,6 +1295,54 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         processingStartTime = System.nanoTime();
     }
 
+    /**
+     * @return <code>true</code> if this session holds no FlowFiles, open streams, events or other state that has not been committed or rolled back,
+     * so that it could be reused in place of a new session
+     */
+    boolean isRecyclable() {
+        return !recycled
+            && checkpoint == null
+            && records.isEmpty()
+            && unacknowledgedFlowFiles.isEmpty()
+            && openInputStreams.isEmpty()
+            && openOutputStreams.isEmpty()
+            && appendableStreams.isEmpty()
+            && readRecursionSet.isEmpty()
+            && writeRecursionSet.isEmpty()
+            && deleteOnCommit.isEmpty()
+            && currentReadClaimStream == null
+            && createdFlowFiles.isEmpty()
+            && removedFlowFiles.isEmpty()
+            && generatedProvenanceEvents.isEmpty()
+            && forkEventBuilders.isEmpty()
+            && provenanceReporter.getEvents().isEmpty()
+            && (countersOnCommit == null || countersOnCommit.isEmpty())
+            && (immediateCounters == null || immediateCounters.isEmpty())
+            && localState == null
+            && clusterState == null;
+    }
+
+    /**
+     * Marks this session as recycled. Until {@link #reuse()} is called, any attempt to use the session results in an IllegalStateException.
+     */
+    void recycle() {
+        recycled = true;
+        // Capturing the stack trace is comparatively expensive, so it is only done when debugging
+        recycledAt = LOG.isDebugEnabled() ? new Exception("Session recycled") : null;
+        LOG.trace("Session {} recycled for {}", this, connectableDescription);
+    }
+
+    /**
+     * Prepares a recycled session to be used again, as if it had just been created
+     */
+    void reuse() {
+        recycled = false;
+        recycledAt = null;
+        sessionId = idGenerator.getAndIncrement();
+        processingStartTime = System.nanoTime();
+        LOG.trace("Session {} reused for {}", this, connectableDescription);
+    }
+
     private void acknowledgeRecords() {
         final Iterator<Map.Entry<FlowFileQueue, Set<FlowFileRecord>>> itr = unacknowledgedFlowFiles.entrySet().iterator();
         while (itr.hasNext()) {
@@ -1722,21 +1786,11 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
             return Collections.emptyList();
         }
 
+        // Poll the FlowFiles as a single batch rather than offering each FlowFile to a filter
         return get(new ConnectionPoller() {
             @Override
             public List<FlowFileRecord> poll(final Connection connection, final Set<FlowFileRecord> expiredRecords) {
-                return connection.poll(new FlowFileFilter() {
-                    int polled = 0;
-
-                    @Override
-                    public FlowFileFilterResult filter(final FlowFile flowFile) {
-                        if (++polled < maxResults) {
-                            return FlowFileFilterResult.ACCEPT_AND_CONTINUE;
-                        } else {
-                            return FlowFileFilterResult.ACCEPT_AND_TERMINATE;
-                        }
-                    }
-                }, expiredRecords);
+                return connection.poll(maxResults, expiredRecords);
             }
         }, false);
     }
@@ -2503,6 +2557,123 @@ public class StandardProcessSession implements ProcessSession, ProvenanceEventEn
         }
     }
 
+    @Override
+    public void readBuffer(FlowFile source, final ByteBufferCallback reader) {
+        verifyTaskActive();
+
+        final ContentRepository contentRepository = context.getContentRepository();
+        if (!contentRepository.isBufferReadSupported()) {
+            ProcessSession.super.readBuffer(source, reader);
+            return;
+        }
+
+        source = validateRecordState(source, true);
+        final StandardRepositoryRecord record = getRecord(source);
+
+        try {
+            ensureNotAppending(record.getCurrentClaim());
+            claimCache.flush(record.getCurrentClaim());
+        } catch (final IOException e) {
+            throw new FlowFileAccessException("Failed to access ContentClaim for " + source.toString(), e);
+        }
+
+        if (source.getSize() > Integer.MAX_VALUE) {
+            throw new FlowFileAccessException(source + " is too large to be read into a ByteBuffer");
+        }
+
+        ByteBuffer claimBuffer = null;
+        try {
+            final ByteBuffer buffer;
+            if (source.getSize() == 0L) {
+                buffer = ByteBuffer.allocate(0).asReadOnlyBuffer();
+            } else {
+                try {
+                    claimBuffer = contentRepository.readBuffer(record.getCurrentClaim());
+                } catch (final ContentNotFoundException cnfe) {
+                    throw cnfe;
+                } catch (final IOException ioe) {
+                    throw new FlowFileAccessException("Failed to read content of " + source, ioe);
+                }
+
+                // The FlowFile's content may begin part-way into the Content Claim, such as after a call to clone(FlowFile, long, long)
+                final int claimOffset = (int) record.getCurrentClaimOffset();
+                claimBuffer.position(claimOffset);
+                claimBuffer.limit(claimOffset + (int) source.getSize());
+                buffer = claimBuffer.slice();
+            }
+
+            try {
+                incrementReadCount(source);
+                reader.process(buffer);
+            } finally {
+                decrementReadCount(source);
+                bytesRead += source.getSize();
+            }
+        } catch (final ContentNotFoundException nfe) {
+            handleContentNotFound(nfe, record);
+        } catch (final IOException ex) {
+            throw new ProcessException("IOException thrown from " + connectableDescription + ": " + ex.toString(), ex);
+        } finally {
+            if (claimBuffer != null) {
+                contentRepository.releaseBuffer(record.getCurrentClaim(), claimBuffer);
+            }
+        }
+    }
+
+    @Override
+    public boolean readFileRegion(FlowFile source, final FileRegionCallback reader) {
+        verifyTaskActive();
+
+        final ContentRepository contentRepository = context.getContentRepository();
+        if (!contentRepository.isChannelReadSupported() || source.getSize() == 0L) {
+            return false;
+        }
+
+        source = validateRecordState(source, true);
+        final StandardRepositoryRecord record = getRecord(source);
+        final ContentClaim claim = record.getCurrentClaim();
+
+        try {
+            ensureNotAppending(claim);
+            claimCache.flush(claim);
+        } catch (final IOException e) {
+            throw new FlowFileAccessException("Failed to access ContentClaim for " + source.toString(), e);
+        }
+
+        try {
+            final FileChannel channel;
+            try {
+                channel = contentRepository.readChannel(claim);
+            } catch (final ContentNotFoundException cnfe) {
+                throw cnfe;
+            } catch (final IOException ioe) {
+                throw new FlowFileAccessException("Failed to read content of " + source, ioe);
+            }
+
+            try (final FileChannel regionChannel = channel) {
+                final long position = claim.getOffset() + record.getCurrentClaimOffset();
+                if (regionChannel.size() < position + source.getSize()) {
+                    throw new ContentNotFoundException(claim, "Content Claim for " + source + " ends at offset " + (position + source.getSize())
+                        + " but its Resource Claim is only " + regionChannel.size() + " bytes");
+                }
+
+                incrementReadCount(source);
+                try {
+                    reader.process(regionChannel, position, source.getSize());
+                } finally {
+                    decrementReadCount(source);
+                    bytesRead += source.getSize();
+                }
+            }
+        } catch (final ContentNotFoundException nfe) {
+            handleContentNotFound(nfe, record);
+        } catch (final IOException ex) {
+            throw new ProcessException("IOException thrown from " + connectableDescription + ": " + ex.toString(), ex);
+        }
+
+        return true;
+    }
+
     @Override
     public InputStream read(FlowFile source) {
         verifyTaskActive();
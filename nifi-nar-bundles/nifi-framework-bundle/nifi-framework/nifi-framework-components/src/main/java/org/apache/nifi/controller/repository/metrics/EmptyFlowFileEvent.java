@@ -72,6 +72,16 @@ public class EmptyFlowFileEvent implements FlowFileEvent {
         return 0;
     }
 
+    @Override
+    public long getCpuNanoseconds() {
+        return 0;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return 0;
+    }
+
     @Override
     public long getAverageLineageMillis() {
         return 0;
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.metrics;
+
+import org.apache.nifi.controller.repository.FlowFileEvent;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Defines the layout used to hold the numeric fields of a {@link FlowFileEvent} as a run of consecutive slots in an {@link AtomicLongArray},
+ * so that events can be accumulated with plain atomic additions rather than by locking or by allocating new objects.
+ */
+final class FlowFileEventFields {
+    static final int FLOWFILES_IN = 0;
+    static final int FLOWFILES_OUT = 1;
+    static final int FLOWFILES_REMOVED = 2;
+    static final int FLOWFILES_RECEIVED = 3;
+    static final int FLOWFILES_SENT = 4;
+    static final int CONTENT_SIZE_IN = 5;
+    static final int CONTENT_SIZE_OUT = 6;
+    static final int CONTENT_SIZE_REMOVED = 7;
+    static final int BYTES_READ = 8;
+    static final int BYTES_WRITTEN = 9;
+    static final int BYTES_RECEIVED = 10;
+    static final int BYTES_SENT = 11;
+    static final int PROCESSING_NANOS = 12;
+    static final int CPU_NANOS = 13;
+    static final int ALLOCATED_BYTES = 14;
+    static final int AGGREGATE_LINEAGE_MILLIS = 15;
+    static final int INVOCATIONS = 16;
+
+    static final int COUNT = 17;
+
+    private FlowFileEventFields() {
+    }
+
+    /**
+     * Adds the values of the given event to the slots starting at the given offset. Fields whose value is 0 are skipped,
+     * as most events populate only a few of them.
+     */
+    static void add(final AtomicLongArray values, final int offset, final FlowFileEvent event) {
+        add(values, offset + FLOWFILES_IN, event.getFlowFilesIn());
+        add(values, offset + FLOWFILES_OUT, event.getFlowFilesOut());
+        add(values, offset + FLOWFILES_REMOVED, event.getFlowFilesRemoved());
+        add(values, offset + FLOWFILES_RECEIVED, event.getFlowFilesReceived());
+        add(values, offset + FLOWFILES_SENT, event.getFlowFilesSent());
+        add(values, offset + CONTENT_SIZE_IN, event.getContentSizeIn());
+        add(values, offset + CONTENT_SIZE_OUT, event.getContentSizeOut());
+        add(values, offset + CONTENT_SIZE_REMOVED, event.getContentSizeRemoved());
+        add(values, offset + BYTES_READ, event.getBytesRead());
+        add(values, offset + BYTES_WRITTEN, event.getBytesWritten());
+        add(values, offset + BYTES_RECEIVED, event.getBytesReceived());
+        add(values, offset + BYTES_SENT, event.getBytesSent());
+        add(values, offset + PROCESSING_NANOS, event.getProcessingNanoseconds());
+        add(values, offset + CPU_NANOS, event.getCpuNanoseconds());
+        add(values, offset + ALLOCATED_BYTES, event.getAllocatedBytes());
+        add(values, offset + AGGREGATE_LINEAGE_MILLIS, event.getAggregateLineageMillis());
+        add(values, offset + INVOCATIONS, event.getInvocations());
+    }
+
+    private static void add(final AtomicLongArray values, final int index, final long value) {
+        if (value != 0L) {
+            values.getAndAdd(index, value);
+        }
+    }
+
+    /**
+     * Adds the slots starting at the given offset to the given totals
+     */
+    static void addTo(final long[] totals, final AtomicLongArray values, final int offset) {
+        for (int i = 0; i < COUNT; i++) {
+            totals[i] += values.get(offset + i);
+        }
+    }
+
+    /**
+     * Sets the slots starting at the given offset to 0, subtracting the values that they held from the given totals
+     */
+    static void drain(final AtomicLongArray values, final int offset, final AtomicLongArray totals) {
+        for (int i = 0; i < COUNT; i++) {
+            final long value = values.getAndSet(offset + i, 0L);
+            if (value != 0L) {
+                totals.getAndAdd(i, -value);
+            }
+        }
+    }
+
+    static StandardFlowFileEvent toFlowFileEvent(final long[] totals, final Map<String, Long> counters) {
+        final StandardFlowFileEvent event = new StandardFlowFileEvent();
+        event.setFlowFilesIn((int) totals[FLOWFILES_IN]);
+        event.setFlowFilesOut((int) totals[FLOWFILES_OUT]);
+        event.setFlowFilesRemoved((int) totals[FLOWFILES_REMOVED]);
+        event.setFlowFilesReceived((int) totals[FLOWFILES_RECEIVED]);
+        event.setFlowFilesSent((int) totals[FLOWFILES_SENT]);
+        event.setContentSizeIn(totals[CONTENT_SIZE_IN]);
+        event.setContentSizeOut(totals[CONTENT_SIZE_OUT]);
+        event.setContentSizeRemoved(totals[CONTENT_SIZE_REMOVED]);
+        event.setBytesRead(totals[BYTES_READ]);
+        event.setBytesWritten(totals[BYTES_WRITTEN]);
+        event.setBytesReceived(totals[BYTES_RECEIVED]);
+        event.setBytesSent(totals[BYTES_SENT]);
+        event.setProcessingNanos(totals[PROCESSING_NANOS]);
+        event.setCpuNanos(totals[CPU_NANOS]);
+        event.setAllocatedBytes(totals[ALLOCATED_BYTES]);
+        event.setAggregateLineageMillis(totals[AGGREGATE_LINEAGE_MILLIS]);
+        event.setInvocations((int) totals[INVOCATIONS]);
+        event.setCounters(counters);
+        return event;
+    }
+}
@@ -26,7 +26,7 @@ import java.util.concurrent.ConcurrentMap;
 
 public class RingBufferEventRepository implements FlowFileEventRepository {
     private final int numMinutes;
-    private final EventSumValue aggregateValues = new EventSumValue(0L);
+    private final StripedEventSum aggregateValues = new StripedEventSum();
     private final ConcurrentMap<String, EventContainer> componentEventMap = new ConcurrentHashMap<>();
 
     public RingBufferEventRepository(final int numMinutes) {
@@ -39,7 +39,12 @@ public class RingBufferEventRepository implements FlowFileEventRepository {
 
     @Override
     public void updateRepository(final FlowFileEvent event, final String componentId) {
-        final EventContainer eventContainer = componentEventMap.computeIfAbsent(componentId, id -> new SecondPrecisionEventContainer(numMinutes));
+        // Look up the container before falling back to computeIfAbsent, which may lock even if the key is present and allocates a capturing lambda
+        EventContainer eventContainer = componentEventMap.get(componentId);
+        if (eventContainer == null) {
+            eventContainer = componentEventMap.computeIfAbsent(componentId, id -> new SecondPrecisionEventContainer(numMinutes));
+        }
+
         eventContainer.addEvent(event);
         aggregateValues.add(event);
     }
@@ -1,5 +1,5 @@
 /*
-e * Licensed to the Apache Software Foundation (ASF) under one or more
+ * Licensed to the Apache Software Foundation (ASF) under one or more
  * contributor license agreements.  See the NOTICE file distributed with
  * this work for additional information regarding copyright ownership.
  * The ASF licenses this file to You under the Apache License, Version 2.0
@@ -14,33 +14,47 @@ e * Licensed to the Apache Software Foundation (ASF) under one or more
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package org.apache.nifi.controller.repository.metrics;
 
 import org.apache.nifi.controller.repository.FlowFileEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Holds one bin of FlowFile Event totals for each second of the configured number of minutes, along with a running total of the
+ * bins that fall within the window. Adding an event takes no locks and adds its values to both its bin and the running total. When
+ * a bin is reused for a later second, or its second falls out of the window, the values that it holds are subtracted from the running
+ * total, so generating a report only visits the bins whose seconds have left the window since the previous report. Bins are allocated
+ * the first time that an event is added for one of their seconds, so a component that is rarely triggered holds only a few of them.
+ */
 public class SecondPrecisionEventContainer implements EventContainer {
     private static final Logger logger = LoggerFactory.getLogger(SecondPrecisionEventContainer.class);
 
+    private static final long UNUSED = 0L;
+    private static final long RESETTING = -1L;
+
     private final int numBins;
-    private final EventSum[] sums;
-    private final EventSumValue aggregateValue = new EventSumValue(0L);
-    private final AtomicLong lastUpdateSecond = new AtomicLong(System.currentTimeMillis() / 1000L);
+    private final AtomicReferenceArray<Bin> bins;
+    private final AtomicLongArray windowValues = new AtomicLongArray(FlowFileEventFields.COUNT);
+    private final ConcurrentMap<String, AtomicLong> windowCounters = new ConcurrentHashMap<>();
+    private volatile long lastUpdateSecond = System.currentTimeMillis() / 1000L;
+    private volatile long expiredThroughSecond = Long.MIN_VALUE;
 
     public SecondPrecisionEventContainer(final int numMinutes) {
         // number of bins is number of seconds in 'numMinutes' plus 1. We add one because
         // we want to have the 'current bin' that we are adding values to, in addition to the
         // previous (X = numMinutes * 60) bins of values that have completed
         numBins = numMinutes * 60 + 1;
-        sums = new EventSum[numBins];
-
-        for (int i = 0; i < numBins; i++) {
-            sums[i] = new EventSum();
-        }
+        bins = new AtomicReferenceArray<>(numBins);
     }
 
     @Override
@@ -49,60 +63,106 @@ public class SecondPrecisionEventContainer implements EventContainer {
     }
 
     protected void addEvent(final FlowFileEvent event, final long timestamp) {
-        final long second = timestamp / 1000;
+        long second = timestamp / 1000;
+
+        // The bin of a second that has already left the window is not visited again until the ring wraps around to it, so its values
+        // would linger in the running total. Count the event toward the oldest second that is still in the window instead.
+        final long expiredThrough = expiredThroughSecond;
+        if (second <= expiredThrough) {
+            second = expiredThrough + 1;
+        }
+
         final int binIdx = (int) (second % numBins);
-        final EventSum sum = sums[binIdx];
+        final Bin bin = getBin(binIdx);
 
-        final EventSumValue replaced = sum.addOrReset(event, timestamp);
+        claimBin(bin, binIdx, second);
+        FlowFileEventFields.add(bin.values, 0, event);
+        FlowFileEventFields.add(windowValues, 0, event);
 
-        aggregateValue.add(event);
+        final Map<String, Long> eventCounters = event.getCounters();
+        if (eventCounters != null && !eventCounters.isEmpty()) {
+            final ConcurrentMap<String, AtomicLong> binCounters = bin.getCounters();
+            for (final Map.Entry<String, Long> entry : eventCounters.entrySet()) {
+                addCounter(binCounters, entry.getKey(), entry.getValue());
+                addCounter(windowCounters, entry.getKey(), entry.getValue());
+            }
+        }
 
-        if (replaced == null) {
-            logger.debug("Updated bin {}. Did NOT replace.", binIdx);
-        } else {
-            logger.debug("Replaced bin {}", binIdx);
-            aggregateValue.subtract(replaced);
+        if (second > lastUpdateSecond) {
+            lastUpdateSecond = second;
+        }
+    }
+
+    private Bin getBin(final int binIdx) {
+        Bin bin = bins.get(binIdx);
+        if (bin == null) {
+            bins.compareAndSet(binIdx, null, new Bin());
+            bin = bins.get(binIdx);
         }
 
-        // If there are any buckets that have expired, we need to update our aggregate value to reflect that.
-        processExpiredBuckets(second);
+        return bin;
     }
 
-    private void processExpiredBuckets(final long currentSecond) {
-        final long lastUpdate = lastUpdateSecond.get();
-        if (currentSecond > lastUpdate) {
-            final boolean updated = lastUpdateSecond.compareAndSet(lastUpdate, currentSecond);
-            if (updated) {
-                if (lastUpdate == 0L) {
-                    // First update, so nothing to expire
-                    return;
-                }
+    /**
+     * Ensures that the given bin holds the values for the given second, removing the values of the second that it
+     * previously held if necessary.
+     */
+    private void claimBin(final Bin bin, final int binIdx, final long second) {
+        while (true) {
+            final long binSecond = bin.second.get();
+            if (binSecond == second) {
+                return;
+            }
+
+            if (binSecond == RESETTING) {
+                // Another thread is clearing the bin; it will be done momentarily.
+                Thread.yield();
+                continue;
+            }
 
-                final int secondsElapsed = (int) (currentSecond - lastUpdate);
+            if (binSecond > second) {
+                // The event is more than the window's length older than the bin's values. Count it toward the newer second rather than discarding it.
+                logger.debug("Event for second {} is older than bin {}, which holds second {}", second, binIdx, binSecond);
+                return;
+            }
 
-                int index = (int) (currentSecond % numBins);
-                final long expirationTimestamp = 1000 * (currentSecond - numBins);
+            if (bin.second.compareAndSet(binSecond, RESETTING)) {
+                drain(bin);
+                bin.second.set(second);
+                logger.debug("Replaced bin {}", binIdx);
+                return;
+            }
+        }
+    }
 
-                int expired = 0;
-                for (int i=0; i < secondsElapsed; i++) {
-                    index--;
-                    if (index < 0) {
-                        index = sums.length - 1;
-                    }
+    /**
+     * Clears the values of the given bin, subtracting them from the running total. Each value is taken out of the bin atomically,
+     * so a value that another thread adds concurrently is either left in the bin or subtracted along with the rest, and the running
+     * total always ends up equal to the sum of the bins.
+     */
+    private void drain(final Bin bin) {
+        FlowFileEventFields.drain(bin.values, 0, windowValues);
 
-                    final EventSum expiredSum = sums[index];
-                    final EventSumValue expiredValue = expiredSum.reset(expirationTimestamp);
-                    if (expiredValue != null) {
-                        aggregateValue.subtract(expiredValue);
-                        expired++;
-                    }
+        final ConcurrentMap<String, AtomicLong> binCounters = bin.counters;
+        if (binCounters != null) {
+            for (final Map.Entry<String, AtomicLong> entry : binCounters.entrySet()) {
+                final long value = entry.getValue().getAndSet(0L);
+                if (value != 0L) {
+                    addCounter(windowCounters, entry.getKey(), -value);
                 }
-
-                logger.debug("Expired {} bins", expired);
             }
         }
     }
 
+    private static void addCounter(final ConcurrentMap<String, AtomicLong> counters, final String counterName, final long value) {
+        AtomicLong counter = counters.get(counterName);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(counterName, name -> new AtomicLong(0L));
+        }
+
+        counter.addAndGet(value);
+    }
+
     @Override
     public void purgeEvents(final long cutoffEpochMilliseconds) {
         // no need to do anything
@@ -110,16 +170,111 @@ public class SecondPrecisionEventContainer implements EventContainer {
 
     @Override
     public FlowFileEvent generateReport(final long now) {
-        final long second = now / 1000 + 1;
-        final long lastUpdate = lastUpdateSecond.get();
-        final long secondsSinceUpdate = second - lastUpdate;
-        if (secondsSinceUpdate > numBins) {
+        final long second = now / 1000;
+        final long secondsSinceUpdate = second - lastUpdateSecond;
+        if (secondsSinceUpdate >= numBins) {
             logger.debug("EventContainer hasn't been updated in {} seconds so will generate report as Empty FlowFile Event", secondsSinceUpdate);
             return EmptyFlowFileEvent.INSTANCE;
         }
 
-        logger.debug("Will expire up to {} bins", secondsSinceUpdate);
-        processExpiredBuckets(second);
-        return aggregateValue.toFlowFileEvent();
+        // Only the last 'numBins' seconds are included in the report
+        expireBins(second - numBins + 1);
+
+        final long[] totals = new long[FlowFileEventFields.COUNT];
+        FlowFileEventFields.addTo(totals, windowValues, 0);
+        boolean empty = true;
+        for (final long total : totals) {
+            if (total != 0L) {
+                empty = false;
+                break;
+            }
+        }
+
+        Map<String, Long> counterTotals = null;
+        for (final Map.Entry<String, AtomicLong> entry : windowCounters.entrySet()) {
+            final long value = entry.getValue().get();
+            if (value != 0L) {
+                if (counterTotals == null) {
+                    counterTotals = new HashMap<>();
+                }
+                counterTotals.put(entry.getKey(), value);
+            }
+        }
+
+        if (empty && counterTotals == null) {
+            return EmptyFlowFileEvent.INSTANCE;
+        }
+
+        return FlowFileEventFields.toFlowFileEvent(totals, counterTotals == null ? Collections.emptyMap() : Collections.unmodifiableMap(counterTotals));
+    }
+
+    /**
+     * Removes the values of all seconds before the given one from the running total. Only the bins of the seconds that have left the
+     * window since the previous call are visited, unless the window has moved by more than its length, in which case every bin is.
+     */
+    private synchronized void expireBins(final long oldestSecond) {
+        final long expiredThrough = expiredThroughSecond;
+        if (oldestSecond - 1 <= expiredThrough) {
+            return;
+        }
+
+        expiredThroughSecond = oldestSecond - 1;
+
+        if (expiredThrough == Long.MIN_VALUE || oldestSecond - expiredThrough > numBins) {
+            for (int binIdx = 0; binIdx < numBins; binIdx++) {
+                expireBin(binIdx, oldestSecond);
+            }
+        } else {
+            for (long expiredSecond = expiredThrough + 1; expiredSecond < oldestSecond; expiredSecond++) {
+                expireBin((int) (expiredSecond % numBins), oldestSecond);
+            }
+        }
+    }
+
+    private void expireBin(final int binIdx, final long oldestSecond) {
+        final Bin bin = bins.get(binIdx);
+        if (bin == null) {
+            return;
+        }
+
+        while (true) {
+            final long binSecond = bin.second.get();
+            if (binSecond == RESETTING) {
+                Thread.yield();
+                continue;
+            }
+
+            if (binSecond == UNUSED || binSecond >= oldestSecond) {
+                return;
+            }
+
+            // The bin keeps its second, so that an event that is added to it late is expired the next time that the bin is visited
+            if (bin.second.compareAndSet(binSecond, RESETTING)) {
+                drain(bin);
+                bin.second.set(binSecond);
+                return;
+            }
+        }
+    }
+
+    private static class Bin {
+        private final AtomicLong second = new AtomicLong(UNUSED);
+        private final AtomicLongArray values = new AtomicLongArray(FlowFileEventFields.COUNT);
+        private volatile ConcurrentMap<String, AtomicLong> counters;
+
+        private ConcurrentMap<String, AtomicLong> getCounters() {
+            ConcurrentMap<String, AtomicLong> binCounters = counters;
+            if (binCounters == null) {
+                synchronized (this) {
+                    binCounters = counters;
+                    if (binCounters == null) {
+                        binCounters = new ConcurrentHashMap<>();
+                        counters = binCounters;
+                    }
+                }
+            }
+
+            return binCounters;
+        }
     }
 }
@@ -32,6 +32,8 @@ public final class StandardFlowFileEvent implements FlowFileEvent, Cloneable {
     private long bytesRead;
     private long bytesWritten;
     private long processingNanos;
+    private long cpuNanos;
+    private long allocatedBytes;
     private long aggregateLineageMillis;
     private int flowFilesReceived;
     private long bytesReceived;
@@ -124,6 +126,24 @@ public final class StandardFlowFileEvent implements FlowFileEvent, Cloneable {
         this.processingNanos = processingNanos;
     }
 
+    @Override
+    public long getCpuNanoseconds() {
+        return cpuNanos;
+    }
+
+    public void setCpuNanos(final long cpuNanos) {
+        this.cpuNanos = cpuNanos;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public void setAllocatedBytes(final long allocatedBytes) {
+        this.allocatedBytes = allocatedBytes;
+    }
+
     @Override
     public int getInvocations() {
         return invocations;
@@ -206,6 +226,8 @@ public final class StandardFlowFileEvent implements FlowFileEvent, Cloneable {
         bytesRead += event.getBytesRead();
         bytesWritten += event.getBytesWritten();
         processingNanos += event.getProcessingNanoseconds();
+        cpuNanos += event.getCpuNanoseconds();
+        allocatedBytes += event.getAllocatedBytes();
         aggregateLineageMillis += event.getAggregateLineageMillis();
         flowFilesReceived += event.getFlowFilesReceived();
         bytesReceived += event.getBytesReceived();
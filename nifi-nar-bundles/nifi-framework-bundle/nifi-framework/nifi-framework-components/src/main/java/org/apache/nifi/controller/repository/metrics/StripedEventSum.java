@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.metrics;
+
+import org.apache.nifi.controller.repository.FlowFileEvent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A running total of FlowFile Events that many threads can add to concurrently. In the same way as a {@link LongAdder}, the total is
+ * split into a number of cells, and each thread adds to the cell that its Thread ID maps to, so that threads seldom update the same
+ * cell. Adding an event takes no locks and allocates nothing, unless the event contains a counter that has never been seen before.
+ * The cells are merged only when the total is read.
+ */
+public class StripedEventSum {
+    // Cells are padded out to a multiple of 64 bytes, plus an additional 64 bytes, so that two cells never share a cache line.
+    private static final int LONGS_PER_CACHE_LINE = 8;
+    private static final int CELL_SIZE = ((FlowFileEventFields.COUNT + LONGS_PER_CACHE_LINE - 1) / LONGS_PER_CACHE_LINE + 1) * LONGS_PER_CACHE_LINE;
+
+    private final int cellMask;
+    private final AtomicLongArray cells;
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private volatile boolean empty = true;
+
+    public StripedEventSum() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedEventSum(final int concurrency) {
+        int cellCount = 1;
+        while (cellCount < concurrency) {
+            cellCount <<= 1;
+        }
+
+        this.cellMask = cellCount - 1;
+        this.cells = new AtomicLongArray(cellCount * CELL_SIZE);
+    }
+
+    public void add(final FlowFileEvent event) {
+        if (empty) {
+            empty = false;
+        }
+
+        final int cellIndex = cellIndex(Thread.currentThread().getId());
+        FlowFileEventFields.add(cells, cellIndex * CELL_SIZE, event);
+
+        final Map<String, Long> eventCounters = event.getCounters();
+        if (eventCounters != null && !eventCounters.isEmpty()) {
+            for (final Map.Entry<String, Long> entry : eventCounters.entrySet()) {
+                final String counterName = entry.getKey();
+
+                LongAdder adder = counters.get(counterName);
+                if (adder == null) {
+                    adder = counters.computeIfAbsent(counterName, name -> new LongAdder());
+                }
+
+                adder.add(entry.getValue());
+            }
+        }
+    }
+
+    private int cellIndex(final long threadId) {
+        // Spread the bits of the Thread ID so that threads whose IDs differ only in their high bits do not share a cell
+        long hash = threadId * 0x9E3779B97F4A7C15L;
+        hash ^= (hash >>> 32);
+        return (int) hash & cellMask;
+    }
+
+    public FlowFileEvent toFlowFileEvent() {
+        if (empty) {
+            return EmptyFlowFileEvent.INSTANCE;
+        }
+
+        final long[] totals = new long[FlowFileEventFields.COUNT];
+        final int cellCount = cellMask + 1;
+        for (int i = 0; i < cellCount; i++) {
+            FlowFileEventFields.addTo(totals, cells, i * CELL_SIZE);
+        }
+
+        final Map<String, Long> counterValues;
+        if (counters.isEmpty()) {
+            counterValues = Collections.emptyMap();
+        } else {
+            final Map<String, Long> values = new HashMap<>();
+            counters.forEach((name, adder) -> values.put(name, adder.sum()));
+            counterValues = Collections.unmodifiableMap(values);
+        }
+
+        return FlowFileEventFields.toFlowFileEvent(totals, counterValues);
+    }
+}
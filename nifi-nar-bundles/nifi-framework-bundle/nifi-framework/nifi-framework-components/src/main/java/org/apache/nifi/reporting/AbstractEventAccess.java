@@ -596,6 +596,8 @@ public abstract class AbstractEventAccess implements EventAccess {
             status.setBytesWritten(writtenBytes);
 
             status.setProcessingNanos(flowFileEvent.getProcessingNanoseconds());
+            status.setCpuNanos(flowFileEvent.getCpuNanoseconds());
+            status.setAllocatedBytes(flowFileEvent.getAllocatedBytes());
             status.setInvocations(flowFileEvent.getInvocations());
 
             status.setAverageLineageDuration(flowFileEvent.getAverageLineageMillis());
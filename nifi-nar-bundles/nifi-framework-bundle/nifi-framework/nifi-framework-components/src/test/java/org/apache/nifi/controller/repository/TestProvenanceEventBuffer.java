@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestProvenanceEventBuffer {
+
+    @Test
+    public void testRegisteredEventTypes() {
+        final ProvenanceEventBuffer buffer = new ProvenanceEventBuffer(2);
+        final long creationTypes = ProvenanceEventBuffer.mask(ProvenanceEventType.CREATE, ProvenanceEventType.FORK);
+
+        // Register enough FlowFiles to force the table to grow several times
+        for (int i = 0; i < 1000; i++) {
+            buffer.registerEventType("uuid-" + i, i % 2 == 0 ? ProvenanceEventType.FORK : ProvenanceEventType.ROUTE);
+        }
+        buffer.registerEventType("uuid-1", ProvenanceEventType.CONTENT_MODIFIED);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(buffer.isEventRegistered("uuid-" + i));
+            assertEquals(i % 2 == 0, buffer.isEventRegistered("uuid-" + i, creationTypes));
+        }
+
+        assertTrue(buffer.isEventRegistered("uuid-1", ProvenanceEventBuffer.mask(ProvenanceEventType.CONTENT_MODIFIED)));
+        assertTrue(buffer.isEventRegistered("uuid-1", ProvenanceEventBuffer.mask(ProvenanceEventType.ROUTE)));
+        assertFalse(buffer.isEventRegistered("uuid-3", ProvenanceEventBuffer.mask(ProvenanceEventType.CONTENT_MODIFIED)));
+        assertFalse(buffer.isEventRegistered("uuid-1000"));
+    }
+
+    @Test
+    public void testImplicitEvents() {
+        final ProvenanceEventBuffer buffer = new ProvenanceEventBuffer(1);
+        final StandardRepositoryRecord first = Mockito.mock(StandardRepositoryRecord.class);
+        final StandardRepositoryRecord second = Mockito.mock(StandardRepositoryRecord.class);
+
+        buffer.addImplicitEvent(ProvenanceEventType.CONTENT_MODIFIED, first);
+        buffer.addImplicitEvent(ProvenanceEventType.CREATE, first);
+        buffer.addImplicitEvent(ProvenanceEventType.ATTRIBUTES_MODIFIED, second);
+
+        assertEquals(3, buffer.getImplicitEventCount());
+        assertEquals(ProvenanceEventType.CONTENT_MODIFIED, buffer.getImplicitEventType(0));
+        assertSame(first, buffer.getImplicitEventRecord(0));
+        assertEquals(ProvenanceEventType.CREATE, buffer.getImplicitEventType(1));
+        assertSame(first, buffer.getImplicitEventRecord(1));
+        assertEquals(ProvenanceEventType.ATTRIBUTES_MODIFIED, buffer.getImplicitEventType(2));
+        assertSame(second, buffer.getImplicitEventRecord(2));
+    }
+}
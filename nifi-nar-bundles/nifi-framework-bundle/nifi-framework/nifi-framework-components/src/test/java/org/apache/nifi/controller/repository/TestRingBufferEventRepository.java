@@ -123,6 +123,16 @@ public class TestRingBufferEventRepository {
                 return 234782;
             }
 
+            @Override
+            public long getCpuNanoseconds() {
+                return 0;
+            }
+
+            @Override
+            public long getAllocatedBytes() {
+                return 0;
+            }
+
             @Override
             public int getInvocations() {
                 return 1;
@@ -19,6 +19,8 @@ package org.apache.nifi.controller.repository.metrics;
 import org.apache.nifi.controller.repository.FlowFileEvent;
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static org.junit.Assert.assertEquals;
 
 public class TestSecondPrecisionEventContainer {
@@ -132,4 +134,71 @@ public class TestSecondPrecisionEventContainer {
         assertEquals(0, resultsAt5MinsPlus600seconds.getBytesWritten());
     }
 
+    @Test
+    public void testLateEventCountedTowardOldestSecondInWindow() {
+        final SecondPrecisionEventContainer container = new SecondPrecisionEventContainer(5);
+        final long startTime = System.currentTimeMillis();
+
+        final StandardFlowFileEvent event = new StandardFlowFileEvent();
+        event.setBytesRead(100L);
+
+        for (int j=0; j < 100; j++) {
+            container.addEvent(event, startTime + (j * 1000));
+        }
+
+        final FlowFileEvent resultAt5MinsPlus50Seconds = container.generateReport(startTime + 350_000);
+        assertEquals(50 * 100, resultAt5MinsPlus50Seconds.getBytesRead());
+
+        // The event's second has already left the window, so it must be expired along with the oldest second that is still in it
+        container.addEvent(event, startTime + 10_000);
+        assertEquals(51 * 100, container.generateReport(startTime + 350_000).getBytesRead());
+        assertEquals(49 * 100, container.generateReport(startTime + 351_000).getBytesRead());
+    }
+
+    @Test
+    public void testCpuAndAllocationsAggregated() {
+        final SecondPrecisionEventContainer container = new SecondPrecisionEventContainer(5);
+        final long startTime = System.currentTimeMillis();
+
+        final StandardFlowFileEvent event = new StandardFlowFileEvent();
+        event.setCpuNanos(1000L);
+        event.setAllocatedBytes(2048L);
+
+        for (int j=0; j < 100; j++) {
+            container.addEvent(event, startTime + (j * 1000));
+        }
+
+        final FlowFileEvent resultAt5Mins = container.generateReport(startTime + 300_000);
+        assertEquals(100 * 1000, resultAt5Mins.getCpuNanoseconds());
+        assertEquals(100 * 2048, resultAt5Mins.getAllocatedBytes());
+
+        final FlowFileEvent resultAt5MinsPlus50Seconds = container.generateReport(startTime + 350_000);
+        assertEquals(50 * 1000, resultAt5MinsPlus50Seconds.getCpuNanoseconds());
+        assertEquals(50 * 2048, resultAt5MinsPlus50Seconds.getAllocatedBytes());
+    }
+
+    @Test
+    public void testCountersExpire() {
+        final SecondPrecisionEventContainer container = new SecondPrecisionEventContainer(5);
+        final long startTime = System.currentTimeMillis();
+
+        final StandardFlowFileEvent event = new StandardFlowFileEvent();
+        event.setCounters(Collections.singletonMap("counter", 3L));
+
+        for (int j=0; j < 100; j++) {
+            container.addEvent(event, startTime + (j * 1000));
+        }
+
+        final FlowFileEvent resultAt5Mins = container.generateReport(startTime + 300_000);
+        assertEquals(Long.valueOf(100 * 3), resultAt5Mins.getCounters().get("counter"));
+
+        final FlowFileEvent resultAt5MinsPlus50Seconds = container.generateReport(startTime + 350_000);
+        assertEquals(Long.valueOf(50 * 3), resultAt5MinsPlus50Seconds.getCounters().get("counter"));
+
+        // Reusing a bin for a later second must not carry over the counter values of the second that it held before
+        container.addEvent(event, startTime + 351_000);
+        final FlowFileEvent resultAt5MinsPlus51Seconds = container.generateReport(startTime + 351_000);
+        assertEquals(Long.valueOf(49 * 3 + 3), resultAt5MinsPlus51Seconds.getCounters().get("counter"));
+    }
+
 }
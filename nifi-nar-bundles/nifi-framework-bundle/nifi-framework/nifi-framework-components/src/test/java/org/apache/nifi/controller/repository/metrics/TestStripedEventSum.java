@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.metrics;
+
+import org.apache.nifi.controller.repository.FlowFileEvent;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TestStripedEventSum {
+
+    @Test
+    public void testEmpty() {
+        final StripedEventSum sum = new StripedEventSum(4);
+        assertSame(EmptyFlowFileEvent.INSTANCE, sum.toFlowFileEvent());
+    }
+
+    @Test
+    public void testConcurrentAdds() throws InterruptedException {
+        final StripedEventSum sum = new StripedEventSum(4);
+
+        final StandardFlowFileEvent event = new StandardFlowFileEvent();
+        event.setFlowFilesIn(1);
+        event.setBytesRead(100L);
+        event.setProcessingNanos(5L);
+        event.setInvocations(1);
+        event.setCounters(Collections.singletonMap("counter", 2L));
+
+        final int threadCount = 8;
+        final int eventsPerThread = 10_000;
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            final Thread thread = new Thread(() -> {
+                for (int j = 0; j < eventsPerThread; j++) {
+                    sum.add(event);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final long totalEvents = threadCount * eventsPerThread;
+        final FlowFileEvent result = sum.toFlowFileEvent();
+        assertEquals(totalEvents, result.getFlowFilesIn());
+        assertEquals(totalEvents * 100L, result.getBytesRead());
+        assertEquals(totalEvents * 5L, result.getProcessingNanoseconds());
+        assertEquals(totalEvents, result.getInvocations());
+        assertEquals(0L, result.getBytesWritten());
+        assertEquals(Long.valueOf(totalEvents * 2L), result.getCounters().get("counter"));
+    }
+}
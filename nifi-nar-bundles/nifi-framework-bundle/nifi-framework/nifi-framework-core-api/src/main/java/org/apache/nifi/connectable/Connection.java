@@ -80,6 +80,15 @@ public interface Connection extends Authorizable, VersionedComponent {
 
     FlowFileRecord poll(Set<FlowFileRecord> expiredRecords);
 
+    /**
+     * Polls up to the given number of FlowFiles from the Connection's queue as a single batch
+     *
+     * @param maxResults the maximum number of FlowFiles to poll
+     * @param expiredRecords a Set to which any expired FlowFiles are added
+     * @return the FlowFiles that were polled
+     */
+    List<FlowFileRecord> poll(int maxResults, Set<FlowFileRecord> expiredRecords);
+
     void verifyCanUpdate() throws IllegalStateException;
 
     void verifyCanDelete() throws IllegalStateException;
@@ -202,6 +202,17 @@ public interface ProcessScheduler {
      */
     void registerEvent(Connectable worker);
 
+    /**
+     * Indicates whether or not events need to be registered for components that use the given scheduling strategy. This is checked each time
+     * that FlowFiles are queued or taken from a queue, so that the event need not be registered when nothing acts upon it.
+     *
+     * @param strategy the scheduling strategy of the component
+     * @return <code>true</code> if events should be registered via {@link #registerEvent(Connectable)}, <code>false</code> if they would be ignored
+     */
+    default boolean isEventRegistrationRequired(SchedulingStrategy strategy) {
+        return true;
+    }
+
     /**
      * Notifies the ProcessScheduler of how many threads are available to use
      * for the given {@link SchedulingStrategy}
@@ -73,6 +73,8 @@ public abstract class ProcessorNode extends AbstractComponentNode implements Con
 
     public abstract boolean isExecutionNodeRestricted();
 
+    public abstract boolean isIOBound();
+
     public abstract Requirement getInputRequirement();
 
     public abstract List<ActiveThreadInfo> getActiveThreads(ThreadDetails threadDetails);
@@ -38,6 +38,10 @@ public interface FlowFileEvent {
 
     long getProcessingNanoseconds();
 
+    long getCpuNanoseconds();
+
+    long getAllocatedBytes();
+
     long getAverageLineageMillis();
 
     long getAggregateLineageMillis();
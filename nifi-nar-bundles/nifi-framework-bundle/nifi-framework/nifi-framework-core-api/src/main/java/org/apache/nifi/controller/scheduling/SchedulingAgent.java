@@ -33,6 +33,14 @@ public interface SchedulingAgent {
 
     void onEvent(Connectable connectable);
 
+    /**
+     * @return <code>true</code> if this agent acts upon the events that are passed to {@link #onEvent(Connectable)}, <code>false</code> if it
+     *         ignores them, in which case there is no need to pass them
+     */
+    default boolean isEventNotificationRequired() {
+        return true;
+    }
+
     void schedule(ReportingTaskNode taskNode, LifecycleState scheduleState);
 
     void unschedule(ReportingTaskNode taskNode, LifecycleState scheduleState);
@@ -27,6 +27,8 @@ import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
 import org.apache.nifi.controller.repository.SwapSummary;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.ColumnarSwapDeserializer;
+import org.apache.nifi.controller.swap.ColumnarSwapSerializer;
 import org.apache.nifi.controller.swap.SchemaSwapDeserializer;
 import org.apache.nifi.controller.swap.SchemaSwapSerializer;
 import org.apache.nifi.controller.swap.SimpleSwapDeserializer;
@@ -81,9 +83,11 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     private static final Pattern TEMP_SWAP_FILE_PATTERN = Pattern.compile("\\d+-.+?(\\..*?)?\\.swap\\.part");
 
     public static final String EVENT_CATEGORY = "Swap FlowFiles";
+    public static final String COLUMNAR_SWAP_ENABLED = "nifi.swap.columnar.enabled";
     private static final Logger logger = LoggerFactory.getLogger(FileSystemSwapManager.class);
 
     private final File storageDirectory;
+    private final boolean columnarSwapEnabled;
     private final FieldCache fieldCache = new CaffeineFieldCache(10_000_000);
 
     // effectively final
@@ -98,13 +102,24 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
      */
     public FileSystemSwapManager() {
         storageDirectory = null;
+        columnarSwapEnabled = false;
     }
 
     public FileSystemSwapManager(final NiFiProperties nifiProperties) {
-        this(nifiProperties.getFlowFileRepositoryPath());
+        this(nifiProperties.getFlowFileRepositoryPath(), Boolean.parseBoolean(nifiProperties.getProperty(COLUMNAR_SWAP_ENABLED, "false")));
     }
 
     public FileSystemSwapManager(final Path flowFileRepoPath) {
+        this(flowFileRepoPath, false);
+    }
+
+    /**
+     * @param flowFileRepoPath the path of the FlowFile Repository, within which swap files are stored
+     * @param columnarSwapEnabled whether swap files are to be written using the {@link ColumnarSwapSerializer}. Swap files are read
+     * using whichever serialization they were written with, regardless of this setting
+     */
+    public FileSystemSwapManager(final Path flowFileRepoPath, final boolean columnarSwapEnabled) {
+        this.columnarSwapEnabled = columnarSwapEnabled;
         this.storageDirectory = flowFileRepoPath.resolve("swap").toFile();
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new RuntimeException("Cannot create Swap Storage directory " + storageDirectory.getAbsolutePath());
@@ -141,7 +156,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final File swapTempFile = new File(swapFile.getParentFile(), swapFile.getName() + ".part");
         final String swapLocation = swapFile.getAbsolutePath();
 
-        final SwapSerializer serializer = new SchemaSwapSerializer();
+        final SwapSerializer serializer = columnarSwapEnabled ? new ColumnarSwapSerializer() : new SchemaSwapSerializer();
         try (final OutputStream os = getOutputStream(swapTempFile);
             final OutputStream out = new BufferedOutputStream(os)) {
             out.write(MAGIC_HEADER);
@@ -290,9 +305,10 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         // remove in .part files, as they are partial swap files that did not get written fully.
         for (final File swapFile : swapFiles) {
             if (TEMP_SWAP_FILE_PATTERN.matcher(swapFile.getName()).matches()) {
+                // Swap locations of several queues may be recovered concurrently, so another thread may have already removed the file.
                 if (swapFile.delete()) {
                     logger.info("Removed incomplete/temporary Swap File " + swapFile);
-                } else {
+                } else if (swapFile.exists()) {
                     warn("Failed to remove incomplete/temporary Swap File " + swapFile + "; this file should be cleaned up manually");
                 }
 
@@ -383,6 +399,9 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             if (serializationName.equals(SchemaSwapDeserializer.getSerializationName())) {
                 return new SchemaSwapDeserializer(fieldCache);
             }
+            if (serializationName.equals(ColumnarSwapDeserializer.getSerializationName())) {
+                return new ColumnarSwapDeserializer();
+            }
 
             throw new IOException("Cannot find a suitable Deserializer for swap file, written with Serialization Name '" + serializationName + "'");
         } else {
@@ -103,6 +103,7 @@ import org.apache.nifi.controller.repository.claim.StandardContentClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
 import org.apache.nifi.controller.scheduling.EventDrivenSchedulingAgent;
+import org.apache.nifi.controller.scheduling.IoBoundEngine;
 import org.apache.nifi.controller.scheduling.QuartzSchedulingAgent;
 import org.apache.nifi.controller.scheduling.RepositoryContextFactory;
 import org.apache.nifi.controller.scheduling.StandardProcessScheduler;
@@ -129,7 +130,9 @@ import org.apache.nifi.controller.status.history.GarbageCollectionStatus;
 import org.apache.nifi.controller.status.history.StandardGarbageCollectionStatus;
 import org.apache.nifi.controller.status.history.StatusHistoryRepository;
 import org.apache.nifi.controller.status.history.StatusHistoryUtil;
+import org.apache.nifi.controller.tasks.ConnectableTask;
 import org.apache.nifi.controller.tasks.ExpireFlowFiles;
+import org.apache.nifi.controller.tasks.ThreadResourceSampler;
 import org.apache.nifi.diagnostics.StorageUsage;
 import org.apache.nifi.diagnostics.SystemDiagnostics;
 import org.apache.nifi.diagnostics.SystemDiagnosticsFactory;
@@ -161,9 +164,12 @@ import org.apache.nifi.processor.StandardProcessContext;
 import org.apache.nifi.provenance.ComponentIdentifierLookup;
 import org.apache.nifi.provenance.IdentifierLookup;
 import org.apache.nifi.provenance.ProvenanceAuthorizableFactory;
+import org.apache.nifi.provenance.ProvenanceEventAggregator;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.ProvenanceEventType;
 import org.apache.nifi.provenance.ProvenanceRepository;
+import org.apache.nifi.provenance.ProvenanceSamplingPolicy;
+import org.apache.nifi.provenance.SamplingProvenanceRepository;
 import org.apache.nifi.provenance.StandardProvenanceAuthorizableFactory;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
 import org.apache.nifi.registry.VariableRegistry;
@@ -226,6 +232,9 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -260,6 +269,9 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     private final AtomicInteger maxEventDrivenThreads;
     private final AtomicReference<FlowEngine> timerDrivenEngineRef;
     private final AtomicReference<FlowEngine> eventDrivenEngineRef;
+    private final Optional<IoBoundEngine> ioBoundEngine;
+    private final ThreadResourceSampler threadResourceSampler;
+    private final boolean sessionRecyclingEnabled;
     private final EventDrivenSchedulingAgent eventDrivenSchedulingAgent;
 
     private final ContentRepository contentRepository;
@@ -504,6 +516,11 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
 
         timerDrivenEngineRef = new AtomicReference<>(new FlowEngine(maxTimerDrivenThreads.get(), "Timer-Driven Process"));
         eventDrivenEngineRef = new AtomicReference<>(new FlowEngine(maxEventDrivenThreads.get(), "Event-Driven Process"));
+        ioBoundEngine = TimerDrivenSchedulingAgent.createIoBoundEngine(nifiProperties);
+
+        final boolean profilingEnabled = Boolean.parseBoolean(nifiProperties.getProperty(ThreadResourceSampler.COMPONENT_PROFILING_ENABLED, "false"));
+        threadResourceSampler = profilingEnabled ? ThreadResourceSampler.create() : ThreadResourceSampler.DISABLED;
+        sessionRecyclingEnabled = Boolean.parseBoolean(nifiProperties.getProperty(ConnectableTask.SESSION_RECYCLING_ENABLED, "false"));
 
         final FlowFileRepository flowFileRepo = createFlowFileRepository(nifiProperties, extensionManager, resourceClaimManager);
         flowFileRepository = flowFileRepo;
@@ -559,7 +576,8 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         processScheduler.setSchedulingAgent(SchedulingStrategy.EVENT_DRIVEN, eventDrivenSchedulingAgent);
 
         final QuartzSchedulingAgent quartzSchedulingAgent = new QuartzSchedulingAgent(this, timerDrivenEngineRef.get(), repositoryContextFactory, encryptor);
-        final TimerDrivenSchedulingAgent timerDrivenAgent = new TimerDrivenSchedulingAgent(this, timerDrivenEngineRef.get(), repositoryContextFactory, encryptor, this.nifiProperties);
+        final TimerDrivenSchedulingAgent timerDrivenAgent = new TimerDrivenSchedulingAgent(this, timerDrivenEngineRef.get(), ioBoundEngine.orElse(null),
+            repositoryContextFactory, encryptor, this.nifiProperties);
         processScheduler.setSchedulingAgent(SchedulingStrategy.TIMER_DRIVEN, timerDrivenAgent);
         // PRIMARY_NODE_ONLY is deprecated, but still exists to handle processors that are still defined with it (they haven't been re-configured with executeNode = PRIMARY).
         processScheduler.setSchedulingAgent(SchedulingStrategy.PRIMARY_NODE_ONLY, timerDrivenAgent);
@@ -896,6 +914,57 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         initializeFlow(new StandardQueueProvider(getFlowManager()));
     }
 
+    /**
+     * Recovers the swapped FlowFiles of all of the given Connections' queues. Reading the summaries of swap files is dominated by deserialization,
+     * so the queues are recovered concurrently, using up to one thread per available core.
+     *
+     * @param connections the connections whose queues should be recovered
+     * @return the Swap Summary of each queue, some of which may be <code>null</code> if a queue's swap files could not be recovered
+     * @throws IOException if interrupted while recovering the swap files
+     */
+    private List<SwapSummary> recoverSwappedFlowFiles(final Set<Connection> connections) throws IOException {
+        if (connections.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final long startNanos = System.nanoTime();
+        final int threadCount = Math.min(connections.size(), Runtime.getRuntime().availableProcessors());
+        final ExecutorService swapRecoveryExecutor = new FlowEngine(threadCount, "Recover Swap Files", true);
+        try {
+            final List<Future<SwapSummary>> futures = new ArrayList<>(connections.size());
+            for (final Connection connection : connections) {
+                final FlowFileQueue queue = connection.getFlowFileQueue();
+                futures.add(swapRecoveryExecutor.submit(queue::recoverSwappedFlowFiles));
+            }
+
+            final List<SwapSummary> swapSummaries = new ArrayList<>(futures.size());
+            for (final Future<SwapSummary> future : futures) {
+                try {
+                    swapSummaries.add(future.get());
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while recovering swapped FlowFiles", ie);
+                } catch (final ExecutionException ee) {
+                    final Throwable cause = ee.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+
+                    throw new IOException("Failed to recover swapped FlowFiles", cause);
+                }
+            }
+
+            LOG.info("Recovered swapped FlowFiles for {} queues using {} threads in {} millis", connections.size(), threadCount,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return swapSummaries;
+        } finally {
+            swapRecoveryExecutor.shutdownNow();
+        }
+    }
+
     public void initializeFlow(final QueueProvider queueProvider) throws IOException {
         writeLock.lock();
         try {
@@ -911,9 +980,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
                     queue.purgeSwapFiles();
                 }
             } else {
-                for (final Connection connection : connections) {
-                    final FlowFileQueue queue = connection.getFlowFileQueue();
-                    final SwapSummary swapSummary = queue.recoverSwappedFlowFiles();
+                for (final SwapSummary swapSummary : recoverSwappedFlowFiles(connections)) {
                     if (swapSummary != null) {
                         final Long maxFlowFileId = swapSummary.getMaxFlowFileId();
                         if (maxFlowFileId != null && maxFlowFileId > maxIdFromSwapFiles) {
@@ -1188,11 +1255,39 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         }
 
         LOG.info("Creating Provenance Repository [{}]", implementationClassName);
+        final ProvenanceRepository repository;
         try {
-            return NarThreadContextClassLoader.createInstance(extensionManager, implementationClassName, ProvenanceRepository.class, properties);
+            repository = NarThreadContextClassLoader.createInstance(extensionManager, implementationClassName, ProvenanceRepository.class, properties);
         } catch (final Exception e) {
             throw new RuntimeException(e);
         }
+
+        final ProvenanceSamplingPolicy samplingPolicy = ProvenanceSamplingPolicy.fromProperties(properties, this::getProvenanceComponentGroup);
+        if (!samplingPolicy.isSamplingEnabled()) {
+            return repository;
+        }
+
+        final String aggregateRetention = properties.getProperty(ProvenanceEventAggregator.AGGREGATE_RETENTION, ProvenanceEventAggregator.DEFAULT_AGGREGATE_RETENTION);
+        final long aggregateRetentionMillis = Math.round(FormatUtils.getPreciseTimeDuration(aggregateRetention, TimeUnit.MILLISECONDS));
+        LOG.info("Provenance sampling is enabled; events of FlowFiles that are not sampled will be counted, and the counts retained for {}", aggregateRetention);
+        return new SamplingProvenanceRepository(repository, samplingPolicy, new ProvenanceEventAggregator(aggregateRetentionMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private ProcessGroup getProvenanceComponentGroup(final String componentId) {
+        final Connectable connectable = flowManager.findConnectable(componentId);
+        return connectable == null ? null : connectable.getProcessGroup();
+    }
+
+    /**
+     * @return the counts of the Provenance Events that were not recorded because their FlowFiles were not sampled, or <code>null</code>
+     * if provenance sampling is not enabled
+     */
+    public ProvenanceEventAggregator getProvenanceEventAggregator() {
+        if (provenanceRepository instanceof SamplingProvenanceRepository) {
+            return ((SamplingProvenanceRepository) provenanceRepository).getAggregator();
+        }
+
+        return null;
     }
 
     public KerberosConfig createKerberosConfig(final NiFiProperties nifiProperties) {
@@ -1307,10 +1402,12 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             if (kill) {
                 this.timerDrivenEngineRef.get().shutdownNow();
                 this.eventDrivenEngineRef.get().shutdownNow();
+                ioBoundEngine.ifPresent(IoBoundEngine::shutdownNow);
                 LOG.info("Initiated immediate shutdown of flow controller...");
             } else {
                 this.timerDrivenEngineRef.get().shutdown();
                 this.eventDrivenEngineRef.get().shutdown();
+                ioBoundEngine.ifPresent(IoBoundEngine::shutdown);
                 LOG.info("Initiated graceful shutdown of flow controller...waiting up to " + gracefulShutdownSeconds + " seconds");
             }
 
@@ -1344,6 +1441,9 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             try {
                 this.timerDrivenEngineRef.get().awaitTermination(gracefulShutdownSeconds / 2, TimeUnit.SECONDS);
                 this.eventDrivenEngineRef.get().awaitTermination(gracefulShutdownSeconds / 2, TimeUnit.SECONDS);
+                if (ioBoundEngine.isPresent()) {
+                    ioBoundEngine.get().awaitTermination(gracefulShutdownSeconds / 2, TimeUnit.SECONDS);
+                }
             } catch (final InterruptedException ie) {
                 LOG.info("Interrupted while waiting for controller termination.");
             }
@@ -1354,7 +1454,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
                 LOG.warn("Unable to shut down FlowFileRepository due to {}", new Object[]{t});
             }
 
-            if (this.timerDrivenEngineRef.get().isTerminated() && eventDrivenEngineRef.get().isTerminated()) {
+            if (this.timerDrivenEngineRef.get().isTerminated() && eventDrivenEngineRef.get().isTerminated() && ioBoundEngine.map(IoBoundEngine::isTerminated).orElse(true)) {
                 LOG.info("Controller has been terminated successfully.");
             } else {
                 LOG.warn("Controller hasn't terminated properly.  There exists an uninterruptable thread that "
@@ -1516,6 +1616,34 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         return timerDrivenEngineRef.get().getActiveCount();
     }
 
+    /**
+     * @return the maximum number of threads that can be used for executing I/O-bound processors at any given time,
+     * or 0 if no processors are configured to be I/O-bound
+     */
+    public int getMaxIoBoundThreadCount() {
+        return ioBoundEngine.map(IoBoundEngine::getMaxThreadCount).orElse(0);
+    }
+
+    /**
+     * @return the sampler used to attribute thread CPU time and heap allocations to the components that are run,
+     * or {@link ThreadResourceSampler#DISABLED} if component profiling is not enabled
+     */
+    public ThreadResourceSampler getThreadResourceSampler() {
+        return threadResourceSampler;
+    }
+
+    /**
+     * @return <code>true</code> if Process Sessions that have been committed or rolled back by the time their task completes
+     * should be reused for subsequent tasks of the same component instead of creating new ones
+     */
+    public boolean isSessionRecyclingEnabled() {
+        return sessionRecyclingEnabled;
+    }
+
+    public int getActiveIoBoundThreadCount() {
+        return ioBoundEngine.map(IoBoundEngine::getActiveCount).orElse(0);
+    }
+
     public void setMaxTimerDrivenThreadCount(final int maxThreadCount) {
         writeLock.lock();
         try {
@@ -1983,7 +2111,8 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
                 if (clusterCoordinator == null) {
                     flowFileQueue = new StandardFlowFileQueue(id, eventListener, flowFileRepository, provenanceRepository, resourceClaimManager, processScheduler, swapManager,
                             eventReporter, nifiProperties.getQueueSwapThreshold(),
-                            processGroup.getDefaultFlowFileExpiration(), processGroup.getDefaultBackPressureObjectThreshold(), processGroup.getDefaultBackPressureDataSizeThreshold());
+                            processGroup.getDefaultFlowFileExpiration(), processGroup.getDefaultBackPressureObjectThreshold(), processGroup.getDefaultBackPressureDataSizeThreshold(),
+                            Boolean.parseBoolean(nifiProperties.getProperty(StandardFlowFileQueue.LOCK_FREE_FIFO, "false")));
                 } else {
                     flowFileQueue = new SocketLoadBalancedFlowFileQueue(id, eventListener, processScheduler, flowFileRepository, provenanceRepository, contentRepository, resourceClaimManager,
                             clusterCoordinator, loadBalanceClientRegistry, swapManager, nifiProperties.getQueueSwapThreshold(), eventReporter);
@@ -2173,7 +2302,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     public int getActiveThreadCount() {
         final int timerDrivenCount = timerDrivenEngineRef.get().getActiveCount();
         final int eventDrivenCount = eventDrivenSchedulingAgent.getActiveThreadCount();
-        return timerDrivenCount + eventDrivenCount;
+        return timerDrivenCount + eventDrivenCount + getActiveIoBoundThreadCount();
     }
 
 
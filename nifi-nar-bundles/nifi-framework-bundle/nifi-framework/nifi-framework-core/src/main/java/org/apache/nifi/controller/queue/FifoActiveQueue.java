@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * The active queue of a {@link SwappablePriorityQueue} whose FlowFiles are processed in the order in which they were queued. FlowFiles are
+ * held in a lock-free deque so that any number of threads may add and remove FlowFiles without obtaining the queue's lock.
+ * </p>
+ *
+ * <p>
+ * A prioritized queue orders penalized FlowFiles after all others. In order to provide the same behavior, a penalized FlowFile that reaches
+ * the head of the queue is moved aside to a set that is ordered by the time at which the penalty expires. Once its penalty has expired, it is
+ * returned ahead of the FlowFiles remaining in the deque, as those were queued after it.
+ * </p>
+ *
+ * <p>
+ * So that diagnostics do not need to scan the queue, it keeps count of the FlowFiles that were penalized when they were queued, along with the
+ * latest time at which any of those penalties expires.
+ * </p>
+ */
+class FifoActiveQueue implements Iterable<FlowFileRecord> {
+    private static final Comparator<FlowFileRecord> PENALTY_EXPIRATION_ORDER = Comparator.comparingLong(FlowFileRecord::getPenaltyExpirationMillis)
+        .thenComparingLong(FlowFileRecord::getId);
+
+    private final ConcurrentLinkedDeque<FlowFileRecord> queue = new ConcurrentLinkedDeque<>();
+    private final ConcurrentSkipListSet<FlowFileRecord> penalized = new ConcurrentSkipListSet<>(PENALTY_EXPIRATION_ORDER);
+    private final LongAdder penalizedCount = new LongAdder();
+    private final AtomicLong latestPenaltyExpiration = new AtomicLong(0L);
+
+    void add(final FlowFileRecord flowFile) {
+        onAdded(flowFile);
+        queue.offerLast(flowFile);
+    }
+
+    void addAll(final Collection<FlowFileRecord> flowFiles) {
+        flowFiles.forEach(this::onAdded);
+        queue.addAll(flowFiles);
+    }
+
+    /**
+     * Returns the given FlowFiles to the head of the queue, preserving their order, such as when they were polled but not selected
+     */
+    void addFirst(final List<FlowFileRecord> flowFiles) {
+        final ListIterator<FlowFileRecord> itr = flowFiles.listIterator(flowFiles.size());
+        while (itr.hasPrevious()) {
+            final FlowFileRecord flowFile = itr.previous();
+            onAdded(flowFile);
+            queue.offerFirst(flowFile);
+        }
+    }
+
+    /**
+     * Removes and returns the next FlowFile in the queue
+     *
+     * @param pollStrategy whether or not penalized FlowFiles may be returned
+     * @param expired determines whether or not a FlowFile has expired. A penalized FlowFile that has expired is returned rather than moved aside,
+     * so that the caller is able to expire it
+     * @return the next FlowFile, or <code>null</code> if there is no FlowFile available
+     */
+    FlowFileRecord poll(final PollStrategy pollStrategy, final Predicate<FlowFileRecord> expired) {
+        final FlowFileRecord flowFile = pollFlowFile(pollStrategy, expired);
+        if (flowFile != null) {
+            onRemoved(flowFile);
+        }
+        return flowFile;
+    }
+
+    private FlowFileRecord pollFlowFile(final PollStrategy pollStrategy, final Predicate<FlowFileRecord> expired) {
+        FlowFileRecord flowFile = pollPenaltyExpired();
+        if (flowFile != null) {
+            return flowFile;
+        }
+
+        while ((flowFile = queue.pollFirst()) != null) {
+            if (pollStrategy == PollStrategy.UNPENALIZED_FLOWFILES && flowFile.isPenalized() && !expired.test(flowFile)) {
+                penalized.add(flowFile);
+                continue;
+            }
+
+            return flowFile;
+        }
+
+        return pollStrategy == PollStrategy.ALL_FLOWFILES ? penalized.pollFirst() : null;
+    }
+
+    private FlowFileRecord pollPenaltyExpired() {
+        while (!penalized.isEmpty()) {
+            final FlowFileRecord first;
+            try {
+                first = penalized.first();
+            } catch (final NoSuchElementException nsee) {
+                return null;
+            }
+
+            if (first.isPenalized()) {
+                return null;
+            }
+
+            if (penalized.remove(first)) {
+                return first;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes all FlowFiles from the queue, adding them to the given List
+     */
+    void drainTo(final List<FlowFileRecord> destination) {
+        FlowFileRecord flowFile;
+        while ((flowFile = penalized.pollFirst()) != null) {
+            onRemoved(flowFile);
+            destination.add(flowFile);
+        }
+        while ((flowFile = queue.pollFirst()) != null) {
+            onRemoved(flowFile);
+            destination.add(flowFile);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if there are no FlowFiles in the queue, other than those that have been moved aside because they are penalized
+     */
+    boolean isUnpenalizedEmpty() {
+        return queue.isEmpty();
+    }
+
+    boolean isEmpty() {
+        return queue.isEmpty() && penalized.isEmpty();
+    }
+
+    /**
+     * @return <code>true</code> if any FlowFile in the queue was penalized when it was queued and the latest of those penalties has not yet expired
+     */
+    boolean isAnyPenalized() {
+        return penalizedCount.sum() > 0 && latestPenaltyExpiration.get() > System.currentTimeMillis();
+    }
+
+    /**
+     * @param flowFileCount the number of FlowFiles in the queue
+     * @return <code>true</code> if every FlowFile in the queue was penalized when it was queued and the latest of those penalties has not yet expired
+     */
+    boolean isAllPenalized(final int flowFileCount) {
+        return flowFileCount > 0 && penalizedCount.sum() >= flowFileCount && isAnyPenalized();
+    }
+
+    private void onAdded(final FlowFileRecord flowFile) {
+        if (isPenalizedWhenQueued(flowFile)) {
+            penalizedCount.increment();
+            latestPenaltyExpiration.accumulateAndGet(flowFile.getPenaltyExpirationMillis(), Math::max);
+        }
+    }
+
+    private void onRemoved(final FlowFileRecord flowFile) {
+        if (isPenalizedWhenQueued(flowFile)) {
+            penalizedCount.decrement();
+        }
+    }
+
+    /**
+     * Unlike {@link FlowFileRecord#isPenalized()}, this does not change while the FlowFile is queued, so FlowFiles are counted consistently as they are added and removed
+     */
+    private static boolean isPenalizedWhenQueued(final FlowFileRecord flowFile) {
+        final Long lastQueueDate = flowFile.getLastQueueDate();
+        return flowFile.getPenaltyExpirationMillis() > (lastQueueDate == null ? 0L : lastQueueDate);
+    }
+
+    /**
+     * @return an iterator over the FlowFiles in the queue, which reflects the state of the queue at some point at or since the creation of the iterator
+     */
+    @Override
+    public Iterator<FlowFileRecord> iterator() {
+        final Iterator<FlowFileRecord> penalizedItr = penalized.iterator();
+        final Iterator<FlowFileRecord> queueItr = queue.iterator();
+
+        return new Iterator<FlowFileRecord>() {
+            @Override
+            public boolean hasNext() {
+                return penalizedItr.hasNext() || queueItr.hasNext();
+            }
+
+            @Override
+            public FlowFileRecord next() {
+                return penalizedItr.hasNext() ? penalizedItr.next() : queueItr.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * <p>
+ * A priority queue of FlowFiles that is made up of sorted runs. Each batch of FlowFiles that is added at once is sorted and held as a single
+ * run, so adding the batch requires only a single insertion into the heap of runs, rather than one heap insertion per FlowFile. FlowFiles that are
+ * added individually, or in small batches, are held in a conventional heap.
+ * </p>
+ *
+ * <p>
+ * When polling, the run that holds the next FlowFile is kept aside from the heap of runs. So long as its next FlowFile comes before the first FlowFile
+ * of every other run, FlowFiles are taken from it with a constant number of comparisons, so a contiguous segment of a run is polled without any
+ * heap operations.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe. As with the {@link PriorityQueue} that it replaces, the iterator returns the FlowFiles in no particular order.
+ * </p>
+ */
+class SegmentedPriorityQueue extends AbstractQueue<FlowFileRecord> {
+    static final int MIN_RUN_SIZE = 8;
+
+    private final Comparator<FlowFileRecord> comparator;
+    private final PriorityQueue<FlowFileRecord> unsorted;
+    private final PriorityQueue<Run> runs;
+    private Run currentRun;
+    private int size = 0;
+
+    SegmentedPriorityQueue(final Comparator<FlowFileRecord> comparator) {
+        this.comparator = comparator;
+        this.unsorted = new PriorityQueue<>(20, comparator);
+        this.runs = new PriorityQueue<>(8, (run1, run2) -> comparator.compare(run1.peek(), run2.peek()));
+    }
+
+    Comparator<FlowFileRecord> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Sorts the given FlowFiles so that they can be added to a queue using {@link #addSortedRun(FlowFileRecord[])}. Because sorting does not
+     * require access to the queue, this may be performed before obtaining any lock that guards the queue.
+     *
+     * @param flowFiles the FlowFiles to sort
+     * @param comparator the comparator of the queue that the FlowFiles will be added to
+     * @return the sorted FlowFiles
+     */
+    static FlowFileRecord[] sortRun(final Collection<FlowFileRecord> flowFiles, final Comparator<FlowFileRecord> comparator) {
+        final FlowFileRecord[] sorted = flowFiles.toArray(new FlowFileRecord[0]);
+        Arrays.sort(sorted, comparator);
+        return sorted;
+    }
+
+    /**
+     * Adds the given FlowFiles, which must already be ordered according to this queue's comparator, as a single run
+     */
+    void addSortedRun(final FlowFileRecord[] sorted) {
+        if (sorted.length == 0) {
+            return;
+        }
+
+        runs.offer(new Run(sorted));
+        size += sorted.length;
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends FlowFileRecord> flowFiles) {
+        if (flowFiles.size() < MIN_RUN_SIZE) {
+            return super.addAll(flowFiles);
+        }
+
+        final FlowFileRecord[] sorted = flowFiles.toArray(new FlowFileRecord[0]);
+        Arrays.sort(sorted, comparator);
+        addSortedRun(sorted);
+        return true;
+    }
+
+    @Override
+    public boolean offer(final FlowFileRecord flowFile) {
+        unsorted.offer(flowFile);
+        size++;
+        return true;
+    }
+
+    @Override
+    public FlowFileRecord poll() {
+        if (selectCurrentRun()) {
+            final FlowFileRecord flowFile = currentRun.poll();
+            if (currentRun.isEmpty()) {
+                currentRun = null;
+            }
+
+            size--;
+            return flowFile;
+        }
+
+        final FlowFileRecord flowFile = unsorted.poll();
+        if (flowFile != null) {
+            size--;
+        }
+
+        return flowFile;
+    }
+
+    @Override
+    public FlowFileRecord peek() {
+        return selectCurrentRun() ? currentRun.peek() : unsorted.peek();
+    }
+
+    /**
+     * Ensures that the current run is the run whose next FlowFile comes first of all runs.
+     *
+     * @return <code>true</code> if the next FlowFile in the queue is the next FlowFile of the current run, <code>false</code> if it is the next
+     * FlowFile of the unsorted heap, or if the queue is empty
+     */
+    private boolean selectCurrentRun() {
+        final Run firstRun = runs.peek();
+        if (firstRun != null && (currentRun == null || comparator.compare(firstRun.peek(), currentRun.peek()) < 0)) {
+            if (currentRun != null) {
+                runs.offer(currentRun);
+            }
+            currentRun = runs.poll();
+        }
+
+        if (currentRun == null) {
+            return false;
+        }
+
+        final FlowFileRecord firstUnsorted = unsorted.peek();
+        return firstUnsorted == null || comparator.compare(currentRun.peek(), firstUnsorted) <= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear() {
+        unsorted.clear();
+        runs.clear();
+        currentRun = null;
+        size = 0;
+    }
+
+    @Override
+    public Iterator<FlowFileRecord> iterator() {
+        final List<Iterator<FlowFileRecord>> iterators = new ArrayList<>(runs.size() + 2);
+        iterators.add(unsorted.iterator());
+        if (currentRun != null) {
+            iterators.add(currentRun.iterator());
+        }
+        for (final Run run : runs) {
+            iterators.add(run.iterator());
+        }
+
+        return new Iterator<FlowFileRecord>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (index < iterators.size()) {
+                    if (iterators.get(index).hasNext()) {
+                        return true;
+                    }
+                    index++;
+                }
+
+                return false;
+            }
+
+            @Override
+            public FlowFileRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return iterators.get(index).next();
+            }
+        };
+    }
+
+    private static class Run {
+        private final FlowFileRecord[] flowFiles;
+        private int index = 0;
+
+        private Run(final FlowFileRecord[] flowFiles) {
+            this.flowFiles = flowFiles;
+        }
+
+        private FlowFileRecord peek() {
+            return flowFiles[index];
+        }
+
+        private FlowFileRecord poll() {
+            final FlowFileRecord flowFile = flowFiles[index];
+            flowFiles[index++] = null;
+            return flowFile;
+        }
+
+        private boolean isEmpty() {
+            return index >= flowFiles.length;
+        }
+
+        private Iterator<FlowFileRecord> iterator() {
+            return Arrays.asList(flowFiles).subList(index, flowFiles.length).iterator();
+        }
+    }
+}
@@ -42,6 +42,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  *
  */
 public class StandardFlowFileQueue extends AbstractFlowFileQueue implements FlowFileQueue {
+    public static final String LOCK_FREE_FIFO = "nifi.queue.lock.free.fifo";
 
     private final SwappablePriorityQueue queue;
     private final ConnectionEventListener eventListener;
@@ -54,11 +55,22 @@ public class StandardFlowFileQueue extends AbstractFlowFileQueue implements Flow
     public StandardFlowFileQueue(final String identifier, final ConnectionEventListener eventListener, final FlowFileRepository flowFileRepo, final ProvenanceEventRepository provRepo,
                                  final ResourceClaimManager resourceClaimManager, final ProcessScheduler scheduler, final FlowFileSwapManager swapManager, final EventReporter eventReporter,
                                  final int swapThreshold, final String expirationPeriod, final long defaultBackPressureObjectThreshold, final String defaultBackPressureDataSizeThreshold) {
+        this(identifier, eventListener, flowFileRepo, provRepo, resourceClaimManager, scheduler, swapManager, eventReporter, swapThreshold, expirationPeriod,
+            defaultBackPressureObjectThreshold, defaultBackPressureDataSizeThreshold, false);
+    }
+
+    /**
+     * @param lockFreeFifo whether or not FlowFiles may be put and polled without locking the queue while it has no prioritizers other than First-In-First-Out
+     */
+    public StandardFlowFileQueue(final String identifier, final ConnectionEventListener eventListener, final FlowFileRepository flowFileRepo, final ProvenanceEventRepository provRepo,
+                                 final ResourceClaimManager resourceClaimManager, final ProcessScheduler scheduler, final FlowFileSwapManager swapManager, final EventReporter eventReporter,
+                                 final int swapThreshold, final String expirationPeriod, final long defaultBackPressureObjectThreshold, final String defaultBackPressureDataSizeThreshold,
+                                 final boolean lockFreeFifo) {
 
         super(identifier, scheduler, flowFileRepo, provRepo, resourceClaimManager);
         super.setFlowFileExpiration(expirationPeriod);
         this.swapManager = swapManager;
-        this.queue = new SwappablePriorityQueue(swapManager, swapThreshold, eventReporter, this, this::drop, null);
+        this.queue = new SwappablePriorityQueue(swapManager, swapThreshold, eventReporter, this, this::drop, null, lockFreeFifo);
         this.eventListener = eventListener;
 
         writeLock = new TimedLock(this.lock.writeLock(), getIdentifier() + " Write Lock", 100);
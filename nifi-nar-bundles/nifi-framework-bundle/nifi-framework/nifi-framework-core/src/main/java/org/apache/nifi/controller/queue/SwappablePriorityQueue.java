@@ -49,7 +49,9 @@ import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 
@@ -57,6 +59,8 @@ public class SwappablePriorityQueue {
     private static final Logger logger = LoggerFactory.getLogger(SwappablePriorityQueue.class);
     private static final int SWAP_RECORD_POLL_SIZE = 10_000;
     private static final int MAX_EXPIRED_RECORDS_PER_ITERATION = 10_000;
+    private static final String FIRST_IN_FIRST_OUT_PRIORITIZER = "org.apache.nifi.prioritizer.FirstInFirstOutPrioritizer";
+    private static final List<FlowFilePrioritizer> QUEUE_ORDER = Collections.singletonList(SwappablePriorityQueue::compareQueueOrder);
 
     private final int swapThreshold;
     private final FlowFileSwapManager swapManager;
@@ -71,6 +75,17 @@ public class SwappablePriorityQueue {
     private final TimedLock readLock;
     private final TimedLock writeLock;
 
+    // When the lock-free FIFO is enabled and the queue has no prioritizers other than First-In-First-Out, FlowFiles in the active queue are
+    // held in the lock-free 'fifoQueue' rather than 'activeQueue', so that they can be put and polled without obtaining the write lock. The
+    // lock is still obtained in order to swap FlowFiles out and in. In that case, the sizes of the active queue and of the unacknowledged
+    // FlowFiles are kept in 'stripedSize' instead of 'size', so that threads putting and polling FlowFiles do not contend to update them.
+    // Only the number of active FlowFiles is a single counter, so that a thread putting FlowFiles without the lock can reserve room for
+    // them in the active queue without exceeding the swap threshold.
+    private final boolean lockFreeFifo;
+    private final FifoActiveQueue fifoQueue = new FifoActiveQueue();
+    private final StripedQueueSize stripedSize;
+    private volatile boolean fifoMode;
+
     // We keep an "active queue" and a "swap queue" that both are able to hold records in heap. When
     // FlowFiles are added to this FlowFileQueue, we first check if we are in "swap mode" and if so
     // we add to the 'swap queue' instead of the 'active queue'. The code would be much simpler if we
@@ -80,10 +95,11 @@ public class SwappablePriorityQueue {
     // active queue, then we would end up processing the newer FlowFile before the swapped FlowFile. By
     // keeping these separate, we are able to guarantee that FlowFiles are swapped in in the same order
     // that they are swapped out.
-    // Guarded by lock.
-    private PriorityQueue<FlowFileRecord> activeQueue;
+    // The contents of the active queue are guarded by lock. The reference is volatile only so that putAll can sort a batch of
+    // FlowFiles with the queue's comparator before obtaining the lock.
+    private volatile SegmentedPriorityQueue activeQueue;
     private ArrayList<FlowFileRecord> swapQueue;
-    private boolean swapMode = false;
+    private volatile boolean swapMode = false;
 
     // The following members are used to keep metrics in memory for reporting purposes so that we don't have to constantly
     // read these values from swap files on disk.
@@ -92,15 +108,23 @@ public class SwappablePriorityQueue {
 
     public SwappablePriorityQueue(final FlowFileSwapManager swapManager, final int swapThreshold, final EventReporter eventReporter, final FlowFileQueue flowFileQueue,
         final DropFlowFileAction dropAction, final String swapPartitionName) {
+        this(swapManager, swapThreshold, eventReporter, flowFileQueue, dropAction, swapPartitionName, false);
+    }
+
+    public SwappablePriorityQueue(final FlowFileSwapManager swapManager, final int swapThreshold, final EventReporter eventReporter, final FlowFileQueue flowFileQueue,
+        final DropFlowFileAction dropAction, final String swapPartitionName, final boolean lockFreeFifo) {
         this.swapManager = swapManager;
         this.swapThreshold = swapThreshold;
 
-        this.activeQueue = new PriorityQueue<>(20, new QueuePrioritizer(Collections.emptyList()));
+        this.activeQueue = new SegmentedPriorityQueue(new QueuePrioritizer(Collections.emptyList()));
         this.swapQueue = new ArrayList<>();
         this.eventReporter = eventReporter;
         this.flowFileQueue = flowFileQueue;
         this.dropAction = dropAction;
         this.swapPartitionName = swapPartitionName;
+        this.lockFreeFifo = lockFreeFifo;
+        this.fifoMode = lockFreeFifo;
+        this.stripedSize = lockFreeFifo ? new StripedQueueSize() : null;
 
         final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
         readLock = new TimedLock(lock.readLock(), flowFileQueue.getIdentifier() + " Read Lock", 100);
@@ -126,9 +150,24 @@ public class SwappablePriorityQueue {
             priorities.clear();
             priorities.addAll(newPriorities);
 
-            final PriorityQueue<FlowFileRecord> newQueue = new PriorityQueue<>(Math.max(20, activeQueue.size()), new QueuePrioritizer(newPriorities));
-            newQueue.addAll(activeQueue);
-            activeQueue = newQueue;
+            final boolean useFifo = lockFreeFifo && isFirstInFirstOut(newPriorities);
+            if (useFifo) {
+                // Move the FlowFiles to the head of the FIFO queue in the order that they were queued, ahead of any FlowFiles that were put there concurrently.
+                final List<FlowFileRecord> queued = new ArrayList<>(activeQueue);
+                queued.sort(new QueuePrioritizer(newPriorities.isEmpty() ? QUEUE_ORDER : newPriorities));
+                fifoQueue.addFirst(queued);
+                activeQueue = new SegmentedPriorityQueue(new QueuePrioritizer(newPriorities));
+            } else {
+                final SegmentedPriorityQueue newQueue = new SegmentedPriorityQueue(new QueuePrioritizer(newPriorities));
+                newQueue.addAll(activeQueue);
+
+                final List<FlowFileRecord> queued = new ArrayList<>();
+                fifoQueue.drainTo(queued);
+                newQueue.addAll(queued);
+                activeQueue = newQueue;
+            }
+
+            fifoMode = useFifo;
         } finally {
             writeLock.unlock("setPriorities");
         }
@@ -138,6 +177,13 @@ public class SwappablePriorityQueue {
     public LocalQueuePartitionDiagnostics getQueueDiagnostics() {
         readLock.lock();
         try {
+            if (fifoMode) {
+                final FlowFileQueueSize queueSize = getFlowFileQueueSize();
+                final boolean anyPenalized = fifoQueue.isAnyPenalized();
+                final boolean allPenalized = anyPenalized && fifoQueue.isAllPenalized(queueSize.getActiveCount());
+                return new StandardLocalQueuePartitionDiagnostics(queueSize, anyPenalized, allPenalized);
+            }
+
             final boolean anyPenalized = !activeQueue.isEmpty() && activeQueue.peek().isPenalized();
             final boolean allPenalized = anyPenalized && activeQueue.stream().anyMatch(FlowFileRecord::isPenalized);
 
@@ -150,7 +196,9 @@ public class SwappablePriorityQueue {
     public List<FlowFileRecord> getActiveFlowFiles() {
         readLock.lock();
         try {
-            return new ArrayList<>(activeQueue);
+            final List<FlowFileRecord> activeFlowFiles = new ArrayList<>(activeQueue);
+            fifoQueue.forEach(activeFlowFiles::add);
+            return activeFlowFiles;
         } finally {
             readLock.unlock("getActiveFlowFiles");
         }
@@ -185,7 +233,7 @@ public class SwappablePriorityQueue {
         // whatever data we don't write out to a swap file (because there isn't enough to fill a swap file) will be added back to the swap queue.
         // Since the swap queue cannot be processed until all swap files, we want to ensure that only the lowest priority data goes back onto it. Which means
         // that we must swap out the highest priority data that is currently on the swap queue.
-        final PriorityQueue<FlowFileRecord> tempQueue = new PriorityQueue<>(swapQueue.size(), new QueuePrioritizer(getPriorities()));
+        final PriorityQueue<FlowFileRecord> tempQueue = new PriorityQueue<>(swapQueue.size(), createQueuePrioritizer());
         tempQueue.addAll(swapQueue);
 
         long bytesSwappedOut = 0L;
@@ -246,24 +294,9 @@ public class SwappablePriorityQueue {
 
         Collections.reverse(swapQueue); // currently ordered in reverse priority order based on the ordering of the temp queue
 
-        boolean updated = false;
-        while (!updated) {
-            final FlowFileQueueSize originalSize = getFlowFileQueueSize();
-
-            final int addedSwapRecords = swapQueue.size() - originalSwapQueueCount;
-            final long addedSwapBytes = updatedSwapQueueBytes - originalSwapQueueBytes;
-
-            final FlowFileQueueSize newSize = new FlowFileQueueSize(originalSize.getActiveCount(), originalSize.getActiveBytes(),
-                originalSize.getSwappedCount() + addedSwapRecords + flowFilesSwappedOut,
-                originalSize.getSwappedBytes() + addedSwapBytes + bytesSwappedOut,
-                originalSize.getSwapFileCount() + numSwapFiles,
-                originalSize.getUnacknowledgedCount(), originalSize.getUnacknowledgedBytes());
-
-            updated = updateSize(originalSize, newSize);
-            if (updated) {
-                logIfNegative(originalSize, newSize, "swap");
-            }
-        }
+        final int addedSwapRecords = swapQueue.size() - originalSwapQueueCount;
+        final long addedSwapBytes = updatedSwapQueueBytes - originalSwapQueueBytes;
+        incrementSwapQueueSize(addedSwapRecords + flowFilesSwappedOut, addedSwapBytes + bytesSwappedOut, numSwapFiles);
 
         this.swapLocations.addAll(swapLocations);
         logger.debug("After writing swap files, setting new set of Swap Locations to {}", this.swapLocations);
@@ -294,7 +327,14 @@ public class SwappablePriorityQueue {
         // Calling this method when records are polled prevents this condition by migrating FlowFiles from the
         // Swap Queue to the Active Queue. However, we don't do this if there are FlowFiles already swapped out
         // to disk, because we want them to be swapped back in in the same order that they were swapped out.
-        if (!activeQueue.isEmpty()) {
+        if (!fifoMode && !fifoQueue.isEmpty()) {
+            // FlowFiles may have been put on the FIFO queue concurrently with the prioritizers being changed.
+            final List<FlowFileRecord> queued = new ArrayList<>();
+            fifoQueue.drainTo(queued);
+            activeQueue.addAll(queued);
+        }
+
+        if (!activeQueue.isEmpty() || !fifoQueue.isUnpenalizedEmpty()) {
             return;
         }
 
@@ -322,22 +362,25 @@ public class SwappablePriorityQueue {
         }
 
         // Swap Queue is not currently ordered. We want to migrate the highest priority FlowFiles to the Active Queue, then re-queue the lowest priority items.
-        final PriorityQueue<FlowFileRecord> tempQueue = new PriorityQueue<>(swapQueue.size(), new QueuePrioritizer(getPriorities()));
+        final PriorityQueue<FlowFileRecord> tempQueue = new PriorityQueue<>(swapQueue.size(), createQueuePrioritizer());
         tempQueue.addAll(swapQueue);
 
-        int recordsMigrated = 0;
+        final List<FlowFileRecord> migrated = new ArrayList<>();
+        final int activeCount = getActiveQueueCount();
         long bytesMigrated = 0L;
-        while (activeQueue.size() < swapThreshold) {
+        while (activeCount + migrated.size() < swapThreshold) {
             final FlowFileRecord toMigrate = tempQueue.poll();
             if (toMigrate == null) {
                 break;
             }
 
-            activeQueue.add(toMigrate);
+            migrated.add(toMigrate);
             bytesMigrated += toMigrate.getSize();
-            recordsMigrated++;
         }
 
+        addToActiveQueue(migrated);
+        final int recordsMigrated = migrated.size();
+
         swapQueue.clear();
         FlowFileRecord toRequeue;
         while ((toRequeue = tempQueue.poll()) != null) {
@@ -424,7 +467,62 @@ public class SwappablePriorityQueue {
             logger.debug("Successfully swapped in Swap File {} containing {} FlowFiles ({} bytes)", swapLocation, flowFileCount, contentSize);
         }
 
-        activeQueue.addAll(swapContents.getFlowFiles());
+        if (fifoMode) {
+            // Swap Files are not necessarily written in the order that the FlowFiles are to be processed
+            final List<FlowFileRecord> swappedIn = new ArrayList<>(swapContents.getFlowFiles());
+            swappedIn.sort(createQueuePrioritizer());
+            fifoQueue.addAll(swappedIn);
+        } else {
+            activeQueue.addAll(swapContents.getFlowFiles());
+        }
+    }
+
+    /**
+     * This method MUST be called with the write lock held, unless in FIFO mode
+     */
+    private void addToActiveQueue(final Collection<FlowFileRecord> flowFiles) {
+        if (fifoMode) {
+            fifoQueue.addAll(flowFiles);
+        } else {
+            activeQueue.addAll(flowFiles);
+        }
+    }
+
+    /**
+     * This method MUST be called with the write lock held
+     */
+    private int getActiveQueueCount() {
+        return fifoMode ? getFlowFileQueueSize().getActiveCount() : activeQueue.size();
+    }
+
+    private QueuePrioritizer createQueuePrioritizer() {
+        // Without prioritizers, the queue is ordered by Content Claim. In FIFO mode, FlowFiles must be swapped out and back in in the order that they were queued.
+        if (fifoMode && priorities.isEmpty()) {
+            return new QueuePrioritizer(QUEUE_ORDER);
+        }
+
+        return new QueuePrioritizer(getPriorities());
+    }
+
+    private static int compareQueueOrder(final FlowFile flowFile1, final FlowFile flowFile2) {
+        final long queueDate1 = flowFile1.getLastQueueDate() == null ? 0L : flowFile1.getLastQueueDate();
+        final long queueDate2 = flowFile2.getLastQueueDate() == null ? 0L : flowFile2.getLastQueueDate();
+        final int dateComparison = Long.compare(queueDate1, queueDate2);
+        if (dateComparison != 0) {
+            return dateComparison;
+        }
+
+        return Long.compare(flowFile1.getQueueDateIndex(), flowFile2.getQueueDateIndex());
+    }
+
+    private static boolean isFirstInFirstOut(final List<FlowFilePrioritizer> prioritizers) {
+        for (final FlowFilePrioritizer prioritizer : prioritizers) {
+            if (!FIRST_IN_FIRST_OUT_PRIORITIZER.equals(prioritizer.getClass().getName())) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     public QueueSize size() {
@@ -453,16 +551,26 @@ public class SwappablePriorityQueue {
 
 
     public void put(final FlowFileRecord flowFile) {
+        if (fifoMode && !swapMode && stripedSize.tryIncrementActive(1, flowFile.getSize(), swapThreshold)) {
+            // Swap mode may have begun while room was being reserved. If so, the FlowFile must be queued behind those in the swap queue.
+            if (!swapMode) {
+                fifoQueue.add(flowFile);
+                logger.trace("{} put to {}", flowFile, this);
+                return;
+            }
+
+            incrementActiveQueueSize(-1, -flowFile.getSize());
+        }
+
         writeLock.lock();
         try {
-            if (swapMode || activeQueue.size() >= swapThreshold) {
+            if (swapMode || !tryIncrementActiveQueueSize(1, flowFile.getSize(), swapThreshold)) {
                 swapQueue.add(flowFile);
                 incrementSwapQueueSize(1, flowFile.getSize(), 0);
                 swapMode = true;
                 writeSwapFilesIfNecessary();
             } else {
-                incrementActiveQueueSize(1, flowFile.getSize());
-                activeQueue.add(flowFile);
+                addToActiveQueue(Collections.singletonList(flowFile));
             }
 
             logger.trace("{} put to {}", flowFile, this);
@@ -478,16 +586,36 @@ public class SwappablePriorityQueue {
             bytes += flowFile.getSize();
         }
 
+        if (fifoMode && !swapMode && stripedSize.tryIncrementActive(numFiles, bytes, swapThreshold - numFiles)) {
+            // Swap mode may have begun while room was being reserved. If so, the FlowFiles must be queued behind those in the swap queue.
+            if (!swapMode) {
+                fifoQueue.addAll(flowFiles);
+                logger.trace("{} put to {}", flowFiles, this);
+                return;
+            }
+
+            incrementActiveQueueSize(-numFiles, -bytes);
+        }
+
+        // Sort the FlowFiles before obtaining the lock so that, if they are destined for the active queue, they can be added as a single run.
+        final SegmentedPriorityQueue sortedFor = activeQueue;
+        final FlowFileRecord[] sortedRun = (!fifoMode && !swapMode && numFiles >= SegmentedPriorityQueue.MIN_RUN_SIZE)
+            ? SegmentedPriorityQueue.sortRun(flowFiles, sortedFor.comparator()) : null;
+
         writeLock.lock();
         try {
-            if (swapMode || activeQueue.size() >= swapThreshold - numFiles) {
+            if (swapMode || !tryIncrementActiveQueueSize(numFiles, bytes, swapThreshold - numFiles)) {
                 swapQueue.addAll(flowFiles);
                 incrementSwapQueueSize(numFiles, bytes, 0);
                 swapMode = true;
                 writeSwapFilesIfNecessary();
             } else {
-                incrementActiveQueueSize(numFiles, bytes);
-                activeQueue.addAll(flowFiles);
+                // If the prioritizers were changed while sorting, the run must be sorted again.
+                if (sortedRun != null && sortedFor == activeQueue && !fifoMode) {
+                    activeQueue.addSortedRun(sortedRun);
+                } else {
+                    addToActiveQueue(flowFiles);
+                }
             }
 
             logger.trace("{} put to {}", flowFiles, this);
@@ -501,6 +629,11 @@ public class SwappablePriorityQueue {
     }
 
     public FlowFileRecord poll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
+        if (fifoMode) {
+            final List<FlowFileRecord> records = pollFifo(1, expiredRecords, expirationMillis, pollStrategy);
+            return records.isEmpty() ? null : records.get(0);
+        }
+
         FlowFileRecord flowFile;
 
         // First check if we have any records Pre-Fetched.
@@ -562,7 +695,11 @@ public class SwappablePriorityQueue {
     }
 
     public List<FlowFileRecord> poll(int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
-        final List<FlowFileRecord> records = new ArrayList<>(Math.min(1, maxResults));
+        if (fifoMode) {
+            return pollFifo(maxResults, expiredRecords, expirationMillis, pollStrategy);
+        }
+
+        final List<FlowFileRecord> records = new ArrayList<>(Math.min(maxResults, 100));
 
         // First check if we have any records Pre-Fetched.
         writeLock.lock();
@@ -586,6 +723,7 @@ public class SwappablePriorityQueue {
     public List<FlowFileRecord> poll(final FlowFileFilter filter, final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
         long bytesPulled = 0L;
         int flowFilesPulled = 0;
+        long selectedBytes = 0L;
 
         writeLock.lock();
         try {
@@ -594,8 +732,9 @@ public class SwappablePriorityQueue {
             final List<FlowFileRecord> selectedFlowFiles = new ArrayList<>();
             final List<FlowFileRecord> unselected = new ArrayList<>();
 
+            final boolean fifo = fifoMode;
             while (true) {
-                FlowFileRecord flowFile = this.activeQueue.poll();
+                FlowFileRecord flowFile = fifo ? fifoQueue.poll(pollStrategy, record -> isExpired(record, expirationMillis)) : this.activeQueue.poll();
                 if (flowFile == null) {
                     break;
                 }
@@ -612,7 +751,11 @@ public class SwappablePriorityQueue {
                         continue;
                     }
                 } else if (flowFile.isPenalized() && pollStrategy == PollStrategy.UNPENALIZED_FLOWFILES) {
-                    this.activeQueue.add(flowFile);
+                    if (fifo) {
+                        fifoQueue.addFirst(Collections.singletonList(flowFile));
+                    } else {
+                        this.activeQueue.add(flowFile);
+                    }
                     break; // just stop searching because the rest are all penalized.
                 }
 
@@ -620,8 +763,8 @@ public class SwappablePriorityQueue {
                 if (result.isAccept()) {
                     bytesPulled += flowFile.getSize();
                     flowFilesPulled++;
+                    selectedBytes += flowFile.getSize();
 
-                    incrementUnacknowledgedQueueSize(1, flowFile.getSize());
                     selectedFlowFiles.add(flowFile);
                 } else {
                     unselected.add(flowFile);
@@ -632,8 +775,12 @@ public class SwappablePriorityQueue {
                 }
             }
 
-            this.activeQueue.addAll(unselected);
-            incrementActiveQueueSize(-flowFilesPulled, -bytesPulled);
+            if (fifo) {
+                fifoQueue.addFirst(unselected);
+            } else {
+                this.activeQueue.addAll(unselected);
+            }
+            incrementActiveAndUnacknowledgedQueueSize(-flowFilesPulled, -bytesPulled, selectedFlowFiles.size(), selectedBytes);
 
             if (!selectedFlowFiles.isEmpty()) {
                 logger.trace("{} poll() returning {}", this, selectedFlowFiles);
@@ -655,8 +802,58 @@ public class SwappablePriorityQueue {
             expiredBytes += record.getSize();
         }
 
-        incrementActiveQueueSize(-(expiredRecords.size() + records.size()), -bytesDrained);
-        incrementUnacknowledgedQueueSize(records.size(), bytesDrained - expiredBytes);
+        incrementActiveAndUnacknowledgedQueueSize(-(expiredRecords.size() + records.size()), -bytesDrained, records.size(), bytesDrained - expiredBytes);
+    }
+
+    private List<FlowFileRecord> pollFifo(final int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
+        final List<FlowFileRecord> records = new ArrayList<>(Math.min(maxResults, 100));
+        drainFifoQueue(records, maxResults, expiredRecords, expirationMillis, pollStrategy);
+
+        // The write lock is needed only if FlowFiles must be swapped in.
+        if (records.isEmpty() && expiredRecords.size() < MAX_EXPIRED_RECORDS_PER_ITERATION && getFlowFileQueueSize().getSwappedCount() > 0) {
+            writeLock.lock();
+            try {
+                migrateSwapToActive();
+            } finally {
+                writeLock.unlock("poll(FIFO)");
+            }
+
+            drainFifoQueue(records, maxResults, expiredRecords, expirationMillis, pollStrategy);
+        }
+
+        if (!records.isEmpty()) {
+            logger.trace("{} poll() returning {}", this, records);
+        }
+
+        return records;
+    }
+
+    private void drainFifoQueue(final List<FlowFileRecord> destination, final int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis,
+                                final PollStrategy pollStrategy) {
+        int expiredCount = 0;
+        long expiredBytes = 0L;
+        int polledCount = 0;
+        long polledBytes = 0L;
+
+        FlowFileRecord pulled;
+        while (destination.size() < maxResults && (pulled = fifoQueue.poll(pollStrategy, record -> isExpired(record, expirationMillis))) != null) {
+            if (isExpired(pulled, expirationMillis)) {
+                expiredRecords.add(pulled);
+                expiredCount++;
+                expiredBytes += pulled.getSize();
+                if (expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                    break;
+                }
+            } else {
+                destination.add(pulled);
+                polledCount++;
+                polledBytes += pulled.getSize();
+            }
+        }
+
+        if (polledCount > 0 || expiredCount > 0) {
+            incrementActiveAndUnacknowledgedQueueSize(-(polledCount + expiredCount), -(polledBytes + expiredBytes), polledCount, polledBytes);
+        }
     }
 
 
@@ -724,6 +921,12 @@ public class SwappablePriorityQueue {
                     return flowFile;
                 }
             }
+
+            for (final FlowFileRecord flowFile : fifoQueue) {
+                if (flowFileUuid.equals(flowFile.getAttribute(CoreAttributes.UUID.key()))) {
+                    return flowFile;
+                }
+            }
         } finally {
             readLock.unlock("getFlowFile");
         }
@@ -742,6 +945,7 @@ public class SwappablePriorityQueue {
 
             try {
                 final List<FlowFileRecord> activeQueueRecords = new ArrayList<>(activeQueue);
+                final List<FlowFileRecord> fifoQueueRecords = new ArrayList<>();
 
                 QueueSize droppedSize;
                 try {
@@ -750,11 +954,15 @@ public class SwappablePriorityQueue {
                         return;
                     }
 
+                    fifoQueue.drainTo(fifoQueueRecords);
+                    activeQueueRecords.addAll(fifoQueueRecords);
+
                     droppedSize = dropAction.drop(activeQueueRecords, requestor);
                     logger.debug("For DropFlowFileRequest {}, Dropped {} from active queue", requestIdentifier, droppedSize);
                 } catch (final IOException ioe) {
                     logger.error("Failed to drop the FlowFiles from queue {} due to {}", getQueueIdentifier(), ioe.toString());
                     logger.error("", ioe);
+                    fifoQueue.addFirst(fifoQueueRecords);
 
                     dropRequest.setState(DropFlowFileState.FAILURE, "Failed to drop FlowFiles due to " + ioe.toString());
                     return;
@@ -824,7 +1032,7 @@ public class SwappablePriorityQueue {
 
                         dropRequest.setState(DropFlowFileState.FAILURE, "Failed to swap in FlowFiles from Swap File " + swapLocation + " due to " + ioe.toString());
                         if (swapContents != null) {
-                            activeQueue.addAll(swapContents.getFlowFiles()); // ensure that we don't lose the FlowFiles from our queue.
+                            addToActiveQueue(swapContents.getFlowFiles()); // ensure that we don't lose the FlowFiles from our queue.
                         }
 
                         return;
@@ -951,6 +1159,10 @@ public class SwappablePriorityQueue {
         try {
             // We want the oldest timestamp, which will be the min
             long min = getMinLastQueueDate(activeQueue, 0L);
+            final long fifoMin = getMinLastQueueDate(fifoQueue, 0L);
+            if (fifoMin != 0L) {
+                min = min == 0L ? fifoMin : Long.min(min, fifoMin);
+            }
             min = Long.min(min, getMinLastQueueDate(swapQueue, min));
 
             for(Long minSwapQueueDate: minQueueDateInSwapLocation.values()) {
@@ -981,6 +1193,10 @@ public class SwappablePriorityQueue {
                 sum += (fromTimestamp - flowFileRecord.getLastQueueDate());
             }
 
+            for (FlowFileRecord flowFileRecord : fifoQueue) {
+                sum += (fromTimestamp - flowFileRecord.getLastQueueDate());
+            }
+
             for (FlowFileRecord flowFileRecord : swapQueue) {
                 sum += (fromTimestamp - flowFileRecord.getLastQueueDate());
             }
@@ -999,7 +1215,31 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Increments the size of the active queue, but only if it holds fewer FlowFiles than the given limit. In FIFO mode, FlowFiles may be put
+     * to the active queue concurrently without the write lock, so room for them is reserved atomically.
+     *
+     * @return <code>true</code> if the size was incremented, <code>false</code> if the active queue already holds at least as many FlowFiles as the limit
+     */
+    private boolean tryIncrementActiveQueueSize(final int count, final long bytes, final int limit) {
+        if (fifoMode) {
+            return stripedSize.tryIncrementActive(count, bytes, limit);
+        }
+
+        if (activeQueue.size() >= limit) {
+            return false;
+        }
+
+        incrementActiveQueueSize(count, bytes);
+        return true;
+    }
+
     protected void incrementActiveQueueSize(final int count, final long bytes) {
+        if (stripedSize != null) {
+            stripedSize.incrementActive(count, bytes);
+            return;
+        }
+
         boolean updated = false;
         while (!updated) {
             final FlowFileQueueSize original = size.get();
@@ -1019,7 +1259,7 @@ public class SwappablePriorityQueue {
     private void incrementSwapQueueSize(final int count, final long bytes, final int fileCount) {
         boolean updated = false;
         while (!updated) {
-            final FlowFileQueueSize original = getFlowFileQueueSize();
+            final FlowFileQueueSize original = size.get();
             final FlowFileQueueSize newSize = new FlowFileQueueSize(original.getActiveCount(), original.getActiveBytes(),
                 original.getSwappedCount() + count, original.getSwappedBytes() + bytes, original.getSwapFileCount() + fileCount,
                 original.getUnacknowledgedCount(), original.getUnacknowledgedBytes());
@@ -1031,7 +1271,39 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Moves polled FlowFiles from the active queue to the unacknowledged FlowFiles with a single update of the queue size, rather than
+     * updating the active and unacknowledged counts separately
+     */
+    private void incrementActiveAndUnacknowledgedQueueSize(final int activeCount, final long activeBytes, final int unacknowledgedCount, final long unacknowledgedBytes) {
+        if (stripedSize != null) {
+            // Account for the polled FlowFiles as unacknowledged before removing them from the active queue, so that the queue never appears empty while they are in flight.
+            stripedSize.incrementUnacknowledged(unacknowledgedCount, unacknowledgedBytes);
+            stripedSize.incrementActive(activeCount, activeBytes);
+            return;
+        }
+
+        boolean updated = false;
+        while (!updated) {
+            final FlowFileQueueSize original = size.get();
+            final FlowFileQueueSize newSize = new FlowFileQueueSize(original.getActiveCount() + activeCount, original.getActiveBytes() + activeBytes,
+                original.getSwappedCount(), original.getSwappedBytes(), original.getSwapFileCount(),
+                original.getUnacknowledgedCount() + unacknowledgedCount, original.getUnacknowledgedBytes() + unacknowledgedBytes);
+
+            updated = updateSize(original, newSize);
+
+            if (updated) {
+                logIfNegative(original, newSize, "active and unacknowledged");
+            }
+        }
+    }
+
     private void incrementUnacknowledgedQueueSize(final int count, final long bytes) {
+        if (stripedSize != null) {
+            stripedSize.incrementUnacknowledged(count, bytes);
+            return;
+        }
+
         boolean updated = false;
         while (!updated) {
             final FlowFileQueueSize original = size.get();
@@ -1062,7 +1334,12 @@ public class SwappablePriorityQueue {
     }
 
     public FlowFileQueueSize getFlowFileQueueSize() {
-        return size.get();
+        final FlowFileQueueSize queueSize = size.get();
+        if (stripedSize == null) {
+            return queueSize;
+        }
+
+        return stripedSize.toFlowFileQueueSize(queueSize);
     }
 
     public void inheritQueueContents(final FlowFileQueueContents queueContents) {
@@ -1086,6 +1363,7 @@ public class SwappablePriorityQueue {
         writeLock.lock();
         try {
             final List<FlowFileRecord> activeRecords = new ArrayList<>(this.activeQueue);
+            fifoQueue.drainTo(activeRecords);
 
             final List<String> updatedSwapLocations = new ArrayList<>(swapLocations.size());
             for (final String swapLocation : swapLocations) {
@@ -1100,6 +1378,10 @@ public class SwappablePriorityQueue {
             this.swapLocations.clear();
             this.activeQueue.clear();
 
+            if (stripedSize != null) {
+                incrementActiveQueueSize(-activeRecords.size(), -activeRecords.stream().mapToLong(FlowFileRecord::getSize).sum());
+            }
+
             final int swapQueueCount = swapQueue.size();
             final long swapQueueBytes = swapQueue.stream().mapToLong(FlowFileRecord::getSize).sum();
             activeRecords.addAll(swapQueue);
@@ -1110,7 +1392,7 @@ public class SwappablePriorityQueue {
             QueueSize swapSize;
             boolean updated;
             do {
-                final FlowFileQueueSize currentSize = getFlowFileQueueSize();
+                final FlowFileQueueSize currentSize = size.get();
                 swapSize = new QueueSize(currentSize.getSwappedCount() - swapQueueCount, currentSize.getSwappedBytes() - swapQueueBytes);
 
                 final FlowFileQueueSize updatedSize = new FlowFileQueueSize(0, 0, 0, 0, 0, currentSize.getUnacknowledgedCount(), currentSize.getUnacknowledgedBytes());
@@ -1124,6 +1406,51 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Keeps the size of the active queue and of the unacknowledged FlowFiles in striped counters, which threads are able to update
+     * concurrently without contending with one another
+     */
+    private static class StripedQueueSize {
+        private final AtomicInteger activeCount = new AtomicInteger(0);
+        private final LongAdder activeBytes = new LongAdder();
+        private final LongAdder unacknowledgedCount = new LongAdder();
+        private final LongAdder unacknowledgedBytes = new LongAdder();
+
+        void incrementActive(final int count, final long bytes) {
+            activeCount.addAndGet(count);
+            activeBytes.add(bytes);
+        }
+
+        /**
+         * Increments the number of active FlowFiles, but only if there are currently fewer than the given limit, so that concurrent callers cannot
+         * together exceed the limit
+         *
+         * @return <code>true</code> if the size was incremented, <code>false</code> if there are already at least as many active FlowFiles as the limit
+         */
+        boolean tryIncrementActive(final int count, final long bytes, final int limit) {
+            int current;
+            do {
+                current = activeCount.get();
+                if (current >= limit) {
+                    return false;
+                }
+            } while (!activeCount.compareAndSet(current, current + count));
+
+            activeBytes.add(bytes);
+            return true;
+        }
+
+        void incrementUnacknowledged(final int count, final long bytes) {
+            unacknowledgedCount.add(count);
+            unacknowledgedBytes.add(bytes);
+        }
+
+        FlowFileQueueSize toFlowFileQueueSize(final FlowFileQueueSize swapSize) {
+            return new FlowFileQueueSize(activeCount.get(), activeBytes.sum(), swapSize.getSwappedCount(), swapSize.getSwappedBytes(), swapSize.getSwapFileCount(),
+                (int) unacknowledgedCount.sum(), unacknowledgedBytes.sum());
+        }
+    }
+
     @Override
     public String toString() {
         return "SwappablePriorityQueue[queueId=" + flowFileQueue.getIdentifier() + ", partition=" + swapPartitionName + "]";
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Determines, for each container of the FileSystemRepository, how large a Resource Claim may grow before no more Content Claims are
+ * appended to it and how many Resource Claims are kept open for appending. Both are derived from what has recently been written:
+ * <ul>
+ * <li>Resource Claims are sized to hold about {@link #TARGET_CONTENT_CLAIMS_PER_RESOURCE_CLAIM} Content Claims of the typical size. The typical
+ * size is the geometric mean of Content Claim lengths, so that a small number of very large writes does not cause tiny writes to be packed into
+ * huge files (which could then not be removed until every one of those FlowFiles is gone), while a Content Claim that is larger than the target
+ * simply ends up in a Resource Claim of its own.</li>
+ * <li>The number of writable Resource Claims follows the number of Content Claims that are written concurrently, so that each writer can append
+ * to an existing Resource Claim without holding open many more files than there are writers.</li>
+ * </ul>
+ */
+class AdaptiveClaimPacking {
+    static final int TARGET_CONTENT_CLAIMS_PER_RESOURCE_CLAIM = 256;
+    static final long MIN_APPENDABLE_CLAIM_LENGTH = 64 * 1024;
+    static final int MIN_WRITABLE_CLAIMS_PER_CONTAINER = 2;
+    private static final double SMOOTHING_FACTOR = 0.05D;
+
+    private final long initialAppendableClaimLength;
+    private final long maxAppendableClaimLength;
+    private final int maxWritableClaims;
+    private final Map<String, ContainerPacking> containers = new HashMap<>();
+
+    /**
+     * @param containerNames the names of the containers of the repository
+     * @param initialAppendableClaimLength the appendable claim length to use before anything has been written to a container
+     * @param maxAppendableClaimLength the largest appendable claim length to ever use
+     * @param maxWritableClaims the largest number of Resource Claims to keep open for appending, across all containers
+     */
+    AdaptiveClaimPacking(final Collection<String> containerNames, final long initialAppendableClaimLength, final long maxAppendableClaimLength, final int maxWritableClaims) {
+        this.initialAppendableClaimLength = initialAppendableClaimLength;
+        this.maxAppendableClaimLength = maxAppendableClaimLength;
+        this.maxWritableClaims = maxWritableClaims;
+
+        for (final String containerName : containerNames) {
+            containers.put(containerName, new ContainerPacking());
+        }
+    }
+
+    void onResourceClaimCreated(final String containerName) {
+        final ContainerPacking packing = containers.get(containerName);
+        synchronized (packing) {
+            packing.resourceClaimsCreated++;
+        }
+    }
+
+    void onWriteStarted(final String containerName) {
+        final ContainerPacking packing = containers.get(containerName);
+        synchronized (packing) {
+            packing.activeWriters++;
+            packing.averageConcurrentWriters = smooth(packing.averageConcurrentWriters, packing.activeWriters, packing.contentClaimsWritten == 0L);
+        }
+    }
+
+    void onWriteCompleted(final String containerName, final long bytesWritten) {
+        final ContainerPacking packing = containers.get(containerName);
+        final double log2Length = Math.log(Math.max(1L, bytesWritten)) / Math.log(2D);
+
+        synchronized (packing) {
+            packing.activeWriters = Math.max(0, packing.activeWriters - 1);
+            packing.averageLog2ClaimLength = smooth(packing.averageLog2ClaimLength, log2Length, packing.contentClaimsWritten == 0L);
+            packing.contentClaimsWritten++;
+        }
+    }
+
+    private static double smooth(final double average, final double observation, final boolean first) {
+        return first ? observation : average + SMOOTHING_FACTOR * (observation - average);
+    }
+
+    long getAppendableClaimLength(final String containerName) {
+        final ContainerPacking packing = containers.get(containerName);
+        synchronized (packing) {
+            return getAppendableClaimLength(packing);
+        }
+    }
+
+    private long getAppendableClaimLength(final ContainerPacking packing) {
+        if (packing.contentClaimsWritten == 0L) {
+            return initialAppendableClaimLength;
+        }
+
+        final double target = Math.pow(2D, packing.averageLog2ClaimLength) * TARGET_CONTENT_CLAIMS_PER_RESOURCE_CLAIM;
+        return (long) Math.max(MIN_APPENDABLE_CLAIM_LENGTH, Math.min(maxAppendableClaimLength, target));
+    }
+
+    private int getWritableClaimLimit(final ContainerPacking packing) {
+        // Allow for twice the average number of concurrent writers, so that bursts of writes can still find a Resource Claim to append to
+        return Math.max(MIN_WRITABLE_CLAIMS_PER_CONTAINER, (int) Math.ceil(2D * packing.averageConcurrentWriters));
+    }
+
+    /**
+     * @return the number of Resource Claims that may be kept open for appending, across all containers
+     */
+    int getWritableClaimLimit() {
+        int limit = 0;
+        for (final ContainerPacking packing : containers.values()) {
+            synchronized (packing) {
+                limit += getWritableClaimLimit(packing);
+            }
+        }
+
+        return Math.min(maxWritableClaims, limit);
+    }
+
+    ClaimPackingStatistics getStatistics(final String containerName) {
+        final ContainerPacking packing = containers.get(containerName);
+        synchronized (packing) {
+            final long typicalLength = packing.contentClaimsWritten == 0L ? 0L : Math.round(Math.pow(2D, packing.averageLog2ClaimLength));
+            return new ClaimPackingStatistics(containerName, typicalLength, packing.averageConcurrentWriters, getAppendableClaimLength(packing),
+                Math.min(maxWritableClaims, getWritableClaimLimit(packing)), packing.contentClaimsWritten, packing.resourceClaimsCreated);
+        }
+    }
+
+    private static class ContainerPacking {
+        private double averageLog2ClaimLength;
+        private double averageConcurrentWriters;
+        private int activeWriters;
+        private long contentClaimsWritten;
+        private long resourceClaimsCreated;
+    }
+}
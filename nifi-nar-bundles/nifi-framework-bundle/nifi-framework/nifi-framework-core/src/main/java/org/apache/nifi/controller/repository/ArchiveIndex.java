@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * <p>
+ * An in-memory index of the archived Resource Claims in each container of a {@link FileSystemRepository}, ordered from oldest to
+ * newest, along with the number of archived files and the number of bytes that they occupy. The index is populated when the
+ * repository is initialized and is kept up to date as files are archived and archived files are destroyed, so that
+ * expiring archived content does not require a walk of the archive directories.
+ * </p>
+ *
+ * <p>
+ * The number of files indexed for each container is bounded. If a container holds more archived files than that, the oldest of
+ * them are indexed and the index of the container is marked as incomplete, indicating that it should be rebuilt from disk once
+ * the indexed files have been destroyed.
+ * </p>
+ */
+class ArchiveIndex {
+    private static final Comparator<ArchivedFile> OLDEST_FIRST = Comparator.comparingLong(ArchivedFile::getTimestamp)
+            .thenComparingInt(ArchivedFile::getSection)
+            .thenComparing(ArchivedFile::getClaimId);
+
+    private final Map<String, ContainerArchive> containerArchives = new HashMap<>();
+    private final int maxIndexedFilesPerContainer;
+
+    ArchiveIndex(final Collection<String> containerNames, final int maxIndexedFilesPerContainer) {
+        this.maxIndexedFilesPerContainer = maxIndexedFilesPerContainer;
+        for (final String containerName : containerNames) {
+            containerArchives.put(containerName, new ContainerArchive());
+        }
+    }
+
+    /**
+     * Records that a file has been archived.
+     *
+     * @param containerName the name of the container that holds the archived file
+     * @param section the section that holds the archived file
+     * @param claimId the identifier of the Resource Claim, which is the name of the archived file
+     * @param size the size of the archived file
+     * @param timestamp the time at which the archived file was last modified, which determines when it expires
+     */
+    void add(final String containerName, final String section, final String claimId, final long size, final long timestamp) {
+        final int sectionIndex;
+        try {
+            sectionIndex = Integer.parseInt(section);
+        } catch (final NumberFormatException nfe) {
+            return;
+        }
+
+        getContainerArchive(containerName).add(new ArchivedFile(sectionIndex, claimId, size, timestamp), maxIndexedFilesPerContainer);
+    }
+
+    /**
+     * @return the oldest archived file of the given container, or {@code null} if no archived files are indexed
+     */
+    ArchivedFile getOldest(final String containerName) {
+        return getContainerArchive(containerName).getOldest();
+    }
+
+    /**
+     * Removes the given file from the index, as it is about to be destroyed.
+     *
+     * @return {@code true} if the file was indexed
+     */
+    boolean remove(final String containerName, final ArchivedFile archivedFile) {
+        return getContainerArchive(containerName).remove(archivedFile);
+    }
+
+    /**
+     * Marks the index of the given container as incomplete, for instance because an archived file could not be destroyed.
+     */
+    void markIncomplete(final String containerName) {
+        getContainerArchive(containerName).markIncomplete();
+    }
+
+    /**
+     * @return {@code true} if the given container may hold archived files, either because files are indexed or because the index is incomplete
+     */
+    boolean hasArchivedFiles(final String containerName) {
+        return getContainerArchive(containerName).hasArchivedFiles();
+    }
+
+    /**
+     * @return {@code true} if the index of the given container is incomplete and no indexed files remain, so that the index
+     * should be rebuilt from disk
+     */
+    boolean isRebuildRequired(final String containerName) {
+        return getContainerArchive(containerName).isRebuildRequired();
+    }
+
+    /**
+     * Discards the index of the given container and marks it as complete, in preparation for rebuilding it from disk.
+     */
+    void clear(final String containerName) {
+        getContainerArchive(containerName).clear();
+    }
+
+    long getArchivedFileCount(final String containerName) {
+        return getContainerArchive(containerName).getFileCount();
+    }
+
+    long getArchivedBytes(final String containerName) {
+        return getContainerArchive(containerName).getBytes();
+    }
+
+    private ContainerArchive getContainerArchive(final String containerName) {
+        final ContainerArchive containerArchive = containerArchives.get(containerName);
+        if (containerArchive == null) {
+            throw new IllegalArgumentException("Unknown container: " + containerName);
+        }
+        return containerArchive;
+    }
+
+    private static class ContainerArchive {
+        private final TreeSet<ArchivedFile> files = new TreeSet<>(OLDEST_FIRST);
+        private long bytes = 0L;
+        private boolean complete = true;
+
+        synchronized void add(final ArchivedFile archivedFile, final int maxFiles) {
+            if (files.size() >= maxFiles) {
+                complete = false;
+
+                // Keep the oldest files, as those are the ones that will be destroyed first.
+                final ArchivedFile newest = files.last();
+                if (OLDEST_FIRST.compare(archivedFile, newest) >= 0) {
+                    return;
+                }
+
+                files.remove(newest);
+                bytes -= newest.getSize();
+            }
+
+            if (files.add(archivedFile)) {
+                bytes += archivedFile.getSize();
+            }
+        }
+
+        synchronized ArchivedFile getOldest() {
+            return files.isEmpty() ? null : files.first();
+        }
+
+        synchronized boolean remove(final ArchivedFile archivedFile) {
+            if (files.remove(archivedFile)) {
+                bytes -= archivedFile.getSize();
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void markIncomplete() {
+            complete = false;
+        }
+
+        synchronized boolean hasArchivedFiles() {
+            return !files.isEmpty() || !complete;
+        }
+
+        synchronized boolean isRebuildRequired() {
+            return !complete && files.isEmpty();
+        }
+
+        synchronized void clear() {
+            files.clear();
+            bytes = 0L;
+            complete = true;
+        }
+
+        synchronized long getFileCount() {
+            return files.size();
+        }
+
+        synchronized long getBytes() {
+            return bytes;
+        }
+    }
+
+    static class ArchivedFile {
+        private final int section;
+        private final String claimId;
+        private final long size;
+        private final long timestamp;
+
+        ArchivedFile(final int section, final String claimId, final long size, final long timestamp) {
+            this.section = section;
+            this.claimId = claimId;
+            this.size = size;
+            this.timestamp = timestamp;
+        }
+
+        int getSection() {
+            return section;
+        }
+
+        String getClaimId() {
+            return claimId;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return "ArchivedFile[section=" + section + ", id=" + claimId + ", size=" + size + "]";
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+/**
+ * A point-in-time view of how the FileSystemRepository is packing Content Claims into Resource Claims for a single container.
+ */
+public class ClaimPackingStatistics {
+    private final String containerName;
+    private final long typicalContentClaimLength;
+    private final double averageConcurrentWriters;
+    private final long appendableClaimLength;
+    private final int writableClaimLimit;
+    private final long contentClaimsWritten;
+    private final long resourceClaimsCreated;
+
+    public ClaimPackingStatistics(final String containerName, final long typicalContentClaimLength, final double averageConcurrentWriters, final long appendableClaimLength,
+                                  final int writableClaimLimit, final long contentClaimsWritten, final long resourceClaimsCreated) {
+        this.containerName = containerName;
+        this.typicalContentClaimLength = typicalContentClaimLength;
+        this.averageConcurrentWriters = averageConcurrentWriters;
+        this.appendableClaimLength = appendableClaimLength;
+        this.writableClaimLimit = writableClaimLimit;
+        this.contentClaimsWritten = contentClaimsWritten;
+        this.resourceClaimsCreated = resourceClaimsCreated;
+    }
+
+    public String getContainerName() {
+        return containerName;
+    }
+
+    /**
+     * @return the typical (geometric mean) number of bytes written to a Content Claim, weighted toward recent writes
+     */
+    public long getTypicalContentClaimLength() {
+        return typicalContentClaimLength;
+    }
+
+    /**
+     * @return the average number of Content Claims being written to concurrently, weighted toward recent writes
+     */
+    public double getAverageConcurrentWriters() {
+        return averageConcurrentWriters;
+    }
+
+    /**
+     * @return the length that a Resource Claim may reach before no more Content Claims are appended to it
+     */
+    public long getAppendableClaimLength() {
+        return appendableClaimLength;
+    }
+
+    /**
+     * @return the number of Resource Claims in this container that may be kept open for appending
+     */
+    public int getWritableClaimLimit() {
+        return writableClaimLimit;
+    }
+
+    public long getContentClaimsWritten() {
+        return contentClaimsWritten;
+    }
+
+    public long getResourceClaimsCreated() {
+        return resourceClaimsCreated;
+    }
+
+    @Override
+    public String toString() {
+        return "ClaimPackingStatistics[container=" + containerName + ", typicalContentClaimLength=" + typicalContentClaimLength + ", averageConcurrentWriters=" + averageConcurrentWriters
+            + ", appendableClaimLength=" + appendableClaimLength + ", writableClaimLimit=" + writableClaimLimit + ", contentClaimsWritten=" + contentClaimsWritten
+            + ", resourceClaimsCreated=" + resourceClaimsCreated + "]";
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
 import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.controller.repository.io.ByteBufferInputStream;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.events.EventReporter;
@@ -31,7 +32,6 @@ import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.stream.io.SynchronizedByteCountingOutputStream;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
-import org.apache.nifi.util.StopWatch;
 import org.apache.nifi.util.file.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +46,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -56,15 +61,14 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
@@ -74,10 +78,13 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -93,7 +100,19 @@ public class FileSystemRepository implements ContentRepository {
     // unnecessarily large resource claim files
     public static final String APPENDABLE_CLAIM_LENGTH_CAP = "100 MB";
     public static final Pattern MAX_ARCHIVE_SIZE_PATTERN = Pattern.compile("\\d{1,2}%");
+    public static final String MEMORY_MAPPED_READS = "nifi.content.repository.read.memory.mapped";
+    public static final String ADAPTIVE_CLAIM_PACKING = "nifi.content.claim.adaptive.packing";
+    public static final String ARCHIVE_CLEANUP_MAX_DELETIONS_PER_SECOND = "nifi.content.repository.archive.cleanup.max.deletions.per.second";
+    // Upper bound on the number of Resource Claim mappings that are cached, so that the number of mapped regions stays well
+    // below the operating system's limit (vm.max_map_count on Linux) even when there are a great many live Resource Claims.
+    // Once it is reached, the least recently used mapping is evicted to make room for a new one.
+    private static final int MAX_CACHED_MAPPINGS = 4096;
+    // Resource Claim files that hold many Content Claims are bounded by the appendable claim length, so only files up to that size are
+    // mapped as a whole and shared. A Content Claim that ends beyond it is mapped only for its own region, which is released once read.
+    private static final long MAX_SHARED_MAPPING_LENGTH = DataUnit.parseDataSize(APPENDABLE_CLAIM_LENGTH_CAP, DataUnit.B).longValue();
+    private static final int MAX_INDEXED_ARCHIVE_FILES_PER_CONTAINER = 500_000;
     private static final Logger LOG = LoggerFactory.getLogger(FileSystemRepository.class);
+    private static final Consumer<MappedByteBuffer> UNMAPPER = createUnmapper();
 
     private final Logger archiveExpirationLog = LoggerFactory.getLogger(FileSystemRepository.class.getName() + ".archive.expiration");
 
@@ -121,19 +140,30 @@ public class FileSystemRepository implements ContentRepository {
     // files would mean that we are writing gigabytes per second - quite a bit faster than any disks can handle now.
     private final long maxAppendableClaimLength;
     private final int maxFlowFilesPerClaim;
+    // When adaptive claim packing is enabled, the appendable claim length and the number of writable claims are derived from observed writes,
+    // with maxAppendableClaimLength used only until the first writes complete and maxFlowFilesPerClaim as the upper bound on writable claims.
+    private final AdaptiveClaimPacking adaptiveClaimPacking;
     private final long maxArchiveMillis;
     private final Map<String, Long> minUsableContainerBytesForArchive = new HashMap<>();
     private final boolean alwaysSync;
     private final ScheduledExecutorService containerCleanupExecutor;
 
+    // When memory-mapped reads are enabled, each Resource Claim file is mapped once and the mapping is shared by all Content Claims
+    // that reside in it. The mapping is kept only while the Resource Claim has claimants and is released when the claimant count
+    // drops to 0 or the claim is archived or removed. Readers that still hold a slice keep the mapping alive until they close their
+    // stream or release their buffer; the file is unmapped as soon as the last of them is done, so that it can be archived or deleted
+    // even on operating systems that do not allow a mapped file to be moved or removed.
+    private final boolean memoryMappedReads;
+    private final ConcurrentMap<ResourceClaim, MappedResourceClaim> mappedClaims = new ConcurrentHashMap<>();
+    private final Map<ByteBuffer, MappedLease> bufferLeases = Collections.synchronizedMap(new IdentityHashMap<>());
+    private volatile int maxCachedMappings = MAX_CACHED_MAPPINGS;
+
     private ResourceClaimManager resourceClaimManager; // effectively final
     private EventReporter eventReporter;
 
-    // Map of container to archived files that should be deleted next.
-    private final Map<String, BlockingQueue<ArchiveInfo>> archivedFiles = new HashMap<>();
-
-    // guarded by synchronizing on this
-    private final AtomicLong oldestArchiveDate = new AtomicLong(0L);
+    // Index of archived files, so that archived content can be expired without walking the archive directories
+    private final ArchiveIndex archiveIndex;
+    private final int maxArchiveDeletionsPerSecond;
 
     private final NiFiProperties nifiProperties;
 
@@ -148,10 +178,14 @@ public class FileSystemRepository implements ContentRepository {
         maxArchiveMillis = 0;
         alwaysSync = false;
         containerCleanupExecutor = null;
+        memoryMappedReads = false;
         nifiProperties = null;
         maxAppendableClaimLength = 0;
         maxFlowFilesPerClaim = 0;
+        adaptiveClaimPacking = null;
         writableClaimQueue = null;
+        archiveIndex = null;
+        maxArchiveDeletionsPerSecond = 0;
     }
 
     public FileSystemRepository(final NiFiProperties nifiProperties) throws IOException {
@@ -180,9 +214,23 @@ public class FileSystemRepository implements ContentRepository {
         this.containerNames = new ArrayList<>(containers.keySet());
         index = new AtomicLong(0L);
 
+        if (Boolean.parseBoolean(nifiProperties.getProperty(ADAPTIVE_CLAIM_PACKING))) {
+            adaptiveClaimPacking = new AdaptiveClaimPacking(containerNames, maxAppendableClaimLength, appendableClaimLengthCap, maxFlowFilesPerClaim);
+        } else {
+            adaptiveClaimPacking = null;
+        }
+        LOG.info("Initializing FileSystemRepository with 'Adaptive Claim Packing' set to {}", adaptiveClaimPacking != null);
+
         for (final String containerName : containerNames) {
             reclaimable.put(containerName, new LinkedBlockingQueue<>(10000));
-            archivedFiles.put(containerName, new LinkedBlockingQueue<>(100000));
+        }
+        archiveIndex = new ArchiveIndex(containerNames, MAX_INDEXED_ARCHIVE_FILES_PER_CONTAINER);
+
+        final String maxDeletionsPerSecond = nifiProperties.getProperty(ARCHIVE_CLEANUP_MAX_DELETIONS_PER_SECOND);
+        try {
+            this.maxArchiveDeletionsPerSecond = StringUtils.isBlank(maxDeletionsPerSecond) ? 0 : Integer.parseInt(maxDeletionsPerSecond.trim());
+        } catch (final NumberFormatException nfe) {
+            throw new RuntimeException("Invalid value specified for the '" + ARCHIVE_CLEANUP_MAX_DELETIONS_PER_SECOND + "' property. Value must be a non-negative integer");
         }
 
         final String enableArchiving = nifiProperties.getProperty(NiFiProperties.CONTENT_ARCHIVE_ENABLED);
@@ -252,9 +300,13 @@ public class FileSystemRepository implements ContentRepository {
 
         this.alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty("nifi.content.repository.always.sync"));
         LOG.info("Initializing FileSystemRepository with 'Always Sync' set to {}", alwaysSync);
+        this.memoryMappedReads = Boolean.parseBoolean(nifiProperties.getProperty(MEMORY_MAPPED_READS));
+        LOG.info("Initializing FileSystemRepository with 'Memory Mapped Reads' set to {}", memoryMappedReads);
         initializeRepository();
 
-        containerCleanupExecutor = new FlowEngine(containers.size(), "Cleanup FileSystemRepository Container", true);
+        // Each container has a task that archives or destroys its claims and a task that destroys its expired archived files, so that
+        // containers, which generally map to separate disks, are cleaned up in parallel.
+        containerCleanupExecutor = new FlowEngine(containers.size() * 2, "Cleanup FileSystemRepository Container", true);
     }
 
     @Override
@@ -262,11 +314,9 @@ public class FileSystemRepository implements ContentRepository {
         this.resourceClaimManager = context.getResourceClaimManager();
         this.eventReporter = context.getEventReporter();
 
-        final Map<String, Path> fileRespositoryPaths = nifiProperties.getContentRepositoryPaths();
-
         executor.scheduleWithFixedDelay(new BinDestructableClaims(), 1, 1, TimeUnit.SECONDS);
-        for (int i = 0; i < fileRespositoryPaths.size(); i++) {
-            executor.scheduleWithFixedDelay(new ArchiveOrDestroyDestructableClaims(), 1, 1, TimeUnit.SECONDS);
+        for (final String containerName : containerNames) {
+            containerCleanupExecutor.scheduleWithFixedDelay(new ArchiveOrDestroyDestructableClaims(containerName), 1, 1, TimeUnit.SECONDS);
         }
 
         final long cleanupMillis = this.determineCleanupInterval(nifiProperties);
@@ -297,6 +347,8 @@ public class FileSystemRepository implements ContentRepository {
             } catch (final IOException ioe) {
             }
         }
+
+        releaseMappings();
     }
 
     private static double getRatio(final String value) {
@@ -308,14 +360,13 @@ public class FileSystemRepository implements ContentRepository {
     private synchronized void initializeRepository() throws IOException {
         final Map<String, Path> realPathMap = new HashMap<>();
         final ExecutorService executor = Executors.newFixedThreadPool(containers.size());
-        final List<Future<Long>> futures = new ArrayList<>();
+        final List<Future<?>> futures = new ArrayList<>();
 
         // Run through each of the containers. For each container, create the sections if necessary.
-        // Then, we need to scan through the archived data so that we can determine what the oldest
-        // archived data is, so that we know when we have to start aging data off.
+        // Then, we need to scan through the archived data so that we can build the index of archived
+        // files, which determines the order in which archived data is aged off.
         for (final Map.Entry<String, Path> container : containers.entrySet()) {
             final String containerName = container.getKey();
-            final ContainerState containerState = containerStateMap.get(containerName);
             final Path containerPath = container.getValue();
             final boolean pathExists = Files.exists(containerPath);
 
@@ -332,62 +383,22 @@ public class FileSystemRepository implements ContentRepository {
 
             realPathMap.put(containerName, realPath);
 
-            // We need to scan the archive directories to find out the oldest timestamp so that know whether or not we
-            // will have to delete archived data based on time threshold. Scanning all of the directories can be very
-            // expensive because of all of the disk accesses. So we do this in multiple threads. Since containers are
-            // often unique to a disk, we just map 1 thread to each container.
-            final Callable<Long> scanContainer = new Callable<Long>() {
-                @Override
-                public Long call() throws IOException {
-                    final AtomicLong oldestDateHolder = new AtomicLong(0L);
-
-                    // the path already exists, so scan the path to find any files and update maxIndex to the max of
-                    // all filenames seen.
-                    Files.walkFileTree(realPath, new SimpleFileVisitor<Path>() {
-                        @Override
-                        public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-                            LOG.warn("Content repository contains un-readable file or directory '" + file.getFileName() + "'. Skipping. ", exc);
-                            return FileVisitResult.SKIP_SUBTREE;
-                        }
-
-                        @Override
-                        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-                            if (attrs.isDirectory()) {
-                                return FileVisitResult.CONTINUE;
-                            }
-
-                            // Check if this is an 'archive' directory
-                            final Path relativePath = realPath.relativize(file);
-                            if (relativePath.getNameCount() > 3 && ARCHIVE_DIR_NAME.equals(relativePath.subpath(1, 2).toString())) {
-                                final long lastModifiedTime = getLastModTime(file);
-
-                                if (lastModifiedTime < oldestDateHolder.get()) {
-                                    oldestDateHolder.set(lastModifiedTime);
-                                }
-                                containerState.incrementArchiveCount();
-                            }
-
-                            return FileVisitResult.CONTINUE;
-                        }
-                    });
-
-                    return oldestDateHolder.get();
-                }
-            };
-
+            // Scanning all of the archive directories can be very expensive because of all of the disk accesses. So we do this
+            // in multiple threads. Since containers are often unique to a disk, we just map 1 thread to each container. This is
+            // the only time that the archive directories are walked, unless the archive holds more files than can be indexed.
             // If the path didn't exist to begin with, there's no archive directory, so don't bother scanning.
             if (pathExists) {
-                futures.add(executor.submit(scanContainer));
+                futures.add(executor.submit(() -> {
+                    indexArchive(containerName, realPath);
+                    return null;
+                }));
             }
         }
 
         executor.shutdown();
-        for (final Future<Long> future : futures) {
+        for (final Future<?> future : futures) {
             try {
-                final Long oldestDate = future.get();
-                if (oldestDate < oldestArchiveDate.get()) {
-                    oldestArchiveDate.set(oldestDate);
-                }
+                future.get();
             } catch (final ExecutionException | InterruptedException e) {
                 if (e.getCause() instanceof IOException) {
                     throw (IOException) e.getCause();
@@ -401,6 +412,37 @@ public class FileSystemRepository implements ContentRepository {
         containers.putAll(realPathMap);
     }
 
+    private void indexArchive(final String containerName, final Path containerPath) throws IOException {
+        archiveIndex.clear(containerName);
+
+        for (int i = 0; i < SECTIONS_PER_CONTAINER; i++) {
+            final String section = String.valueOf(i);
+            final Path archivePath = containerPath.resolve(section).resolve(ARCHIVE_DIR_NAME);
+            if (!Files.exists(archivePath)) {
+                continue;
+            }
+
+            Files.walkFileTree(archivePath, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    LOG.warn("Content repository contains un-readable file or directory '" + file.getFileName() + "'. Skipping. ", exc);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                    if (!attrs.isDirectory()) {
+                        archiveIndex.add(containerName, section, file.toFile().getName(), attrs.size(), getLastModTime(file.toFile()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        LOG.debug("Indexed {} archived files ({}) for Container {}", archiveIndex.getArchivedFileCount(containerName),
+                FormatUtils.formatDataSize(archiveIndex.getArchivedBytes(containerName)), containerName);
+    }
+
     @Override
     public Set<String> getContainerNames() {
         return new HashSet<>(containerNames);
@@ -548,7 +590,7 @@ public class FileSystemRepository implements ContentRepository {
         return getPath(resourceClaim);
     }
 
-    private Path getPath(final ResourceClaim resourceClaim) {
+    protected Path getPath(final ResourceClaim resourceClaim) {
         final Path containerPath = containers.get(resourceClaim.getContainer());
         if (containerPath == null) {
             return null;
@@ -610,6 +652,42 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    /**
+     * Creates a new Resource Claim in the next Container that is not waiting for archived content to be destroyed. The
+     * identifier of the Resource Claim is unique within this repository, but no file is created for it.
+     *
+     * @param lossTolerant whether or not the Resource Claim is loss tolerant
+     * @param writable whether or not more Content Claims may be written to the Resource Claim
+     * @return the new Resource Claim
+     */
+    protected ResourceClaim newResourceClaim(final boolean lossTolerant, final boolean writable) {
+        final long currentIndex = index.incrementAndGet();
+
+        String containerName = null;
+        boolean waitRequired = true;
+        ContainerState containerState = null;
+        for (long containerIndex = currentIndex; containerIndex < currentIndex + containers.size(); containerIndex++) {
+            final long modulatedContainerIndex = containerIndex % containers.size();
+            containerName = containerNames.get((int) modulatedContainerIndex);
+
+            containerState = containerStateMap.get(containerName);
+            if (!containerState.isWaitRequired()) {
+                waitRequired = false;
+                break;
+            }
+        }
+
+        if (waitRequired) {
+            containerState.waitForArchiveExpiration();
+        }
+
+        final long modulatedSectionIndex = currentIndex % SECTIONS_PER_CONTAINER;
+        final String section = String.valueOf(modulatedSectionIndex).intern();
+        final String claimId = System.currentTimeMillis() + "-" + currentIndex;
+
+        return resourceClaimManager.newResourceClaim(containerName, section, claimId, lossTolerant, writable);
+    }
+
     @Override
     public ContentClaim create(final boolean lossTolerant) throws IOException {
         ResourceClaim resourceClaim;
@@ -617,34 +695,14 @@ public class FileSystemRepository implements ContentRepository {
         final long resourceOffset;
         final ClaimLengthPair pair = writableClaimQueue.poll();
         if (pair == null) {
-            final long currentIndex = index.incrementAndGet();
-
-            String containerName = null;
-            boolean waitRequired = true;
-            ContainerState containerState = null;
-            for (long containerIndex = currentIndex; containerIndex < currentIndex + containers.size(); containerIndex++) {
-                final long modulatedContainerIndex = containerIndex % containers.size();
-                containerName = containerNames.get((int) modulatedContainerIndex);
-
-                containerState = containerStateMap.get(containerName);
-                if (!containerState.isWaitRequired()) {
-                    waitRequired = false;
-                    break;
-                }
-            }
-
-            if (waitRequired) {
-                containerState.waitForArchiveExpiration();
-            }
-
-            final long modulatedSectionIndex = currentIndex % SECTIONS_PER_CONTAINER;
-            final String section = String.valueOf(modulatedSectionIndex).intern();
-            final String claimId = System.currentTimeMillis() + "-" + currentIndex;
-
-            resourceClaim = resourceClaimManager.newResourceClaim(containerName, section, claimId, lossTolerant, true);
+            resourceClaim = newResourceClaim(lossTolerant, true);
             resourceOffset = 0L;
             LOG.debug("Creating new Resource Claim {}", resourceClaim);
 
+            if (adaptiveClaimPacking != null) {
+                adaptiveClaimPacking.onResourceClaimCreated(resourceClaim.getContainer());
+            }
+
             // we always append because there may be another ContentClaim using the same resource claim.
             // However, we know that we will never write to the same claim from two different threads
             // at the same time because we will call create() to get the claim before we write to it,
@@ -695,7 +753,12 @@ public class FileSystemRepository implements ContentRepository {
             return 0;
         }
 
-        return resourceClaimManager.decrementClaimantCount(claim.getResourceClaim());
+        final int claimantCount = resourceClaimManager.decrementClaimantCount(claim.getResourceClaim());
+        if (claimantCount <= 0) {
+            releaseMapping(claim.getResourceClaim());
+        }
+
+        return claimantCount;
     }
 
     @Override
@@ -704,10 +767,10 @@ public class FileSystemRepository implements ContentRepository {
             return false;
         }
 
-        return remove(claim.getResourceClaim());
+        return removeResourceClaim(claim.getResourceClaim());
     }
 
-    private boolean remove(final ResourceClaim claim) {
+    protected boolean removeResourceClaim(final ResourceClaim claim) {
         if (claim == null) {
             return false;
         }
@@ -723,6 +786,8 @@ public class FileSystemRepository implements ContentRepository {
         } catch (final ContentNotFoundException cnfe) {
         }
 
+        releaseMapping(claim);
+
         // Ensure that we have no writable claim streams for this resource claim
         final ByteCountingOutputStream bcos = writableClaimStreams.remove(claim);
 
@@ -922,6 +987,12 @@ public class FileSystemRepository implements ContentRepository {
             return new ByteArrayInputStream(new byte[0]);
         }
 
+        // A claim whose length is not yet known may still be growing, so it is always read from the file.
+        if (memoryMappedReads && claim.getLength() >= 0 && claim.getLength() <= Integer.MAX_VALUE) {
+            final MappedLease lease = leaseMappedBuffer(claim, claim.getLength());
+            return new ByteBufferInputStream(lease.getBuffer(), lease);
+        }
+
         final InputStream fis = getInputStream(claim);
         if (claim.getOffset() > 0L) {
             try {
@@ -960,6 +1031,221 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    /**
+     * Returns a read-only slice of the memory-mapped Resource Claim file that holds the content of the given claim. The mapping is held
+     * until the buffer is passed to {@link #releaseBuffer(ContentClaim, ByteBuffer)}. Only supported when {@link #MEMORY_MAPPED_READS} is enabled.
+     */
+    @Override
+    public ByteBuffer readBuffer(final ContentClaim claim) throws IOException {
+        if (!memoryMappedReads) {
+            throw new UnsupportedOperationException("Cannot read Content Claim as a ByteBuffer unless '" + MEMORY_MAPPED_READS + "' is set to true");
+        }
+
+        if (claim == null) {
+            return ByteBuffer.allocate(0).asReadOnlyBuffer();
+        }
+
+        final long length = size(claim);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Cannot read " + claim + " as a ByteBuffer because its length of " + length + " bytes exceeds the maximum size of a ByteBuffer");
+        }
+
+        final MappedLease lease = leaseMappedBuffer(claim, length);
+        bufferLeases.put(lease.getBuffer(), lease);
+        return lease.getBuffer();
+    }
+
+    @Override
+    public void releaseBuffer(final ContentClaim claim, final ByteBuffer buffer) {
+        final MappedLease lease = bufferLeases.remove(buffer);
+        if (lease != null) {
+            lease.close();
+        }
+    }
+
+    @Override
+    public boolean isBufferReadSupported() {
+        return memoryMappedReads;
+    }
+
+    @Override
+    public FileChannel readChannel(final ContentClaim claim) throws IOException {
+        if (claim == null) {
+            throw new IllegalArgumentException("Content Claim cannot be null");
+        }
+
+        return openChannel(claim);
+    }
+
+    @Override
+    public boolean isChannelReadSupported() {
+        return true;
+    }
+
+    private MappedLease leaseMappedBuffer(final ContentClaim claim, final long length) throws IOException {
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        final long claimEnd = claim.getOffset() + length;
+
+        // A Content Claim that ends beyond the size of a shared mapping is mapped only for its own region, and that mapping is not cached.
+        if (claimEnd > MAX_SHARED_MAPPING_LENGTH) {
+            final MappedResourceClaim region = mapRegion(claim, claim.getOffset(), length);
+            return new MappedLease(region, region.slice(claim.getOffset(), length));
+        }
+
+        MappedResourceClaim mapped = mappedClaims.get(resourceClaim);
+        if (mapped != null && mapped.getEnd() >= claimEnd && mapped.retain()) {
+            mapped.recordAccess();
+            return new MappedLease(mapped, mapped.slice(claim.getOffset(), length));
+        }
+
+        // Either this Resource Claim has not been mapped, it has been appended to since it was mapped, or its mapping has just been
+        // released. In any case, map the file as it currently stands so that subsequent reads of other Content Claims in the same file
+        // are served from it. The new mapping starts out with one reference held by the cache and one held by this reader.
+        mapped = mapResourceClaim(claim, claimEnd);
+        mapped.retain();
+
+        if (mappedClaims.size() >= maxCachedMappings && !mappedClaims.containsKey(resourceClaim)) {
+            evictLeastRecentlyUsedMapping();
+        }
+
+        final MappedResourceClaim previous = mappedClaims.put(resourceClaim, mapped);
+        if (previous != null) {
+            previous.release();
+        }
+
+        // If the claimant count dropped to 0 concurrently, the mapping may have been released before we cached it. Ensure it does not linger.
+        if (resourceClaimManager.getClaimantCount(resourceClaim) <= 0) {
+            releaseMapping(resourceClaim, mapped);
+        }
+
+        return new MappedLease(mapped, mapped.slice(claim.getOffset(), length));
+    }
+
+    private void releaseMapping(final ResourceClaim resourceClaim) {
+        final MappedResourceClaim mapped = mappedClaims.remove(resourceClaim);
+        if (mapped != null) {
+            mapped.release();
+        }
+    }
+
+    private void releaseMapping(final ResourceClaim resourceClaim, final MappedResourceClaim mapped) {
+        if (mappedClaims.remove(resourceClaim, mapped)) {
+            mapped.release();
+        }
+    }
+
+    private void releaseMappings() {
+        for (final ResourceClaim resourceClaim : new ArrayList<>(mappedClaims.keySet())) {
+            releaseMapping(resourceClaim);
+        }
+    }
+
+    /**
+     * Removes the mapping that was read least recently. Finding it requires a pass over the cached mappings, but this happens only when
+     * a Resource Claim that is not cached has to be mapped, which is far more expensive. Threads that map different Resource Claims
+     * concurrently may each evict a mapping, so the cache can briefly exceed its limit by the number of such threads.
+     */
+    private void evictLeastRecentlyUsedMapping() {
+        Map.Entry<ResourceClaim, MappedResourceClaim> leastRecentlyUsed = null;
+        for (final Map.Entry<ResourceClaim, MappedResourceClaim> entry : mappedClaims.entrySet()) {
+            if (leastRecentlyUsed == null || entry.getValue().getLastAccessNanos() - leastRecentlyUsed.getValue().getLastAccessNanos() < 0) {
+                leastRecentlyUsed = entry;
+            }
+        }
+
+        if (leastRecentlyUsed != null) {
+            releaseMapping(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue());
+            LOG.debug("Evicted memory mapping of {} because {} Resource Claims are mapped", leastRecentlyUsed.getKey(), maxCachedMappings);
+        }
+    }
+
+    private MappedResourceClaim mapResourceClaim(final ContentClaim claim, final long minimumLength) throws IOException {
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+
+        try (final FileChannel channel = openChannel(claim)) {
+            final long fileLength = channel.size();
+            if (fileLength < minimumLength) {
+                throw new ContentNotFoundException(claim, "Content Claim has an offset of " + claim.getOffset() + " and a length of " + (minimumLength - claim.getOffset())
+                        + " but Resource Claim " + resourceClaim + " is only " + fileLength + " bytes");
+            }
+
+            final long mappedLength = Math.min(fileLength, MAX_SHARED_MAPPING_LENGTH);
+            return new MappedResourceClaim(channel.map(FileChannel.MapMode.READ_ONLY, 0L, mappedLength), 0L);
+        }
+    }
+
+    private MappedResourceClaim mapRegion(final ContentClaim claim, final long offset, final long length) throws IOException {
+        try (final FileChannel channel = openChannel(claim)) {
+            if (channel.size() < offset + length) {
+                throw new ContentNotFoundException(claim, "Content Claim has an offset of " + offset + " and a length of " + length
+                        + " but Resource Claim " + claim.getResourceClaim() + " is only " + channel.size() + " bytes");
+            }
+
+            return new MappedResourceClaim(channel.map(FileChannel.MapMode.READ_ONLY, offset, length), offset);
+        }
+    }
+
+    private FileChannel openChannel(final ContentClaim claim) throws IOException {
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        final Path containerPath = containers.get(resourceClaim.getContainer());
+        if (containerPath == null) {
+            throw new ContentNotFoundException(claim);
+        }
+
+        final Path resolvedPath = containerPath.resolve(resourceClaim.getSection()).resolve(resourceClaim.getId());
+        try {
+            return FileChannel.open(resolvedPath, StandardOpenOption.READ);
+        } catch (final NoSuchFileException nsfe) {
+            // If this occurs, we will also check the archive directory.
+        }
+
+        try {
+            return FileChannel.open(getArchivePath(resourceClaim), StandardOpenOption.READ);
+        } catch (final NoSuchFileException nsfe) {
+            throw new ContentNotFoundException(claim, nsfe);
+        }
+    }
+
+    /**
+     * Creates a function that unmaps a MappedByteBuffer immediately, using whichever internal API the running JVM provides. If neither is
+     * available, the returned function does nothing and the mapping is released only once the buffer is garbage collected.
+     */
+    private static Consumer<MappedByteBuffer> createUnmapper() {
+        try {
+            // Java 9 and later
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            final Object unsafe = theUnsafe.get(null);
+            return buffer -> unmap(buffer, () -> invokeCleaner.invoke(unsafe, buffer));
+        } catch (final Exception e) {
+            LOG.trace("Cannot unmap buffers using sun.misc.Unsafe", e);
+        }
+
+        try {
+            // Java 8
+            final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> unmap(buffer, () -> clean.invoke(cleaner.invoke(buffer)));
+        } catch (final Exception e) {
+            LOG.debug("Memory-mapped Resource Claims will only be unmapped once they are garbage collected because they cannot be unmapped explicitly", e);
+            return buffer -> { };
+        }
+    }
+
+    private static void unmap(final MappedByteBuffer buffer, final Unmapper unmapper) {
+        try {
+            unmapper.unmap();
+        } catch (final Exception e) {
+            LOG.debug("Failed to unmap {}; it will be unmapped once it is garbage collected", buffer, e);
+        }
+    }
+
+    private interface Unmapper {
+        void unmap() throws Exception;
+    }
+
     private void closeQuietly(final Closeable closeable) {
         if (closeable == null) {
             return;
@@ -1016,9 +1302,12 @@ public class FileSystemRepository implements ContentRepository {
 
     @Override
     public void purge() {
+        releaseMappings();
+
         // delete all content from repositories
-        for (final Path path : containers.values()) {
-            FileUtils.deleteFilesInDir(path.toFile(), null, LOG, true);
+        for (final Map.Entry<String, Path> container : containers.entrySet()) {
+            FileUtils.deleteFilesInDir(container.getValue().toFile(), null, LOG, true);
+            archiveIndex.clear(container.getKey());
         }
 
         for (final Path path : containers.values()) {
@@ -1133,6 +1422,7 @@ public class FileSystemRepository implements ContentRepository {
         // we close the stream if there is one. There may be a stream open if create() is called and then
         // claimant count is removed without writing to the claim (or more specifically, without closing the
         // OutputStream that is returned when calling write() ).
+        releaseMapping(claim);
         final OutputStream out = writableClaimStreams.remove(claim);
 
         if (out != null) {
@@ -1153,6 +1443,21 @@ public class FileSystemRepository implements ContentRepository {
         return archived;
     }
 
+    // visible for testing
+    int getMappedClaimCount() {
+        return mappedClaims.size();
+    }
+
+    // visible for testing
+    int getLeasedBufferCount() {
+        return bufferLeases.size();
+    }
+
+    // visible for testing
+    void setMaxCachedMappings(final int maxCachedMappings) {
+        this.maxCachedMappings = maxCachedMappings;
+    }
+
     protected int getOpenStreamCount() {
         return writableClaimStreams.size();
     }
@@ -1177,6 +1482,45 @@ public class FileSystemRepository implements ContentRepository {
         return maxAppendableClaimLength;
     }
 
+    private long getAppendableClaimLength(final ResourceClaim resourceClaim) {
+        return adaptiveClaimPacking == null ? maxAppendableClaimLength : adaptiveClaimPacking.getAppendableClaimLength(resourceClaim.getContainer());
+    }
+
+    private boolean isWritableClaimLimitReached() {
+        return adaptiveClaimPacking != null && writableClaimQueue.size() >= adaptiveClaimPacking.getWritableClaimLimit();
+    }
+
+    /**
+     * @return statistics about how Content Claims are being packed into Resource Claims for each container, or an empty map if
+     * adaptive claim packing is not enabled
+     */
+    public Map<String, ClaimPackingStatistics> getClaimPackingStatistics() {
+        if (adaptiveClaimPacking == null) {
+            return Collections.emptyMap();
+        }
+
+        final Map<String, ClaimPackingStatistics> statistics = new HashMap<>();
+        for (final String containerName : containerNames) {
+            statistics.put(containerName, adaptiveClaimPacking.getStatistics(containerName));
+        }
+        return statistics;
+    }
+
+    /**
+     * @return the number of archived files that are indexed for the given container. If the container holds more archived files than can be
+     * indexed, only the oldest of them are counted
+     */
+    public long getArchivedFileCount(final String containerName) {
+        return archiveIndex == null ? 0L : archiveIndex.getArchivedFileCount(containerName);
+    }
+
+    /**
+     * @return the number of bytes occupied by the archived files that are indexed for the given container
+     */
+    public long getArchivedBytes(final String containerName) {
+        return archiveIndex == null ? 0L : archiveIndex.getArchivedBytes(containerName);
+    }
+
     protected boolean isAlwaysSync() {
         return alwaysSync;
     }
@@ -1197,7 +1541,6 @@ public class FileSystemRepository implements ContentRepository {
 
         try {
             Files.move(curPath, archivePath);
-            return true;
         } catch (final NoSuchFileException nsfee) {
             // If the current path exists, try to create archive path and do the move again.
             // Otherwise, either the content was removed or has already been archived. Either way,
@@ -1210,11 +1553,35 @@ public class FileSystemRepository implements ContentRepository {
                 // for the existence of the directory continually.
                 Files.createDirectories(archivePath.getParent());
                 Files.move(curPath, archivePath);
-                return true;
+            } else {
+                return false;
             }
+        }
 
-            return false;
+        addToArchiveIndex(archivePath);
+        return true;
+    }
+
+    /**
+     * Adds a file that has just been moved into an archive directory to the Archive Index, so that it is expired along with the
+     * other archived files of its container
+     */
+    private void addToArchiveIndex(final Path archivePath) {
+        if (archiveIndex == null) {
+            return;
         }
+
+        final Path sectionPath = archivePath.getParent().getParent();
+        final Path containerPath = sectionPath.getParent();
+        for (final Map.Entry<String, Path> entry : containers.entrySet()) {
+            if (entry.getValue().equals(containerPath)) {
+                final File file = archivePath.toFile();
+                archiveIndex.add(entry.getKey(), sectionPath.toFile().getName(), file.getName(), file.length(), getLastModTime(file));
+                return;
+            }
+        }
+
+        LOG.warn("Archived {} but could not determine its Container, so it will not be expired until the Content Repository is restarted", archivePath);
     }
 
     private long getLastModTime(final File file) {
@@ -1234,43 +1601,21 @@ public class FileSystemRepository implements ContentRepository {
         return file.lastModified();
     }
 
-    private long getLastModTime(final Path file) throws IOException {
-        return getLastModTime(file.toFile());
-    }
-
-    private boolean deleteBasedOnTimestamp(final BlockingQueue<ArchiveInfo> fileQueue, final long removalTimeThreshold) throws IOException {
-        // check next file's last mod time.
-        final ArchiveInfo nextFile = fileQueue.peek();
-        if (nextFile == null) {
-            // Continue on to queue up the files, in case the next file must be destroyed based on time.
-            return false;
-        }
-
-        // If the last mod time indicates that it should be removed, just continue loop.
-        final long oldestArchiveDate = getLastModTime(nextFile.toPath());
-        return (oldestArchiveDate <= removalTimeThreshold);
-    }
-
-    private long destroyExpiredArchives(final String containerName, final Path container) throws IOException {
+    private void destroyExpiredArchives(final String containerName, final Path container) throws IOException {
         archiveExpirationLog.debug("Destroying Expired Archives for Container {}", containerName);
-        final List<ArchiveInfo> notYetExceedingThreshold = new ArrayList<>();
-        long removalTimeThreshold = System.currentTimeMillis() - maxArchiveMillis;
-        long oldestArchiveDateFound = System.currentTimeMillis();
 
         // determine how much space we must have in order to stop deleting old data
         final Long minRequiredSpace = minUsableContainerBytesForArchive.get(containerName);
         if (minRequiredSpace == null) {
             archiveExpirationLog.debug("Could not determine minimum required space so will not destroy any archived data");
-            return -1L;
+            return;
         }
 
         final long usableSpace = getContainerUsableSpace(containerName);
         final ContainerState containerState = containerStateMap.get(containerName);
 
-        // First, delete files from our queue
         final long startNanos = System.nanoTime();
         final long toFree = minRequiredSpace - usableSpace;
-        final BlockingQueue<ArchiveInfo> fileQueue = archivedFiles.get(containerName);
         if (archiveExpirationLog.isDebugEnabled()) {
             if (toFree < 0) {
                 archiveExpirationLog.debug("Currently {} bytes free for Container {}; requirement is {} byte free, so no need to free space until an additional {} bytes are used",
@@ -1281,242 +1626,139 @@ public class FileSystemRepository implements ContentRepository {
             }
         }
 
-        ArchiveInfo toDelete;
+        final ArchiveDeletionBudget deletionBudget = new ArchiveDeletionBudget(maxArchiveDeletionsPerSecond);
+        boolean indexRebuilt = false;
         int deleteCount = 0;
         long freed = 0L;
-        while ((toDelete = fileQueue.peek()) != null) {
-            try {
-                final long fileSize = toDelete.getSize();
-
-                removalTimeThreshold = System.currentTimeMillis() - maxArchiveMillis;
-
-                // we use fileQueue.peek above instead of fileQueue.poll() because we don't always want to
-                // remove the head of the queue. Instead, we want to remove it only if we plan to delete it.
-                // In order to accomplish this, we just peek at the head and check if it should be deleted.
-                // If so, then we call poll() to remove it
-                if (freed < toFree || getLastModTime(toDelete.toPath()) < removalTimeThreshold) {
-                    toDelete = fileQueue.poll(); // remove the head of the queue, which is already stored in 'toDelete'
-                    Files.deleteIfExists(toDelete.toPath());
-                    containerState.decrementArchiveCount();
-                    LOG.debug("Deleted archived ContentClaim with ID {} from Container {} because the archival size was exceeding the max configured size", toDelete.getName(), containerName);
-                    freed += fileSize;
-                    deleteCount++;
+        while (true) {
+            final ArchiveIndex.ArchivedFile toDelete = archiveIndex.getOldest(containerName);
+            if (toDelete == null) {
+                // If the container holds more archived files than could be indexed, index the remaining ones now that
+                // the indexed files have been destroyed. This is the only time that the archive directories are walked.
+                if (indexRebuilt || !archiveIndex.isRebuildRequired(containerName)) {
+                    break;
                 }
 
-                // If we'd freed up enough space, we're done... unless the next file needs to be destroyed based on time.
-                if (freed >= toFree) {
-                    // If the last mod time indicates that it should be removed, just continue loop.
-                    if (deleteBasedOnTimestamp(fileQueue, removalTimeThreshold)) {
-                        archiveExpirationLog.debug("Freed enough space ({} bytes freed, needed to free {} bytes) but will continue to expire data based on timestamp", freed, toFree);
-                        continue;
-                    }
-
-                    archiveExpirationLog.debug("Freed enough space ({} bytes freed, needed to free {} bytes). Finished expiring data", freed, toFree);
-
-                    final ArchiveInfo archiveInfo = fileQueue.peek();
-                    final long oldestArchiveDate = archiveInfo == null ? System.currentTimeMillis() : getLastModTime(archiveInfo.toPath());
+                archiveExpirationLog.debug("Archive index for Container {} is incomplete; indexing archived data", containerName);
+                indexArchive(containerName, container);
+                indexRebuilt = true;
+                continue;
+            }
 
-                    // Otherwise, we're done. Return the last mod time of the oldest file in the container's archive.
-                    final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
-                    if (deleteCount > 0) {
-                        LOG.info("Deleted {} files from archive for Container {}; oldest Archive Date is now {}; container cleanup took {} millis",
-                                deleteCount, containerName, new Date(oldestArchiveDate), millis);
-                    } else {
-                        LOG.debug("Deleted {} files from archive for Container {}; oldest Archive Date is now {}; container cleanup took {} millis",
-                                deleteCount, containerName, new Date(oldestArchiveDate), millis);
-                    }
+            final boolean expired = toDelete.getTimestamp() < System.currentTimeMillis() - maxArchiveMillis;
+            if (freed >= toFree && !expired) {
+                archiveExpirationLog.debug("Freed enough space ({} bytes freed, needed to free {} bytes). Finished expiring data", freed, toFree);
+                break;
+            }
 
-                    return oldestArchiveDate;
-                }
-            } catch (final IOException ioe) {
-                LOG.warn("Failed to delete {} from archive due to {}", toDelete, ioe.toString());
-                if (LOG.isDebugEnabled()) {
-                    LOG.warn("", ioe);
-                }
+            // Writers that are waiting for space take priority over the deletion budget.
+            if (!containerState.isCreationBlocked()) {
+                deletionBudget.acquire();
             }
-        }
 
-        // Go through each container and grab the archived data into a List
-        archiveExpirationLog.debug("Searching for more archived data to expire");
-        final StopWatch stopWatch = new StopWatch(true);
-        for (int i = 0; i < SECTIONS_PER_CONTAINER; i++) {
-            final Path sectionContainer = container.resolve(String.valueOf(i));
-            final Path archive = sectionContainer.resolve("archive");
-            if (!Files.exists(archive)) {
+            if (!archiveIndex.remove(containerName, toDelete)) {
                 continue;
             }
 
+            final Path path = container.resolve(String.valueOf(toDelete.getSection())).resolve(ARCHIVE_DIR_NAME).resolve(toDelete.getClaimId());
             try {
-                final long timestampThreshold = removalTimeThreshold;
-                Files.walkFileTree(archive, new SimpleFileVisitor<Path>() {
-                    @Override
-                    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-                        if (attrs.isDirectory()) {
-                            return FileVisitResult.CONTINUE;
-                        }
-
-                        final long lastModTime = getLastModTime(file);
-                        if (lastModTime < timestampThreshold) {
-                            try {
-                                Files.deleteIfExists(file);
-                                containerState.decrementArchiveCount();
-                                LOG.debug("Deleted archived ContentClaim with ID {} from Container {} because it was older than the configured max archival duration",
-                                        file.toFile().getName(), containerName);
-                            } catch (final IOException ioe) {
-                                LOG.warn("Failed to remove archived ContentClaim with ID {} from Container {} due to {}", file.toFile().getName(), containerName, ioe.toString());
-                                if (LOG.isDebugEnabled()) {
-                                    LOG.warn("", ioe);
-                                }
-                            }
-                        } else if (usableSpace < minRequiredSpace) {
-                            notYetExceedingThreshold.add(new ArchiveInfo(container, file, attrs.size(), lastModTime));
-                        }
-
-                        return FileVisitResult.CONTINUE;
-                    }
-                });
+                Files.deleteIfExists(path);
+                freed += toDelete.getSize();
+                deleteCount++;
+                LOG.debug("Deleted archived ContentClaim with ID {} from Container {} because {}", toDelete.getClaimId(), containerName,
+                        expired ? "it was older than the configured max archival duration" : "the archival size was exceeding the max configured size");
             } catch (final IOException ioe) {
-                LOG.warn("Failed to cleanup archived files in {} due to {}", archive, ioe.toString());
+                // The file is no longer indexed, so make sure that it is found again the next time the index is rebuilt.
+                archiveIndex.markIncomplete(containerName);
+                LOG.warn("Failed to delete {} from archive due to {}", path, ioe.toString());
                 if (LOG.isDebugEnabled()) {
                     LOG.warn("", ioe);
                 }
             }
-        }
-        final long deleteExpiredMillis = stopWatch.getElapsed(TimeUnit.MILLISECONDS);
 
-        // Sort the list according to last modified time
-        Collections.sort(notYetExceedingThreshold, new Comparator<ArchiveInfo>() {
-            @Override
-            public int compare(final ArchiveInfo o1, final ArchiveInfo o2) {
-                return Long.compare(o1.getLastModTime(), o2.getLastModTime());
+            // Let any blocked writers proceed as soon as enough space has been freed, rather than once the archive has been cleaned up.
+            if (freed >= toFree && containerState.isCreationBlocked()) {
+                containerState.signalCreationReady();
             }
-        });
 
-        final long sortRemainingMillis = stopWatch.getElapsed(TimeUnit.MILLISECONDS) - deleteExpiredMillis;
-
-        // Delete the oldest data
-        archiveExpirationLog.debug("Deleting data based on timestamp");
-        int archiveFilesDeleted = 0;
-        long archiveBytesDeleted = 0L;
-        for (final ArchiveInfo archiveInfo : notYetExceedingThreshold) {
-            try {
-                final Path path = archiveInfo.toPath();
-                Files.deleteIfExists(path);
-                containerState.decrementArchiveCount();
-                archiveBytesDeleted += archiveInfo.getSize();
-                LOG.debug("Deleted archived ContentClaim with ID {} from Container {} because the archival size was exceeding the max configured size", archiveInfo.getName(), containerName);
-
-                // Check if we've freed enough space every 25 files that we destroy
-                if (++archiveFilesDeleted % 25 == 0) {
-                    if (getContainerUsableSpace(containerName) > minRequiredSpace) { // check if we can stop now
-                        LOG.debug("Finished cleaning up archive for Container {}", containerName);
-                        break;
-                    }
-                }
-
-                // If deleting a huge number of files, it can take a while. This may occur when users have a very large number of tiny
-                // FlowFiles and also have the nifi.content.claim.max.appendable.size property set to a low value. In such a case, this
-                // process may block processors from performing their job. As a result, we want to periodically log something to let
-                // users know what is going on, so that the system doesn't appear to just completely freeze up periodically.
-                if (archiveFilesDeleted % 25_000 == 0 && archiveFilesDeleted > 0) {
-                    LOG.info("So far in this iteration, successfully deleted {} files ({}) from archive because the Content Repository size was exceeding the max configured size. Will continue " +
-                                    "deleting files from the archive until the usage drops below the threshold or until all {} archived files have been removed",
-                            archiveFilesDeleted, FormatUtils.formatDataSize(archiveBytesDeleted), notYetExceedingThreshold.size());
-                }
-            } catch (final IOException ioe) {
-                LOG.warn("Failed to delete {} from archive due to {}", archiveInfo, ioe.toString());
-                if (LOG.isDebugEnabled()) {
-                    LOG.warn("", ioe);
-                }
+            // If deleting a huge number of files, it can take a while. This may occur when users have a very large number of tiny
+            // FlowFiles and also have the nifi.content.claim.max.appendable.size property set to a low value. In such a case, this
+            // process may block processors from performing their job. As a result, we want to periodically log something to let
+            // users know what is going on, so that the system doesn't appear to just completely freeze up periodically.
+            if (deleteCount % 25_000 == 0 && deleteCount > 0) {
+                LOG.info("So far in this iteration, successfully deleted {} files ({}) from archive for Container {}. Will continue deleting files from the archive until the usage drops " +
+                        "below the threshold and all expired files have been removed", deleteCount, FormatUtils.formatDataSize(freed), containerName);
             }
         }
 
-        // Remove the first 'counter' elements from the list because those were removed.
-        notYetExceedingThreshold.subList(0, archiveFilesDeleted).clear();
-        LOG.info("Successfully deleted {} files ({}) from archive", archiveFilesDeleted, FormatUtils.formatDataSize(archiveBytesDeleted));
-
-        final long deleteOldestMillis = stopWatch.getElapsed(TimeUnit.MILLISECONDS) - sortRemainingMillis - deleteExpiredMillis;
-
-        long oldestContainerArchive;
-        if (notYetExceedingThreshold.isEmpty()) {
-            oldestContainerArchive = System.currentTimeMillis();
+        final ArchiveIndex.ArchivedFile oldest = archiveIndex.getOldest(containerName);
+        final long oldestArchiveDate = oldest == null ? System.currentTimeMillis() : oldest.getTimestamp();
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (deleteCount > 0) {
+            LOG.info("Deleted {} files ({}) from archive for Container {}; oldest Archive Date is now {}; container cleanup took {} millis",
+                    deleteCount, FormatUtils.formatDataSize(freed), containerName, new Date(oldestArchiveDate), millis);
         } else {
-            oldestContainerArchive = notYetExceedingThreshold.get(0).getLastModTime();
-        }
-
-        if (oldestContainerArchive < oldestArchiveDateFound) {
-            oldestArchiveDateFound = oldestContainerArchive;
-        }
-
-        // Queue up the files in the order that they should be destroyed so that we don't have to scan the directories for a while.
-        for (final ArchiveInfo toEnqueue : notYetExceedingThreshold.subList(0, Math.min(100000, notYetExceedingThreshold.size()))) {
-            fileQueue.offer(toEnqueue);
+            LOG.debug("Deleted {} files from archive for Container {}; oldest Archive Date is now {}; container cleanup took {} millis",
+                    deleteCount, containerName, new Date(oldestArchiveDate), millis);
         }
-
-        final long cleanupMillis = stopWatch.getElapsed(TimeUnit.MILLISECONDS) - deleteOldestMillis - sortRemainingMillis - deleteExpiredMillis;
-        LOG.debug("Oldest Archive Date for Container {} is {}; delete expired = {} ms, sort remaining = {} ms, delete oldest = {} ms, cleanup = {} ms",
-                containerName, new Date(oldestContainerArchive), deleteExpiredMillis, sortRemainingMillis, deleteOldestMillis, cleanupMillis);
-        return oldestContainerArchive;
     }
 
     private class ArchiveOrDestroyDestructableClaims implements Runnable {
 
+        private final String containerName;
+
+        private ArchiveOrDestroyDestructableClaims(final String containerName) {
+            this.containerName = containerName;
+        }
+
         @Override
         public void run() {
             try {
+                final BlockingQueue<ResourceClaim> claimQueue = reclaimable.get(containerName);
+                final List<ResourceClaim> toRemove = new ArrayList<>();
+
                 // while there are claims waiting to be destroyed...
                 while (true) {
-                    // look through each of the binned queues of Content Claims
-                    int successCount = 0;
-                    final List<ResourceClaim> toRemove = new ArrayList<>();
-                    for (final Map.Entry<String, BlockingQueue<ResourceClaim>> entry : reclaimable.entrySet()) {
-                        // drain the queue of all ContentClaims that can be destroyed for the given container.
-                        final String container = entry.getKey();
-                        final ContainerState containerState = containerStateMap.get(container);
-
-                        toRemove.clear();
-                        entry.getValue().drainTo(toRemove);
-                        if (toRemove.isEmpty()) {
-                            continue;
-                        }
+                    // drain the queue of all ContentClaims that can be destroyed for this container.
+                    toRemove.clear();
+                    claimQueue.drainTo(toRemove);
+                    if (toRemove.isEmpty()) {
+                        return;
+                    }
 
-                        // destroy each claim for this container
-                        final long start = System.nanoTime();
-                        for (final ResourceClaim claim : toRemove) {
-                            if (archiveData) {
-                                try {
-                                    if (archive(claim)) {
-                                        containerState.incrementArchiveCount();
-                                        successCount++;
-                                    }
-                                } catch (final Exception e) {
-                                    LOG.warn("Failed to archive {} due to {}", claim, e.toString());
-                                    if (LOG.isDebugEnabled()) {
-                                        LOG.warn("", e);
-                                    }
+                    // destroy each claim for this container
+                    int successCount = 0;
+                    final long start = System.nanoTime();
+                    for (final ResourceClaim claim : toRemove) {
+                        if (archiveData) {
+                            try {
+                                if (archive(claim)) {
+                                    successCount++;
+                                }
+                            } catch (final Exception e) {
+                                LOG.warn("Failed to archive {} due to {}", claim, e.toString());
+                                if (LOG.isDebugEnabled()) {
+                                    LOG.warn("", e);
                                 }
-                            } else if (remove(claim)) {
-                                successCount++;
                             }
-                        }
-
-                        final long nanos = System.nanoTime() - start;
-                        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
-
-                        if (successCount == 0) {
-                            LOG.debug("No ContentClaims archived/removed for Container {}", container);
-                        } else {
-                            LOG.info("Successfully {} {} Resource Claims for Container {} in {} millis", archiveData ? "archived" : "destroyed", successCount, container, millis);
+                        } else if (removeResourceClaim(claim)) {
+                            successCount++;
                         }
                     }
 
+                    final long nanos = System.nanoTime() - start;
+                    final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+
                     // if we didn't destroy anything, we're done.
                     if (successCount == 0) {
+                        LOG.debug("No ContentClaims archived/removed for Container {}", containerName);
                         return;
                     }
+
+                    LOG.info("Successfully {} {} Resource Claims for Container {} in {} millis", archiveData ? "archived" : "destroyed", successCount, containerName, millis);
                 }
             } catch (final Throwable t) {
-                LOG.error("Failed to handle destructable claims due to {}", t.toString());
+                LOG.error("Failed to handle destructable claims for Container {} due to {}", containerName, t.toString());
                 if (LOG.isDebugEnabled()) {
                     LOG.error("", t);
                 }
@@ -1524,36 +1766,44 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
-    private static class ArchiveInfo {
+    /**
+     * Limits the number of archived files that are deleted per second, so that expiring archived data does not
+     * monopolize the disk while FlowFile content is being written to it.
+     */
+    private static class ArchiveDeletionBudget {
+        private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1L);
 
-        private final Path containerPath;
-        private final String relativePath;
-        private final String name;
-        private final long size;
-        private final long lastModTime;
+        private final int maxDeletionsPerSecond;
+        private long windowStart = System.nanoTime();
+        private int deletions = 0;
 
-        public ArchiveInfo(final Path containerPath, final Path path, final long size, final long lastModTime) {
-            this.containerPath = containerPath;
-            this.relativePath = containerPath.relativize(path).toString();
-            this.name = path.toFile().getName();
-            this.size = size;
-            this.lastModTime = lastModTime;
+        private ArchiveDeletionBudget(final int maxDeletionsPerSecond) {
+            this.maxDeletionsPerSecond = maxDeletionsPerSecond;
         }
 
-        public String getName() {
-            return name;
-        }
+        void acquire() {
+            if (maxDeletionsPerSecond <= 0) {
+                return;
+            }
 
-        public long getSize() {
-            return size;
-        }
+            final long now = System.nanoTime();
+            if (now - windowStart >= ONE_SECOND_NANOS) {
+                windowStart = now;
+                deletions = 0;
+            }
 
-        public long getLastModTime() {
-            return lastModTime;
-        }
+            if (deletions >= maxDeletionsPerSecond) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(windowStart + ONE_SECOND_NANOS - now);
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
 
-        public Path toPath() {
-            return containerPath.resolve(relativePath);
+                windowStart = System.nanoTime();
+                deletions = 0;
+            }
+
+            deletions++;
         }
     }
 
@@ -1570,7 +1820,11 @@ public class FileSystemRepository implements ContentRepository {
         @Override
         public void run() {
             try {
-                if (oldestArchiveDate.get() > System.currentTimeMillis() - maxArchiveMillis) {
+                final ArchiveIndex.ArchivedFile oldest = archiveIndex.getOldest(containerName);
+                final boolean expiredArchives = (oldest != null && oldest.getTimestamp() < System.currentTimeMillis() - maxArchiveMillis)
+                        || archiveIndex.isRebuildRequired(containerName);
+
+                if (!expiredArchives) {
                     final Long minRequiredSpace = minUsableContainerBytesForArchive.get(containerName);
                     if (minRequiredSpace == null) {
                         return;
@@ -1587,10 +1841,9 @@ public class FileSystemRepository implements ContentRepository {
                 }
 
                 Thread.currentThread().setName("Cleanup Archive for " + containerName);
-                final long oldestContainerArchive;
 
                 try {
-                    oldestContainerArchive = destroyExpiredArchives(containerName, containerPath);
+                    destroyExpiredArchives(containerName, containerPath);
 
                     final ContainerState containerState = containerStateMap.get(containerName);
                     containerState.signalCreationReady(); // indicate that we've finished cleaning up the archive.
@@ -1599,23 +1852,6 @@ public class FileSystemRepository implements ContentRepository {
                     if (LOG.isDebugEnabled()) {
                         LOG.error("", ioe);
                     }
-                    return;
-                }
-
-                if (oldestContainerArchive < 0L) {
-                    boolean updated;
-                    do {
-                        final long oldest = oldestArchiveDate.get();
-                        if (oldestContainerArchive < oldest) {
-                            updated = oldestArchiveDate.compareAndSet(oldest, oldestContainerArchive);
-
-                            if (updated && LOG.isDebugEnabled()) {
-                                LOG.debug("Oldest Archive Date is now {}", new Date(oldestContainerArchive));
-                            }
-                        } else {
-                            updated = true;
-                        }
-                    } while (!updated);
                 }
             } catch (final Throwable t) {
                 LOG.error("Failed to cleanup archive for container {} due to {}", containerName, t.toString());
@@ -1627,12 +1863,12 @@ public class FileSystemRepository implements ContentRepository {
     private class ContainerState {
 
         private final String containerName;
-        private final AtomicLong archivedFileCount = new AtomicLong(0L);
         private final long backPressureBytes;
         private final long capacity;
         private final boolean archiveEnabled;
         private final Lock lock = new ReentrantLock();
         private final Condition condition = lock.newCondition();
+        private final AtomicInteger blockedWriters = new AtomicInteger(0);
 
         private volatile long bytesUsed = 0L;
         private volatile long checkUsedCutoffTimestamp = 0L;
@@ -1654,8 +1890,8 @@ public class FileSystemRepository implements ContentRepository {
                 return false;
             }
 
-            if (archivedFileCount.get() == 0) {
-                LOG.debug("Waiting to write to container {} is not required because archivedFileCount is 0", containerName);
+            if (!archiveIndex.hasArchivedFiles(containerName)) {
+                LOG.debug("Waiting to write to container {} is not required because there are no archived files", containerName);
                 return false;
             }
 
@@ -1694,6 +1930,7 @@ public class FileSystemRepository implements ContentRepository {
             }
 
             lock.lock();
+            blockedWriters.incrementAndGet();
             try {
                 while (isWaitRequired()) {
                     try {
@@ -1706,6 +1943,7 @@ public class FileSystemRepository implements ContentRepository {
                     }
                 }
             } finally {
+                blockedWriters.decrementAndGet();
                 lock.unlock();
             }
         }
@@ -1734,12 +1972,96 @@ public class FileSystemRepository implements ContentRepository {
             }
         }
 
-        public void incrementArchiveCount() {
-            archivedFileCount.incrementAndGet();
+        /**
+         * @return {@code true} if any thread is waiting for archived data to be destroyed before it can create claims against this Container
+         */
+        public boolean isCreationBlocked() {
+            return blockedWriters.get() > 0;
+        }
+    }
+
+    /**
+     * A memory-mapped region of a Resource Claim file. The region is reference counted: the cache holds one reference while the mapping is
+     * cached, and each reader holds one until it is done with its slice. Once the last reference is released, the region is unmapped rather
+     * than left for the garbage collector, because the file cannot be moved or deleted on some operating systems while it is mapped.
+     */
+    private static class MappedResourceClaim {
+        private final MappedByteBuffer mapping;
+        private final ByteBuffer buffer;
+        private final long offset;
+        private final AtomicInteger references = new AtomicInteger(1);
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        MappedResourceClaim(final MappedByteBuffer mapping, final long offset) {
+            this.mapping = mapping;
+            this.buffer = mapping.asReadOnlyBuffer();
+            this.offset = offset;
+        }
+
+        /**
+         * @return <code>true</code> if a reference was obtained, <code>false</code> if the region has already been unmapped
+         */
+        boolean retain() {
+            while (true) {
+                final int current = references.get();
+                if (current <= 0) {
+                    return false;
+                }
+
+                if (references.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                UNMAPPER.accept(mapping);
+            }
+        }
+
+        void recordAccess() {
+            lastAccessNanos = System.nanoTime();
+        }
+
+        long getLastAccessNanos() {
+            return lastAccessNanos;
+        }
+
+        ByteBuffer slice(final long claimOffset, final long length) {
+            final ByteBuffer slice = buffer.duplicate();
+            slice.position((int) (claimOffset - offset));
+            slice.limit((int) (claimOffset - offset + length));
+            return slice.slice();
+        }
+
+        long getEnd() {
+            return offset + buffer.capacity();
+        }
+    }
+
+    /**
+     * A reader's reference to a {@link MappedResourceClaim}, which is released when the lease is closed. Closing it more than once has no effect.
+     */
+    private static class MappedLease implements Closeable {
+        private final MappedResourceClaim mapped;
+        private final ByteBuffer buffer;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        MappedLease(final MappedResourceClaim mapped, final ByteBuffer buffer) {
+            this.mapped = mapped;
+            this.buffer = buffer;
+        }
+
+        ByteBuffer getBuffer() {
+            return buffer;
         }
 
-        public void decrementArchiveCount() {
-            archivedFileCount.decrementAndGet();
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                mapped.release();
+            }
         }
     }
 
@@ -1913,6 +2235,10 @@ public class FileSystemRepository implements ContentRepository {
             bytesWritten = 0L;
             recycle = true;
             closed = false;
+
+            if (adaptiveClaimPacking != null) {
+                adaptiveClaimPacking.onWriteStarted(scc.getResourceClaim().getContainer());
+            }
         }
 
         @Override
@@ -1983,8 +2309,13 @@ public class FileSystemRepository implements ContentRepository {
 
         @Override
         public synchronized void close() throws IOException {
+            final boolean alreadyClosed = closed;
             closed = true;
 
+            if (adaptiveClaimPacking != null && !alreadyClosed) {
+                adaptiveClaimPacking.onWriteCompleted(scc.getResourceClaim().getContainer(), bytesWritten);
+            }
+
             if (alwaysSync) {
                 ((FileOutputStream) bcos.getWrappedStream()).getFD().sync();
             }
@@ -1997,9 +2328,10 @@ public class FileSystemRepository implements ContentRepository {
             // if we've not yet hit the threshold for appending to a resource claim, add the claim
             // to the writableClaimQueue so that the Resource Claim can be used again when create()
             // is called. In this case, we don't have to actually close the file stream. Instead, we
-            // can just add it onto the queue and continue to use it for the next content claim.
+            // can just add it onto the queue and continue to use it for the next content claim. With adaptive
+            // claim packing, we also stop keeping the claim open if enough other claims are already open for writing.
             final long resourceClaimLength = scc.getOffset() + scc.getLength();
-            if (recycle && resourceClaimLength < maxAppendableClaimLength) {
+            if (recycle && resourceClaimLength < getAppendableClaimLength(scc.getResourceClaim()) && !isWritableClaimLimitReached()) {
                 final ClaimLengthPair pair = new ClaimLengthPair(scc.getResourceClaim(), resourceClaimLength);
 
                 // We are checking that writableClaimStreams contains the resource claim as a key, as a sanity check.
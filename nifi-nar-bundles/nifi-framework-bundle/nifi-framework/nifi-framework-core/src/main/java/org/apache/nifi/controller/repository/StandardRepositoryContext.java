@@ -34,6 +34,6 @@ public class StandardRepositoryContext extends AbstractRepositoryContext impleme
 
     @Override
     public ContentClaimWriteCache createContentClaimWriteCache() {
-        return new StandardContentClaimWriteCache(getContentRepository());
+        return new StandardContentClaimWriteCache(getContentRepository(), getConnectable().isLossTolerant());
     }
 }
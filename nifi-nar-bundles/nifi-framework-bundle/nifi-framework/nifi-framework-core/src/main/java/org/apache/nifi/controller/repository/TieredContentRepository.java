@@ -0,0 +1,875 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * A {@link FileSystemRepository} that holds newly written, loss-tolerant Content Claims in a bounded pool of off-heap memory,
+ * referred to as the hot tier, and writes them to disk only if they are still needed once one of the following occurs:
+ * </p>
+ *
+ * <ul>
+ * <li>The content grows larger than the maximum claim size of the hot tier, or the hot tier has no free memory. The
+ * claim is then written to disk by the thread that is writing to it.</li>
+ * <li>The hot tier is more than 90% full. The oldest claims are then written to disk in the background.</li>
+ * <li>The claim is older than the maximum age of the hot tier, which defaults to the FlowFile Repository checkpoint
+ * interval.</li>
+ * <li>The repository is shut down.</li>
+ * </ul>
+ *
+ * <p>
+ * Only Content Claims that are created as loss tolerant are held in the hot tier. A Process Session creates its Content Claims
+ * as loss tolerant only if its component is configured to be loss tolerant, which components are not by default, so the hot
+ * tier holds only content that is written by loss-tolerant components. All other claims are created by the
+ * {@link FileSystemRepository}, so that content referenced by a committed FlowFile is written to disk before the session
+ * is committed, exactly as it would be without the hot tier.
+ * </p>
+ *
+ * <p>
+ * Content Claims in the hot tier are packed into Resource Claims in the same way as they are by the {@link FileSystemRepository}:
+ * a Resource Claim is handed to one writer at a time and is used for further Content Claims until it reaches the maximum
+ * appendable size. Each Resource Claim is written as a whole to the file that its identifier refers to, so the FlowFile
+ * Repository never needs to be updated when content moves between tiers, and a Resource Claim whose content is destroyed
+ * while it is in the hot tier, as is typical of intermediate content in split, transform and merge flows, is never written
+ * to disk or archived. If NiFi is terminated abruptly, content that was still only in the hot tier is lost, and FlowFiles
+ * that reference it are handled as any FlowFile whose content is missing.
+ * </p>
+ */
+public class TieredContentRepository extends FileSystemRepository {
+    public static final String HOT_TIER_MAX_SIZE = "nifi.content.repository.hot.tier.max.size";
+    public static final String HOT_TIER_MAX_CLAIM_SIZE = "nifi.content.repository.hot.tier.max.claim.size";
+    public static final String HOT_TIER_BLOCK_SIZE = "nifi.content.repository.hot.tier.block.size";
+    public static final String HOT_TIER_MAX_AGE = "nifi.content.repository.hot.tier.max.age";
+
+    public static final String DEFAULT_HOT_TIER_MAX_SIZE = "100 MB";
+    public static final String DEFAULT_HOT_TIER_MAX_CLAIM_SIZE = "256 KB";
+    public static final String DEFAULT_HOT_TIER_BLOCK_SIZE = "4 KB";
+
+    private static final double SPILL_THRESHOLD = 0.9D;
+    private static final long SPILL_INTERVAL_MILLIS = 100L;
+    private static final Logger LOG = LoggerFactory.getLogger(TieredContentRepository.class);
+
+    private final ConcurrentMap<ResourceClaim, HotClaim> hotClaims = new ConcurrentHashMap<>();
+    private final Queue<HotClaim> hotClaimsByAge = new ConcurrentLinkedQueue<>();
+    private final Queue<HotClaim> writableHotClaims = new ConcurrentLinkedQueue<>();
+    private final BlockPool blockPool;
+    private final long maxClaimLength;
+    private final long maxAgeMillis;
+    private final ScheduledExecutorService spillExecutor;
+
+    /**
+     * Default no args constructor for service loading only
+     */
+    public TieredContentRepository() {
+        super();
+        blockPool = null;
+        maxClaimLength = 0L;
+        maxAgeMillis = 0L;
+        spillExecutor = null;
+    }
+
+    public TieredContentRepository(final NiFiProperties nifiProperties) throws IOException {
+        super(nifiProperties);
+
+        final long maxSize = DataUnit.parseDataSize(nifiProperties.getProperty(HOT_TIER_MAX_SIZE, DEFAULT_HOT_TIER_MAX_SIZE), DataUnit.B).longValue();
+        final int blockSize = DataUnit.parseDataSize(nifiProperties.getProperty(HOT_TIER_BLOCK_SIZE, DEFAULT_HOT_TIER_BLOCK_SIZE), DataUnit.B).intValue();
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invalid value specified for the '" + HOT_TIER_BLOCK_SIZE + "' property. Value must be a positive Data Size");
+        }
+
+        this.blockPool = new BlockPool(blockSize, (int) Math.min(Integer.MAX_VALUE, maxSize / blockSize));
+        this.maxClaimLength = DataUnit.parseDataSize(nifiProperties.getProperty(HOT_TIER_MAX_CLAIM_SIZE, DEFAULT_HOT_TIER_MAX_CLAIM_SIZE), DataUnit.B).longValue();
+        this.maxAgeMillis = FormatUtils.getTimeDuration(nifiProperties.getProperty(HOT_TIER_MAX_AGE, nifiProperties.getFlowFileRepositoryCheckpointInterval()), TimeUnit.MILLISECONDS);
+        this.spillExecutor = new FlowEngine(1, "TieredContentRepository Spill", true);
+
+        LOG.info("Initializing TieredContentRepository with a hot tier of {} bytes in blocks of {} bytes, holding Content Claims of up to {} bytes for up to {} millis",
+                (long) blockPool.getMaxBlocks() * blockSize, blockSize, maxClaimLength, maxAgeMillis);
+    }
+
+    @Override
+    public void initialize(final ContentRepositoryContext context) {
+        super.initialize(context);
+        spillExecutor.scheduleWithFixedDelay(new SpillHotClaims(), SPILL_INTERVAL_MILLIS, SPILL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        spillExecutor.shutdown();
+
+        int spilled = 0;
+        for (final HotClaim hotClaim : hotClaims.values()) {
+            try {
+                if (hotClaim.spill(true)) {
+                    spilled++;
+                }
+            } catch (final IOException ioe) {
+                LOG.error("Failed to write {} from the hot tier to disk on shutdown", hotClaim, ioe);
+            }
+        }
+        LOG.info("Wrote {} Resource Claims from the hot tier to disk on shutdown", spilled);
+
+        super.shutdown();
+    }
+
+    @Override
+    public ContentClaim create(final boolean lossTolerant) throws IOException {
+        // Content that must survive a restart once the session is committed is written to disk by the file system tier. If the
+        // hot tier is full, there is no point in allocating a claim that would be written to disk immediately either.
+        if (!lossTolerant || blockPool.isFull()) {
+            return super.create(lossTolerant);
+        }
+
+        HotClaim hotClaim;
+        while ((hotClaim = writableHotClaims.poll()) != null) {
+            final StandardContentClaim contentClaim = hotClaim.reserve();
+            if (contentClaim != null) {
+                incrementClaimantCount(hotClaim.getResourceClaim(), false);
+                LOG.debug("Reusing {} in the hot tier for {}", hotClaim, contentClaim);
+                return contentClaim;
+            }
+        }
+
+        final ResourceClaim resourceClaim = newResourceClaim(true, true);
+        incrementClaimantCount(resourceClaim, true);
+
+        hotClaim = new HotClaim(resourceClaim);
+        final StandardContentClaim contentClaim = hotClaim.reserve();
+        hotClaims.put(resourceClaim, hotClaim);
+        hotClaimsByAge.offer(hotClaim);
+
+        LOG.debug("Created {} in the hot tier for {}", hotClaim, contentClaim);
+        return contentClaim;
+    }
+
+    private HotClaim getHotClaim(final ContentClaim claim) {
+        return claim == null ? null : hotClaims.get(claim.getResourceClaim());
+    }
+
+    private long getEnd(final ContentClaim claim, final HotClaim hotClaim) {
+        // A claim that is still being written to is always the last claim of its Resource Claim
+        return claim.getLength() < 0 ? hotClaim.getLength() : claim.getOffset() + claim.getLength();
+    }
+
+    @Override
+    public OutputStream write(final ContentClaim claim) throws IOException {
+        final StandardContentClaim scc = validateContentClaimForWriting(claim);
+        final HotClaim hotClaim = hotClaims.get(scc.getResourceClaim());
+        if (hotClaim == null || !hotClaim.isWriting(scc)) {
+            return super.write(claim);
+        }
+
+        return new HotClaimOutputStream(hotClaim, scc);
+    }
+
+    @Override
+    public long importFrom(final InputStream content, final ContentClaim claim) throws IOException {
+        if (getHotClaim(claim) == null) {
+            return super.importFrom(content, claim);
+        }
+
+        try (final OutputStream out = write(claim)) {
+            return StreamUtils.copy(content, out);
+        }
+    }
+
+    @Override
+    public InputStream read(final ContentClaim claim) throws IOException {
+        final HotClaim hotClaim = getHotClaim(claim);
+        if (hotClaim != null && hotClaim.isInMemory()) {
+            return new HotClaimInputStream(hotClaim, claim);
+        }
+
+        return super.read(claim);
+    }
+
+    @Override
+    public InputStream read(final ResourceClaim claim) throws IOException {
+        final HotClaim hotClaim = claim == null ? null : hotClaims.get(claim);
+        if (hotClaim != null && hotClaim.isInMemory()) {
+            return new HotClaimInputStream(hotClaim, null);
+        }
+
+        return super.read(claim);
+    }
+
+    @Override
+    public ByteBuffer readBuffer(final ContentClaim claim) throws IOException {
+        final HotClaim hotClaim = getHotClaim(claim);
+        if (hotClaim != null) {
+            final ByteBuffer buffer = hotClaim.copyToBuffer(claim.getOffset(), getEnd(claim, hotClaim));
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+
+        return super.readBuffer(claim);
+    }
+
+    @Override
+    public FileChannel readChannel(final ContentClaim claim) throws IOException {
+        // A channel can only be provided for a file, so content that is only in memory is written to disk first. If the Resource
+        // Claim is still being written to, the remaining content is appended to the file.
+        final HotClaim hotClaim = getHotClaim(claim);
+        if (hotClaim != null) {
+            hotClaim.spill(true);
+        }
+
+        return super.readChannel(claim);
+    }
+
+    @Override
+    public long size(final ContentClaim claim) throws IOException {
+        final HotClaim hotClaim = getHotClaim(claim);
+        if (hotClaim != null && claim.getLength() < 0) {
+            return hotClaim.getLength() - claim.getOffset();
+        }
+
+        return super.size(claim);
+    }
+
+    @Override
+    public boolean isAccessible(final ContentClaim contentClaim) throws IOException {
+        final HotClaim hotClaim = getHotClaim(contentClaim);
+        if (hotClaim != null && hotClaim.isInMemory()) {
+            return true;
+        }
+
+        return super.isAccessible(contentClaim);
+    }
+
+    @Override
+    protected boolean removeResourceClaim(final ResourceClaim claim) {
+        if (destroyHotClaim(claim)) {
+            return true;
+        }
+
+        return super.removeResourceClaim(claim);
+    }
+
+    @Override
+    boolean archive(final ResourceClaim claim) throws IOException {
+        // Content that is only in memory is destroyed rather than archived, as writing it to disk would defeat the purpose of the hot tier.
+        if (destroyHotClaim(claim)) {
+            return false;
+        }
+
+        return super.archive(claim);
+    }
+
+    private boolean destroyHotClaim(final ResourceClaim claim) {
+        if (claim == null || claim.isInUse()) {
+            return false;
+        }
+
+        final HotClaim hotClaim = hotClaims.get(claim);
+        return hotClaim != null && hotClaim.destroy();
+    }
+
+    /**
+     * Marks the Resource Claim of the given hot claim as no longer writable. A Resource Claim that is not referenced by any FlowFile
+     * by then is never marked as destructable by the FlowFile Repository, so its content is discarded here instead.
+     */
+    private void freeze(final HotClaim hotClaim) {
+        getResourceClaimManager().freeze(hotClaim.getResourceClaim());
+        destroyHotClaim(hotClaim.getResourceClaim());
+    }
+
+    @Override
+    public Set<ResourceClaim> getActiveResourceClaims(final String containerName) throws IOException {
+        final Set<ResourceClaim> activeResourceClaims = new HashSet<>(super.getActiveResourceClaims(containerName));
+        for (final HotClaim hotClaim : hotClaims.values()) {
+            final ResourceClaim resourceClaim = hotClaim.getResourceClaim();
+            if (resourceClaim.getContainer().equals(containerName) && hotClaim.isInMemory()) {
+                activeResourceClaims.add(resourceClaim);
+            }
+        }
+
+        return activeResourceClaims;
+    }
+
+    @Override
+    public void purge() {
+        for (final HotClaim hotClaim : hotClaims.values()) {
+            hotClaim.destroy();
+        }
+        hotClaimsByAge.clear();
+        writableHotClaims.clear();
+
+        super.purge();
+    }
+
+    // visible for testing
+    int getHotClaimCount() {
+        return hotClaims.size();
+    }
+
+    // visible for testing
+    void spillExpiredClaims() {
+        final long expiration = System.currentTimeMillis() - maxAgeMillis;
+
+        final Iterator<HotClaim> itr = hotClaimsByAge.iterator();
+        while (itr.hasNext()) {
+            final HotClaim hotClaim = itr.next();
+            if (!hotClaim.isInMemory()) {
+                itr.remove();
+                continue;
+            }
+
+            // Claims are queued in the order in which they were created, so once a claim is young enough to remain in memory,
+            // so are all of the claims that follow it, unless the hot tier needs to make room.
+            if (hotClaim.getCreationTime() > expiration && !blockPool.isAboveUsage(SPILL_THRESHOLD)) {
+                return;
+            }
+
+            try {
+                if (hotClaim.spill(false)) {
+                    itr.remove();
+                }
+            } catch (final IOException ioe) {
+                LOG.warn("Failed to write {} from the hot tier to disk; will try again", hotClaim, ioe);
+            }
+        }
+    }
+
+    private class SpillHotClaims implements Runnable {
+        @Override
+        public void run() {
+            try {
+                spillExpiredClaims();
+            } catch (final Throwable t) {
+                LOG.error("Failed to write Content Claims from the hot tier to disk", t);
+            }
+        }
+    }
+
+    /**
+     * The content of a single Resource Claim in the hot tier, which holds one or more Content Claims one after the other. The content
+     * is held in blocks from the {@link BlockPool} until the Resource Claim is either destroyed or written to disk, at which point the
+     * blocks are returned to the pool. Readers access the blocks while holding the lock on this object, so that the blocks are never
+     * returned to the pool while they are being read. If the Resource Claim is written to disk while a Content Claim is still being
+     * written to, the remaining content is appended to the file.
+     */
+    private class HotClaim {
+        private final ResourceClaim resourceClaim;
+        private final long creationTime = System.currentTimeMillis();
+        private List<ByteBuffer> blocks = new ArrayList<>();
+        private long length = 0L;
+        private StandardContentClaim writingClaim;
+        private boolean spilled = false;
+        private FileOutputStream spillStream;
+
+        HotClaim(final ResourceClaim resourceClaim) {
+            this.resourceClaim = resourceClaim;
+        }
+
+        ResourceClaim getResourceClaim() {
+            return resourceClaim;
+        }
+
+        long getCreationTime() {
+            return creationTime;
+        }
+
+        synchronized long getLength() {
+            return length;
+        }
+
+        synchronized boolean isInMemory() {
+            return blocks != null;
+        }
+
+        /**
+         * Creates a Content Claim that starts at the current end of this Resource Claim, unless the Resource Claim is no longer in
+         * memory or another Content Claim is being written to it. No other Content Claim can be created until the returned claim has
+         * been written.
+         */
+        synchronized StandardContentClaim reserve() {
+            if (blocks == null || writingClaim != null) {
+                return null;
+            }
+
+            writingClaim = new StandardContentClaim(resourceClaim, length);
+            return writingClaim;
+        }
+
+        synchronized boolean isWriting(final ContentClaim contentClaim) {
+            return writingClaim == contentClaim;
+        }
+
+        synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+            if (spillStream == null && !append(b, off, len)) {
+                spill(true);
+
+                if (spillStream == null) {
+                    throw new IOException("Cannot write to " + writingClaim + " because its content has been destroyed");
+                }
+            }
+
+            if (spillStream != null) {
+                spillStream.write(b, off, len);
+                length += len;
+            }
+        }
+
+        /**
+         * Completes the Content Claim that is being written. The Resource Claim is then either made available to the next Content
+         * Claim or, once it has been written to disk or reached the maximum appendable size, frozen.
+         */
+        synchronized void finishWriting() throws IOException {
+            writingClaim = null;
+
+            if (spillStream != null) {
+                try {
+                    closeSpillStream(spillStream);
+                } finally {
+                    spillStream = null;
+                    hotClaims.remove(resourceClaim, this);
+                    freeze(this);
+                }
+            } else if (blocks != null) {
+                if (length < getMaxAppendableClaimLength()) {
+                    writableHotClaims.offer(this);
+                } else {
+                    freeze(this);
+                }
+            }
+        }
+
+        /**
+         * Appends the given bytes to the Resource Claim, provided that the Content Claim being written does not exceed the maximum
+         * claim size of the hot tier and that enough blocks are available. The Resource Claim is left unchanged otherwise.
+         */
+        private boolean append(final byte[] b, final int off, final int len) {
+            if (blocks == null || length - writingClaim.getOffset() + len > maxClaimLength) {
+                return false;
+            }
+
+            final int blockSize = blockPool.getBlockSize();
+            final long blocksRequired = (length + len + blockSize - 1) / blockSize - blocks.size();
+            if (blocksRequired > 0) {
+                final List<ByteBuffer> acquired = new ArrayList<>((int) blocksRequired);
+                for (int i = 0; i < blocksRequired; i++) {
+                    final ByteBuffer block = blockPool.acquire();
+                    if (block == null) {
+                        acquired.forEach(blockPool::release);
+                        return false;
+                    }
+                    acquired.add(block);
+                }
+                blocks.addAll(acquired);
+            }
+
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0) {
+                final ByteBuffer block = blocks.get((int) (length / blockSize));
+                final int count = Math.min(remaining, block.remaining());
+                block.put(b, offset, count);
+                offset += count;
+                remaining -= count;
+                length += count;
+            }
+
+            return true;
+        }
+
+        /**
+         * Copies up to {@code len} bytes starting at the given position in the Resource Claim, without reading beyond {@code end}.
+         *
+         * @return the number of bytes copied, -1 if the position is at the end, or {@code null} if the Resource Claim has been
+         * written to disk and must be read from there
+         */
+        synchronized Integer read(final long position, final long end, final byte[] b, final int off, final int len) {
+            if (blocks == null) {
+                if (spilled) {
+                    return null;
+                }
+                throw new ContentNotFoundException(new StandardContentClaim(resourceClaim, position), "Content Claim has been destroyed");
+            }
+
+            if (position >= end) {
+                return -1;
+            }
+
+            final int blockSize = blockPool.getBlockSize();
+            final int count = (int) Math.min(len, Math.min(end - position, blockSize - position % blockSize));
+            final ByteBuffer block = blocks.get((int) (position / blockSize)).duplicate();
+            block.position((int) (position % blockSize));
+            block.get(b, off, count);
+            return count;
+        }
+
+        synchronized ByteBuffer copyToBuffer(final long start, final long end) {
+            if (blocks == null || end - start > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            final int blockSize = blockPool.getBlockSize();
+            final ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            long position = start;
+            while (position < end) {
+                final int blockOffset = (int) (position % blockSize);
+                final int count = (int) Math.min(end - position, blockSize - blockOffset);
+                final ByteBuffer block = blocks.get((int) (position / blockSize)).duplicate();
+                block.position(blockOffset);
+                block.limit(blockOffset + count);
+                buffer.put(block);
+                position += count;
+            }
+            buffer.flip();
+            return buffer.asReadOnlyBuffer();
+        }
+
+        /**
+         * Writes the content of the Resource Claim to disk and returns its blocks to the pool. Unless {@code force} is set, a Resource
+         * Claim that is being written to is left in memory. A Resource Claim that is not being written to is frozen first, and if no
+         * FlowFile references it any longer, its content is discarded rather than written.
+         *
+         * @return {@code true} if the content of the Resource Claim is no longer in memory
+         */
+        synchronized boolean spill(final boolean force) throws IOException {
+            if (blocks == null) {
+                return true;
+            }
+            final boolean writing = writingClaim != null;
+            if (!force && writing) {
+                return false;
+            }
+
+            if (!writing) {
+                writableHotClaims.remove(this);
+                getResourceClaimManager().freeze(resourceClaim);
+                if (destroyHotClaim(resourceClaim)) {
+                    return true;
+                }
+            }
+
+            final File file = getPath(resourceClaim).toFile();
+            final FileOutputStream fos = new FileOutputStream(file);
+            try {
+                final FileChannel channel = fos.getChannel();
+                for (final ByteBuffer block : blocks) {
+                    final ByteBuffer duplicate = block.duplicate();
+                    duplicate.flip();
+                    while (duplicate.hasRemaining()) {
+                        channel.write(duplicate);
+                    }
+                }
+
+                if (writing) {
+                    spillStream = fos;
+                } else {
+                    closeSpillStream(fos);
+                }
+            } catch (final IOException ioe) {
+                fos.close();
+                if (!file.delete() && file.exists()) {
+                    LOG.warn("Unable to delete partially written file {} for {}", file, resourceClaim);
+                }
+                throw ioe;
+            }
+
+            releaseBlocks();
+            spilled = true;
+            if (!writing) {
+                hotClaims.remove(resourceClaim, this);
+            }
+            LOG.debug("Wrote {} from the hot tier to {}", resourceClaim, file);
+            return true;
+        }
+
+        private void closeSpillStream(final FileOutputStream fos) throws IOException {
+            try {
+                if (isAlwaysSync()) {
+                    fos.getFD().sync();
+                }
+            } finally {
+                fos.close();
+            }
+        }
+
+        /**
+         * Discards the content of the Resource Claim if it has not been written to disk.
+         *
+         * @return {@code true} if the content was only in memory and has been discarded
+         */
+        synchronized boolean destroy() {
+            if (blocks == null) {
+                return false;
+            }
+
+            releaseBlocks();
+            hotClaims.remove(resourceClaim, this);
+            writableHotClaims.remove(this);
+            LOG.debug("Destroyed {} in the hot tier", resourceClaim);
+            return true;
+        }
+
+        private void releaseBlocks() {
+            blocks.forEach(blockPool::release);
+            blocks = null;
+        }
+
+        @Override
+        public String toString() {
+            return resourceClaim.toString();
+        }
+    }
+
+    private class HotClaimOutputStream extends OutputStream {
+        private final HotClaim hotClaim;
+        private final StandardContentClaim contentClaim;
+        private final byte[] singleByte = new byte[1];
+        private long bytesWritten = 0L;
+        private boolean closed = false;
+
+        HotClaimOutputStream(final HotClaim hotClaim, final StandardContentClaim contentClaim) {
+            this.hotClaim = hotClaim;
+            this.contentClaim = contentClaim;
+        }
+
+        @Override
+        public synchronized void write(final int b) throws IOException {
+            singleByte[0] = (byte) b;
+            write(singleByte, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(final byte[] b) throws IOException {
+            write(b, 0, b.length);
+        }
+
+        @Override
+        public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream is closed");
+            }
+
+            hotClaim.write(b, off, len);
+            bytesWritten += len;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            contentClaim.setLength(bytesWritten);
+            hotClaim.finishWriting();
+        }
+
+        @Override
+        public String toString() {
+            return "HotClaimOutputStream[" + contentClaim + "]";
+        }
+    }
+
+    /**
+     * Reads either a single Content Claim or, if no Content Claim is given, the entire Resource Claim of a hot claim.
+     */
+    private class HotClaimInputStream extends InputStream {
+        private final HotClaim hotClaim;
+        private final ContentClaim contentClaim;
+        private final long start;
+        private final byte[] singleByte = new byte[1];
+        private InputStream spilledStream;
+        private long position;
+        private long mark;
+
+        HotClaimInputStream(final HotClaim hotClaim, final ContentClaim contentClaim) {
+            this.hotClaim = hotClaim;
+            this.contentClaim = contentClaim;
+            this.start = contentClaim == null ? 0L : contentClaim.getOffset();
+            this.position = start;
+            this.mark = start;
+        }
+
+        private long getEnd() {
+            return contentClaim == null ? hotClaim.getLength() : TieredContentRepository.this.getEnd(contentClaim, hotClaim);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int len = read(singleByte, 0, 1);
+            return len < 0 ? -1 : singleByte[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (spilledStream == null) {
+                final Integer count = hotClaim.read(position, getEnd(), b, off, len);
+                if (count != null) {
+                    if (count > 0) {
+                        position += count;
+                    }
+                    return count;
+                }
+
+                // The claim was written to disk while it was being read, so continue reading from the file.
+                spilledStream = contentClaim == null ? TieredContentRepository.super.read(hotClaim.getResourceClaim()) : TieredContentRepository.super.read(contentClaim);
+                StreamUtils.skip(spilledStream, position - start);
+            }
+
+            final int count = spilledStream.read(b, off, len);
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            if (n <= 0) {
+                return 0L;
+            }
+
+            if (spilledStream != null) {
+                final long skipped = spilledStream.skip(n);
+                position += skipped;
+                return skipped;
+            }
+
+            final long skipped = Math.max(0L, Math.min(n, getEnd() - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (spilledStream != null) {
+                return spilledStream.available();
+            }
+
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, getEnd() - position));
+        }
+
+        @Override
+        public boolean markSupported() {
+            return spilledStream == null;
+        }
+
+        @Override
+        public synchronized void mark(final int readlimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            if (spilledStream != null) {
+                throw new IOException("Cannot reset stream because the content has been written to disk since the stream was marked");
+            }
+            position = mark;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (spilledStream != null) {
+                spilledStream.close();
+            }
+        }
+    }
+
+    /**
+     * A bounded pool of fixed-size, direct buffers. Buffers are allocated on demand, up to the maximum number of blocks, and are
+     * reused once they have been released, so that the hot tier does not churn through direct memory.
+     */
+    private static class BlockPool {
+        private final int blockSize;
+        private final int maxBlocks;
+        private final Queue<ByteBuffer> freeBlocks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger allocatedBlocks = new AtomicInteger(0);
+        private final AtomicInteger usedBlocks = new AtomicInteger(0);
+
+        BlockPool(final int blockSize, final int maxBlocks) {
+            this.blockSize = blockSize;
+            this.maxBlocks = maxBlocks;
+        }
+
+        int getBlockSize() {
+            return blockSize;
+        }
+
+        int getMaxBlocks() {
+            return maxBlocks;
+        }
+
+        ByteBuffer acquire() {
+            ByteBuffer block = freeBlocks.poll();
+            if (block == null) {
+                if (allocatedBlocks.incrementAndGet() > maxBlocks) {
+                    allocatedBlocks.decrementAndGet();
+                    return null;
+                }
+                block = ByteBuffer.allocateDirect(blockSize);
+            }
+
+            usedBlocks.incrementAndGet();
+            return block;
+        }
+
+        void release(final ByteBuffer block) {
+            block.clear();
+            usedBlocks.decrementAndGet();
+            freeBlocks.offer(block);
+        }
+
+        boolean isFull() {
+            return usedBlocks.get() >= maxBlocks;
+        }
+
+        boolean isAboveUsage(final double ratio) {
+            return usedBlocks.get() > maxBlocks * ratio;
+        }
+    }
+}
@@ -27,7 +27,9 @@ import org.apache.nifi.repository.schema.FieldCache;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.wali.EncryptedSequentialAccessWriteAheadLog;
+import org.apache.nifi.wali.OffHeapSnapshot;
 import org.apache.nifi.wali.SequentialAccessWriteAheadLog;
+import org.apache.nifi.wali.StripedSequentialAccessWriteAheadLog;
 import org.apache.nifi.wali.SnapshotCapture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -90,11 +92,17 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     private static final String WRITE_AHEAD_LOG_IMPL = "nifi.flowfile.repository.wal.implementation";
     private static final String RETAIN_ORPHANED_FLOWFILES = "nifi.flowfile.repository.retain.orphaned.flowfiles";
     private static final String FLOWFILE_REPO_CACHE_SIZE = "nifi.flowfile.repository.wal.cache.characters";
+    private static final String GROUP_COMMIT = "nifi.flowfile.repository.wal.group.commit";
+    private static final String INCREMENTAL_SNAPSHOT_RATIO = "nifi.flowfile.repository.wal.incremental.snapshot.ratio";
+    private static final String SNAPSHOT_IMPL = "nifi.flowfile.repository.wal.snapshot.implementation";
 
     static final String SEQUENTIAL_ACCESS_WAL = "org.apache.nifi.wali.SequentialAccessWriteAheadLog";
     static final String ENCRYPTED_SEQUENTIAL_ACCESS_WAL = "org.apache.nifi.wali.EncryptedSequentialAccessWriteAheadLog";
+    static final String STRIPED_SEQUENTIAL_ACCESS_WAL = "org.apache.nifi.wali.StripedSequentialAccessWriteAheadLog";
     private static final String MINIMAL_LOCKING_WALI = "org.wali.MinimalLockingWriteAheadLog";
     private static final String DEFAULT_WAL_IMPLEMENTATION = SEQUENTIAL_ACCESS_WAL;
+    static final String HASH_MAP_SNAPSHOT = "org.apache.nifi.wali.HashMapSnapshot";
+    static final String OFF_HEAP_SNAPSHOT = "org.apache.nifi.wali.OffHeapSnapshot";
     private static final int DEFAULT_CACHE_SIZE = 10_000_000;
 
     private final String walImplementation;
@@ -102,6 +110,9 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
     private final AtomicLong flowFileSequenceGenerator = new AtomicLong(0L);
     private final boolean alwaysSync;
+    private final boolean groupCommit;
+    private final double incrementalSnapshotRatio;
+    private final String snapshotImplementation;
     private final boolean retainOrphanedFlowFiles;
 
     private static final Logger logger = LoggerFactory.getLogger(WriteAheadFlowFileRepository.class);
@@ -152,6 +163,9 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
      */
     public WriteAheadFlowFileRepository() {
         alwaysSync = false;
+        groupCommit = false;
+        incrementalSnapshotRatio = 0D;
+        snapshotImplementation = null;
         checkpointDelayMillis = 0L;
         checkpointExecutor = null;
         walImplementation = null;
@@ -162,6 +176,9 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
     public WriteAheadFlowFileRepository(final NiFiProperties nifiProperties) {
         alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.FLOWFILE_REPOSITORY_ALWAYS_SYNC, "false"));
+        groupCommit = Boolean.parseBoolean(nifiProperties.getProperty(GROUP_COMMIT, "false"));
+        incrementalSnapshotRatio = Double.parseDouble(nifiProperties.getProperty(INCREMENTAL_SNAPSHOT_RATIO, "0").trim());
+        snapshotImplementation = nifiProperties.getProperty(SNAPSHOT_IMPL, HASH_MAP_SNAPSHOT).trim();
         this.nifiProperties = nifiProperties;
 
         final String orphanedFlowFileProperty = nifiProperties.getProperty(RETAIN_ORPHANED_FLOWFILES);
@@ -186,7 +203,17 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             }
         }
 
-        if (isSequentialAccessWAL(walImplementation)) {
+        if (walImplementation.equals(STRIPED_SEQUENTIAL_ACCESS_WAL)) {
+            // The snapshot is always written to the first directory, so the order of the directories must be stable across restarts.
+            final String directoryName = nifiProperties.getProperty(FLOWFILE_REPOSITORY_DIRECTORY_PREFIX);
+            flowFileRepositoryPaths.add(new File(directoryName));
+
+            nifiProperties.getPropertyKeys().stream()
+                .filter(propertyName -> propertyName.startsWith(FLOWFILE_REPOSITORY_DIRECTORY_PREFIX + "."))
+                .sorted()
+                .map(propertyName -> new File(nifiProperties.getProperty(propertyName)))
+                .forEach(flowFileRepositoryPaths::add);
+        } else if (isSequentialAccessWAL(walImplementation)) {
             final String directoryName = nifiProperties.getProperty(FLOWFILE_REPOSITORY_DIRECTORY_PREFIX);
             flowFileRepositoryPaths.add(new File(directoryName));
         } else {
@@ -200,13 +227,14 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     }
 
     /**
-     * Returns true if the provided implementation is a sequential access write ahead log (plaintext or encrypted).
+     * Returns true if the provided implementation is a sequential access write ahead log (plaintext, encrypted, or striped).
      *
      * @param walImplementation the implementation to check
      * @return true if this implementation is sequential access
      */
     private static boolean isSequentialAccessWAL(String walImplementation) {
-        return walImplementation.equals(SEQUENTIAL_ACCESS_WAL) || walImplementation.equals(ENCRYPTED_SEQUENTIAL_ACCESS_WAL);
+        return walImplementation.equals(SEQUENTIAL_ACCESS_WAL) || walImplementation.equals(ENCRYPTED_SEQUENTIAL_ACCESS_WAL)
+            || walImplementation.equals(STRIPED_SEQUENTIAL_ACCESS_WAL);
     }
 
     @Override
@@ -243,9 +271,26 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         this.serdeFactory = serdeFactory;
 
         // The specified implementation can be plaintext or encrypted; the only difference is the serde factory
-        if (isSequentialAccessWAL(walImplementation)) {
+        if (walImplementation.equals(STRIPED_SEQUENTIAL_ACCESS_WAL)) {
+            if (groupCommit) {
+                logger.warn("{} is set to true but has no effect with {}, which reduces contention by striping updates across journals instead",
+                    GROUP_COMMIT, STRIPED_SEQUENTIAL_ACCESS_WAL);
+            }
+
+            if (isOffHeapSnapshot()) {
+                final OffHeapSnapshot<SerializedRepositoryRecord> snapshot = new OffHeapSnapshot<>(flowFileRepositoryPaths.get(0), serdeFactory);
+                wal = new StripedSequentialAccessWriteAheadLog<>(flowFileRepositoryPaths, serdeFactory, this, snapshot);
+            } else {
+                wal = new StripedSequentialAccessWriteAheadLog<>(flowFileRepositoryPaths, serdeFactory, this, incrementalSnapshotRatio);
+            }
+        } else if (isSequentialAccessWAL(walImplementation)) {
             // TODO: May need to instantiate ESAWAL for clarity?
-            wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this);
+            if (isOffHeapSnapshot()) {
+                final OffHeapSnapshot<SerializedRepositoryRecord> snapshot = new OffHeapSnapshot<>(flowFileRepositoryPaths.get(0), serdeFactory);
+                wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this, groupCommit, snapshot);
+            } else {
+                wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this, groupCommit, incrementalSnapshotRatio);
+            }
         } else if (walImplementation.equals(MINIMAL_LOCKING_WALI)) {
             final SortedSet<Path> paths = flowFileRepositoryPaths.stream()
                     .map(File::toPath)
@@ -260,6 +305,18 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         logger.info("Initialized FlowFile Repository");
     }
 
+    private boolean isOffHeapSnapshot() {
+        if (OFF_HEAP_SNAPSHOT.equals(snapshotImplementation)) {
+            return true;
+        }
+        if (HASH_MAP_SNAPSHOT.equals(snapshotImplementation)) {
+            return false;
+        }
+
+        throw new IllegalStateException("Cannot create Write-Ahead Log because the configured property '" + SNAPSHOT_IMPL + "' has an invalid value of '" + snapshotImplementation
+                + "'. Please update nifi.properties to indicate a valid value for this property.");
+    }
+
     @Override
     public void close() throws IOException {
         if (checkpointFuture != null) {
@@ -270,6 +327,14 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         wal.shutdown();
     }
 
+    private SnapshotCapture<SerializedRepositoryRecord> captureSnapshot() {
+        if (wal instanceof StripedSequentialAccessWriteAheadLog) {
+            return ((StripedSequentialAccessWriteAheadLog<SerializedRepositoryRecord>) wal).captureSnapshot();
+        }
+
+        return ((SequentialAccessWriteAheadLog<SerializedRepositoryRecord>) wal).captureSnapshot();
+    }
+
     @Override
     public boolean isVolatile() {
         return false;
@@ -283,7 +348,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
 
         final Map<ResourceClaim, Set<ResourceClaimReference>> references = new HashMap<>();
 
-        final SnapshotCapture<SerializedRepositoryRecord> snapshot = ((SequentialAccessWriteAheadLog<SerializedRepositoryRecord>) wal).captureSnapshot();
+        final SnapshotCapture<SerializedRepositoryRecord> snapshot = captureSnapshot();
         for (final SerializedRepositoryRecord repositoryRecord : snapshot.getRecords().values()) {
             final ContentClaim contentClaim = repositoryRecord.getContentClaim();
             if (contentClaim == null) {
@@ -32,14 +32,29 @@ public class StandardContentClaimWriteCache implements ContentClaimWriteCache {
     private final Map<ResourceClaim, OutputStream> streamMap = new ConcurrentHashMap<>();
     private final Queue<ContentClaim> queue = new LinkedList<>();
     private final int bufferSize;
+    private final boolean lossTolerant;
 
     public StandardContentClaimWriteCache(final ContentRepository contentRepo) {
-        this(contentRepo, 8192);
+        this(contentRepo, false);
+    }
+
+    public StandardContentClaimWriteCache(final ContentRepository contentRepo, final boolean lossTolerant) {
+        this(contentRepo, 8192, lossTolerant);
     }
 
     public StandardContentClaimWriteCache(final ContentRepository contentRepo, final int bufferSize) {
+        this(contentRepo, bufferSize, false);
+    }
+
+    /**
+     * @param contentRepo the repository to create Content Claims in
+     * @param bufferSize the size of the buffer used for each Resource Claim that is written to
+     * @param lossTolerant whether the Content Claims are created as loss tolerant, as they are for a component that is configured to be loss tolerant
+     */
+    public StandardContentClaimWriteCache(final ContentRepository contentRepo, final int bufferSize, final boolean lossTolerant) {
         this.contentRepo = contentRepo;
         this.bufferSize = bufferSize;
+        this.lossTolerant = lossTolerant;
     }
 
     @Override
@@ -60,7 +75,7 @@ public class StandardContentClaimWriteCache implements ContentClaimWriteCache {
             return contentClaim;
         }
 
-        final ContentClaim claim = contentRepo.create(false);
+        final ContentClaim claim = contentRepo.create(lossTolerant);
         registerStream(claim);
         return claim;
     }
@@ -40,6 +40,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.Objects;
 
@@ -166,6 +167,26 @@ public class EncryptedFileSystemRepository extends FileSystemRepository {
         return false;
     }
 
+    @Override
+    public ByteBuffer readBuffer(final ContentClaim claim) {
+        throw new UnsupportedOperationException("Cannot read Content Claim as a ByteBuffer when using EncryptedFileSystemRepository");
+    }
+
+    @Override
+    public boolean isBufferReadSupported() {
+        return false;
+    }
+
+    @Override
+    public FileChannel readChannel(final ContentClaim claim) {
+        throw new UnsupportedOperationException("Cannot read Content Claim as a FileChannel when using EncryptedFileSystemRepository");
+    }
+
+    @Override
+    public boolean isChannelReadSupported() {
+        return false;
+    }
+
     /**
      * Returns an InputStream (actually a {@link javax.crypto.CipherInputStream}) which wraps
      * the {@link java.io.FileInputStream} from the content repository claim on disk. This
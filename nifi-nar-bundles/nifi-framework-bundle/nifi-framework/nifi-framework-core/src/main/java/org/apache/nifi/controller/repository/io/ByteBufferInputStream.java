@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An InputStream that reads the remaining bytes of a ByteBuffer, advancing the buffer's position as it goes.
+ * This is not thread-safe, so each reader should be given its own duplicate of a shared buffer.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+    private final Closeable onClose;
+    private boolean closed = false;
+    private int mark = -1;
+
+    public ByteBufferInputStream(final ByteBuffer buffer) {
+        this(buffer, null);
+    }
+
+    /**
+     * @param buffer the buffer to read
+     * @param onClose closed when this stream is closed, such as to release the memory that backs the buffer. Once it has been closed,
+     *            the buffer is no longer read, and any attempt to read from the stream throws an IOException.
+     */
+    public ByteBufferInputStream(final ByteBuffer buffer, final Closeable onClose) {
+        this.buffer = buffer;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        final int bytesToRead = Math.min(len, buffer.remaining());
+        buffer.get(b, off, bytesToRead);
+        return bytesToRead;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        ensureOpen();
+        if (n <= 0) {
+            return 0L;
+        }
+
+        final int bytesToSkip = (int) Math.min(n, buffer.remaining());
+        buffer.position(buffer.position() + bytesToSkip);
+        return bytesToSkip;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(final int readlimit) {
+        mark = buffer.position();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        ensureOpen();
+        buffer.position(mark < 0 ? 0 : mark);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        if (onClose != null) {
+            onClose.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+    }
+}
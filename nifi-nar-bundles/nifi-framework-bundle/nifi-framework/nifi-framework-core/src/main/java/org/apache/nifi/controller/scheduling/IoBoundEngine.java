@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.annotation.behavior.IOBound;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.nar.NarThreadContextClassLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks of Processors that are annotated as {@link IOBound}. If the JVM supports virtual threads, a single-threaded {@link FlowEngine} is
+ * used only to time the tasks, and each time that a task is due it is handed to an executor that runs it on a new virtual thread, so that a
+ * Processor that blocks on I/O does not hold on to a platform thread. Otherwise, the tasks run on a separate FlowEngine of platform threads, so that
+ * such Processors cannot starve other Processors of the threads in the Timer-Driven Thread Pool. Either way, no more than the configured maximum
+ * number of tasks run at the same time.
+ */
+public class IoBoundEngine {
+    private static final Logger logger = LoggerFactory.getLogger(IoBoundEngine.class);
+
+    private final FlowEngine scheduler;
+    private final ExecutorService taskExecutor;
+    private final int maxThreads;
+    private final Semaphore permits;
+    private final AtomicInteger activeCount = new AtomicInteger(0);
+
+    /**
+     * @param maxThreads the maximum number of tasks that may run at the same time
+     * @param threadNamePrefix the prefix for the names of the threads that run the tasks
+     * @param taskExecutor the executor that runs each task on a new thread, or <code>null</code> if the tasks are to run on a pool of platform threads
+     */
+    IoBoundEngine(final int maxThreads, final String threadNamePrefix, final ExecutorService taskExecutor) {
+        this.maxThreads = maxThreads;
+        this.taskExecutor = taskExecutor;
+
+        if (taskExecutor == null) {
+            scheduler = new FlowEngine(maxThreads, threadNamePrefix);
+            permits = null;
+        } else {
+            scheduler = new FlowEngine(1, threadNamePrefix + " Scheduler", true);
+            scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            permits = new Semaphore(maxThreads);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the tasks run on virtual threads, <code>false</code> if they run on a pool of platform threads
+     */
+    public boolean isVirtual() {
+        return taskExecutor != null;
+    }
+
+    /**
+     * Schedules the given task to run repeatedly, with the given delay between the end of one run and the start of the next, in the same
+     * way as {@link FlowEngine#scheduleWithFixedDelay(Runnable, long, long, TimeUnit)}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable command, final long initialDelay, final long delay, final TimeUnit unit) {
+        if (taskExecutor == null) {
+            return scheduler.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+        }
+
+        final DispatchedTask task = new DispatchedTask(command, unit.toNanos(delay));
+        task.schedule(unit.toNanos(initialDelay));
+        return task;
+    }
+
+    public int getMaxThreadCount() {
+        return maxThreads;
+    }
+
+    public int getActiveCount() {
+        return taskExecutor == null ? scheduler.getActiveCount() : activeCount.get();
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+        if (taskExecutor != null) {
+            taskExecutor.shutdown();
+        }
+    }
+
+    public void shutdownNow() {
+        scheduler.shutdownNow();
+        if (taskExecutor != null) {
+            taskExecutor.shutdownNow();
+        }
+    }
+
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!scheduler.awaitTermination(timeout, unit)) {
+            return false;
+        }
+
+        return taskExecutor == null || taskExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isTerminated() {
+        return scheduler.isTerminated() && (taskExecutor == null || taskExecutor.isTerminated());
+    }
+
+    /**
+     * A task that is timed by the scheduler but run by the task executor. Each time that the task is due, the scheduler hands it to the task
+     * executor, and only once it has finished running is it timed again, so that, as with a FlowEngine, there is the given delay between the
+     * end of one run and the start of the next and the task never runs concurrently with itself.
+     */
+    private class DispatchedTask implements ScheduledFuture<Object> {
+        private final Runnable command;
+        private final long delayNanos;
+        private final CompletableFuture<Object> completion = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> timer;
+
+        private DispatchedTask(final Runnable command, final long delayNanos) {
+            this.command = command;
+            this.delayNanos = delayNanos;
+        }
+
+        private void schedule(final long delayNanos) {
+            try {
+                timer = scheduler.schedule(this::dispatch, delayNanos, TimeUnit.NANOSECONDS);
+            } catch (final RejectedExecutionException e) {
+                logger.debug("Will not run {} again because the engine has been shut down", command);
+                cancel(false);
+                return;
+            }
+
+            // If the task was cancelled while it was being timed, the timer may have been created after cancel() was called.
+            if (isCancelled()) {
+                timer.cancel(false);
+            }
+        }
+
+        private void dispatch() {
+            if (isCancelled()) {
+                return;
+            }
+
+            try {
+                taskExecutor.execute(this::run);
+            } catch (final RejectedExecutionException e) {
+                logger.debug("Will not run {} again because the engine has been shut down", command);
+                cancel(false);
+            }
+        }
+
+        private void run() {
+            permits.acquireUninterruptibly();
+            try {
+                if (isCancelled()) {
+                    return;
+                }
+
+                activeCount.incrementAndGet();
+                try {
+                    Thread.currentThread().setContextClassLoader(NarThreadContextClassLoader.getInstance());
+                    command.run();
+                } catch (final Throwable t) {
+                    logger.error("Uncaught Exception in Runnable task", t);
+                } finally {
+                    activeCount.decrementAndGet();
+                }
+            } finally {
+                permits.release();
+            }
+
+            if (!isCancelled()) {
+                schedule(delayNanos);
+            }
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = completion.completeExceptionally(new CancellationException());
+            final ScheduledFuture<?> currentTimer = timer;
+            if (currentTimer != null) {
+                currentTimer.cancel(false);
+            }
+
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return completion.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            return completion.get();
+        }
+
+        @Override
+        public Object get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return completion.get(timeout, unit);
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            final ScheduledFuture<?> currentTimer = timer;
+            return currentTimer == null ? 0L : currentTimer.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
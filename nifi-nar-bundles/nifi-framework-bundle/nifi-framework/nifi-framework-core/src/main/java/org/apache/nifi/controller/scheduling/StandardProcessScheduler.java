@@ -160,6 +160,12 @@ public final class StandardProcessScheduler implements ProcessScheduler {
         return strategyAgentMap.get(strategy);
     }
 
+    @Override
+    public boolean isEventRegistrationRequired(final SchedulingStrategy strategy) {
+        final SchedulingAgent schedulingAgent = getSchedulingAgent(strategy);
+        return schedulingAgent != null && schedulingAgent.isEventNotificationRequired();
+    }
+
     private SchedulingAgent getSchedulingAgent(final Connectable connectable) {
         return getSchedulingAgent(connectable.getSchedulingStrategy());
     }
@@ -488,7 +494,10 @@ public final class StandardProcessScheduler implements ProcessScheduler {
 
     @Override
     public void registerEvent(final Connectable worker) {
-        getSchedulingAgent(worker).onEvent(worker);
+        final SchedulingAgent schedulingAgent = getSchedulingAgent(worker);
+        if (schedulingAgent != null) {
+            schedulingAgent.onEvent(worker);
+        }
     }
 
     @Override
@@ -16,9 +16,15 @@
  */
 package org.apache.nifi.controller.scheduling;
 
+import org.apache.nifi.annotation.behavior.IOBound;
 import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
 import org.apache.nifi.controller.ReportingTaskNode;
+import org.apache.nifi.controller.ScheduledState;
+import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.tasks.ConnectableTask;
 import org.apache.nifi.controller.tasks.InvocationResult;
 import org.apache.nifi.controller.tasks.ReportingTaskWrapper;
@@ -26,19 +32,56 @@ import org.apache.nifi.encrypt.PropertyEncryptor;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent {
+    public static final String IO_BOUND_ENABLED = "nifi.scheduling.io.bound.enabled";
+    public static final String IO_BOUND_MAX_THREADS = "nifi.scheduling.io.bound.max.threads";
+    public static final int DEFAULT_IO_BOUND_MAX_THREADS = 200;
+
+    public static final String BACKLOG_AWARE_SCHEDULING = "nifi.scheduling.backlog.aware";
+    public static final String BACKLOG_AWARE_MAX_IDLE_DURATION = "nifi.scheduling.backlog.aware.max.idle.duration";
+    public static final String DEFAULT_BACKLOG_AWARE_MAX_IDLE_DURATION = "1 sec";
+    public static final String BACKLOG_AWARE_MAX_TIME_SLICE = "nifi.scheduling.backlog.aware.max.time.slice";
+    public static final String DEFAULT_BACKLOG_AWARE_MAX_TIME_SLICE = "25 millis";
+
+    private static final String IO_BOUND_THREAD_NAME_PREFIX = "Timer-Driven I/O Process";
+
     private final long noWorkYieldNanos;
+    private final boolean backlogAware;
+    private final long maxIdleNanos;
+    private final long maxTimeSliceNanos;
+    private final ConcurrentMap<Connectable, Set<Trigger>> idleTriggers = new ConcurrentHashMap<>();
+    private final IoBoundEngine ioBoundEngine;
 
     public TimerDrivenSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final RepositoryContextFactory contextFactory,
             final PropertyEncryptor encryptor, final NiFiProperties nifiProperties) {
+        this(flowController, flowEngine, null, contextFactory, encryptor, nifiProperties);
+    }
+
+    /**
+     * @param ioBoundEngine the engine on which to run Processors that are annotated as {@link IOBound},
+     * or <code>null</code> if all components are to run on the given <code>flowEngine</code>
+     */
+    public TimerDrivenSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final IoBoundEngine ioBoundEngine,
+            final RepositoryContextFactory contextFactory, final PropertyEncryptor encryptor, final NiFiProperties nifiProperties) {
         super(flowEngine, flowController, contextFactory, encryptor);
+        this.ioBoundEngine = ioBoundEngine;
 
         final String boredYieldDuration = nifiProperties.getBoredYieldDuration();
         try {
@@ -46,11 +89,64 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
         } catch (final IllegalArgumentException e) {
             throw new RuntimeException("Failed to create SchedulingAgent because the " + NiFiProperties.BORED_YIELD_DURATION + " property is set to an invalid time duration: " + boredYieldDuration);
         }
+
+        backlogAware = Boolean.parseBoolean(nifiProperties.getProperty(BACKLOG_AWARE_SCHEDULING, "false"));
+        maxIdleNanos = getDurationNanos(nifiProperties, BACKLOG_AWARE_MAX_IDLE_DURATION, DEFAULT_BACKLOG_AWARE_MAX_IDLE_DURATION);
+        maxTimeSliceNanos = getDurationNanos(nifiProperties, BACKLOG_AWARE_MAX_TIME_SLICE, DEFAULT_BACKLOG_AWARE_MAX_TIME_SLICE);
+    }
+
+    private static long getDurationNanos(final NiFiProperties nifiProperties, final String propertyName, final String defaultValue) {
+        final String duration = nifiProperties.getProperty(propertyName, defaultValue);
+        try {
+            return FormatUtils.getTimeDuration(duration, TimeUnit.NANOSECONDS);
+        } catch (final IllegalArgumentException e) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + propertyName + " property is set to an invalid time duration: " + duration);
+        }
+    }
+
+    /**
+     * Creates the engine that is used to run Processors that are annotated as {@link IOBound}, if the {@link #IO_BOUND_ENABLED} property is
+     * <code>true</code>. Each task of such a Processor runs on a new virtual thread if the JVM supports them, so that a Processor that blocks
+     * on network I/O does not hold on to a platform thread. Otherwise, the engine is a separate pool of platform threads, so that such a Processor
+     * cannot starve CPU-bound Processors of the threads in the Timer-Driven Thread Pool.
+     *
+     * @param nifiProperties the NiFi Properties
+     * @return the engine for I/O-bound Processors, or an empty Optional if I/O-bound Processors are to run on the Timer-Driven Thread Pool
+     */
+    public static Optional<IoBoundEngine> createIoBoundEngine(final NiFiProperties nifiProperties) {
+        if (!Boolean.parseBoolean(nifiProperties.getProperty(IO_BOUND_ENABLED, "false"))) {
+            return Optional.empty();
+        }
+
+        final String maxThreadsValue = nifiProperties.getProperty(IO_BOUND_MAX_THREADS, String.valueOf(DEFAULT_IO_BOUND_MAX_THREADS));
+        final int maxThreads;
+        try {
+            maxThreads = Integer.parseInt(maxThreadsValue.trim());
+        } catch (final NumberFormatException e) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + IO_BOUND_MAX_THREADS + " property is set to an invalid value: " + maxThreadsValue);
+        }
+        if (maxThreads < 1) {
+            throw new RuntimeException("Failed to create SchedulingAgent because the " + IO_BOUND_MAX_THREADS + " property must be at least 1 but is set to " + maxThreadsValue);
+        }
+
+        final Optional<ExecutorService> virtualThreadExecutor = VirtualThreadFactory.createThreadPerTaskExecutor(IO_BOUND_THREAD_NAME_PREFIX);
+        final IoBoundEngine engine = new IoBoundEngine(maxThreads, IO_BOUND_THREAD_NAME_PREFIX, virtualThreadExecutor.orElse(null));
+        final Logger logger = LoggerFactory.getLogger(TimerDrivenSchedulingAgent.class);
+        if (engine.isVirtual()) {
+            logger.info("I/O-bound Processors will run on up to {} virtual threads", maxThreads);
+        } else {
+            logger.info("Virtual threads are not available in this JVM; I/O-bound Processors will run on a separate pool of up to {} threads", maxThreads);
+        }
+
+        return Optional.of(engine);
     }
 
     @Override
     public void shutdown() {
         flowEngine.shutdown();
+        if (ioBoundEngine != null) {
+            ioBoundEngine.shutdown();
+        }
     }
 
     @Override
@@ -70,96 +166,205 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
     public void doSchedule(final Connectable connectable, final LifecycleState scheduleState) {
         final List<ScheduledFuture<?>> futures = new ArrayList<>();
         final ConnectableTask connectableTask = new ConnectableTask(this, connectable, flowController, contextFactory, scheduleState, encryptor);
+        final boolean ioBound = isIoBound(connectable);
 
         for (int i = 0; i < connectable.getMaxConcurrentTasks(); i++) {
             // Determine the task to run and create it.
-            final AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
-
-            final Runnable trigger = createTrigger(connectableTask, scheduleState, futureRef);
+            final Trigger trigger = new Trigger(connectableTask, scheduleState, ioBound);
 
             // Schedule the task to run
-            final ScheduledFuture<?> future = flowEngine.scheduleWithFixedDelay(trigger, 0L,
-                connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            final ScheduledFuture<?> future = trigger.schedule(0L);
 
             // now that we have the future, set the atomic reference so that if the component is yielded we
             // are able to then cancel this future.
-            futureRef.set(future);
+            trigger.futureRef.set(future);
 
             // Keep track of the futures so that we can update the ScheduleState.
             futures.add(future);
         }
 
         scheduleState.setFutures(futures);
-        logger.info("Scheduled {} to run with {} threads", connectable, connectable.getMaxConcurrentTasks());
+        if (ioBound) {
+            logger.info("Scheduled {} to run with {} I/O-bound threads", connectable, connectable.getMaxConcurrentTasks());
+        } else {
+            logger.info("Scheduled {} to run with {} threads", connectable, connectable.getMaxConcurrentTasks());
+        }
     }
 
-    private Runnable createTrigger(final ConnectableTask connectableTask, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef) {
-        final Connectable connectable = connectableTask.getConnectable();
-        final Runnable yieldDetectionRunnable = new Runnable() {
-            @Override
-            public void run() {
-                // Call the task. It will return a boolean indicating whether or not we should yield
-                // based on a lack of work for to do for the component.
+    private boolean isIoBound(final Connectable connectable) {
+        return ioBoundEngine != null && connectable.getConnectableType() == ConnectableType.PROCESSOR && ((ProcessorNode) connectable).isIOBound();
+    }
+
+    /**
+     * @return a number between 0 and 1 that indicates how much of the component's time slice it should be given: the fuller the fullest of its
+     * incoming queues and the emptier the fullest of its outgoing queues, relative to their back pressure thresholds, the larger the weight
+     */
+    static double getBacklogWeight(final Connectable connectable) {
+        double backlog = 0D;
+        for (final Connection connection : connectable.getIncomingConnections()) {
+            if (connection.getSource() != connectable) {
+                backlog = Math.max(backlog, getFullness(connection.getFlowFileQueue()));
+            }
+        }
+
+        if (backlog == 0D) {
+            return 0D;
+        }
+
+        double headroom = 1D;
+        for (final Connection connection : connectable.getConnections()) {
+            headroom = Math.min(headroom, 1D - getFullness(connection.getFlowFileQueue()));
+        }
+
+        return backlog * headroom;
+    }
+
+    private static double getFullness(final FlowFileQueue queue) {
+        final int queued = queue.size().getObjectCount();
+        final long threshold = queue.getBackPressureObjectThreshold();
+        if (threshold <= 0L) {
+            return queued > 0 ? 1D : 0D;
+        }
+
+        return Math.min(1D, (double) queued / threshold);
+    }
+
+    private class Trigger implements Runnable {
+        private final ConnectableTask connectableTask;
+        private final Connectable connectable;
+        private final LifecycleState scheduleState;
+        private final boolean ioBound;
+        private final AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
+        private final AtomicBoolean idle = new AtomicBoolean(false);
+        // A lock rather than a synchronized method, so that a virtual thread that blocks while triggering the component does not pin its carrier thread
+        private final Lock runLock = new ReentrantLock();
+
+        private Trigger(final ConnectableTask connectableTask, final LifecycleState scheduleState, final boolean ioBound) {
+            this.connectableTask = connectableTask;
+            this.connectable = connectableTask.getConnectable();
+            this.scheduleState = scheduleState;
+            this.ioBound = ioBound;
+        }
+
+        /**
+         * Schedules the Trigger to run on the engine for its component after the given delay, and then repeatedly according to the component's Run Schedule
+         */
+        private ScheduledFuture<?> schedule(final long delayNanos) {
+            final long schedulingNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
+            if (ioBound) {
+                return ioBoundEngine.scheduleWithFixedDelay(this, delayNanos, schedulingNanos, TimeUnit.NANOSECONDS);
+            }
+
+            return flowEngine.scheduleWithFixedDelay(this, delayNanos, schedulingNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            runLock.lock();
+            try {
+                triggerComponent();
+            } finally {
+                runLock.unlock();
+            }
+        }
+
+        private void triggerComponent() {
+            idle.set(false);
+
+            // Call the task. It will return a boolean indicating whether or not we should yield
+            // based on a lack of work for to do for the component.
+            InvocationResult invocationResult = connectableTask.invoke();
+            if (backlogAware && !invocationResult.isYield()) {
+                invocationResult = runTimeSlice();
+            }
+
+            if (invocationResult.isYield()) {
+                logger.debug("Yielding {} due to {}", connectable, invocationResult.getYieldExplanation());
+            }
+
+            // If the component is yielded, cancel its future and re-submit it to run again
+            // after the yield has expired.
+            final long newYieldExpiration = connectable.getYieldExpiration();
+            final long now = System.currentTimeMillis();
+            if (newYieldExpiration > now) {
+                final long yieldMillis = newYieldExpiration - now;
+                final long scheduleMillis = connectable.getSchedulingPeriod(TimeUnit.MILLISECONDS);
+                reschedule(Math.max(TimeUnit.MILLISECONDS.toNanos(scheduleMillis), TimeUnit.MILLISECONDS.toNanos(yieldMillis)));
+            } else if (backlogAware && invocationResult.isYield()) {
+                // There was no work to do, or back pressure prevented the component from running. Rather than polling for work,
+                // wait until a FlowFile is queued for the component or taken from one of its outgoing queues.
+                reschedule(maxIdleNanos);
+                idleTriggers.computeIfAbsent(connectable, key -> ConcurrentHashMap.newKeySet()).add(this);
+                idle.set(true);
+
+                // Work may have arrived before this Trigger was registered as idle, in which case there will be no event to wake it.
+                if (connectableTask.isWorkAvailable()) {
+                    wake();
+                }
+            } else if (noWorkYieldNanos > 0L && invocationResult.isYield()) {
+                // Component itself didn't yield but there was no work to do, so the framework will choose
+                // to yield the component automatically for a short period of time.
+                reschedule(noWorkYieldNanos);
+            }
+        }
+
+        /**
+         * Keeps triggering the component for as long as its time slice allows, which is proportional to its backlog and to the back pressure
+         * headroom of its outgoing connections. Components with a Run Schedule are triggered only once, so that the Run Schedule is honored.
+         */
+        private InvocationResult runTimeSlice() {
+            if (connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS) > 0L) {
+                return InvocationResult.DO_NOT_YIELD;
+            }
+
+            final long sliceNanos = (long) (maxTimeSliceNanos * getBacklogWeight(connectable));
+            if (sliceNanos <= 0L) {
+                return InvocationResult.DO_NOT_YIELD;
+            }
+
+            final long sliceEnd = System.nanoTime() + sliceNanos;
+            while (System.nanoTime() < sliceEnd && scheduleState.isScheduled() && !scheduleState.isTerminated()
+                    && connectable.getScheduledState() == ScheduledState.RUNNING && connectable.getYieldExpiration() <= System.currentTimeMillis()) {
+
                 final InvocationResult invocationResult = connectableTask.invoke();
                 if (invocationResult.isYield()) {
-                    logger.debug("Yielding {} due to {}", connectable, invocationResult.getYieldExplanation());
+                    return invocationResult;
                 }
+            }
 
-                // If the component is yielded, cancel its future and re-submit it to run again
-                // after the yield has expired.
-                final long newYieldExpiration = connectable.getYieldExpiration();
-                final long now = System.currentTimeMillis();
-                if (newYieldExpiration > now) {
-                    final long yieldMillis = newYieldExpiration - now;
-                    final long scheduleMillis = connectable.getSchedulingPeriod(TimeUnit.MILLISECONDS);
-                    final ScheduledFuture<?> scheduledFuture = futureRef.get();
-                    if (scheduledFuture == null) {
-                        return;
-                    }
-
-                    // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
-                    // an accurate accounting of which futures are outstanding; we must then also update the futureRef
-                    // so that we can do this again the next time that the component is yielded.
-                    if (scheduledFuture.cancel(false)) {
-                        final long yieldNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(scheduleMillis), TimeUnit.MILLISECONDS.toNanos(yieldMillis));
-
-                        synchronized (scheduleState) {
-                            if (scheduleState.isScheduled()) {
-                                final long schedulingNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
-                                final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, yieldNanos, schedulingNanos, TimeUnit.NANOSECONDS);
-
-                                scheduleState.replaceFuture(scheduledFuture, newFuture);
-                                futureRef.set(newFuture);
-                            }
-                        }
-                    }
-                } else if (noWorkYieldNanos > 0L && invocationResult.isYield()) {
-                    // Component itself didn't yield but there was no work to do, so the framework will choose
-                    // to yield the component automatically for a short period of time.
-                    final ScheduledFuture<?> scheduledFuture = futureRef.get();
-                    if (scheduledFuture == null) {
-                        return;
-                    }
-
-                    // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
-                    // an accurate accounting of which futures are outstanding; we must then also update the futureRef
-                    // so that we can do this again the next time that the component is yielded.
-                    if (scheduledFuture.cancel(false)) {
-                        synchronized (scheduleState) {
-                            if (scheduleState.isScheduled()) {
-                                final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, noWorkYieldNanos,
-                                    connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
-
-                                scheduleState.replaceFuture(scheduledFuture, newFuture);
-                                futureRef.set(newFuture);
-                            }
-                        }
-                    }
-                }
+            return InvocationResult.DO_NOT_YIELD;
+        }
+
+        /**
+         * Causes the Trigger to run immediately if it is waiting for work
+         */
+        private void wake() {
+            if (idle.compareAndSet(true, false)) {
+                reschedule(0L);
             }
-        };
+        }
 
-        return yieldDetectionRunnable;
+        /**
+         * Cancels the Trigger's future and submits it to run again after the given delay
+         */
+        private void reschedule(final long delayNanos) {
+            // If we are able to cancel the future, create a new one and update the ScheduleState so that it has
+            // an accurate accounting of which futures are outstanding; we must then also update the futureRef
+            // so that we can do this again the next time that the component is yielded.
+            synchronized (scheduleState) {
+                final ScheduledFuture<?> scheduledFuture = futureRef.get();
+                if (scheduledFuture == null || !scheduledFuture.cancel(false)) {
+                    return;
+                }
+
+                if (scheduleState.isScheduled()) {
+                    final ScheduledFuture<?> newFuture = schedule(delayNanos);
+
+                    scheduleState.replaceFuture(scheduledFuture, newFuture);
+                    futureRef.set(newFuture);
+                }
+            }
+        }
     }
 
     @Override
@@ -168,6 +373,7 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
             // stop scheduling to run but do not interrupt currently running tasks.
             future.cancel(false);
         }
+        idleTriggers.remove(connectable);
 
         logger.info("Stopped scheduling {} to run", connectable);
     }
@@ -182,8 +388,34 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
         logger.info("Stopped scheduling {} to run", taskNode.getReportingTask());
     }
 
+    /**
+     * Events are acted upon only if backlog-aware scheduling is enabled; otherwise, components are triggered only on their schedule.
+     */
+    @Override
+    public boolean isEventNotificationRequired() {
+        return backlogAware;
+    }
+
+    /**
+     * Wakes any of the component's Triggers that are waiting for work, if backlog-aware scheduling is enabled. This is called whenever FlowFiles are
+     * queued for the component or taken from one of its outgoing queues.
+     */
     @Override
     public void onEvent(final Connectable connectable) {
+        if (!backlogAware) {
+            return;
+        }
+
+        final Set<Trigger> triggers = idleTriggers.get(connectable);
+        if (triggers == null || triggers.isEmpty()) {
+            return;
+        }
+
+        for (final Trigger trigger : triggers) {
+            if (triggers.remove(trigger)) {
+                trigger.wake();
+            }
+        }
     }
 
     @Override
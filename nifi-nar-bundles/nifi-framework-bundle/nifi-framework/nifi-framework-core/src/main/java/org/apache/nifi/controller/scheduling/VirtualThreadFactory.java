@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates {@link ThreadFactory} instances that produce virtual threads when the running JVM supports them. NiFi is compiled
+ * against a Java release that predates virtual threads, so the factory is obtained reflectively through
+ * <code>Thread.ofVirtual()</code>. On older runtimes, or on runtimes where virtual threads are a disabled preview feature,
+ * no factory is returned and callers should fall back to platform threads.
+ */
+final class VirtualThreadFactory {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadFactory.class);
+
+    private VirtualThreadFactory() {
+    }
+
+    /**
+     * @param threadNamePrefix the prefix for the names of the threads that are created
+     * @return a ThreadFactory that creates virtual threads, or an empty Optional if the JVM does not support virtual threads
+     */
+    static Optional<ThreadFactory> create(final String threadNamePrefix) {
+        try {
+            final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Method name = builderClass.getMethod("name", String.class, long.class);
+            final Method factory = builderClass.getMethod("factory");
+
+            Object builder = ofVirtual.invoke(null);
+            builder = name.invoke(builder, threadNamePrefix + " Thread-", 1L);
+            return Optional.of((ThreadFactory) factory.invoke(builder));
+        } catch (final Exception e) {
+            logger.debug("Virtual threads are not available in this JVM", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param threadNamePrefix the prefix for the names of the threads that are created
+     * @return an ExecutorService that runs each task that it is given on a new virtual thread, or an empty Optional if the JVM does not
+     * support virtual threads
+     */
+    static Optional<ExecutorService> createThreadPerTaskExecutor(final String threadNamePrefix) {
+        final Optional<ThreadFactory> threadFactory = create(threadNamePrefix);
+        if (!threadFactory.isPresent()) {
+            return Optional.empty();
+        }
+
+        try {
+            final Method newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return Optional.of((ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory.get()));
+        } catch (final Exception e) {
+            logger.debug("Virtual threads are not available in this JVM", e);
+            return Optional.empty();
+        }
+    }
+}
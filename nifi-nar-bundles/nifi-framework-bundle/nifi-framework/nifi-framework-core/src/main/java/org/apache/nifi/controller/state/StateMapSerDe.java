@@ -35,6 +35,11 @@ public class StateMapSerDe implements SerDe<StateMapUpdate> {
         serializeRecord(newRecordState, out);
     }
 
+    @Override
+    public boolean isPreviousStateRequired() {
+        return false;
+    }
+
     @Override
     public void serializeRecord(final StateMapUpdate record, final DataOutputStream out) throws IOException {
         out.writeUTF(record.getComponentId());
@@ -164,7 +164,21 @@ public enum ProcessorStatusDescriptor {
             }
         },
         true
-    );
+    ),
+
+    CPU_MILLIS(
+        "cpuMillis",
+        "CPU Time (5 mins)",
+        "The total number of CPU milliseconds that the threads running this Processor spent on it in the past 5 minutes. Only populated when component profiling is enabled.",
+        Formatter.DURATION,
+        s -> TimeUnit.MILLISECONDS.convert(s.getCpuNanos(), TimeUnit.NANOSECONDS)),
+
+    ALLOCATED_BYTES(
+        "allocatedBytes",
+        "Heap Allocated (5 mins)",
+        "The total number of bytes of heap that the threads running this Processor allocated while running it in the past 5 minutes. Only populated when component profiling is enabled.",
+        Formatter.DATA_SIZE,
+        ProcessorStatus::getAllocatedBytes);
 
 
 
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+
+public class ColumnarSwapDeserializer implements SwapDeserializer {
+
+    @Override
+    public SwapContents deserializeFlowFiles(final DataInputStream in, final String swapLocation, final FlowFileQueue queue, final ResourceClaimManager claimManager) throws IOException {
+        final Header header = readHeader(in, swapLocation, claimManager);
+        final int flowFileCount = header.getFlowFileCount();
+
+        final Inflater inflater = new Inflater();
+        try {
+            final DataInputStream bodyIn = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in, inflater, 65536), 65536));
+
+            final String[] keys = readDictionary(bodyIn);
+            final String[] values = readDictionary(bodyIn);
+
+            final long[] ids = readLongColumn(bodyIn, flowFileCount);
+            final long[] entryDates = readLongColumn(bodyIn, flowFileCount);
+            final long[] lineageStartDates = readLongColumn(bodyIn, flowFileCount);
+            final long[] lineageStartIndices = readLongColumn(bodyIn, flowFileCount);
+            final long[] lastQueueDates = readLongColumn(bodyIn, flowFileCount);
+            final long[] queueDateIndices = readLongColumn(bodyIn, flowFileCount);
+            final long[] sizes = readLongColumn(bodyIn, flowFileCount);
+
+            final int[] claimIndices = new int[flowFileCount];
+            for (int i = 0; i < flowFileCount; i++) {
+                claimIndices[i] = bodyIn.readInt();
+            }
+
+            final StandardFlowFileRecord.Builder[] builders = new StandardFlowFileRecord.Builder[flowFileCount];
+            for (int i = 0; i < flowFileCount; i++) {
+                final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+                    .id(ids[i])
+                    .entryDate(entryDates[i])
+                    .lineageStart(lineageStartDates[i], lineageStartIndices[i])
+                    .lastQueued(lastQueueDates[i], queueDateIndices[i])
+                    .size(sizes[i]);
+
+                final int claimIndex = claimIndices[i];
+                if (claimIndex != ColumnarSwapSerializer.NO_CONTENT_CLAIM) {
+                    final long resourceOffset = bodyIn.readLong();
+                    final long length = bodyIn.readLong();
+                    final long contentClaimOffset = bodyIn.readLong();
+
+                    final StandardContentClaim contentClaim = new StandardContentClaim(header.getResourceClaim(claimIndex), resourceOffset);
+                    contentClaim.setLength(length);
+                    builder.contentClaim(contentClaim);
+                    builder.contentClaimOffset(contentClaimOffset);
+                }
+
+                builders[i] = builder;
+            }
+
+            final int[] attributeCounts = new int[flowFileCount];
+            for (int i = 0; i < flowFileCount; i++) {
+                attributeCounts[i] = bodyIn.readInt();
+            }
+
+            final List<FlowFileRecord> flowFiles = new ArrayList<>(flowFileCount);
+            for (int i = 0; i < flowFileCount; i++) {
+                final StandardFlowFileRecord.Builder builder = builders[i];
+                for (int j = 0; j < attributeCounts[i]; j++) {
+                    builder.addAttribute(keys[bodyIn.readInt()], values[bodyIn.readInt()]);
+                }
+
+                flowFiles.add(builder.build());
+            }
+
+            return new StandardSwapContents(header.getSwapSummary(), flowFiles);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public SwapSummary getSwapSummary(final DataInputStream in, final String swapLocation, final ResourceClaimManager claimManager) throws IOException {
+        return readHeader(in, swapLocation, claimManager).getSwapSummary();
+    }
+
+    private Header readHeader(final DataInputStream in, final String swapLocation, final ResourceClaimManager claimManager) throws IOException {
+        final int encodingVersion = in.readInt();
+        if (encodingVersion > ColumnarSwapSerializer.ENCODING_VERSION) {
+            throw new IOException("Cannot swap FlowFiles in from " + swapLocation + " because the encoding version is " + encodingVersion
+                + ", which is too new (expecting " + ColumnarSwapSerializer.ENCODING_VERSION + " or less)");
+        }
+
+        in.readUTF(); // queue identifier
+        final int flowFileCount = in.readInt();
+        final long contentSize = in.readLong();
+        final long maxFlowFileId = in.readLong();
+        final boolean minLastQueueDateKnown = in.readBoolean();
+        final long minLastQueueDate = in.readLong();
+        final long totalLastQueueDate = in.readLong();
+
+        final int claimCount = in.readInt();
+        final ResourceClaim[] resourceClaims = new ResourceClaim[claimCount];
+        final List<ResourceClaim> summaryClaims = new ArrayList<>();
+        for (int i = 0; i < claimCount; i++) {
+            final String container = in.readUTF();
+            final String section = in.readUTF();
+            final String identifier = in.readUTF();
+            final boolean lossTolerant = in.readBoolean();
+            final int references = in.readInt();
+
+            // Make sure that we preserve the existing ResourceClaim, if there is already one held by the Resource Claim Manager,
+            // because we need to honor its determination of whether or not the claim is writable.
+            ResourceClaim resourceClaim = claimManager.getResourceClaim(container, section, identifier);
+            if (resourceClaim == null) {
+                resourceClaim = claimManager.newResourceClaim(container, section, identifier, lossTolerant, false);
+            }
+
+            resourceClaims[i] = resourceClaim;
+            for (int j = 0; j < references; j++) {
+                summaryClaims.add(resourceClaim);
+            }
+        }
+
+        final QueueSize queueSize = new QueueSize(flowFileCount, contentSize);
+        final SwapSummary swapSummary = new StandardSwapSummary(queueSize, maxFlowFileId, summaryClaims, minLastQueueDateKnown ? minLastQueueDate : null, totalLastQueueDate);
+        return new Header(swapSummary, resourceClaims);
+    }
+
+    private static String[] readDictionary(final DataInputStream in) throws IOException {
+        final String[] entries = new String[in.readInt()];
+        for (int i = 0; i < entries.length; i++) {
+            final byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            entries[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return entries;
+    }
+
+    private static long[] readLongColumn(final DataInputStream in, final int count) throws IOException {
+        final long[] column = new long[count];
+        long previous = 0L;
+        for (int i = 0; i < count; i++) {
+            previous += in.readLong();
+            column[i] = previous;
+        }
+
+        return column;
+    }
+
+    public static String getSerializationName() {
+        return ColumnarSwapSerializer.SERIALIZATION_NAME;
+    }
+
+    private static class Header {
+        private final SwapSummary swapSummary;
+        private final ResourceClaim[] resourceClaims;
+
+        private Header(final SwapSummary swapSummary, final ResourceClaim[] resourceClaims) {
+            this.swapSummary = swapSummary;
+            this.resourceClaims = resourceClaims;
+        }
+
+        private SwapSummary getSwapSummary() {
+            return swapSummary;
+        }
+
+        private int getFlowFileCount() {
+            return swapSummary.getQueueSize().getObjectCount();
+        }
+
+        private ResourceClaim getResourceClaim(final int index) {
+            return resourceClaims[index];
+        }
+    }
+}
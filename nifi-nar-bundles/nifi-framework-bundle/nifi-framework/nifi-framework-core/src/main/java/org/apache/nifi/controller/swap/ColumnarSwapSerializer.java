@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+
+/**
+ * <p>
+ * Writes swap files in a columnar layout. Rather than writing each FlowFile as a complete record, the values of each field are written
+ * together for all FlowFiles in the swap file, which allows repetitive values, such as dates and sizes, to compress well.
+ * </p>
+ *
+ * <p>
+ * A swap file consists of an uncompressed header, which contains everything that is needed in order to recover the {@link org.apache.nifi.controller.repository.SwapSummary},
+ * followed by a compressed body that contains the FlowFiles. Attribute keys and values are each written once per swap file, in a dictionary, and
+ * FlowFiles refer to them by index. As a result, the FlowFiles that are read back from the swap file share a single instance of each attribute
+ * key and value.
+ * </p>
+ */
+public class ColumnarSwapSerializer implements SwapSerializer {
+    static final String SERIALIZATION_NAME = "Columnar Swap Serialization";
+    static final int ENCODING_VERSION = 1;
+    static final int NO_CONTENT_CLAIM = -1;
+
+    @Override
+    public void serializeFlowFiles(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final String swapLocation, final OutputStream out) throws IOException {
+        final DataOutputStream headerOut = new DataOutputStream(out);
+        headerOut.writeInt(ENCODING_VERSION);
+        writeHeader(toSwap, queue, headerOut);
+        headerOut.flush();
+
+        // Do not close the DeflaterOutputStream, as that would close the underlying stream, which is owned by the caller.
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            final DeflaterOutputStream deflaterOut = new DeflaterOutputStream(out, deflater, 65536);
+            final DataOutputStream bodyOut = new DataOutputStream(new BufferedOutputStream(deflaterOut, 65536));
+            writeBody(toSwap, bodyOut);
+            bodyOut.flush();
+            deflaterOut.finish();
+            out.flush();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeHeader(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final DataOutputStream out) throws IOException {
+        long contentSize = 0L;
+        long maxFlowFileId = -1L;
+        Long minLastQueueDate = null;
+        long totalLastQueueDate = 0L;
+        final Map<ResourceClaim, Integer> claimCounts = new LinkedHashMap<>();
+        for (final FlowFileRecord flowFile : toSwap) {
+            contentSize += flowFile.getSize();
+            maxFlowFileId = Math.max(maxFlowFileId, flowFile.getId());
+
+            final long lastQueueDate = getLastQueueDate(flowFile);
+            totalLastQueueDate += lastQueueDate;
+            minLastQueueDate = minLastQueueDate == null ? lastQueueDate : Long.min(minLastQueueDate, lastQueueDate);
+
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim != null) {
+                claimCounts.merge(contentClaim.getResourceClaim(), 1, Integer::sum);
+            }
+        }
+
+        out.writeUTF(queue.getIdentifier());
+        out.writeInt(toSwap.size());
+        out.writeLong(contentSize);
+        out.writeLong(maxFlowFileId);
+        out.writeBoolean(minLastQueueDate != null);
+        out.writeLong(minLastQueueDate == null ? 0L : minLastQueueDate);
+        out.writeLong(totalLastQueueDate);
+
+        // The Resource Claims are written in the order in which they are first referenced, so the body refers to them by that index.
+        out.writeInt(claimCounts.size());
+        for (final Map.Entry<ResourceClaim, Integer> entry : claimCounts.entrySet()) {
+            final ResourceClaim resourceClaim = entry.getKey();
+            out.writeUTF(resourceClaim.getContainer());
+            out.writeUTF(resourceClaim.getSection());
+            out.writeUTF(resourceClaim.getId());
+            out.writeBoolean(resourceClaim.isLossTolerant());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private void writeBody(final List<FlowFileRecord> toSwap, final DataOutputStream out) throws IOException {
+        final Map<ResourceClaim, Integer> claimIndices = new HashMap<>();
+        final Dictionary keys = new Dictionary();
+        final Dictionary values = new Dictionary();
+
+        final int flowFileCount = toSwap.size();
+        final int[] attributeCounts = new int[flowFileCount];
+        final List<int[]> attributeIndices = new ArrayList<>(flowFileCount);
+        for (int i = 0; i < flowFileCount; i++) {
+            final Map<String, String> attributes = toSwap.get(i).getAttributes();
+            final int[] indices = new int[attributes.size() * 2];
+            int index = 0;
+            for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+                indices[index++] = keys.indexOf(entry.getKey());
+                indices[index++] = values.indexOf(entry.getValue());
+            }
+
+            attributeCounts[i] = attributes.size();
+            attributeIndices.add(indices);
+        }
+
+        keys.writeTo(out);
+        values.writeTo(out);
+
+        writeLongColumn(toSwap, out, FlowFileRecord::getId);
+        writeLongColumn(toSwap, out, FlowFileRecord::getEntryDate);
+        writeLongColumn(toSwap, out, FlowFileRecord::getLineageStartDate);
+        writeLongColumn(toSwap, out, FlowFileRecord::getLineageStartIndex);
+        writeLongColumn(toSwap, out, ColumnarSwapSerializer::getLastQueueDate);
+        writeLongColumn(toSwap, out, FlowFileRecord::getQueueDateIndex);
+        writeLongColumn(toSwap, out, FlowFileRecord::getSize);
+
+        for (final FlowFileRecord flowFile : toSwap) {
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim == null) {
+                out.writeInt(NO_CONTENT_CLAIM);
+            } else {
+                out.writeInt(claimIndices.computeIfAbsent(contentClaim.getResourceClaim(), claim -> claimIndices.size()));
+            }
+        }
+        for (final FlowFileRecord flowFile : toSwap) {
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim != null) {
+                out.writeLong(contentClaim.getOffset());
+                out.writeLong(contentClaim.getLength());
+                out.writeLong(flowFile.getContentClaimOffset());
+            }
+        }
+
+        for (final int attributeCount : attributeCounts) {
+            out.writeInt(attributeCount);
+        }
+        for (final int[] indices : attributeIndices) {
+            for (final int index : indices) {
+                out.writeInt(index);
+            }
+        }
+    }
+
+    /**
+     * Writes the given field of each FlowFile as the difference from the value of the previous FlowFile, as consecutive FlowFiles
+     * typically have identical or similar values
+     */
+    private void writeLongColumn(final List<FlowFileRecord> toSwap, final DataOutputStream out, final LongField field) throws IOException {
+        long previous = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            final long value = field.getValue(flowFile);
+            out.writeLong(value - previous);
+            previous = value;
+        }
+    }
+
+    private static long getLastQueueDate(final FlowFileRecord flowFile) {
+        final Long lastQueueDate = flowFile.getLastQueueDate();
+        return lastQueueDate == null ? 0L : lastQueueDate;
+    }
+
+    private static void writeString(final String value, final DataOutputStream out) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public String getSerializationName() {
+        return SERIALIZATION_NAME;
+    }
+
+    private interface LongField {
+        long getValue(FlowFileRecord flowFile);
+    }
+
+    private static class Dictionary {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> entries = new ArrayList<>();
+
+        private int indexOf(final String value) {
+            final Integer existing = indices.get(value);
+            if (existing != null) {
+                return existing;
+            }
+
+            final int index = entries.size();
+            indices.put(value, index);
+            entries.add(value);
+            return index;
+        }
+
+        private void writeTo(final DataOutputStream out) throws IOException {
+            out.writeInt(entries.size());
+            for (final String entry : entries) {
+                writeString(entry, out);
+            }
+        }
+    }
+}
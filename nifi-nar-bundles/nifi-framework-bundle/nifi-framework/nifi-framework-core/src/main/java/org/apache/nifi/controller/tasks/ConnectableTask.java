@@ -27,6 +27,7 @@ import org.apache.nifi.controller.lifecycle.TaskTerminationAwareStateManager;
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.repository.ActiveProcessSessionFactory;
 import org.apache.nifi.controller.repository.BatchingSessionFactory;
+import org.apache.nifi.controller.repository.RecyclingProcessSessionFactory;
 import org.apache.nifi.controller.repository.RepositoryContext;
 import org.apache.nifi.controller.repository.StandardProcessSession;
 import org.apache.nifi.controller.repository.StandardProcessSessionFactory;
@@ -39,6 +40,7 @@ import org.apache.nifi.controller.scheduling.SchedulingAgent;
 import org.apache.nifi.encrypt.PropertyEncryptor;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.nar.NarCloseable;
+import org.apache.nifi.processor.AbstractProcessor;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.SimpleProcessLogger;
@@ -50,6 +52,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -59,6 +63,8 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class ConnectableTask {
 
+    public static final String SESSION_RECYCLING_ENABLED = "nifi.components.session.recycling.enabled";
+
     private static final Logger logger = LoggerFactory.getLogger(ConnectableTask.class);
 
     private final SchedulingAgent schedulingAgent;
@@ -68,7 +74,8 @@ public class ConnectableTask {
     private final ProcessContext processContext;
     private final FlowController flowController;
     private final int numRelationships;
-
+    private final ThreadResourceSampler threadResourceSampler;
+    private final Queue<StandardProcessSession> recycledSessions;
 
     public ConnectableTask(final SchedulingAgent schedulingAgent, final Connectable connectable,
             final FlowController flowController, final RepositoryContextFactory contextFactory, final LifecycleState scheduleState,
@@ -80,6 +87,10 @@ public class ConnectableTask {
         this.numRelationships = connectable.getRelationships().size();
         this.flowController = flowController;
 
+        final ThreadResourceSampler sampler = flowController.getThreadResourceSampler();
+        this.threadResourceSampler = sampler == null ? ThreadResourceSampler.DISABLED : sampler;
+        this.recycledSessions = flowController.isSessionRecyclingEnabled() && isSessionRecyclingSupported(connectable) ? new ConcurrentLinkedQueue<>() : null;
+
         final StateManager stateManager = new TaskTerminationAwareStateManager(flowController.getStateManagerProvider().getStateManager(connectable.getIdentifier()), scheduleState::isTerminated);
         if (connectable instanceof ProcessorNode) {
             processContext = new StandardProcessContext(
@@ -95,6 +106,23 @@ public class ConnectableTask {
         return connectable;
     }
 
+    /**
+     * Sessions can be recycled only for components that are known to be done with the sessions that they create when onTrigger returns.
+     * This is the case for Funnels, and for Processors that extend AbstractProcessor, as AbstractProcessor commits its session before returning.
+     * Processors that are given the Process Session Factory itself may hold on to sessions across invocations, and Ports may hand their
+     * sessions off to Site-to-Site transactions.
+     */
+    private static boolean isSessionRecyclingSupported(final Connectable connectable) {
+        switch (connectable.getConnectableType()) {
+            case FUNNEL:
+                return true;
+            case PROCESSOR:
+                return connectable.getRunnableComponent() instanceof AbstractProcessor;
+            default:
+                return false;
+        }
+    }
+
     private boolean isRunOnCluster(final FlowController flowController) {
         return !connectable.isIsolated() || !flowController.isConfiguredForClustering() || flowController.isPrimary();
     }
@@ -149,6 +177,23 @@ public class ConnectableTask {
             .anyMatch(FlowFileQueue::isFull);
     }
 
+    /**
+     * @return true if triggering the component now would result in it running, rather than yielding because this is not the
+     * Primary Node, because there is no work to do, or because back pressure is applied
+     */
+    public boolean isWorkAvailable() {
+        if (!isRunOnCluster(flowController) || !isWorkToDo()) {
+            return false;
+        }
+
+        if (numRelationships > 0) {
+            final int requiredNumberOfAvailableRelationships = connectable.isTriggerWhenAnyDestinationAvailable() ? 1 : numRelationships;
+            return repositoryContext.isRelationshipAvailabilitySatisfied(requiredNumberOfAvailableRelationships);
+        }
+
+        return true;
+    }
+
     public InvocationResult invoke() {
         if (scheduleState.isTerminated()) {
             logger.debug("Will not trigger {} because task is terminated", connectable);
@@ -186,14 +231,22 @@ public class ConnectableTask {
         final long batchNanos = connectable.getRunDuration(TimeUnit.NANOSECONDS);
         final ProcessSessionFactory sessionFactory;
         final StandardProcessSession rawSession;
+        final RecyclingProcessSessionFactory recyclingSessionFactory;
         final boolean batch;
         if (connectable.isSessionBatchingSupported() && batchNanos > 0L) {
             rawSession = new StandardProcessSession(repositoryContext, scheduleState::isTerminated);
             sessionFactory = new BatchingSessionFactory(rawSession);
+            recyclingSessionFactory = null;
             batch = true;
+        } else if (recycledSessions != null) {
+            rawSession = null;
+            recyclingSessionFactory = new RecyclingProcessSessionFactory(repositoryContext, scheduleState::isTerminated, recycledSessions);
+            sessionFactory = recyclingSessionFactory;
+            batch = false;
         } else {
             rawSession = null;
             sessionFactory = new StandardProcessSessionFactory(repositoryContext, scheduleState::isTerminated);
+            recyclingSessionFactory = null;
             batch = false;
         }
 
@@ -201,6 +254,8 @@ public class ConnectableTask {
         scheduleState.incrementActiveThreadCount(activeSessionFactory);
 
         final long startNanos = System.nanoTime();
+        final long startCpuNanos = threadResourceSampler.getCurrentThreadCpuNanos();
+        final long startAllocatedBytes = threadResourceSampler.getCurrentThreadAllocatedBytes();
         final long finishIfBackpressureEngaged = startNanos + (batchNanos / 25L);
         final long finishNanos = startNanos + batchNanos;
         int invocationCount = 0;
@@ -272,10 +327,14 @@ public class ConnectableTask {
                 }
 
                 final long processingNanos = System.nanoTime() - startNanos;
+                final long cpuNanos = threadResourceSampler.getCurrentThreadCpuNanos() - startCpuNanos;
+                final long allocatedBytes = threadResourceSampler.getCurrentThreadAllocatedBytes() - startAllocatedBytes;
 
                 try {
                     final StandardFlowFileEvent procEvent = new StandardFlowFileEvent();
                     procEvent.setProcessingNanos(processingNanos);
+                    procEvent.setCpuNanos(cpuNanos);
+                    procEvent.setAllocatedBytes(allocatedBytes);
                     procEvent.setInvocations(invocationCount);
                     repositoryContext.getFlowFileEventRepository().updateRepository(procEvent, connectable.getIdentifier());
                 } catch (final IOException e) {
@@ -285,6 +344,11 @@ public class ConnectableTask {
             } finally {
                 scheduleState.decrementActiveThreadCount(activeSessionFactory);
                 Thread.currentThread().setName(originalThreadName);
+
+                // The session is recycled only once it is no longer registered as active, so that terminating the task cannot reach it
+                if (recyclingSessionFactory != null && !scheduleState.isTerminated()) {
+                    recyclingSessionFactory.recycleSession();
+                }
             }
         }
 
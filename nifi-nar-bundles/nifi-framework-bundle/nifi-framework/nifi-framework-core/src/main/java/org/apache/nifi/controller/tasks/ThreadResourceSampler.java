@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.tasks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Samples the CPU time consumed and the heap bytes allocated by the current thread so that the cost of running
+ * a component can be attributed to that component. Each measurement is only taken if it is supported by the JVM;
+ * otherwise the sampler reports 0 for it.
+ */
+public class ThreadResourceSampler {
+    public static final String COMPONENT_PROFILING_ENABLED = "nifi.components.profiling.enabled";
+
+    public static final ThreadResourceSampler DISABLED = new ThreadResourceSampler(null, false, false);
+
+    private final ThreadMXBean threadMXBean;
+    private final boolean measureCpu;
+    private final boolean measureAllocations;
+
+    private ThreadResourceSampler(final ThreadMXBean threadMXBean, final boolean measureCpu, final boolean measureAllocations) {
+        this.threadMXBean = threadMXBean;
+        this.measureCpu = measureCpu;
+        this.measureAllocations = measureAllocations;
+    }
+
+    /**
+     * Creates a sampler backed by the platform's ThreadMXBean, enabling thread CPU time and allocation measurement if the JVM supports it
+     *
+     * @return a sampler for the current JVM, or {@link #DISABLED} if the JVM supports neither measurement
+     */
+    public static ThreadResourceSampler create() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        boolean measureCpu = false;
+        try {
+            if (threadMXBean.isCurrentThreadCpuTimeSupported()) {
+                if (!threadMXBean.isThreadCpuTimeEnabled()) {
+                    threadMXBean.setThreadCpuTimeEnabled(true);
+                }
+                measureCpu = true;
+            }
+        } catch (final UnsupportedOperationException | SecurityException e) {
+            measureCpu = false;
+        }
+
+        boolean measureAllocations = false;
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            try {
+                if (sunThreadMXBean.isThreadAllocatedMemorySupported()) {
+                    if (!sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                        sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+                    }
+                    measureAllocations = true;
+                }
+            } catch (final UnsupportedOperationException | SecurityException e) {
+                measureAllocations = false;
+            }
+        }
+
+        if (!measureCpu && !measureAllocations) {
+            return DISABLED;
+        }
+
+        return new ThreadResourceSampler(threadMXBean, measureCpu, measureAllocations);
+    }
+
+    public boolean isEnabled() {
+        return measureCpu || measureAllocations;
+    }
+
+    /**
+     * @return the total CPU time, in nanoseconds, used by the current thread, or 0 if not measured
+     */
+    public long getCurrentThreadCpuNanos() {
+        if (!measureCpu) {
+            return 0L;
+        }
+
+        final long cpuNanos = threadMXBean.getCurrentThreadCpuTime();
+        return cpuNanos < 0 ? 0L : cpuNanos;
+    }
+
+    /**
+     * @return the total number of heap bytes allocated by the current thread, or 0 if not measured
+     */
+    public long getCurrentThreadAllocatedBytes() {
+        if (!measureAllocations) {
+            return 0L;
+        }
+
+        final long allocatedBytes = ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return allocatedBytes < 0 ? 0L : allocatedBytes;
+    }
+}
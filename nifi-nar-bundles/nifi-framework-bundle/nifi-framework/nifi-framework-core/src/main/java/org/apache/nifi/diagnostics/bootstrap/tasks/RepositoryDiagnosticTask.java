@@ -17,7 +17,9 @@
 package org.apache.nifi.diagnostics.bootstrap.tasks;
 
 import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.repository.ClaimPackingStatistics;
 import org.apache.nifi.controller.repository.ContentRepository;
+import org.apache.nifi.controller.repository.FileSystemRepository;
 import org.apache.nifi.controller.repository.FlowFileRepository;
 import org.apache.nifi.controller.scheduling.RepositoryContextFactory;
 import org.apache.nifi.controller.status.ProcessGroupStatus;
@@ -30,6 +32,7 @@ import org.apache.nifi.util.FormatUtils;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class RepositoryDiagnosticTask implements DiagnosticTask {
     private final FlowController flowController;
@@ -84,6 +87,24 @@ public class RepositoryDiagnosticTask implements DiagnosticTask {
             details.add("Content Repository <" + containerName + "> Usable Space: " + FormatUtils.formatDataSize(repository.getContainerUsableSpace(containerName)));
         }
 
+        if (repository instanceof FileSystemRepository) {
+            final FileSystemRepository fileSystemRepository = (FileSystemRepository) repository;
+            for (final String containerName : repository.getContainerNames()) {
+                details.add("Content Repository <" + containerName + "> Archived Files: " + fileSystemRepository.getArchivedFileCount(containerName));
+                details.add("Content Repository <" + containerName + "> Archived Data: " + FormatUtils.formatDataSize(fileSystemRepository.getArchivedBytes(containerName)));
+            }
+
+            for (final ClaimPackingStatistics statistics : fileSystemRepository.getClaimPackingStatistics().values()) {
+                final String prefix = "Content Repository <" + statistics.getContainerName() + "> ";
+                details.add(prefix + "Typical Content Claim Size: " + FormatUtils.formatDataSize(statistics.getTypicalContentClaimLength()));
+                details.add(prefix + "Average Concurrent Writers: " + String.format("%.2f", statistics.getAverageConcurrentWriters()));
+                details.add(prefix + "Appendable Claim Size: " + FormatUtils.formatDataSize(statistics.getAppendableClaimLength()));
+                details.add(prefix + "Writable Claim Limit: " + statistics.getWritableClaimLimit());
+                details.add(prefix + "Content Claims Written: " + statistics.getContentClaimsWritten());
+                details.add(prefix + "Resource Claims Created: " + statistics.getResourceClaimsCreated());
+            }
+        }
+
         details.add("Bytes Read (Last 5 mins): " + FormatUtils.formatDataSize(status.getBytesRead()));
         details.add("Bytes Written (Last 5 mins): " + FormatUtils.formatDataSize(status.getBytesWritten()));
     }
@@ -95,6 +116,10 @@ public class RepositoryDiagnosticTask implements DiagnosticTask {
             details.add("Provenance Repository <" + containerName + "> Storage Capacity: " + FormatUtils.formatDataSize(repository.getContainerCapacity(containerName)));
             details.add("Provenance Repository <" + containerName + "> Usable Space: " + FormatUtils.formatDataSize(repository.getContainerUsableSpace(containerName)));
         }
+
+        for (final Map.Entry<String, Long> entry : repository.getIngestStatistics().entrySet()) {
+            details.add("Provenance Repository " + entry.getKey() + ": " + FormatUtils.formatCount(entry.getValue()));
+        }
     }
 
 }
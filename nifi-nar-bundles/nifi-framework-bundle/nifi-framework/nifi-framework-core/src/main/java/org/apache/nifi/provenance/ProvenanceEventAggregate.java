@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+/**
+ * The number of Provenance Events of one type that a component generated within one minute but that were not recorded because
+ * their FlowFiles were not sampled
+ */
+public class ProvenanceEventAggregate {
+    private final String componentId;
+    private final String componentType;
+    private final ProvenanceEventType eventType;
+    private final long timestamp;
+    private final long count;
+
+    public ProvenanceEventAggregate(final String componentId, final String componentType, final ProvenanceEventType eventType, final long timestamp, final long count) {
+        this.componentId = componentId;
+        this.componentType = componentType;
+        this.eventType = eventType;
+        this.timestamp = timestamp;
+        this.count = count;
+    }
+
+    public String getComponentId() {
+        return componentId;
+    }
+
+    public String getComponentType() {
+        return componentType;
+    }
+
+    public ProvenanceEventType getEventType() {
+        return eventType;
+    }
+
+    /**
+     * @return the start of the minute in which the events occurred, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "ProvenanceEventAggregate[componentId=" + componentId + ", eventType=" + eventType + ", timestamp=" + timestamp + ", count=" + count + "]";
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the Provenance Events that are not recorded because their FlowFiles were not sampled, per component, event type and minute.
+ * Counts are held in memory for the configured retention period.
+ */
+public class ProvenanceEventAggregator {
+    public static final String AGGREGATE_RETENTION = "nifi.provenance.sampling.aggregate.retention";
+    public static final String DEFAULT_AGGREGATE_RETENTION = "1 hour";
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1L);
+    private static final ProvenanceEventType[] EVENT_TYPES = ProvenanceEventType.values();
+
+    private final long retentionMillis;
+    private final ConcurrentMap<String, ComponentCounts> componentCounts = new ConcurrentHashMap<>();
+
+    public ProvenanceEventAggregator(final long retention, final TimeUnit timeUnit) {
+        this.retentionMillis = timeUnit.toMillis(retention);
+    }
+
+    public void add(final ProvenanceEventRecord event) {
+        final String componentId = event.getComponentId();
+        ComponentCounts counts = componentCounts.get(componentId);
+        if (counts == null) {
+            final ComponentCounts created = new ComponentCounts(event.getComponentType());
+            counts = componentCounts.putIfAbsent(componentId, created);
+            if (counts == null) {
+                counts = created;
+            }
+        }
+
+        counts.increment(event.getEventTime() - event.getEventTime() % MINUTE_MILLIS, event.getEventType());
+    }
+
+    /**
+     * @param componentId the identifier of the component whose counts should be returned, or <code>null</code> to return the counts of all components
+     * @param startTime the earliest event time of interest, in milliseconds since the epoch
+     * @param endTime the latest event time of interest, in milliseconds since the epoch
+     * @return the counts of each minute that overlaps the given time range, oldest first for each component
+     */
+    public List<ProvenanceEventAggregate> getAggregates(final String componentId, final long startTime, final long endTime) {
+        final List<ProvenanceEventAggregate> aggregates = new ArrayList<>();
+        final long startMinute = startTime - Math.floorMod(startTime, MINUTE_MILLIS);
+
+        for (final Map.Entry<String, ComponentCounts> entry : componentCounts.entrySet()) {
+            if (componentId != null && !componentId.equals(entry.getKey())) {
+                continue;
+            }
+
+            final ComponentCounts counts = entry.getValue();
+            for (final Map.Entry<Long, AtomicLongArray> minuteEntry : counts.minutes.subMap(startMinute, true, endTime, true).entrySet()) {
+                final AtomicLongArray eventTypeCounts = minuteEntry.getValue();
+                for (int i = 0; i < EVENT_TYPES.length; i++) {
+                    final long count = eventTypeCounts.get(i);
+                    if (count > 0) {
+                        aggregates.add(new ProvenanceEventAggregate(entry.getKey(), counts.componentType, EVENT_TYPES[i], minuteEntry.getKey(), count));
+                    }
+                }
+            }
+        }
+
+        return aggregates;
+    }
+
+    /**
+     * Discards the counts of the minutes that are older than the retention period
+     *
+     * @param now the current time, in milliseconds since the epoch
+     */
+    public void purge(final long now) {
+        final long cutoff = now - retentionMillis;
+
+        final Iterator<ComponentCounts> itr = componentCounts.values().iterator();
+        while (itr.hasNext()) {
+            final ComponentCounts counts = itr.next();
+            counts.minutes.headMap(cutoff).clear();
+            if (counts.minutes.isEmpty()) {
+                itr.remove();
+            }
+        }
+    }
+
+    private static class ComponentCounts {
+        private final String componentType;
+        private final NavigableMap<Long, AtomicLongArray> minutes = new ConcurrentSkipListMap<>();
+        private volatile MinuteCounts current;
+
+        private ComponentCounts(final String componentType) {
+            this.componentType = componentType;
+        }
+
+        private void increment(final long minute, final ProvenanceEventType eventType) {
+            // Nearly all events are counted in the current minute, so avoid looking up the minute for each of them
+            final MinuteCounts currentCounts = current;
+            final AtomicLongArray counts;
+            if (currentCounts != null && currentCounts.minute == minute) {
+                counts = currentCounts.counts;
+            } else {
+                counts = minutes.computeIfAbsent(minute, key -> new AtomicLongArray(EVENT_TYPES.length));
+                if (currentCounts == null || minute > currentCounts.minute) {
+                    current = new MinuteCounts(minute, counts);
+                }
+            }
+
+            counts.incrementAndGet(eventType.ordinal());
+        }
+    }
+
+    private static class MinuteCounts {
+        private final long minute;
+        private final AtomicLongArray counts;
+
+        private MinuteCounts(final long minute, final AtomicLongArray counts) {
+            this.minute = minute;
+            this.counts = counts;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.util.NiFiProperties;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Determines which Provenance Events are recorded when provenance sampling is configured. Each Process Group may be given a sampling rate
+ * between 0 and 1, which applies to the components in that group and in any descendant group that does not have a sampling rate of its own.
+ * Components in groups with no sampling rate use the default rate.
+ * </p>
+ *
+ * <p>
+ * Only events of the configured types are subject to sampling; all other events are always recorded. Whether or not an event is recorded
+ * depends only on the UUID of its FlowFile and the sampling rate, so for a FlowFile that is sampled, every one of its events is recorded,
+ * and its lineage is complete. The same FlowFiles are sampled on every node of a cluster and across restarts.
+ * </p>
+ */
+public class ProvenanceSamplingPolicy {
+    public static final String SAMPLING_RATE = "nifi.provenance.sampling.rate";
+    public static final String GROUP_SAMPLING_RATE_PREFIX = SAMPLING_RATE + ".";
+    public static final String SAMPLED_EVENT_TYPES = "nifi.provenance.sampling.event.types";
+    static final String DEFAULT_SAMPLED_EVENT_TYPES = "ROUTE, ATTRIBUTES_MODIFIED, CONTENT_MODIFIED";
+
+    private final double defaultRate;
+    private final Map<String, Double> groupRates;
+    private final Set<ProvenanceEventType> sampledEventTypes;
+    private final Function<String, ProcessGroup> groupLookup;
+    private final ConcurrentMap<String, Double> componentRates = new ConcurrentHashMap<>();
+
+    /**
+     * @param defaultRate the sampling rate of components whose group and ancestor groups have no sampling rate
+     * @param groupRates the sampling rate for each Process Group, keyed by the group's identifier
+     * @param sampledEventTypes the types of events that are subject to sampling
+     * @param groupLookup returns the Process Group of the component with a given identifier, or <code>null</code> if there is no such component
+     */
+    public ProvenanceSamplingPolicy(final double defaultRate, final Map<String, Double> groupRates, final Set<ProvenanceEventType> sampledEventTypes,
+                                    final Function<String, ProcessGroup> groupLookup) {
+        this.defaultRate = validateRate(SAMPLING_RATE, defaultRate);
+        groupRates.forEach((groupId, rate) -> validateRate(GROUP_SAMPLING_RATE_PREFIX + groupId, rate));
+        this.groupRates = Collections.unmodifiableMap(new HashMap<>(groupRates));
+        this.sampledEventTypes = sampledEventTypes.isEmpty() ? EnumSet.noneOf(ProvenanceEventType.class) : EnumSet.copyOf(sampledEventTypes);
+        this.groupLookup = groupLookup;
+    }
+
+    public static ProvenanceSamplingPolicy fromProperties(final NiFiProperties properties, final Function<String, ProcessGroup> groupLookup) {
+        final double defaultRate = parseRate(SAMPLING_RATE, properties.getProperty(SAMPLING_RATE, "1.0"));
+
+        final Map<String, Double> groupRates = new HashMap<>();
+        properties.getPropertiesWithPrefix(GROUP_SAMPLING_RATE_PREFIX).forEach((propertyName, value) -> {
+            final String groupId = propertyName.substring(GROUP_SAMPLING_RATE_PREFIX.length()).trim();
+            groupRates.put(groupId, parseRate(propertyName, value));
+        });
+
+        final Set<ProvenanceEventType> sampledEventTypes = EnumSet.noneOf(ProvenanceEventType.class);
+        for (final String eventTypeName : properties.getProperty(SAMPLED_EVENT_TYPES, DEFAULT_SAMPLED_EVENT_TYPES).split(",")) {
+            if (eventTypeName.trim().isEmpty()) {
+                continue;
+            }
+
+            try {
+                sampledEventTypes.add(ProvenanceEventType.valueOf(eventTypeName.trim().toUpperCase()));
+            } catch (final IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid value for property " + SAMPLED_EVENT_TYPES + ": " + eventTypeName.trim() + " is not a Provenance Event Type");
+            }
+        }
+
+        return new ProvenanceSamplingPolicy(defaultRate, groupRates, sampledEventTypes, groupLookup);
+    }
+
+    private static double parseRate(final String propertyName, final String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for property " + propertyName + ": " + value + " is not a number between 0 and 1");
+        }
+    }
+
+    private static double validateRate(final String propertyName, final double rate) {
+        if (rate < 0D || rate > 1D || Double.isNaN(rate)) {
+            throw new IllegalArgumentException("Invalid value for property " + propertyName + ": " + rate + " is not a number between 0 and 1");
+        }
+
+        return rate;
+    }
+
+    /**
+     * @return <code>true</code> if any events may not be recorded, <code>false</code> if every event is recorded
+     */
+    public boolean isSamplingEnabled() {
+        if (sampledEventTypes.isEmpty()) {
+            return false;
+        }
+
+        return defaultRate < 1D || groupRates.values().stream().anyMatch(rate -> rate < 1D);
+    }
+
+    /**
+     * @param event the event
+     * @return <code>true</code> if the event should be recorded, <code>false</code> if it should only be counted
+     */
+    public boolean isRecorded(final ProvenanceEventRecord event) {
+        if (!sampledEventTypes.contains(event.getEventType())) {
+            return true;
+        }
+
+        return isSampled(event.getFlowFileUuid(), getSamplingRate(event.getComponentId()));
+    }
+
+    double getSamplingRate(final String componentId) {
+        if (componentId == null) {
+            return defaultRate;
+        }
+
+        final Double cachedRate = componentRates.get(componentId);
+        if (cachedRate != null) {
+            return cachedRate;
+        }
+
+        double rate = defaultRate;
+        for (ProcessGroup group = groupLookup.apply(componentId); group != null; group = group.getParent()) {
+            final Double groupRate = groupRates.get(group.getIdentifier());
+            if (groupRate != null) {
+                rate = groupRate;
+                break;
+            }
+        }
+
+        componentRates.put(componentId, rate);
+        return rate;
+    }
+
+    /**
+     * Clears the cached sampling rate of each component, so that components that have been moved to another Process Group
+     * use the sampling rate of their new group
+     */
+    public void clearCache() {
+        componentRates.clear();
+    }
+
+    static boolean isSampled(final String flowFileUuid, final double rate) {
+        if (rate >= 1D || flowFileUuid == null) {
+            return true;
+        }
+        if (rate <= 0D) {
+            return false;
+        }
+
+        // Mix the bits of the hash code so that the sampled FlowFiles are spread evenly even if their UUIDs differ only slightly
+        int hash = flowFileUuid.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+
+        return (hash & Integer.MAX_VALUE) < rate * Integer.MAX_VALUE;
+    }
+}
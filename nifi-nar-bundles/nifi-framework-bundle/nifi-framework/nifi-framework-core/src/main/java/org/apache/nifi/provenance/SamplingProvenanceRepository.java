@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.authorization.Authorizer;
+import org.apache.nifi.authorization.user.NiFiUser;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.QuerySubmission;
+import org.apache.nifi.provenance.search.SearchableField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Provenance Repository that records only the events that its {@link ProvenanceSamplingPolicy} selects, delegating to another
+ * Provenance Repository to store and query them. The events that are not recorded are counted by a {@link ProvenanceEventAggregator}.
+ */
+public class SamplingProvenanceRepository implements ProvenanceRepository {
+    private static final Logger logger = LoggerFactory.getLogger(SamplingProvenanceRepository.class);
+
+    private final ProvenanceRepository delegate;
+    private final ProvenanceSamplingPolicy samplingPolicy;
+    private final ProvenanceEventAggregator aggregator;
+    private final FlowEngine maintenanceEngine;
+
+    public SamplingProvenanceRepository(final ProvenanceRepository delegate, final ProvenanceSamplingPolicy samplingPolicy, final ProvenanceEventAggregator aggregator) {
+        this.delegate = delegate;
+        this.samplingPolicy = samplingPolicy;
+        this.aggregator = aggregator;
+
+        maintenanceEngine = new FlowEngine(1, "Provenance Sampling Maintenance", true);
+        maintenanceEngine.scheduleWithFixedDelay(this::performMaintenance, 1, 1, TimeUnit.MINUTES);
+    }
+
+    private void performMaintenance() {
+        try {
+            aggregator.purge(System.currentTimeMillis());
+            samplingPolicy.clearCache();
+        } catch (final Exception e) {
+            logger.error("Failed to purge counts of unsampled Provenance Events", e);
+        }
+    }
+
+    public ProvenanceEventAggregator getAggregator() {
+        return aggregator;
+    }
+
+    @Override
+    public void initialize(final EventReporter eventReporter, final Authorizer authorizer, final ProvenanceAuthorizableFactory resourceFactory,
+                           final IdentifierLookup identifierLookup) throws IOException {
+        delegate.initialize(eventReporter, authorizer, resourceFactory, identifierLookup);
+    }
+
+    @Override
+    public ProvenanceEventBuilder eventBuilder() {
+        return delegate.eventBuilder();
+    }
+
+    @Override
+    public void registerEvent(final ProvenanceEventRecord event) {
+        if (samplingPolicy.isRecorded(event)) {
+            delegate.registerEvent(event);
+        } else {
+            aggregator.add(event);
+        }
+    }
+
+    @Override
+    public void registerEvents(final Iterable<ProvenanceEventRecord> events) {
+        // The Iterable may only be iterated once (see StandardProcessSession), so the recorded events are collected in a single pass
+        final List<ProvenanceEventRecord> recorded = new ArrayList<>();
+        for (final ProvenanceEventRecord event : events) {
+            if (samplingPolicy.isRecorded(event)) {
+                recorded.add(event);
+            } else {
+                aggregator.add(event);
+            }
+        }
+
+        if (!recorded.isEmpty()) {
+            delegate.registerEvents(recorded);
+        }
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEvents(final long firstRecordId, final int maxRecords) throws IOException {
+        return delegate.getEvents(firstRecordId, maxRecords);
+    }
+
+    @Override
+    public Long getMaxEventId() {
+        return delegate.getMaxEventId();
+    }
+
+    @Override
+    public ProvenanceEventRecord getEvent(final long id) throws IOException {
+        return delegate.getEvent(id);
+    }
+
+    @Override
+    public void close() throws IOException {
+        maintenanceEngine.shutdown();
+        delegate.close();
+    }
+
+    @Override
+    public ProvenanceEventRecord getEvent(final long id, final NiFiUser user) throws IOException {
+        return delegate.getEvent(id, user);
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEvents(final long firstRecordId, final int maxRecords, final NiFiUser user) throws IOException {
+        return delegate.getEvents(firstRecordId, maxRecords, user);
+    }
+
+    @Override
+    public ProvenanceEventRepository getProvenanceEventRepository() {
+        return this;
+    }
+
+    @Override
+    public QuerySubmission submitQuery(final Query query, final NiFiUser user) {
+        return delegate.submitQuery(query, user);
+    }
+
+    @Override
+    public QuerySubmission retrieveQuerySubmission(final String queryIdentifier, final NiFiUser user) {
+        return delegate.retrieveQuerySubmission(queryIdentifier, user);
+    }
+
+    @Override
+    public ComputeLineageSubmission submitLineageComputation(final String flowFileUuid, final NiFiUser user) {
+        return delegate.submitLineageComputation(flowFileUuid, user);
+    }
+
+    @Override
+    public ComputeLineageSubmission submitLineageComputation(final long eventId, final NiFiUser user) {
+        return delegate.submitLineageComputation(eventId, user);
+    }
+
+    @Override
+    public ComputeLineageSubmission retrieveLineageSubmission(final String lineageIdentifier, final NiFiUser user) {
+        return delegate.retrieveLineageSubmission(lineageIdentifier, user);
+    }
+
+    @Override
+    public ComputeLineageSubmission submitExpandParents(final long eventId, final NiFiUser user) {
+        return delegate.submitExpandParents(eventId, user);
+    }
+
+    @Override
+    public ComputeLineageSubmission submitExpandChildren(final long eventId, final NiFiUser user) {
+        return delegate.submitExpandChildren(eventId, user);
+    }
+
+    @Override
+    public List<SearchableField> getSearchableFields() {
+        return delegate.getSearchableFields();
+    }
+
+    @Override
+    public List<SearchableField> getSearchableAttributes() {
+        return delegate.getSearchableAttributes();
+    }
+
+    @Override
+    public Set<String> getContainerNames() {
+        return delegate.getContainerNames();
+    }
+
+    @Override
+    public long getContainerCapacity(final String containerName) throws IOException {
+        return delegate.getContainerCapacity(containerName);
+    }
+
+    @Override
+    public String getContainerFileStoreName(final String containerName) {
+        return delegate.getContainerFileStoreName(containerName);
+    }
+
+    @Override
+    public long getContainerUsableSpace(final String containerName) throws IOException {
+        return delegate.getContainerUsableSpace(containerName);
+    }
+
+    @Override
+    public Map<String, Long> getIngestStatistics() {
+        return delegate.getIngestStatistics();
+    }
+
+    @Override
+    public String toString() {
+        return "SamplingProvenanceRepository[delegate=" + delegate + "]";
+    }
+}
@@ -148,6 +148,30 @@ public class TestFileSystemSwapManager {
         assertEquals(10000, contents.getFlowFiles().size());
     }
 
+    @Test
+    public void testColumnarSwapFileRoundTrip() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        final FileSystemSwapManager swapManager = createSwapManager(flowFileRepo, true);
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            flowFileRecords.add(new MockFlowFileRecord(i));
+        }
+
+        final String swapLocation = swapManager.swapOut(flowFileRecords, flowFileQueue, "partition-1");
+        assertEquals(10000, swapManager.getSwapSummary(swapLocation).getQueueSize().getObjectCount());
+
+        final List<FlowFileRecord> swappedIn = swapManager.peek(swapLocation, flowFileQueue).getFlowFiles();
+        assertEquals(10000, swappedIn.size());
+        for (int i = 0; i < swappedIn.size(); i++) {
+            assertEquals(flowFileRecords.get(i).getId(), swappedIn.get(i).getId());
+            assertEquals(flowFileRecords.get(i).getAttributes(), swappedIn.get(i).getAttributes());
+        }
+    }
+
     private FileSystemSwapManager createSwapManager() throws IOException {
         final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
         return createSwapManager(flowFileRepo);
@@ -157,7 +181,11 @@ public class TestFileSystemSwapManager {
     public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     private FileSystemSwapManager createSwapManager(final FlowFileRepository flowFileRepo) throws IOException {
-        final FileSystemSwapManager swapManager = new FileSystemSwapManager(temporaryFolder.newFolder().toPath());
+        return createSwapManager(flowFileRepo, false);
+    }
+
+    private FileSystemSwapManager createSwapManager(final FlowFileRepository flowFileRepo, final boolean columnarSwapEnabled) throws IOException {
+        final FileSystemSwapManager swapManager = new FileSystemSwapManager(temporaryFolder.newFolder().toPath(), columnarSwapEnabled);
         final ResourceClaimManager resourceClaimManager = new NopResourceClaimManager();
         swapManager.initialize(new SwapManagerInitializationContext() {
             @Override
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.util.MockFlowFile;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestSegmentedPriorityQueue {
+
+    private final QueuePrioritizer prioritizer = new QueuePrioritizer(Collections.emptyList());
+
+    @Test
+    public void testRunsAreMerged() {
+        final SegmentedPriorityQueue queue = new SegmentedPriorityQueue(prioritizer);
+
+        final List<FlowFileRecord> evens = new ArrayList<>();
+        final List<FlowFileRecord> odds = new ArrayList<>();
+        for (int i = 99; i >= 0; i--) {
+            (i % 2 == 0 ? evens : odds).add(new MockFlowFile(i));
+        }
+
+        queue.addAll(evens);
+        queue.addAll(odds);
+        queue.add(new MockFlowFile(100));
+        assertEquals(101, queue.size());
+
+        for (int i = 0; i <= 100; i++) {
+            assertEquals(i, queue.peek().getId());
+            assertEquals(i, queue.poll().getId());
+        }
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    public void testSortedRunAddedWithoutSorting() {
+        final SegmentedPriorityQueue queue = new SegmentedPriorityQueue(prioritizer);
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>();
+        for (int i = 20; i > 0; i--) {
+            flowFiles.add(new MockFlowFile(i));
+        }
+
+        queue.addSortedRun(SegmentedPriorityQueue.sortRun(flowFiles, queue.comparator()));
+        queue.add(new MockFlowFile(0));
+
+        for (int i = 0; i <= 20; i++) {
+            assertEquals(i, queue.poll().getId());
+        }
+    }
+
+    @Test
+    public void testRandomOperationsMatchPriorityQueue() {
+        final SegmentedPriorityQueue queue = new SegmentedPriorityQueue(prioritizer);
+        final PriorityQueue<FlowFileRecord> expected = new PriorityQueue<>(prioritizer);
+        final Random random = new Random(42L);
+
+        long nextId = 0L;
+        for (int iteration = 0; iteration < 10_000; iteration++) {
+            final int operation = random.nextInt(3);
+            if (operation == 0) {
+                final List<FlowFileRecord> batch = new ArrayList<>();
+                final int batchSize = random.nextInt(50);
+                for (int i = 0; i < batchSize; i++) {
+                    batch.add(new MockFlowFile(random.nextInt(1_000_000)));
+                }
+                queue.addAll(batch);
+                expected.addAll(batch);
+            } else if (operation == 1) {
+                final FlowFileRecord flowFile = new MockFlowFile(nextId++);
+                queue.add(flowFile);
+                expected.add(flowFile);
+            } else {
+                final int pollCount = random.nextInt(40);
+                for (int i = 0; i < pollCount; i++) {
+                    final FlowFileRecord expectedFlowFile = expected.poll();
+                    final FlowFileRecord flowFile = queue.poll();
+                    assertEquals(expectedFlowFile == null ? null : expectedFlowFile.getId(), flowFile == null ? null : flowFile.getId());
+                }
+            }
+
+            assertEquals(expected.size(), queue.size());
+        }
+
+        final Set<FlowFileRecord> iterated = new HashSet<>();
+        queue.forEach(iterated::add);
+        assertEquals(new HashSet<>(expected), iterated);
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.peek());
+    }
+}
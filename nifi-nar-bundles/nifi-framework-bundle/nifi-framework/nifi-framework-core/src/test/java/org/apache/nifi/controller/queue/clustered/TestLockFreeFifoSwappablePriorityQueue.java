@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue.clustered;
+
+import org.apache.nifi.controller.queue.FlowFileQueueSize;
+import org.apache.nifi.controller.queue.LocalQueuePartitionDiagnostics;
+import org.apache.nifi.controller.queue.PollStrategy;
+import org.apache.nifi.controller.queue.SwappablePriorityQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.util.MockFlowFile;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the tests of {@link TestSwappablePriorityQueue} against a queue that holds its active FlowFiles in a lock-free FIFO queue while it is not prioritized
+ */
+public class TestLockFreeFifoSwappablePriorityQueue extends TestSwappablePriorityQueue {
+
+    @Override
+    protected SwappablePriorityQueue createQueue(final int swapThreshold, final String swapPartitionName) {
+        return new SwappablePriorityQueue(swapManager, swapThreshold, eventReporter, flowFileQueue, dropAction, swapPartitionName, true);
+    }
+
+    @Test
+    public void testUnprioritizedQueueIsFirstInFirstOut() {
+        final SwappablePriorityQueue queue = createQueue(100, "local");
+
+        // Without prioritizers, a locking queue would order these FlowFiles by ID
+        for (int i = 250; i > 0; i--) {
+            queue.put(createFlowFile(i, 250 - i));
+        }
+
+        for (int i = 250; i > 0; i--) {
+            final FlowFileRecord polled = queue.poll(Collections.emptySet(), 0L);
+            assertEquals(i, polled.getId());
+            queue.acknowledge(polled);
+        }
+
+        assertNull(queue.poll(Collections.emptySet(), 0L));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testPenalizedFlowFileDoesNotBlockQueue() {
+        final SwappablePriorityQueue queue = createQueue(100, "local");
+
+        final FlowFileRecord penalizedFlowFile = mock(FlowFileRecord.class);
+        when(penalizedFlowFile.isPenalized()).thenReturn(true);
+        when(penalizedFlowFile.getPenaltyExpirationMillis()).thenReturn(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1L));
+        queue.put(penalizedFlowFile);
+
+        final MockFlowFile flowFile = new MockFlowFile(1L);
+        queue.put(flowFile);
+
+        final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+        assertSame(flowFile, queue.poll(expiredRecords, 0L, PollStrategy.UNPENALIZED_FLOWFILES));
+        assertNull(queue.poll(expiredRecords, 0L, PollStrategy.UNPENALIZED_FLOWFILES));
+        assertEquals(1, queue.getFlowFileQueueSize().getActiveCount());
+        assertEquals(1, queue.getActiveFlowFiles().size());
+
+        assertSame(penalizedFlowFile, queue.poll(expiredRecords, 0L, PollStrategy.ALL_FLOWFILES));
+        assertEquals(0, queue.getFlowFileQueueSize().getActiveCount());
+        assertEquals(2, queue.getFlowFileQueueSize().getUnacknowledgedCount());
+    }
+
+    @Test
+    public void testQueueDiagnosticsReportPenalizedFlowFiles() {
+        final SwappablePriorityQueue queue = createQueue(100, "local");
+        assertFalse(queue.getQueueDiagnostics().isAnyActiveFlowFilePenalized());
+
+        final FlowFileRecord penalizedFlowFile = mock(FlowFileRecord.class);
+        when(penalizedFlowFile.isPenalized()).thenReturn(true);
+        when(penalizedFlowFile.getPenaltyExpirationMillis()).thenReturn(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1L));
+        queue.put(penalizedFlowFile);
+        queue.put(createFlowFile(1L, 1L));
+
+        LocalQueuePartitionDiagnostics diagnostics = queue.getQueueDiagnostics();
+        assertTrue(diagnostics.isAnyActiveFlowFilePenalized());
+        assertFalse(diagnostics.isAllActiveFlowFilesPenalized());
+
+        assertEquals(1L, queue.poll(Collections.emptySet(), 0L).getId());
+        diagnostics = queue.getQueueDiagnostics();
+        assertTrue(diagnostics.isAnyActiveFlowFilePenalized());
+        assertTrue(diagnostics.isAllActiveFlowFilesPenalized());
+
+        assertSame(penalizedFlowFile, queue.poll(Collections.emptySet(), 0L, PollStrategy.ALL_FLOWFILES));
+        assertFalse(queue.getQueueDiagnostics().isAnyActiveFlowFilePenalized());
+    }
+
+    @Test(timeout = 60_000)
+    public void testConcurrentPutsDoNotExceedSwapThreshold() throws Exception {
+        final int swapThreshold = 1000;
+        final SwappablePriorityQueue queue = createQueue(swapThreshold, "local");
+        final int producers = 8;
+        final int flowFilesPerProducer = 2_000;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int producer = 0; producer < producers; producer++) {
+                final long firstId = (long) producer * flowFilesPerProducer;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < flowFilesPerProducer; i++) {
+                        queue.put(new MockFlowFile(firstId + i));
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // A FlowFile for which room was reserved just as swap mode began goes to the swap queue, so the active queue may be just short of the threshold
+        final FlowFileQueueSize queueSize = queue.getFlowFileQueueSize();
+        assertTrue(queueSize.getActiveCount() <= swapThreshold);
+        assertTrue(queueSize.getActiveCount() > swapThreshold - producers);
+        assertEquals(producers * flowFilesPerProducer, queueSize.getActiveCount() + queueSize.getSwappedCount());
+    }
+
+    @Test
+    public void testPrioritizersApplyToFifoQueuedFlowFiles() {
+        final SwappablePriorityQueue queue = createQueue(100, "local");
+        for (int i = 0; i < 10; i++) {
+            queue.put(createFlowFile(i, i));
+        }
+
+        final FlowFilePrioritizer descendingId = (flowFile1, flowFile2) -> Long.compare(flowFile2.getId(), flowFile1.getId());
+        queue.setPriorities(Collections.singletonList(descendingId));
+        for (int i = 9; i >= 5; i--) {
+            assertEquals(i, queue.poll(Collections.emptySet(), 0L).getId());
+        }
+
+        queue.setPriorities(Collections.emptyList());
+        for (int i = 0; i <= 4; i++) {
+            assertEquals(i, queue.poll(Collections.emptySet(), 0L).getId());
+        }
+
+        assertNull(queue.poll(Collections.emptySet(), 0L));
+    }
+
+    private MockFlowFile createFlowFile(final long id, final long enqueuedIndex) {
+        final MockFlowFile flowFile = new MockFlowFile(id);
+        flowFile.setLastEnqueuedDate(1000L);
+        flowFile.setEnqueuedIndex(enqueuedIndex);
+        return flowFile;
+    }
+
+    @Test(timeout = 60_000)
+    public void testConcurrentPutAndPoll() throws Exception {
+        final SwappablePriorityQueue queue = createQueue(10_000, "local");
+        final int producers = 4;
+        final int flowFilesPerProducer = 25_000;
+        final int totalFlowFiles = producers * flowFilesPerProducer;
+
+        final Set<Long> polledIds = ConcurrentHashMap.newKeySet();
+        final AtomicInteger polledCount = new AtomicInteger(0);
+        final ExecutorService executor = Executors.newFixedThreadPool(producers * 2);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int producer = 0; producer < producers; producer++) {
+                final long firstId = (long) producer * flowFilesPerProducer;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < flowFilesPerProducer; i++) {
+                        queue.put(new MockFlowFile(firstId + i));
+                    }
+                }));
+            }
+
+            for (int consumer = 0; consumer < producers; consumer++) {
+                futures.add(executor.submit(() -> {
+                    while (polledCount.get() < totalFlowFiles) {
+                        final List<FlowFileRecord> polled = queue.poll(100, Collections.emptySet(), 0L);
+                        for (final FlowFileRecord flowFile : polled) {
+                            polledIds.add(flowFile.getId());
+                        }
+
+                        queue.acknowledge(polled);
+                        polledCount.addAndGet(polled.size());
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(totalFlowFiles, polledCount.get());
+        assertEquals(totalFlowFiles, polledIds.size());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getFlowFileQueueSize().getSwapFileCount());
+    }
+}
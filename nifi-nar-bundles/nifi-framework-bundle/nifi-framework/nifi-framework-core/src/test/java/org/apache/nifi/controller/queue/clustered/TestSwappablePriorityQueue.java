@@ -55,12 +55,12 @@ import static org.mockito.Mockito.when;
 
 public class TestSwappablePriorityQueue {
 
-    private MockSwapManager swapManager;
+    protected MockSwapManager swapManager;
     private final List<String> events = new ArrayList<>();
-    private EventReporter eventReporter;
+    protected EventReporter eventReporter;
 
-    private final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
-    private final DropFlowFileAction dropAction = (flowFiles, requestor) -> {
+    protected final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+    protected final DropFlowFileAction dropAction = (flowFiles, requestor) -> {
         return new QueueSize(flowFiles.size(), flowFiles.stream().mapToLong(FlowFileRecord::getSize).sum());
     };
 
@@ -79,7 +79,11 @@ public class TestSwappablePriorityQueue {
         };
 
         when(flowFileQueue.getIdentifier()).thenReturn("unit-test");
-        queue = new SwappablePriorityQueue(swapManager, 10000, eventReporter, flowFileQueue, dropAction, "local");
+        queue = createQueue(10000, "local");
+    }
+
+    protected SwappablePriorityQueue createQueue(final int swapThreshold, final String swapPartitionName) {
+        return new SwappablePriorityQueue(swapManager, swapThreshold, eventReporter, flowFileQueue, dropAction, swapPartitionName);
     }
 
     @Test
@@ -366,7 +370,7 @@ public class TestSwappablePriorityQueue {
 
     @Test
     public void testPollWithExpiredAndUnexpired() {
-        final SwappablePriorityQueue queue = new SwappablePriorityQueue(swapManager, 100, eventReporter, flowFileQueue, dropAction, "local");
+        final SwappablePriorityQueue queue = createQueue(100, "local");
 
         final FlowFileRecord expiredFlowFile = mock(FlowFileRecord.class);
         when(expiredFlowFile.getEntryDate()).thenReturn(System.currentTimeMillis() - 5000L);
@@ -538,7 +542,7 @@ public class TestSwappablePriorityQueue {
     @Test
     public void testSwapInWhenThresholdIsLessThanSwapSize() {
         // create a queue where the swap threshold is less than 10k
-        queue = new SwappablePriorityQueue(swapManager, 1000, eventReporter, flowFileQueue, dropAction, null);
+        queue = createQueue(1000, null);
 
         for (int i = 1; i <= 20000; i++) {
             queue.put(new MockFlowFileRecord());
@@ -747,7 +751,7 @@ public class TestSwappablePriorityQueue {
     // To truly test this we need to get both the in-memory swap queue and swap "on disk" involved.
     public void testLastQueueDateMetrics() throws IOException {
         Set<FlowFileRecord> flowFileRecords = new HashSet<>(11001);
-        queue = new SwappablePriorityQueue(swapManager, 1000, eventReporter, flowFileQueue, dropAction, "testGetMinLastQueueDate");
+        queue = createQueue(1000, "testGetMinLastQueueDate");
         long minQueueDate = Long.MAX_VALUE;
         long totalQueueDate = 0L;
         // Put enough files in the queue to swap to disk
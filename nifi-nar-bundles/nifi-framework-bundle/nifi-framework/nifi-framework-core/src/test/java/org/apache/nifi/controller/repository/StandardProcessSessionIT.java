@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.controller.repository;
 
+import com.sun.management.ThreadMXBean;
 import org.apache.nifi.components.state.Scope;
 import org.apache.nifi.components.state.StateMap;
 import org.apache.nifi.connectable.Connectable;
@@ -40,6 +41,7 @@ import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.processor.FlowFileFilter;
 import org.apache.nifi.processor.FlowFileFilter.FlowFileFilterResult;
 import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
@@ -75,6 +77,7 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -88,12 +91,15 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -105,6 +111,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.notNull;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
@@ -281,6 +288,13 @@ public class StandardProcessSessionIT {
             }
         }).when(connection).poll(any(FlowFileFilter.class), any(Set.class));
 
+        Mockito.doAnswer(new Answer<List<FlowFileRecord>>() {
+            @Override
+            public List<FlowFileRecord> answer(InvocationOnMock invocation) throws Throwable {
+                return localFlowFileQueue.poll((int) invocation.getArgument(0), invocation.getArgument(1));
+            }
+        }).when(connection).poll(anyInt(), any(Set.class));
+
         Mockito.when(connection.getIdentifier()).thenReturn("conn-uuid");
         return connection;
     }
@@ -836,8 +850,8 @@ public class StandardProcessSessionIT {
         session.get(1);
         session.get(1);
 
-        verify(conn1, times(1)).poll(any(FlowFileFilter.class), any(Set.class));
-        verify(conn2, times(1)).poll(any(FlowFileFilter.class), any(Set.class));
+        verify(conn1, times(1)).poll(anyInt(), any(Set.class));
+        verify(conn2, times(1)).poll(anyInt(), any(Set.class));
     }
 
     @Test
@@ -868,8 +882,8 @@ public class StandardProcessSessionIT {
 
         assertEquals(1, result.size());
 
-        verify(conn1, times(1)).poll(any(FlowFileFilter.class), any(Set.class));
-        verify(conn2, times(1)).poll(any(FlowFileFilter.class), any(Set.class));
+        verify(conn1, times(1)).poll(anyInt(), any(Set.class));
+        verify(conn2, times(1)).poll(anyInt(), any(Set.class));
     }
 
     @Test
@@ -1762,6 +1776,100 @@ public class StandardProcessSessionIT {
         }
     }
 
+    @Test
+    public void testRecycledSessionReused() throws IOException {
+        final Queue<StandardProcessSession> recycledSessions = new ConcurrentLinkedQueue<>();
+
+        final RecyclingProcessSessionFactory firstFactory = new RecyclingProcessSessionFactory(context, () -> false, recycledSessions);
+        final StandardProcessSession firstSession = firstFactory.createSession();
+        FlowFile flowFile = firstSession.create();
+        flowFile = firstSession.write(flowFile, out -> out.write("Hello".getBytes(StandardCharsets.UTF_8)));
+        firstSession.transfer(flowFile, new Relationship.Builder().name("A").build());
+        firstSession.commit();
+        assertTrue(firstFactory.recycleSession());
+
+        final RecyclingProcessSessionFactory secondFactory = new RecyclingProcessSessionFactory(context, () -> false, recycledSessions);
+        final StandardProcessSession secondSession = secondFactory.createSession();
+        assertSame(firstSession, secondSession);
+
+        final FlowFile polled = secondSession.get();
+        assertNotNull(polled);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        secondSession.exportTo(polled, baos);
+        assertEquals("Hello", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+        secondSession.remove(polled);
+        secondSession.commit();
+        assertTrue(secondFactory.recycleSession());
+
+        assertEquals(2, provenanceRepo.getEvents(0L, 100000).size());
+    }
+
+    @Test
+    public void testRecycledSessionCannotBeUsed() {
+        final Queue<StandardProcessSession> recycledSessions = new ConcurrentLinkedQueue<>();
+
+        final RecyclingProcessSessionFactory factory = new RecyclingProcessSessionFactory(context, () -> false, recycledSessions);
+        final StandardProcessSession recycledSession = factory.createSession();
+        recycledSession.commit();
+        assertTrue(factory.recycleSession());
+
+        try {
+            recycledSession.create();
+            Assert.fail("Was able to use a session after it was recycled");
+        } catch (final IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testSessionWithUncommittedStateNotRecycled() {
+        final Queue<StandardProcessSession> recycledSessions = new ConcurrentLinkedQueue<>();
+
+        final RecyclingProcessSessionFactory factory = new RecyclingProcessSessionFactory(context, () -> false, recycledSessions);
+        final StandardProcessSession uncommittedSession = factory.createSession();
+        uncommittedSession.create();
+        assertFalse(factory.recycleSession());
+        assertTrue(recycledSessions.isEmpty());
+        uncommittedSession.rollback();
+
+        final RecyclingProcessSessionFactory multipleSessionFactory = new RecyclingProcessSessionFactory(context, () -> false, recycledSessions);
+        multipleSessionFactory.createSession().commit();
+        multipleSessionFactory.createSession().commit();
+        assertFalse(multipleSessionFactory.recycleSession());
+        assertTrue(recycledSessions.isEmpty());
+    }
+
+    @Test
+    @Ignore("For manual testing only. Compares the heap allocated by creating a new session per task to recycling sessions.")
+    public void testSessionRecyclingAllocations() {
+        final int iterations = 1_000_000;
+        final Queue<StandardProcessSession> recycledSessions = new ConcurrentLinkedQueue<>();
+
+        for (int pass = 0; pass < 3; pass++) {
+            final long newSessionBytes = measureAllocatedBytes(iterations, () -> new StandardProcessSessionFactory(context, () -> false));
+            final long recycledSessionBytes = measureAllocatedBytes(iterations, () -> new RecyclingProcessSessionFactory(context, () -> false, recycledSessions));
+
+            assertTrue(recycledSessionBytes < newSessionBytes);
+        }
+    }
+
+    private long measureAllocatedBytes(final int iterations, final Supplier<ProcessSessionFactory> factorySupplier) {
+        final ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+
+        final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            final ProcessSessionFactory factory = factorySupplier.get();
+            final ProcessSession processSession = factory.createSession();
+            processSession.commit();
+
+            if (factory instanceof RecyclingProcessSessionFactory) {
+                ((RecyclingProcessSessionFactory) factory).recycleSession();
+            }
+        }
+
+        return threadMXBean.getThreadAllocatedBytes(threadId) - start;
+    }
+
     @Test
     public void testMissingFlowFileExceptionThrownWhenUnableToReadDataStreamCallback() {
         final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
@@ -2162,6 +2270,25 @@ public class StandardProcessSessionIT {
         session.commit();
     }
 
+    @Test
+    public void testReadBuffer() {
+        FlowFile flowFile = session.create();
+        flowFile = session.write(flowFile, out -> out.write("hello, world".getBytes()));
+        final FlowFile world = session.clone(flowFile, 7, 5);
+
+        final AtomicReference<String> content = new AtomicReference<>();
+        session.readBuffer(world, buffer -> {
+            final byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            content.set(new String(bytes));
+        });
+        assertEquals("world", content.get());
+
+        session.remove(flowFile);
+        session.remove(world);
+        session.commit();
+    }
+
     @Test
     public void testReadFromInputStreamWithoutClosingThenRemove() throws IOException {
         FlowFile flowFile = session.create();
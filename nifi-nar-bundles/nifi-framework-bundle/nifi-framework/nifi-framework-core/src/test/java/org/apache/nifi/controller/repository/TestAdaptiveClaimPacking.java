@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestAdaptiveClaimPacking {
+    private static final long INITIAL_LENGTH = 1024 * 1024;
+    private static final long MAX_LENGTH = 100 * 1024 * 1024;
+
+    @Test
+    public void testInitialAppendableClaimLength() {
+        final AdaptiveClaimPacking packing = new AdaptiveClaimPacking(Arrays.asList("default"), INITIAL_LENGTH, MAX_LENGTH, 100);
+        assertEquals(INITIAL_LENGTH, packing.getAppendableClaimLength("default"));
+        assertEquals(AdaptiveClaimPacking.MIN_WRITABLE_CLAIMS_PER_CONTAINER, packing.getWritableClaimLimit());
+    }
+
+    @Test
+    public void testAppendableClaimLengthFollowsWriteSize() {
+        final AdaptiveClaimPacking packing = new AdaptiveClaimPacking(Arrays.asList("small", "large"), INITIAL_LENGTH, MAX_LENGTH, 100);
+        for (int i = 0; i < 1000; i++) {
+            write(packing, "small", 10 * 1024);
+            write(packing, "large", 10 * 1024 * 1024);
+        }
+
+        assertEquals(10 * 1024 * AdaptiveClaimPacking.TARGET_CONTENT_CLAIMS_PER_RESOURCE_CLAIM, packing.getAppendableClaimLength("small"));
+        assertEquals(MAX_LENGTH, packing.getAppendableClaimLength("large"));
+    }
+
+    @Test
+    public void testAppendableClaimLengthHasMinimum() {
+        final AdaptiveClaimPacking packing = new AdaptiveClaimPacking(Arrays.asList("default"), INITIAL_LENGTH, MAX_LENGTH, 100);
+        for (int i = 0; i < 1000; i++) {
+            write(packing, "default", 10);
+        }
+
+        assertEquals(AdaptiveClaimPacking.MIN_APPENDABLE_CLAIM_LENGTH, packing.getAppendableClaimLength("default"));
+    }
+
+    @Test
+    public void testOccasionalLargeWritesDoNotInflateClaimLength() {
+        final AdaptiveClaimPacking packing = new AdaptiveClaimPacking(Arrays.asList("default"), INITIAL_LENGTH, MAX_LENGTH, 100);
+        for (int i = 0; i < 1000; i++) {
+            write(packing, "default", i % 10 == 0 ? 50 * 1024 * 1024 : 1024);
+        }
+
+        // An arithmetic mean would be dominated by the large writes and size claims at the maximum
+        assertTrue(packing.getAppendableClaimLength("default") < 10 * 1024 * 1024);
+    }
+
+    @Test
+    public void testWritableClaimLimitFollowsConcurrency() {
+        final AdaptiveClaimPacking packing = new AdaptiveClaimPacking(Arrays.asList("default"), INITIAL_LENGTH, MAX_LENGTH, 100);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            for (int i = 0; i < 8; i++) {
+                packing.onWriteStarted("default");
+            }
+            for (int i = 0; i < 8; i++) {
+                packing.onWriteCompleted("default", 1024);
+            }
+        }
+
+        final ClaimPackingStatistics statistics = packing.getStatistics("default");
+        assertTrue(statistics.getAverageConcurrentWriters() > 4D && statistics.getAverageConcurrentWriters() < 8D);
+        assertEquals(statistics.getWritableClaimLimit(), packing.getWritableClaimLimit());
+        assertEquals(1600L, statistics.getContentClaimsWritten());
+
+        final AdaptiveClaimPacking capped = new AdaptiveClaimPacking(Arrays.asList("default"), INITIAL_LENGTH, MAX_LENGTH, 3);
+        for (int i = 0; i < 8; i++) {
+            capped.onWriteStarted("default");
+        }
+        assertEquals(3, capped.getWritableClaimLimit());
+    }
+
+    private void write(final AdaptiveClaimPacking packing, final String containerName, final long length) {
+        packing.onWriteStarted(containerName);
+        packing.onWriteCompleted(containerName, length);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestArchiveIndex {
+    private static final String CONTAINER = "default";
+
+    private ArchiveIndex index;
+
+    @Before
+    public void setup() {
+        index = new ArchiveIndex(Collections.singleton(CONTAINER), 3);
+    }
+
+    @Test
+    public void testOldestFileFirst() {
+        index.add(CONTAINER, "1", "claim-b", 10L, 2000L);
+        index.add(CONTAINER, "2", "claim-a", 20L, 1000L);
+        index.add(CONTAINER, "3", "claim-c", 30L, 3000L);
+
+        assertEquals(3L, index.getArchivedFileCount(CONTAINER));
+        assertEquals(60L, index.getArchivedBytes(CONTAINER));
+
+        final ArchiveIndex.ArchivedFile oldest = index.getOldest(CONTAINER);
+        assertEquals("claim-a", oldest.getClaimId());
+        assertEquals(2, oldest.getSection());
+        assertTrue(index.remove(CONTAINER, oldest));
+        assertFalse(index.remove(CONTAINER, oldest));
+
+        assertEquals("claim-b", index.getOldest(CONTAINER).getClaimId());
+        assertEquals(2L, index.getArchivedFileCount(CONTAINER));
+        assertEquals(40L, index.getArchivedBytes(CONTAINER));
+    }
+
+    @Test
+    public void testOldestFilesKeptWhenFull() {
+        index.add(CONTAINER, "0", "claim-3", 1L, 3000L);
+        index.add(CONTAINER, "0", "claim-2", 1L, 2000L);
+        index.add(CONTAINER, "0", "claim-4", 1L, 4000L);
+        index.add(CONTAINER, "0", "claim-1", 1L, 1000L);
+        index.add(CONTAINER, "0", "claim-5", 1L, 5000L);
+
+        assertEquals(3L, index.getArchivedFileCount(CONTAINER));
+        assertTrue(index.hasArchivedFiles(CONTAINER));
+        assertFalse(index.isRebuildRequired(CONTAINER));
+
+        for (final String expected : new String[] {"claim-1", "claim-2", "claim-3"}) {
+            final ArchiveIndex.ArchivedFile oldest = index.getOldest(CONTAINER);
+            assertEquals(expected, oldest.getClaimId());
+            index.remove(CONTAINER, oldest);
+        }
+
+        // Files that did not fit in the index remain on disk, so the index must be rebuilt
+        assertNull(index.getOldest(CONTAINER));
+        assertTrue(index.hasArchivedFiles(CONTAINER));
+        assertTrue(index.isRebuildRequired(CONTAINER));
+
+        index.clear(CONTAINER);
+        assertFalse(index.hasArchivedFiles(CONTAINER));
+        assertFalse(index.isRebuildRequired(CONTAINER));
+    }
+
+    @Test
+    public void testMarkIncomplete() {
+        index.add(CONTAINER, "0", "claim-1", 1L, 1000L);
+        index.markIncomplete(CONTAINER);
+        assertFalse(index.isRebuildRequired(CONTAINER));
+
+        index.remove(CONTAINER, index.getOldest(CONTAINER));
+        assertTrue(index.isRebuildRequired(CONTAINER));
+    }
+
+    @Test
+    public void testNonNumericSectionIgnored() {
+        index.add(CONTAINER, "archive", "claim-1", 1L, 1000L);
+        assertEquals(0L, index.getArchivedFileCount(CONTAINER));
+        assertFalse(index.hasArchivedFiles(CONTAINER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownContainer() {
+        index.getOldest("unknown");
+    }
+}
@@ -43,6 +43,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -52,8 +55,10 @@ import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
@@ -62,6 +67,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 public class TestFileSystemRepository {
@@ -496,6 +502,67 @@ public class TestFileSystemRepository {
         }
     }
 
+    @Test
+    public void testArchivedClaimsAreIndexed() throws IOException {
+        final Map<String, String> archiveProperties = new HashMap<>();
+        archiveProperties.put(NiFiProperties.CONTENT_ARCHIVE_ENABLED, "true");
+        archiveProperties.put(NiFiProperties.CONTENT_ARCHIVE_MAX_USAGE_PERCENTAGE, "99%");
+        final NiFiProperties archiveNiFiProperties = NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(),
+            archiveProperties);
+
+        repository.shutdown();
+        repository = new FileSystemRepository(archiveNiFiProperties);
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        for (int i = 0; i < 3; i++) {
+            final ResourceClaim resourceClaim = claimManager.newResourceClaim("default", String.valueOf(i), "archive-index-" + i, false, false);
+            final Path path = repository.getPath(resourceClaim);
+            Files.createDirectories(path.getParent());
+            Files.write(path, data);
+
+            assertTrue(repository.archive(resourceClaim));
+        }
+
+        assertEquals(3L, repository.getArchivedFileCount("default"));
+        assertEquals(3L * data.length, repository.getArchivedBytes("default"));
+
+        // The index is rebuilt from the archive directories on startup
+        repository.shutdown();
+        repository = new FileSystemRepository(archiveNiFiProperties);
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+
+        assertEquals(3L, repository.getArchivedFileCount("default"));
+        assertEquals(3L * data.length, repository.getArchivedBytes("default"));
+    }
+
+    @Test
+    public void testArchivedUnknownFilesAreIndexed() throws IOException {
+        final Map<String, String> archiveProperties = new HashMap<>();
+        archiveProperties.put(NiFiProperties.CONTENT_ARCHIVE_ENABLED, "true");
+        archiveProperties.put(NiFiProperties.CONTENT_ARCHIVE_MAX_USAGE_PERCENTAGE, "99%");
+        final NiFiProperties archiveNiFiProperties = NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(),
+            archiveProperties);
+
+        repository.shutdown();
+        repository = new FileSystemRepository(archiveNiFiProperties);
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+
+        // A file that no Resource Claim refers to is archived when the repository is cleaned up
+        final byte[] data = "The quick brown fox jumps over the lazy dog".getBytes();
+        final ResourceClaim resourceClaim = claimManager.newResourceClaim("default", "1", "unknown-file", false, false);
+        final Path path = repository.getPath(resourceClaim);
+        Files.createDirectories(path.getParent());
+        Files.write(path, data);
+
+        assertEquals(0L, repository.getArchivedFileCount("default"));
+        repository.cleanup();
+
+        assertFalse(Files.exists(path));
+        assertEquals(1L, repository.getArchivedFileCount("default"));
+        assertEquals(data.length, repository.getArchivedBytes("default"));
+    }
+
     private boolean isWindowsEnvironment() {
         return System.getProperty("os.name").toLowerCase().startsWith("windows");
     }
@@ -815,6 +882,192 @@ public class TestFileSystemRepository {
         assertTrue(Arrays.equals(expected, actual));
     }
 
+    @Test
+    public void testMemoryMappedReads() throws IOException {
+        repository.shutdown();
+        repository = new FileSystemRepository(NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(),
+            Collections.singletonMap(FileSystemRepository.MEMORY_MAPPED_READS, "true")));
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+        assertTrue(repository.isBufferReadSupported());
+
+        final List<ContentClaim> claims = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final ContentClaim claim = repository.create(false);
+            try (final OutputStream out = repository.write(claim)) {
+                out.write(("Content " + i).getBytes(StandardCharsets.UTF_8));
+            }
+            claims.add(claim);
+        }
+
+        // All claims should share a single Resource Claim, which is mapped once.
+        assertEquals(claims.get(0).getResourceClaim(), claims.get(2).getResourceClaim());
+        for (int i = 0; i < claims.size(); i++) {
+            final ByteBuffer buffer = repository.readBuffer(claims.get(i));
+            final byte[] content = new byte[buffer.remaining()];
+            buffer.get(content);
+            assertEquals("Content " + i, new String(content, StandardCharsets.UTF_8));
+
+            try (final InputStream in = repository.read(claims.get(i))) {
+                assertEquals("Content " + i, new String(readFully(in, 16), StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(1, repository.getMappedClaimCount());
+
+        // Appending to the Resource Claim after it has been mapped must still be readable.
+        final ContentClaim appended = repository.create(false);
+        assertEquals(claims.get(0).getResourceClaim(), appended.getResourceClaim());
+        try (final OutputStream out = repository.write(appended)) {
+            out.write("Appended".getBytes(StandardCharsets.UTF_8));
+        }
+        final ByteBuffer appendedBuffer = repository.readBuffer(appended);
+        final byte[] appendedContent = new byte[appendedBuffer.remaining()];
+        appendedBuffer.get(appendedContent);
+        assertEquals("Appended", new String(appendedContent, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMemoryMappingReleasedWhenNoClaimants() throws IOException {
+        repository.shutdown();
+        repository = new FileSystemRepository(NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(),
+            Collections.singletonMap(FileSystemRepository.MEMORY_MAPPED_READS, "true")));
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write("Hello".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final ByteBuffer buffer = repository.readBuffer(claim);
+        assertEquals(1, repository.getMappedClaimCount());
+
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertEquals(0, repository.getMappedClaimCount());
+
+        // A buffer that was already handed out remains readable after the mapping is released.
+        final byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+        assertEquals("Hello", new String(content, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testMemoryMappingReleasedByReaders() throws IOException {
+        repository.shutdown();
+        repository = new FileSystemRepository(NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(),
+            Collections.singletonMap(FileSystemRepository.MEMORY_MAPPED_READS, "true")));
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write("Hello".getBytes(StandardCharsets.UTF_8));
+        }
+
+        final ByteBuffer buffer = repository.readBuffer(claim);
+        assertEquals(1, repository.getLeasedBufferCount());
+        repository.releaseBuffer(claim, buffer);
+        assertEquals(0, repository.getLeasedBufferCount());
+
+        // Once a stream is closed, it no longer reads from the mapping, which may have been unmapped
+        final InputStream in = repository.read(claim);
+        assertEquals('H', in.read());
+        in.close();
+        assertThrows(IOException.class, in::read);
+
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertEquals(0, repository.getMappedClaimCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedMappingEvicted() throws IOException {
+        repository.shutdown();
+        repository = new FileSystemRepository(NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(),
+            Collections.singletonMap(FileSystemRepository.MEMORY_MAPPED_READS, "true")));
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+        repository.setMaxCachedMappings(2);
+
+        // Claims that are created before any is written to reside in different Resource Claims
+        final List<ContentClaim> claims = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            claims.add(repository.create(false));
+        }
+        for (int i = 0; i < claims.size(); i++) {
+            try (final OutputStream out = repository.write(claims.get(i))) {
+                out.write(("Content " + i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        repository.readBuffer(claims.get(0));
+        repository.readBuffer(claims.get(1));
+        repository.readBuffer(claims.get(0));
+
+        final ByteBuffer buffer = repository.readBuffer(claims.get(2));
+        final byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+        assertEquals("Content 2", new String(content, StandardCharsets.UTF_8));
+        assertEquals(2, repository.getMappedClaimCount());
+
+        // The mapping of the second claim was used least recently, so it is the one that was evicted
+        repository.decrementClaimantCount(claims.get(0));
+        assertEquals(1, repository.getMappedClaimCount());
+        repository.decrementClaimantCount(claims.get(1));
+        assertEquals(1, repository.getMappedClaimCount());
+        repository.decrementClaimantCount(claims.get(2));
+        assertEquals(0, repository.getMappedClaimCount());
+    }
+
+    @Test
+    public void testReadChannel() throws IOException {
+        assertTrue(repository.isChannelReadSupported());
+
+        final ContentClaim first = repository.create(false);
+        try (final OutputStream out = repository.write(first)) {
+            out.write("Hello".getBytes(StandardCharsets.UTF_8));
+        }
+        final ContentClaim second = repository.create(false);
+        try (final OutputStream out = repository.write(second)) {
+            out.write("World".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(first.getResourceClaim(), second.getResourceClaim());
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final FileChannel channel = repository.readChannel(second)) {
+            channel.transferTo(second.getOffset(), second.getLength(), Channels.newChannel(baos));
+        }
+        assertEquals("World", new String(baos.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testAdaptiveClaimPacking() throws IOException {
+        repository.shutdown();
+        repository = new FileSystemRepository(NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(),
+            Collections.singletonMap(FileSystemRepository.ADAPTIVE_CLAIM_PACKING, "true")));
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+
+        // Claims of 1 KB should be packed well beyond the 1 KB max appendable size that is configured for this test
+        final byte[] content = new byte[1024];
+        final List<ContentClaim> claims = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final ContentClaim claim = repository.create(false);
+            try (final OutputStream out = repository.write(claim)) {
+                out.write(content);
+            }
+            claims.add(claim);
+        }
+
+        assertEquals(1, claims.stream().map(ContentClaim::getResourceClaim).distinct().count());
+
+        final ClaimPackingStatistics statistics = repository.getClaimPackingStatistics().get(claims.get(0).getResourceClaim().getContainer());
+        assertEquals(1024L, statistics.getTypicalContentClaimLength());
+        assertEquals(100L, statistics.getContentClaimsWritten());
+        assertEquals(1L, statistics.getResourceClaimsCreated());
+        assertEquals(1024L * AdaptiveClaimPacking.TARGET_CONTENT_CLAIMS_PER_RESOURCE_CLAIM, statistics.getAppendableClaimLength());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadBufferRequiresMemoryMappedReads() throws IOException {
+        assertFalse(repository.isBufferReadSupported());
+        repository.readBuffer(repository.create(false));
+    }
+
     private byte[] readFully(final InputStream inStream, final int size) throws IOException {
         final ByteArrayOutputStream baos = new ByteArrayOutputStream(size);
         int len;
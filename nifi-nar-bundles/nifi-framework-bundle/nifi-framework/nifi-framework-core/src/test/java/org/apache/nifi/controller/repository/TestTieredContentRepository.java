@@ -0,0 +1,371 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.metrics.RingBufferEventRepository;
+import org.apache.nifi.controller.repository.util.DiskUtils;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.provenance.MockProvenanceRepository;
+import org.apache.nifi.state.MockStateManager;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class TestTieredContentRepository {
+
+    private final File rootFile = new File("target/content_repository");
+    private TieredContentRepository repository = null;
+    private StandardResourceClaimManager claimManager = null;
+
+    @BeforeClass
+    public static void setupClass() {
+        Assume.assumeTrue("Test only runs on *nix", !SystemUtils.IS_OS_WINDOWS);
+    }
+
+    @After
+    public void shutdown() {
+        if (repository != null) {
+            repository.shutdown();
+        }
+    }
+
+    private void createRepository(final Map<String, String> properties) throws IOException {
+        if (rootFile.exists()) {
+            DiskUtils.deleteRecursively(rootFile);
+        }
+
+        final Map<String, String> additionalProperties = new HashMap<>(properties);
+        additionalProperties.putIfAbsent(TieredContentRepository.HOT_TIER_MAX_AGE, "1 hour");
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(TestTieredContentRepository.class.getResource("/conf/nifi.properties").getFile(),
+            additionalProperties);
+
+        repository = new TieredContentRepository(nifiProperties);
+        claimManager = new StandardResourceClaimManager();
+        repository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+        repository.purge();
+    }
+
+    private ContentClaim write(final byte[] content) throws IOException {
+        return write(content, true);
+    }
+
+    private ContentClaim write(final byte[] content, final boolean lossTolerant) throws IOException {
+        final ContentClaim claim = repository.create(lossTolerant);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(content);
+        }
+        return claim;
+    }
+
+    private byte[] read(final ContentClaim claim) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final InputStream in = repository.read(claim)) {
+            StreamUtils.copy(in, baos);
+        }
+        return baos.toByteArray();
+    }
+
+    private File getFile(final ContentClaim claim) {
+        return repository.getPath(claim.getResourceClaim()).toFile();
+    }
+
+    @Test
+    public void testSmallContentRemainsInMemory() throws IOException {
+        createRepository(new HashMap<>());
+
+        final byte[] content = "Hello World".getBytes(StandardCharsets.UTF_8);
+        final ContentClaim claim = write(content);
+
+        assertEquals(1, repository.getHotClaimCount());
+        assertFalse(getFile(claim).exists());
+        assertEquals(content.length, repository.size(claim));
+        assertTrue(repository.isAccessible(claim));
+        assertArrayEquals(content, read(claim));
+    }
+
+    @Test
+    public void testDestroyedContentNeverWrittenToDisk() throws IOException {
+        createRepository(new HashMap<>());
+
+        final ContentClaim claim = write("Hello World".getBytes(StandardCharsets.UTF_8));
+        claimManager.freeze(claim.getResourceClaim());
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertTrue(repository.remove(claim));
+
+        assertEquals(0, repository.getHotClaimCount());
+        assertFalse(getFile(claim).exists());
+        assertFalse(repository.isAccessible(claim));
+    }
+
+    @Test
+    public void testNonLossTolerantContentWrittenToDisk() throws IOException {
+        createRepository(new HashMap<>());
+
+        final byte[] content = "Hello World".getBytes(StandardCharsets.UTF_8);
+        final ContentClaim claim = write(content, false);
+
+        assertEquals(0, repository.getHotClaimCount());
+        assertEquals(content.length, getFile(claim).length());
+        assertArrayEquals(content, read(claim));
+    }
+
+    @Test
+    public void testContentClaimsPackedIntoResourceClaim() throws IOException {
+        createRepository(new HashMap<>());
+
+        final byte[] first = "Hello".getBytes(StandardCharsets.UTF_8);
+        final byte[] second = " World".getBytes(StandardCharsets.UTF_8);
+        final ContentClaim firstClaim = write(first);
+        final ContentClaim secondClaim = write(second);
+
+        assertEquals(1, repository.getHotClaimCount());
+        assertEquals(firstClaim.getResourceClaim(), secondClaim.getResourceClaim());
+        assertEquals(first.length, secondClaim.getOffset());
+        assertArrayEquals(first, read(firstClaim));
+        assertArrayEquals(second, read(secondClaim));
+
+        final ByteBuffer buffer = repository.readBuffer(secondClaim);
+        final byte[] buffered = new byte[buffer.remaining()];
+        buffer.get(buffered);
+        assertArrayEquals(second, buffered);
+
+        // The Resource Claim is written to a single file, at the same offsets as in memory
+        repository.shutdown();
+        assertArrayEquals("Hello World".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(getFile(firstClaim).toPath()));
+        repository = null;
+    }
+
+    @Test
+    public void testLargeContentSpilledWhileWriting() throws IOException {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(TieredContentRepository.HOT_TIER_MAX_CLAIM_SIZE, "16 KB");
+        createRepository(properties);
+
+        final byte[] content = new byte[64 * 1024];
+        new Random().nextBytes(content);
+
+        final ContentClaim claim = repository.create(true);
+        try (final OutputStream out = repository.write(claim)) {
+            for (int i = 0; i < content.length; i += 1000) {
+                out.write(content, i, Math.min(1000, content.length - i));
+            }
+        }
+
+        assertEquals(0, repository.getHotClaimCount());
+        assertEquals(content.length, getFile(claim).length());
+        assertEquals(content.length, claim.getLength());
+        assertArrayEquals(content, read(claim));
+    }
+
+    @Test
+    public void testContentSpilledWhenHotTierFull() throws IOException {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(TieredContentRepository.HOT_TIER_MAX_SIZE, "8 KB");
+        createRepository(properties);
+
+        final byte[] content = new byte[3000];
+        new Random().nextBytes(content);
+
+        final ContentClaim first = write(content);
+        assertFalse(getFile(first).exists());
+
+        // The second claim does not fit into the remaining block of the hot tier
+        final ContentClaim second = write(new byte[10_000]);
+        assertTrue(getFile(second).exists());
+        assertEquals(0, repository.getHotClaimCount());
+
+        // Once the hot tier is full, claims are created by the file system tier
+        final ContentClaim third = write(new byte[10_000]);
+        assertTrue(getFile(third).exists());
+
+        assertArrayEquals(content, read(first));
+        assertEquals(10_000, read(third).length);
+    }
+
+    @Test
+    public void testExpiredContentSpilled() throws IOException {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(TieredContentRepository.HOT_TIER_MAX_AGE, "0 millis");
+        createRepository(properties);
+
+        final byte[] content = "Hello World".getBytes(StandardCharsets.UTF_8);
+        final ContentClaim claim = write(content);
+
+        // A Resource Claim that a Content Claim is being written to remains in memory
+        final ContentClaim unwritten = repository.create(true);
+        assertEquals(claim.getResourceClaim(), unwritten.getResourceClaim());
+        repository.spillExpiredClaims();
+
+        assertEquals(1, repository.getHotClaimCount());
+        assertFalse(getFile(claim).exists());
+
+        try (final OutputStream out = repository.write(unwritten)) {
+            out.write(content);
+        }
+        repository.spillExpiredClaims();
+
+        assertEquals(0, repository.getHotClaimCount());
+        assertEquals(2 * content.length, getFile(claim).length());
+        assertArrayEquals(content, read(claim));
+        assertArrayEquals(content, read(unwritten));
+        assertEquals(1, repository.decrementClaimantCount(unwritten));
+
+        // Once spilled, the content is removed from disk as it would be for any other claim
+        assertEquals(0, repository.decrementClaimantCount(claim));
+        assertTrue(repository.remove(claim));
+        assertFalse(getFile(claim).exists());
+    }
+
+    @Test
+    public void testReadContinuesFromDiskAfterSpill() throws IOException {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(TieredContentRepository.HOT_TIER_MAX_AGE, "0 millis");
+        createRepository(properties);
+
+        final byte[] content = new byte[20_000];
+        new Random().nextBytes(content);
+        final ContentClaim claim = write(content);
+
+        final byte[] read = new byte[content.length];
+        try (final DataInputStream in = new DataInputStream(repository.read(claim))) {
+            in.readFully(read, 0, 5000);
+            repository.spillExpiredClaims();
+            assertEquals(0, repository.getHotClaimCount());
+
+            in.readFully(read, 5000, content.length - 5000);
+            assertEquals(-1, in.read());
+        }
+
+        assertArrayEquals(content, read);
+    }
+
+    @Test
+    public void testReadWhileWriting() throws IOException {
+        createRepository(new HashMap<>());
+
+        final ContentClaim claim = repository.create(true);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write("Hello".getBytes(StandardCharsets.UTF_8));
+            assertArrayEquals("Hello".getBytes(StandardCharsets.UTF_8), read(claim));
+
+            // A channel requires the content to be on disk, even if it is still being written to
+            repository.readChannel(claim).close();
+            out.write(" World".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(0, repository.getHotClaimCount());
+        assertArrayEquals("Hello World".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(getFile(claim).toPath()));
+    }
+
+    @Test
+    public void testContentSpilledOnShutdown() throws IOException {
+        createRepository(new HashMap<>());
+
+        final byte[] content = "Hello World".getBytes(StandardCharsets.UTF_8);
+        final ContentClaim claim = write(content);
+        assertFalse(getFile(claim).exists());
+
+        repository.shutdown();
+        assertArrayEquals(content, Files.readAllBytes(getFile(claim).toPath()));
+        repository = null;
+    }
+
+    @Test
+    public void testSessionWriteOfLossTolerantComponentHeldInMemory() throws IOException {
+        createRepository(new HashMap<>());
+
+        final StandardProcessSession session = createSession(true);
+        final ContentClaim claim = writeInSession(session, "Hello World");
+
+        assertEquals(1, repository.getHotClaimCount());
+        assertFalse(getFile(claim).exists());
+        session.rollback();
+    }
+
+    @Test
+    public void testSessionWriteOfComponentNotLossTolerantWrittenToDisk() throws IOException {
+        createRepository(new HashMap<>());
+
+        final StandardProcessSession session = createSession(false);
+        final ContentClaim claim = writeInSession(session, "Hello World");
+
+        assertEquals(0, repository.getHotClaimCount());
+        assertTrue(getFile(claim).exists());
+        session.rollback();
+    }
+
+    private StandardProcessSession createSession(final boolean lossTolerant) {
+        final Connectable connectable = Mockito.mock(Connectable.class);
+        when(connectable.getIdentifier()).thenReturn("connectable-1");
+        when(connectable.getConnectableType()).thenReturn(ConnectableType.INPUT_PORT);
+        when(connectable.getComponentType()).thenReturn("Unit Test Component");
+        when(connectable.isLossTolerant()).thenReturn(lossTolerant);
+
+        final FlowFileRepository flowFileRepository = Mockito.mock(FlowFileRepository.class);
+        final MockStateManager stateManager = new MockStateManager(connectable);
+        stateManager.setIgnoreAnnotations(true);
+
+        final RepositoryContext context = new StandardRepositoryContext(connectable, new AtomicLong(0L), repository, flowFileRepository, new RingBufferEventRepository(1),
+            new StandardCounterRepository(), new MockProvenanceRepository(), stateManager);
+        return new StandardProcessSession(context, () -> false);
+    }
+
+    /**
+     * Writes the given content to a new FlowFile through the session's Content Claim write cache, as a processor would, and returns the
+     * FlowFile's Content Claim once the session has read the content back.
+     */
+    private ContentClaim writeInSession(final StandardProcessSession session, final String content) {
+        FlowFile flowFile = session.create();
+        flowFile = session.write(flowFile, out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        session.exportTo(flowFile, baos);
+        assertEquals(content, new String(baos.toByteArray(), StandardCharsets.UTF_8));
+
+        return ((FlowFileRecord) flowFile).getContentClaim();
+    }
+}
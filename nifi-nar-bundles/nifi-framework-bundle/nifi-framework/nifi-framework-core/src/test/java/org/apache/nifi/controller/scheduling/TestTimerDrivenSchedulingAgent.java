@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.components.state.StateManagerProvider;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TestTimerDrivenSchedulingAgent {
+    private FlowEngine flowEngine;
+    private IoBoundEngine ioBoundEngine;
+    private TimerDrivenSchedulingAgent agent;
+
+    @Before
+    public void setup() {
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(TimerDrivenSchedulingAgent.IO_BOUND_ENABLED, "true");
+        properties.put(TimerDrivenSchedulingAgent.IO_BOUND_MAX_THREADS, "4");
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(null, properties);
+
+        final FlowController flowController = mock(FlowController.class);
+        when(flowController.getStateManagerProvider()).thenReturn(mock(StateManagerProvider.class));
+
+        flowEngine = new FlowEngine(1, "Unit Test", true);
+        ioBoundEngine = TimerDrivenSchedulingAgent.createIoBoundEngine(nifiProperties).get();
+        agent = new TimerDrivenSchedulingAgent(flowController, flowEngine, ioBoundEngine, mock(RepositoryContextFactory.class), null, nifiProperties);
+    }
+
+    @After
+    public void cleanup() {
+        agent.shutdown();
+    }
+
+    @Test
+    public void testNoIoBoundEngineUnlessEnabled() {
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(null, Collections.emptyMap());
+        assertFalse(TimerDrivenSchedulingAgent.createIoBoundEngine(nifiProperties).isPresent());
+
+        final Optional<IoBoundEngine> engine = TimerDrivenSchedulingAgent.createIoBoundEngine(NiFiProperties.createBasicNiFiProperties(null,
+            Collections.singletonMap(TimerDrivenSchedulingAgent.IO_BOUND_ENABLED, "true")));
+        assertTrue(engine.isPresent());
+        assertEquals(TimerDrivenSchedulingAgent.DEFAULT_IO_BOUND_MAX_THREADS, engine.get().getMaxThreadCount());
+        engine.get().shutdown();
+    }
+
+    @Test
+    public void testIoBoundProcessorRunsOnIoBoundEngine() throws Exception {
+        assertTrue(runProcessor(true).startsWith("Timer-Driven I/O Process"));
+    }
+
+    @Test
+    public void testOtherProcessorRunsOnTimerDrivenEngine() throws Exception {
+        assertTrue(runProcessor(false).startsWith("Unit Test"));
+    }
+
+    @Test(timeout = 10000)
+    public void testDispatchedTaskRunsOnTaskExecutorWithFixedDelay() throws Exception {
+        final ExecutorService taskExecutor = Executors.newCachedThreadPool(runnable -> new Thread(runnable, "Task Executor Thread"));
+        final IoBoundEngine engine = new IoBoundEngine(1, "Unit Test I/O", taskExecutor);
+        try {
+            assertTrue(engine.isVirtual());
+
+            final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+            final CountDownLatch runs = new CountDownLatch(3);
+            final ScheduledFuture<?> future = engine.scheduleWithFixedDelay(() -> {
+                threadNames.add(Thread.currentThread().getName());
+                runs.countDown();
+            }, 0L, 10L, TimeUnit.MILLISECONDS);
+
+            assertTrue(runs.await(5, TimeUnit.SECONDS));
+            assertEquals(Collections.singleton("Task Executor Thread"), threadNames);
+
+            assertTrue(future.cancel(false));
+            assertTrue(future.isCancelled());
+            assertFalse(future.cancel(false));
+        } finally {
+            engine.shutdownNow();
+        }
+
+        assertTrue(engine.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(engine.isTerminated());
+    }
+
+    @Test(timeout = 10000)
+    public void testDispatchedTasksLimitedToMaxThreads() throws Exception {
+        final IoBoundEngine engine = new IoBoundEngine(2, "Unit Test I/O", Executors.newCachedThreadPool());
+        try {
+            final AtomicInteger running = new AtomicInteger(0);
+            final AtomicInteger maxRunning = new AtomicInteger(0);
+            final CountDownLatch runs = new CountDownLatch(20);
+            for (int i = 0; i < 5; i++) {
+                engine.scheduleWithFixedDelay(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5L);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    runs.countDown();
+                }, 0L, 0L, TimeUnit.NANOSECONDS);
+            }
+
+            assertTrue(runs.await(5, TimeUnit.SECONDS));
+            assertTrue(maxRunning.get() <= 2);
+        } finally {
+            engine.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEventNotificationRequiredOnlyWhenBacklogAware() {
+        assertFalse(agent.isEventNotificationRequired());
+
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties(null,
+            Collections.singletonMap(TimerDrivenSchedulingAgent.BACKLOG_AWARE_SCHEDULING, "true"));
+        final TimerDrivenSchedulingAgent backlogAwareAgent = new TimerDrivenSchedulingAgent(mock(FlowController.class), flowEngine,
+            mock(RepositoryContextFactory.class), null, nifiProperties);
+        assertTrue(backlogAwareAgent.isEventNotificationRequired());
+    }
+
+    @Test
+    public void testBacklogWeight() {
+        final ProcessorNode procNode = mock(ProcessorNode.class);
+        final Connection incoming = createConnection(mock(ProcessorNode.class), 500, 1000L);
+        final Connection selfLoop = createConnection(procNode, 1000, 1000L);
+        final Connection outgoing = createConnection(procNode, 250, 1000L);
+        when(procNode.getIncomingConnections()).thenReturn(Arrays.asList(incoming, selfLoop));
+        when(procNode.getConnections()).thenReturn(Collections.singleton(outgoing));
+
+        assertEquals(0.375D, TimerDrivenSchedulingAgent.getBacklogWeight(procNode), 0.0001D);
+
+        // No backlog, so no time slice, regardless of self-loops.
+        when(procNode.getIncomingConnections()).thenReturn(Collections.singletonList(selfLoop));
+        assertEquals(0D, TimerDrivenSchedulingAgent.getBacklogWeight(procNode), 0D);
+
+        // Full downstream queue leaves no headroom.
+        when(procNode.getIncomingConnections()).thenReturn(Collections.singletonList(incoming));
+        final Connection fullOutgoing = createConnection(procNode, 5000, 1000L);
+        when(procNode.getConnections()).thenReturn(Collections.singleton(fullOutgoing));
+        assertEquals(0D, TimerDrivenSchedulingAgent.getBacklogWeight(procNode), 0D);
+    }
+
+    private Connection createConnection(final ProcessorNode source, final int queued, final long threshold) {
+        final FlowFileQueue queue = mock(FlowFileQueue.class);
+        when(queue.size()).thenReturn(new QueueSize(queued, queued * 1024L));
+        when(queue.getBackPressureObjectThreshold()).thenReturn(threshold);
+
+        final Connection connection = mock(Connection.class);
+        when(connection.getSource()).thenReturn(source);
+        when(connection.getFlowFileQueue()).thenReturn(queue);
+        return connection;
+    }
+
+    /**
+     * Schedules a Processor of the given type and waits for it to be triggered
+     *
+     * @return the name of the thread that triggered the Processor
+     */
+    private String runProcessor(final boolean ioBound) throws Exception {
+        final CompletableFuture<String> threadName = new CompletableFuture<>();
+
+        final ProcessorNode procNode = mock(ProcessorNode.class);
+        when(procNode.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        when(procNode.isIOBound()).thenReturn(ioBound);
+        when(procNode.getMaxConcurrentTasks()).thenReturn(1);
+        when(procNode.getSchedulingPeriod(any(TimeUnit.class))).thenReturn(TimeUnit.HOURS.toNanos(1L));
+        when(procNode.getYieldExpiration()).thenAnswer(invocation -> {
+            threadName.complete(Thread.currentThread().getName());
+            return 0L;
+        });
+
+        // The task is terminated so that it is triggered without calling the mock Processor.
+        final LifecycleState scheduleState = new LifecycleState();
+        scheduleState.terminate();
+        agent.doSchedule(procNode, scheduleState);
+
+        return threadName.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.flowfile.FlowFile;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestColumnarSwapSerializerDeserializer {
+
+    private FlowFileQueue flowFileQueue;
+
+    @Before
+    public void setup() {
+        MockFlowFile.resetIdGenerator();
+
+        flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeSummary() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        long size = 0L;
+        final ContentClaim firstClaim = MockFlowFile.createContentClaim("id", resourceClaimManager);
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("i", String.valueOf(i));
+            final FlowFileRecord ff = i < 2 ? new MockFlowFile(attrs, i, firstClaim) : new MockFlowFile(attrs, i, resourceClaimManager);
+            toSwap.add(ff);
+            size += i;
+        }
+
+        final File swapFile = serialize(toSwap, "target/testColumnarRoundTrip.swap");
+
+        final SwapSummary swapSummary;
+        try (final FileInputStream fis = new FileInputStream(swapFile);
+            final DataInputStream dis = new DataInputStream(fis)) {
+            swapSummary = new ColumnarSwapDeserializer().getSwapSummary(dis, swapFile.getPath(), resourceClaimManager);
+        }
+
+        assertEquals(10000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(size, swapSummary.getQueueSize().getByteCount());
+        assertEquals(9999, swapSummary.getMaxFlowFileId().intValue());
+
+        final List<ResourceClaim> resourceClaims = swapSummary.getResourceClaims();
+        assertEquals(10000, resourceClaims.size());
+        assertFalse(resourceClaims.stream().anyMatch(claim -> claim == null));
+        assertEquals(2, resourceClaims.stream().filter(claim -> claim.getId().equals("id")).collect(Collectors.counting()).intValue());
+
+        final Set<ResourceClaim> uniqueClaims = new HashSet<>(resourceClaims);
+        assertEquals(9999, uniqueClaims.size());
+
+        assertEquals((Long) toSwap.stream().mapToLong(FlowFile::getLastQueueDate).sum(), swapSummary.getTotalLastQueueDate());
+        assertEquals((Long) toSwap.stream().mapToLong(FlowFile::getLastQueueDate).min().getAsLong(), swapSummary.getMinLastQueueDate());
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeFullSwapFile() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("path", "./");
+        long size = 0L;
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("i", String.valueOf(i));
+            final FlowFileRecord ff = i % 3 == 0 ? new MockFlowFile(attrs, i, (ContentClaim) null) : new MockFlowFile(attrs, i, resourceClaimManager);
+            toSwap.add(ff);
+            size += i;
+        }
+
+        final File swapFile = serialize(toSwap, "target/testColumnarRoundTrip.swap");
+
+        final SwapContents contents;
+        try (final FileInputStream fis = new FileInputStream(swapFile);
+            final InputStream bufferedIn = new BufferedInputStream(fis);
+            final DataInputStream dis = new DataInputStream(bufferedIn)) {
+            contents = new ColumnarSwapDeserializer().deserializeFlowFiles(dis, swapFile.getPath(), flowFileQueue, resourceClaimManager);
+        }
+
+        final SwapSummary swapSummary = contents.getSummary();
+        assertEquals(10000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(size, swapSummary.getQueueSize().getByteCount());
+        assertEquals(9999, swapSummary.getMaxFlowFileId().intValue());
+        assertEquals(10000, contents.getFlowFiles().size());
+
+        String path = null;
+        for (int i = 0; i < toSwap.size(); i++) {
+            final FlowFileRecord original = toSwap.get(i);
+            final FlowFileRecord flowFile = contents.getFlowFiles().get(i);
+
+            assertEquals(original.getId(), flowFile.getId());
+            assertEquals(original.getEntryDate(), flowFile.getEntryDate());
+            assertEquals(original.getLineageStartDate(), flowFile.getLineageStartDate());
+            assertEquals(original.getLastQueueDate(), flowFile.getLastQueueDate());
+            assertEquals(original.getSize(), flowFile.getSize());
+            assertEquals(original.getAttributes(), flowFile.getAttributes());
+
+            if (original.getContentClaim() == null) {
+                assertNull(flowFile.getContentClaim());
+            } else {
+                assertEquals(original.getContentClaim(), flowFile.getContentClaim());
+                assertEquals(original.getContentClaim().getResourceClaim(), flowFile.getContentClaim().getResourceClaim());
+                assertEquals(original.getContentClaimOffset(), flowFile.getContentClaimOffset());
+            }
+
+            // Attribute values that are repeated across FlowFiles should be read back as a single instance
+            if (path == null) {
+                path = flowFile.getAttribute("path");
+            } else {
+                assertSame(path, flowFile.getAttribute("path"));
+            }
+        }
+    }
+
+    @Test
+    public void testColumnarSwapFileSmallerThanSchemaSwapFile() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("mime.type", "application/json");
+        attrs.put("path", "./");
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("filename", "file-" + i + ".json");
+            toSwap.add(new MockFlowFile(attrs, i, resourceClaimManager));
+        }
+
+        final File columnarFile = serialize(toSwap, "target/testColumnarSize.swap");
+
+        final File schemaFile = new File("target/testSchemaSize.swap");
+        Files.deleteIfExists(schemaFile.toPath());
+        try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(schemaFile))) {
+            new SchemaSwapSerializer().serializeFlowFiles(toSwap, flowFileQueue, schemaFile.getPath(), out);
+        }
+
+        assertTrue(columnarFile.length() < schemaFile.length());
+    }
+
+    private File serialize(final List<FlowFileRecord> toSwap, final String swapLocation) throws IOException {
+        final File swapFile = new File(swapLocation);
+        Files.deleteIfExists(swapFile.toPath());
+
+        try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(swapFile))) {
+            new ColumnarSwapSerializer().serializeFlowFiles(toSwap, flowFileQueue, swapLocation, out);
+        }
+
+        return swapFile;
+    }
+}
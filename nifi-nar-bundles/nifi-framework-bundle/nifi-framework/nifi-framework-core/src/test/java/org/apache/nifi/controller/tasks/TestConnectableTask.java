@@ -17,6 +17,7 @@
 
 package org.apache.nifi.controller.tasks;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.when;
@@ -34,7 +35,9 @@ import org.apache.nifi.connectable.Connection;
 import org.apache.nifi.connectable.Funnel;
 import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.ScheduledState;
 import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileEvent;
 import org.apache.nifi.controller.repository.FlowFileEventRepository;
 import org.apache.nifi.controller.repository.RepositoryContext;
 import org.apache.nifi.controller.repository.StandardRepositoryContext;
@@ -42,19 +45,30 @@ import org.apache.nifi.controller.scheduling.RepositoryContextFactory;
 import org.apache.nifi.controller.scheduling.LifecycleState;
 import org.apache.nifi.controller.scheduling.SchedulingAgent;
 import org.apache.nifi.encrypt.PropertyEncryptor;
+import org.apache.nifi.nar.ExtensionManager;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.Processor;
+import org.junit.Assume;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 public class TestConnectableTask {
 
 
     private ConnectableTask createTask(final Connectable connectable) {
+        return createTask(connectable, ThreadResourceSampler.DISABLED, Mockito.mock(FlowFileEventRepository.class));
+    }
+
+    private ConnectableTask createTask(final Connectable connectable, final ThreadResourceSampler sampler, final FlowFileEventRepository eventRepository) {
         final FlowController flowController = Mockito.mock(FlowController.class);
         Mockito.when(flowController.getStateManagerProvider()).thenReturn(Mockito.mock(StateManagerProvider.class));
+        Mockito.when(flowController.getThreadResourceSampler()).thenReturn(sampler);
+        Mockito.when(flowController.getExtensionManager()).thenReturn(Mockito.mock(ExtensionManager.class));
 
         final RepositoryContext repoContext = Mockito.mock(StandardRepositoryContext.class);
-        Mockito.when(repoContext.getFlowFileEventRepository()).thenReturn(Mockito.mock(FlowFileEventRepository.class));
+        Mockito.when(repoContext.getFlowFileEventRepository()).thenReturn(eventRepository);
 
         final RepositoryContextFactory contextFactory = Mockito.mock(RepositoryContextFactory.class);
         Mockito.when(contextFactory.newProcessContext(Mockito.any(Connectable.class), Mockito.any(AtomicLong.class))).thenReturn(repoContext);
@@ -180,4 +194,42 @@ public class TestConnectableTask {
 
     }
 
+    @Test
+    public void testCpuAndAllocationsRecordedWhenProfiling() throws Exception {
+        final ThreadResourceSampler sampler = ThreadResourceSampler.create();
+        Assume.assumeTrue("JVM does not support thread CPU time or allocation measurement", sampler.isEnabled());
+
+        final ProcessorNode procNode = Mockito.mock(ProcessorNode.class);
+        final Processor processor = Mockito.mock(Processor.class);
+        Mockito.when(procNode.getIdentifier()).thenReturn("123");
+        Mockito.when(procNode.getRunnableComponent()).thenReturn(processor);
+        Mockito.when(procNode.getScheduledState()).thenReturn(ScheduledState.RUNNING);
+
+        final long[] allocated = new long[1];
+        Mockito.doAnswer(invocation -> {
+            final byte[] buffer = new byte[1024 * 1024];
+            allocated[0] += buffer.length;
+
+            long sum = 0L;
+            final long stopTime = System.nanoTime() + 20_000_000L;
+            while (System.nanoTime() < stopTime) {
+                sum += System.nanoTime() % 7;
+            }
+            return sum;
+        }).when(procNode).onTrigger(Mockito.any(ProcessContext.class), Mockito.any(ProcessSessionFactory.class));
+
+        final FlowFileEventRepository eventRepository = Mockito.mock(FlowFileEventRepository.class);
+        final ConnectableTask task = createTask(procNode, sampler, eventRepository);
+        assertFalse(task.invoke().isYield());
+
+        final ArgumentCaptor<FlowFileEvent> eventCaptor = ArgumentCaptor.forClass(FlowFileEvent.class);
+        Mockito.verify(eventRepository).updateRepository(eventCaptor.capture(), Mockito.eq("123"));
+
+        final FlowFileEvent event = eventCaptor.getValue();
+        assertEquals(1, event.getInvocations());
+        assertTrue(event.getCpuNanoseconds() > 0L || event.getAllocatedBytes() > 0L);
+        assertTrue(event.getCpuNanoseconds() <= event.getProcessingNanoseconds() + 1_000_000L);
+        assertTrue(event.getAllocatedBytes() == 0L || event.getAllocatedBytes() >= allocated[0]);
+    }
+
 }
@@ -386,8 +386,12 @@ public class FrameworkIntegrationTest {
     }
 
     protected FlowFileQueue createFlowFileQueue(final String uuid, final ProcessGroup processGroup) {
+        return createFlowFileQueue(uuid, processGroup, ConnectionEventListener.NOP_EVENT_LISTENER);
+    }
+
+    protected FlowFileQueue createFlowFileQueue(final String uuid, final ProcessGroup processGroup, final ConnectionEventListener eventListener) {
         final RepositoryContext repoContext = getRepositoryContext();
-        return new StandardFlowFileQueue(uuid, ConnectionEventListener.NOP_EVENT_LISTENER, repoContext.getFlowFileRepository(), repoContext.getProvenanceRepository(),
+        return new StandardFlowFileQueue(uuid, eventListener, repoContext.getFlowFileRepository(), repoContext.getProvenanceRepository(),
             resourceClaimManager, processScheduler, flowFileSwapManager, flowController.createEventReporter(), 20000,
                 processGroup.getDefaultFlowFileExpiration(), processGroup.getDefaultBackPressureObjectThreshold(), processGroup.getDefaultBackPressureDataSizeThreshold());
     }
@@ -491,14 +495,14 @@ public class FrameworkIntegrationTest {
 
     protected final Connection connect(ProcessGroup processGroup, final Connectable source, final Connectable destination, final Collection<Relationship> relationships) {
         final String id = UUID.randomUUID().toString();
-        final Connection connection = new StandardConnection.Builder(processScheduler)
+        final Connection connection = new StandardConnection.Builder(flowController.getProcessScheduler())
                 .source(source)
                 .destination(destination)
                 .processGroup(processGroup)
                 .relationships(relationships)
                 .id(id)
                 .clustered(false)
-                .flowFileQueueFactory((loadBalanceStrategy, partitioningAttribute, eventListener, processGroup1) -> createFlowFileQueue(id, processGroup))
+                .flowFileQueueFactory((loadBalanceStrategy, partitioningAttribute, eventListener, processGroup1) -> createFlowFileQueue(id, processGroup, eventListener))
                 .build();
 
         source.addConnection(connection);
@@ -106,6 +106,11 @@ public class OOMEWriteAheadFlowFileRepository extends WriteAheadFlowFileReposito
             serde.serializeRecord(record, out);
         }
 
+        @Override
+        public boolean isPreviousStateRequired() {
+            return serde.isPreviousStateRequired();
+        }
+
         @Override
         public SerializedRepositoryRecord deserializeEdit(final DataInputStream in, final Map<Object, SerializedRepositoryRecord> currentRecordStates, final int version) throws IOException {
             return serde.deserializeEdit(in, currentRecordStates, version);
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.integration.scheduling;
+
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.scheduling.TimerDrivenSchedulingAgent;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.integration.FrameworkIntegrationTest;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertTrue;
+
+public class BacklogAwareSchedulingIT extends FrameworkIntegrationTest {
+    @Override
+    protected Map<String, String> getNiFiPropertiesOverrides() {
+        final Map<String, String> overrides = new HashMap<>();
+        overrides.put(TimerDrivenSchedulingAgent.BACKLOG_AWARE_SCHEDULING, "true");
+        overrides.put(TimerDrivenSchedulingAgent.BACKLOG_AWARE_MAX_IDLE_DURATION, "1 min");
+        return overrides;
+    }
+
+    @Test(timeout = 30000)
+    public void testIdleProcessorIsWokenWhenFlowFileQueued() throws ExecutionException, InterruptedException {
+        final AtomicInteger processed = new AtomicInteger(0);
+        final ProcessorNode generate = createGenerateProcessor(0);
+        final ProcessorNode consume = createProcessorNode((context, session) -> {
+            final FlowFile flowFile = session.get();
+            if (flowFile != null) {
+                session.remove(flowFile);
+                processed.incrementAndGet();
+            }
+        });
+        connect(generate, consume, REL_SUCCESS);
+
+        start(consume).get();
+
+        // Give the consumer time to find that it has no work to do, so that it waits for up to a minute before being triggered again.
+        Thread.sleep(500L);
+
+        final long start = System.nanoTime();
+        triggerOnce(generate);
+        while (processed.get() < 1) {
+            Thread.sleep(10L);
+        }
+
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("Expected FlowFile to be processed as soon as it was queued but took " + millis + " millis", millis < 10_000L);
+
+        stop(consume).get();
+    }
+}
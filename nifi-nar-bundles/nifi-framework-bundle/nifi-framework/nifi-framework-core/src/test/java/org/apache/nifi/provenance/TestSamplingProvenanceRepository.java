@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import org.apache.nifi.groups.ProcessGroup;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestSamplingProvenanceRepository {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1L);
+    private static final long START_TIME = 1_600_000_000_000L - (1_600_000_000_000L % MINUTE);
+
+    private final Map<String, ProcessGroup> componentGroups = new HashMap<>();
+    private final Function<String, ProcessGroup> groupLookup = componentGroups::get;
+
+    private ProcessGroup sampledGroup;
+    private ProcessGroup childGroup;
+    private ProcessGroup recordedGroup;
+
+    @Before
+    public void setup() {
+        final ProcessGroup rootGroup = createGroup("root", null);
+        sampledGroup = createGroup("sampled", rootGroup);
+        childGroup = createGroup("child", sampledGroup);
+        recordedGroup = createGroup("recorded", sampledGroup);
+
+        componentGroups.put("root-processor", rootGroup);
+        componentGroups.put("sampled-processor", sampledGroup);
+        componentGroups.put("child-processor", childGroup);
+        componentGroups.put("recorded-processor", recordedGroup);
+    }
+
+    @Test
+    public void testGroupSamplingRatesInherited() {
+        final ProvenanceSamplingPolicy policy = createPolicy();
+        assertTrue(policy.isSamplingEnabled());
+
+        assertEquals(1D, policy.getSamplingRate("root-processor"), 0D);
+        assertEquals(0.1D, policy.getSamplingRate("sampled-processor"), 0D);
+        assertEquals(0.1D, policy.getSamplingRate("child-processor"), 0D);
+        assertEquals(1D, policy.getSamplingRate("recorded-processor"), 0D);
+        assertEquals(1D, policy.getSamplingRate("unknown-processor"), 0D);
+
+        assertFalse(new ProvenanceSamplingPolicy(1D, Collections.emptyMap(), EnumSet.of(ProvenanceEventType.ROUTE), groupLookup).isSamplingEnabled());
+        assertFalse(new ProvenanceSamplingPolicy(0D, Collections.emptyMap(), EnumSet.noneOf(ProvenanceEventType.class), groupLookup).isSamplingEnabled());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSamplingRate() {
+        new ProvenanceSamplingPolicy(1D, Collections.singletonMap("sampled", 1.5D), EnumSet.of(ProvenanceEventType.ROUTE), groupLookup);
+    }
+
+    @Test
+    public void testSamplingDeterministicPerFlowFile() {
+        final ProvenanceSamplingPolicy policy = createPolicy();
+
+        int sampledCount = 0;
+        for (int i = 0; i < 10_000; i++) {
+            final String uuid = UUID.randomUUID().toString();
+            final boolean sampled = policy.isRecorded(createEvent("sampled-processor", ProvenanceEventType.ROUTE, uuid, START_TIME));
+
+            // Every sampled event of the same FlowFile must be recorded, so that its lineage is complete
+            assertEquals(sampled, policy.isRecorded(createEvent("child-processor", ProvenanceEventType.ATTRIBUTES_MODIFIED, uuid, START_TIME)));
+            assertEquals(sampled, ProvenanceSamplingPolicy.isSampled(uuid, 0.1D));
+
+            // Events that are not subject to sampling are always recorded
+            assertTrue(policy.isRecorded(createEvent("sampled-processor", ProvenanceEventType.DROP, uuid, START_TIME)));
+            assertTrue(policy.isRecorded(createEvent("recorded-processor", ProvenanceEventType.ROUTE, uuid, START_TIME)));
+
+            if (sampled) {
+                sampledCount++;
+            }
+        }
+
+        assertTrue("Sampled " + sampledCount + " of 10000 FlowFiles", sampledCount > 800 && sampledCount < 1200);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRegisterEventsIteratesOnce() {
+        final ProvenanceRepository delegate = mock(ProvenanceRepository.class);
+        final ProvenanceEventAggregator aggregator = new ProvenanceEventAggregator(1, TimeUnit.HOURS);
+        final SamplingProvenanceRepository repository = new SamplingProvenanceRepository(delegate, createPolicy(), aggregator);
+
+        final String sampledUuid = findUuid(true);
+        final String unsampledUuid = findUuid(false);
+
+        // StandardProcessSession registers its events with an Iterable that can be iterated only once
+        final List<ProvenanceEventRecord> recordedEvents = Arrays.asList(
+            createEvent("sampled-processor", ProvenanceEventType.ROUTE, sampledUuid, START_TIME),
+            createEvent("sampled-processor", ProvenanceEventType.DROP, unsampledUuid, START_TIME));
+        repository.registerEvents(singleUse(recordedEvents));
+
+        final List<ProvenanceEventRecord> mixedEvents = Arrays.asList(
+            createEvent("sampled-processor", ProvenanceEventType.ROUTE, sampledUuid, START_TIME),
+            createEvent("sampled-processor", ProvenanceEventType.ROUTE, unsampledUuid, START_TIME),
+            createEvent("sampled-processor", ProvenanceEventType.DROP, unsampledUuid, START_TIME));
+        repository.registerEvents(singleUse(mixedEvents));
+
+        final ArgumentCaptor<Iterable<ProvenanceEventRecord>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(delegate, times(2)).registerEvents(captor.capture());
+        assertEquals(recordedEvents, toList(captor.getAllValues().get(0)));
+        assertEquals(Arrays.asList(mixedEvents.get(0), mixedEvents.get(2)), toList(captor.getAllValues().get(1)));
+        assertEquals(1, aggregator.getAggregates("sampled-processor", START_TIME, START_TIME).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnsampledEventsAggregated() {
+        final ProvenanceRepository delegate = mock(ProvenanceRepository.class);
+        final ProvenanceEventAggregator aggregator = new ProvenanceEventAggregator(1, TimeUnit.HOURS);
+        final SamplingProvenanceRepository repository = new SamplingProvenanceRepository(delegate, createPolicy(), aggregator);
+        assertSame(repository, repository.getProvenanceEventRepository());
+
+        final String sampledUuid = findUuid(true);
+        final String unsampledUuid = findUuid(false);
+
+        // When all events are recorded, all of them are passed on
+        final List<ProvenanceEventRecord> recordedEvents = Arrays.asList(
+            createEvent("sampled-processor", ProvenanceEventType.ROUTE, sampledUuid, START_TIME),
+            createEvent("sampled-processor", ProvenanceEventType.DROP, unsampledUuid, START_TIME));
+        repository.registerEvents(recordedEvents);
+        verify(delegate).registerEvents(recordedEvents);
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        events.add(createEvent("root-processor", ProvenanceEventType.ROUTE, unsampledUuid, START_TIME));
+        events.add(createEvent("sampled-processor", ProvenanceEventType.ROUTE, sampledUuid, START_TIME));
+        events.add(createEvent("sampled-processor", ProvenanceEventType.ROUTE, unsampledUuid, START_TIME + 1));
+        events.add(createEvent("sampled-processor", ProvenanceEventType.ROUTE, unsampledUuid, START_TIME + 2));
+        events.add(createEvent("sampled-processor", ProvenanceEventType.CONTENT_MODIFIED, unsampledUuid, START_TIME + MINUTE));
+        events.add(createEvent("child-processor", ProvenanceEventType.ATTRIBUTES_MODIFIED, unsampledUuid, START_TIME + MINUTE));
+        events.add(createEvent("sampled-processor", ProvenanceEventType.DROP, unsampledUuid, START_TIME + MINUTE));
+        repository.registerEvents(events);
+
+        final ArgumentCaptor<Iterable<ProvenanceEventRecord>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(delegate, times(2)).registerEvents(captor.capture());
+        assertEquals(Arrays.asList(events.get(0), events.get(1), events.get(6)), captor.getAllValues().get(1));
+
+        // When no events are recorded, the delegate is not called at all
+        repository.registerEvent(createEvent("child-processor", ProvenanceEventType.ROUTE, unsampledUuid, START_TIME + MINUTE));
+        verify(delegate, never()).registerEvent(any(ProvenanceEventRecord.class));
+
+        final List<ProvenanceEventAggregate> sampledAggregates = aggregator.getAggregates("sampled-processor", START_TIME, START_TIME + 2 * MINUTE);
+        assertEquals(2, sampledAggregates.size());
+        assertAggregate(sampledAggregates.get(0), "sampled-processor", ProvenanceEventType.ROUTE, START_TIME, 2L);
+        assertAggregate(sampledAggregates.get(1), "sampled-processor", ProvenanceEventType.CONTENT_MODIFIED, START_TIME + MINUTE, 1L);
+
+        final List<ProvenanceEventAggregate> childAggregates = aggregator.getAggregates("child-processor", START_TIME + MINUTE, START_TIME + MINUTE);
+        assertEquals(2, childAggregates.size());
+        assertEquals(3, aggregator.getAggregates(null, START_TIME + MINUTE, Long.MAX_VALUE).size());
+        assertEquals(0, aggregator.getAggregates(null, START_TIME + 2 * MINUTE, Long.MAX_VALUE).size());
+
+        // Counts older than the retention period are discarded
+        aggregator.purge(START_TIME + TimeUnit.HOURS.toMillis(1) + 1);
+        assertEquals(3, aggregator.getAggregates(null, 0L, Long.MAX_VALUE).size());
+        aggregator.purge(START_TIME + TimeUnit.HOURS.toMillis(1) + MINUTE + 1);
+        assertEquals(0, aggregator.getAggregates(null, 0L, Long.MAX_VALUE).size());
+    }
+
+    private void assertAggregate(final ProvenanceEventAggregate aggregate, final String componentId, final ProvenanceEventType eventType, final long timestamp, final long count) {
+        assertEquals(componentId, aggregate.getComponentId());
+        assertEquals("unit test", aggregate.getComponentType());
+        assertEquals(eventType, aggregate.getEventType());
+        assertEquals(timestamp, aggregate.getTimestamp());
+        assertEquals(count, aggregate.getCount());
+    }
+
+    private String findUuid(final boolean sampled) {
+        while (true) {
+            final String uuid = UUID.randomUUID().toString();
+            if (ProvenanceSamplingPolicy.isSampled(uuid, 0.1D) == sampled) {
+                return uuid;
+            }
+        }
+    }
+
+    private ProvenanceSamplingPolicy createPolicy() {
+        final Map<String, Double> groupRates = new HashMap<>();
+        groupRates.put("sampled", 0.1D);
+        groupRates.put("recorded", 1D);
+
+        return new ProvenanceSamplingPolicy(1D, groupRates, EnumSet.of(ProvenanceEventType.ROUTE, ProvenanceEventType.ATTRIBUTES_MODIFIED, ProvenanceEventType.CONTENT_MODIFIED),
+            groupLookup);
+    }
+
+    private ProcessGroup createGroup(final String id, final ProcessGroup parent) {
+        final ProcessGroup group = mock(ProcessGroup.class);
+        when(group.getIdentifier()).thenReturn(id);
+        when(group.getParent()).thenReturn(parent);
+        return group;
+    }
+
+    private ProvenanceEventRecord createEvent(final String componentId, final ProvenanceEventType eventType, final String uuid, final long eventTime) {
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventType(eventType)
+            .setComponentId(componentId)
+            .setComponentType("unit test")
+            .setEventTime(eventTime)
+            .setFlowFileEntryDate(eventTime)
+            .setLineageStartDate(eventTime)
+            .setFlowFileUUID(uuid)
+            .setAttributes(Collections.emptyMap(), Collections.emptyMap())
+            .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+            .setRelationship(eventType == ProvenanceEventType.ROUTE ? "success" : null)
+            .build();
+    }
+
+    private static Iterable<ProvenanceEventRecord> singleUse(final List<ProvenanceEventRecord> events) {
+        final Iterator<ProvenanceEventRecord> iterator = events.iterator();
+        return () -> iterator;
+    }
+
+    private static List<ProvenanceEventRecord> toList(final Iterable<ProvenanceEventRecord> events) {
+        final List<ProvenanceEventRecord> list = new ArrayList<>();
+        events.forEach(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>
+ * A compact Map of FlowFile attributes. Most FlowFiles have relatively few attributes, so rather than a hash table, the attributes are held in a pair
+ * of arrays, one for the keys and one for the values, and are located by a linear scan. This avoids the overhead of a hash table and an entry object per
+ * attribute. Once the number of attributes exceeds {@link #MAX_ARRAY_SIZE}, the attributes are held in a {@link HashMap} instead.
+ * </p>
+ *
+ * <p>
+ * Attribute keys are interned, so that the keys of all FlowFiles share a single instance of each String, including FlowFiles that are restored from the
+ * FlowFile Repository or from swap files.
+ * </p>
+ *
+ * <p>
+ * Once a map is handed to a FlowFile, it is frozen by {@link #trimToSize()}. When a map is created from a frozen CompactAttributeMap, as is the case when
+ * a FlowFile is updated or cloned, the new map shares the frozen map's arrays until it is modified, at which point it copies them. A map that has not been
+ * frozen may still be modified by its owner, so its arrays are copied right away instead. Either way, creating a map never modifies the source map. This
+ * class is not thread-safe. A map that is held by a FlowFile must not be modified.
+ * </p>
+ */
+final class CompactAttributeMap extends AbstractMap<String, String> {
+    static final int MAX_ARRAY_SIZE = 32;
+    private static final String[] EMPTY = new String[0];
+
+    private String[] keys;
+    private String[] values;
+    private int size;
+    // true if the arrays may be referenced by another map, in which case they must be copied before they are modified
+    private boolean shared;
+    private Map<String, String> largeMap;
+
+    CompactAttributeMap() {
+        keys = EMPTY;
+        values = EMPTY;
+    }
+
+    CompactAttributeMap(final Map<String, String> source) {
+        if (source instanceof CompactAttributeMap) {
+            final CompactAttributeMap other = (CompactAttributeMap) source;
+            if (other.largeMap == null && other.shared) {
+                // The other map is held by a FlowFile and so will not be modified. Share its arrays until this map is modified.
+                keys = other.keys;
+                values = other.values;
+                size = other.size;
+                shared = true;
+            } else if (other.largeMap == null) {
+                keys = Arrays.copyOf(other.keys, other.size);
+                values = Arrays.copyOf(other.values, other.size);
+                size = other.size;
+            } else {
+                keys = EMPTY;
+                values = EMPTY;
+                largeMap = new HashMap<>(other.largeMap);
+            }
+
+            return;
+        }
+
+        final int sourceSize = source.size();
+        if (sourceSize > MAX_ARRAY_SIZE) {
+            keys = EMPTY;
+            values = EMPTY;
+            largeMap = new HashMap<>();
+        } else {
+            keys = sourceSize == 0 ? EMPTY : new String[sourceSize];
+            values = sourceSize == 0 ? EMPTY : new String[sourceSize];
+        }
+
+        putAll(source);
+    }
+
+    private int indexOf(final Object key) {
+        // Keys are interned, and most lookups are performed with constants, so check for the same instance before checking equality.
+        for (int i = 0; i < size; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+
+        if (key == null) {
+            return -1;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (key.equals(keys[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int size() {
+        return largeMap == null ? size : largeMap.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return largeMap == null ? indexOf(key) >= 0 : largeMap.containsKey(key);
+    }
+
+    @Override
+    public String get(final Object key) {
+        if (largeMap != null) {
+            return largeMap.get(key);
+        }
+
+        final int index = indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public String put(final String key, final String value) {
+        if (key == null) {
+            throw new NullPointerException("Attribute key cannot be null");
+        }
+
+        if (largeMap != null) {
+            return largeMap.put(key.intern(), value);
+        }
+
+        final int index = indexOf(key);
+        if (index >= 0) {
+            final String previous = values[index];
+            if (previous != value) {
+                copyIfShared(keys.length);
+                values[index] = value;
+            }
+
+            return previous;
+        }
+
+        if (size >= MAX_ARRAY_SIZE) {
+            largeMap = new HashMap<>(MAX_ARRAY_SIZE * 2);
+            for (int i = 0; i < size; i++) {
+                largeMap.put(keys[i], values[i]);
+            }
+
+            keys = EMPTY;
+            values = EMPTY;
+            size = 0;
+            shared = false;
+            return largeMap.put(key.intern(), value);
+        }
+
+        if (size == keys.length) {
+            copyIfShared(Math.min(MAX_ARRAY_SIZE, Math.max(4, size + (size >> 1))));
+        } else {
+            copyIfShared(keys.length);
+        }
+
+        keys[size] = key.intern();
+        values[size] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    public String remove(final Object key) {
+        if (largeMap != null) {
+            return largeMap.remove(key);
+        }
+
+        final int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+
+        final String previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+
+    private void removeAt(final int index) {
+        copyIfShared(keys.length);
+
+        final int toMove = size - index - 1;
+        if (toMove > 0) {
+            System.arraycopy(keys, index + 1, keys, index, toMove);
+            System.arraycopy(values, index + 1, values, index, toMove);
+        }
+
+        size--;
+        keys[size] = null;
+        values[size] = null;
+    }
+
+    @Override
+    public void clear() {
+        keys = EMPTY;
+        values = EMPTY;
+        size = 0;
+        shared = false;
+        largeMap = null;
+    }
+
+    /**
+     * Ensures that this map's arrays are not shared with any other map and have the given length, copying them if necessary
+     */
+    private void copyIfShared(final int length) {
+        if (!shared && keys.length == length) {
+            return;
+        }
+
+        keys = Arrays.copyOf(keys, length);
+        values = Arrays.copyOf(values, length);
+        shared = false;
+    }
+
+    /**
+     * Releases any unused capacity and freezes the map, so that maps created from it share its arrays. This is called when the map is about to
+     * be held by a FlowFile, after which it will not be modified.
+     */
+    void trimToSize() {
+        if (largeMap == null && keys.length > size) {
+            copyIfShared(size);
+        }
+
+        shared = true;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public int size() {
+                return CompactAttributeMap.this.size();
+            }
+
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return largeMap == null ? new ArrayIterator() : largeMap.entrySet().iterator();
+            }
+        };
+    }
+
+    private class ArrayIterator implements Iterator<Entry<String, String>> {
+        private int nextIndex = 0;
+        private int lastIndex = -1;
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (nextIndex >= size) {
+                throw new NoSuchElementException();
+            }
+
+            lastIndex = nextIndex++;
+            return new SimpleImmutableEntry<>(keys[lastIndex], values[lastIndex]);
+        }
+
+        @Override
+        public void remove() {
+            if (lastIndex < 0) {
+                throw new IllegalStateException();
+            }
+
+            removeAt(lastIndex);
+            nextIndex = lastIndex;
+            lastIndex = -1;
+        }
+    }
+}
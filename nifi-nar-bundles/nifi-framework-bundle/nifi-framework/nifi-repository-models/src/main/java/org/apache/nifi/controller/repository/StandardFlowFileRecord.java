@@ -25,7 +25,6 @@ import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -57,6 +56,9 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
     private StandardFlowFileRecord(final Builder builder) {
         this.id = builder.bId;
         this.attributes = builder.bAttributes == null ? Collections.emptyMap() : builder.bAttributes;
+        if (attributes instanceof CompactAttributeMap) {
+            ((CompactAttributeMap) attributes).trimToSize();
+        }
         this.entryDate = builder.bEntryDate;
         this.lineageStartDate = builder.bLineageStartDate;
         this.lineageStartIndex = builder.bLineageStartIndex;
@@ -212,10 +214,10 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
         private Map<String, String> initializeAttributes() {
             if (bAttributes == null) {
-                bAttributes = new HashMap<>();
+                bAttributes = new CompactAttributeMap();
                 bAttributesCopied = true;
             } else if (!bAttributesCopied) {
-                bAttributes = new HashMap<>(bAttributes);
+                bAttributes = new CompactAttributeMap(bAttributes);
                 bAttributesCopied = true;
             }
 
@@ -334,7 +336,11 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         }
 
         public FlowFileRecord build() {
-            return new StandardFlowFileRecord(this);
+            final StandardFlowFileRecord flowFile = new StandardFlowFileRecord(this);
+
+            // The FlowFile now holds the attributes map, so if this Builder is used again, it must copy the map before modifying it.
+            bAttributesCopied = false;
+            return flowFile;
         }
     }
 
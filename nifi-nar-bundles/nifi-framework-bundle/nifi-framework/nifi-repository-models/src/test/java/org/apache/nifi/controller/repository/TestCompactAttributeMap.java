@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestCompactAttributeMap {
+
+    @Test
+    public void testPutGetRemove() {
+        final CompactAttributeMap map = new CompactAttributeMap();
+        assertTrue(map.isEmpty());
+        assertNull(map.put("filename", "file.txt"));
+        assertNull(map.put("path", "./"));
+        assertEquals("file.txt", map.put("filename", "other.txt"));
+
+        assertEquals(2, map.size());
+        assertEquals("other.txt", map.get("filename"));
+        assertTrue(map.containsKey("path"));
+        assertFalse(map.containsKey("mime.type"));
+
+        assertEquals("./", map.remove("path"));
+        assertNull(map.remove("path"));
+        assertEquals(1, map.size());
+
+        final Map<String, String> expected = new HashMap<>();
+        expected.put("filename", "other.txt");
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void testKeysAreInterned() {
+        final CompactAttributeMap map = new CompactAttributeMap();
+        map.put(new String("kafka.topic"), "topic");
+        assertSame("kafka.topic", map.keySet().iterator().next());
+
+        final Map<String, String> source = new HashMap<>();
+        source.put(new String("mime.type"), "text/plain");
+        final CompactAttributeMap copy = new CompactAttributeMap(source);
+        assertSame("mime.type", copy.keySet().iterator().next());
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        final CompactAttributeMap parent = new CompactAttributeMap();
+        parent.put("a", "1");
+        parent.put("b", "2");
+
+        final CompactAttributeMap child = new CompactAttributeMap(parent);
+        assertEquals(parent, child);
+
+        child.put("a", "changed");
+        child.put("c", "3");
+        child.remove("b");
+        assertEquals("1", parent.get("a"));
+        assertEquals("2", parent.get("b"));
+        assertFalse(parent.containsKey("c"));
+        assertEquals(2, parent.size());
+
+        parent.put("d", "4");
+        assertFalse(child.containsKey("d"));
+        assertEquals("changed", child.get("a"));
+    }
+
+    @Test
+    public void testCopyOfFrozenMap() {
+        final CompactAttributeMap parent = new CompactAttributeMap();
+        parent.put("a", "1");
+        parent.put("b", "2");
+        parent.trimToSize();
+
+        final CompactAttributeMap first = new CompactAttributeMap(parent);
+        final CompactAttributeMap second = new CompactAttributeMap(parent);
+        first.put("a", "first");
+        second.remove("a");
+        second.put("c", "3");
+
+        assertEquals("first", first.get("a"));
+        assertEquals("2", first.get("b"));
+        assertFalse(second.containsKey("a"));
+        assertEquals("3", second.get("c"));
+
+        assertEquals(2, parent.size());
+        assertEquals("1", parent.get("a"));
+        assertFalse(parent.containsKey("c"));
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        final CompactAttributeMap map = new CompactAttributeMap();
+        for (int i = 0; i < 10; i++) {
+            map.put("key" + i, String.valueOf(i));
+        }
+
+        final Iterator<String> itr = map.keySet().iterator();
+        while (itr.hasNext()) {
+            if (Integer.parseInt(itr.next().substring(3)) % 2 == 0) {
+                itr.remove();
+            }
+        }
+
+        assertEquals(5, map.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 2 == 1, map.containsKey("key" + i));
+        }
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        final Random random = new Random(42L);
+        final Map<String, String> expected = new HashMap<>();
+        CompactAttributeMap map = new CompactAttributeMap();
+
+        for (int i = 0; i < 100_000; i++) {
+            final String key = "key" + random.nextInt(CompactAttributeMap.MAX_ARRAY_SIZE * 2);
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    // Replace the map with a copy, as is done whenever a FlowFile is updated
+                    map = new CompactAttributeMap(map);
+                    // fall through
+                default:
+                    final String value = String.valueOf(random.nextInt(100));
+                    assertEquals(expected.put(key, value), map.put(key, value));
+                    break;
+            }
+
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.get(key), map.get(key));
+        }
+
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void testBuilderDoesNotModifyParentAttributes() {
+        final FlowFileRecord parent = new StandardFlowFileRecord.Builder()
+            .id(1L)
+            .addAttribute("uuid", "11111111-1111-1111-1111-111111111111")
+            .addAttribute("filename", "parent.txt")
+            .build();
+
+        final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder().fromFlowFile(parent).addAttribute("filename", "child.txt");
+        final FlowFileRecord child = builder.build();
+        final FlowFileRecord grandchild = builder.addAttribute("path", "./").build();
+
+        assertEquals("parent.txt", parent.getAttribute("filename"));
+        assertEquals("child.txt", child.getAttribute("filename"));
+        assertNull(child.getAttribute("path"));
+        assertEquals("./", grandchild.getAttribute("path"));
+        assertEquals(2, parent.getAttributes().size());
+    }
+
+    @Test
+    @Ignore("For manual testing, in order to measure the heap used by queued FlowFiles")
+    public void testHeapUsage() {
+        final int flowFileCount = 1_000_000;
+        final long hashMapBytes = measureHeapUsage(flowFileCount, false);
+        final long compactBytes = measureHeapUsage(flowFileCount, true);
+
+        assertTrue("HashMap attributes used " + hashMapBytes / flowFileCount + " bytes per FlowFile; compact attributes used "
+            + compactBytes / flowFileCount + " bytes per FlowFile", compactBytes < hashMapBytes);
+    }
+
+    private long measureHeapUsage(final int flowFileCount, final boolean compact) {
+        final List<Object> retained = new ArrayList<>(flowFileCount);
+        final long before = usedHeap();
+
+        for (int i = 0; i < flowFileCount; i++) {
+            // Create new key instances for each FlowFile, as is the case when FlowFiles are restored from the FlowFile Repository
+            final Map<String, String> attributes = new HashMap<>();
+            attributes.put(new String("filename"), "file-" + i + ".json");
+            attributes.put(new String("path"), "./");
+            attributes.put(new String("mime.type"), "application/json");
+            attributes.put(new String("kafka.topic"), "events");
+            attributes.put(new String("kafka.partition"), String.valueOf(i % 8));
+            attributes.put(new String("uuid"), "00000000-0000-0000-0000-" + String.format("%012d", i));
+
+            retained.add(compact ? new CompactAttributeMap(attributes) : attributes);
+        }
+
+        final long used = usedHeap() - before;
+        assertEquals(flowFileCount, retained.size());
+        return used;
+    }
+
+    private long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
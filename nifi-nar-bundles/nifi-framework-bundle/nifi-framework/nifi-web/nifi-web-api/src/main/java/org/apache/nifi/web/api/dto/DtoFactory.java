@@ -3788,6 +3788,7 @@ public final class DtoFactory {
 
         flowDiagnosticsDto.setActiveEventDrivenThreads(flowController.getActiveEventDrivenThreadCount());
         flowDiagnosticsDto.setActiveTimerDrivenThreads(flowController.getActiveTimerDrivenThreadCount());
+        flowDiagnosticsDto.setActiveIoBoundThreads(flowController.getActiveIoBoundThreadCount());
         flowDiagnosticsDto.setBundlesLoaded(bundlesLoaded);
         flowDiagnosticsDto.setTimeZone(System.getProperty("user.timezone"));
         flowDiagnosticsDto.setUptime(FormatUtils.formatHoursMinutesSeconds(systemDiagnostics.getUptime(), TimeUnit.MILLISECONDS));
@@ -3797,6 +3798,7 @@ public final class DtoFactory {
         controllerDiagnosticsDto.setPrimaryNode(flowController.isPrimary());
         controllerDiagnosticsDto.setMaxEventDrivenThreads(flowController.getMaxEventDrivenThreadCount());
         controllerDiagnosticsDto.setMaxTimerDrivenThreads(flowController.getMaxTimerDrivenThreadCount());
+        controllerDiagnosticsDto.setMaxIoBoundThreads(flowController.getMaxIoBoundThreadCount());
 
         // system-related information
         systemDiagnosticsDto.setMaxOpenFileDescriptors(systemDiagnostics.getMaxOpenFileHandles());
@@ -70,6 +70,8 @@ import org.apache.nifi.nar.ExtensionDefinition;
 import org.apache.nifi.nar.ExtensionManager;
 import org.apache.nifi.processor.Processor;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.provenance.ProvenanceEventAggregate;
+import org.apache.nifi.provenance.ProvenanceEventAggregator;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.ProvenanceRepository;
 import org.apache.nifi.provenance.SearchableFields;
@@ -98,6 +100,7 @@ import org.apache.nifi.web.api.dto.DtoFactory;
 import org.apache.nifi.web.api.dto.diagnostics.ProcessorDiagnosticsDTO;
 import org.apache.nifi.web.api.dto.provenance.AttributeDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceDTO;
+import org.apache.nifi.web.api.dto.provenance.ProvenanceEventAggregateDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceEventDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceOptionsDTO;
 import org.apache.nifi.web.api.dto.provenance.ProvenanceRequestDTO;
@@ -137,6 +140,7 @@ import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class ControllerFacade implements Authorizable {
@@ -1151,6 +1155,9 @@ public class ControllerFacade implements Authorizable {
                 resultsDto.setTotal(FormatUtils.formatCount(queryResult.getTotalHitCount()));
             }
 
+            // include the counts of the matching events that were not recorded because their flowfiles were not sampled
+            resultsDto.setUnsampledEvents(createUnsampledEventDtos(query));
+
             // include any errors
             if (queryResult.getError() != null) {
                 final Set<String> errors = new HashSet<>();
@@ -1176,6 +1183,72 @@ public class ControllerFacade implements Authorizable {
         }
     }
 
+    /**
+     * Creates the counts of the events that match the specified query but were not recorded because provenance sampling is enabled
+     * and their flowfiles were not sampled.
+     *
+     * @param query query
+     * @return the counts, or null if provenance sampling is not enabled or the query cannot be evaluated against the counts
+     */
+    private List<ProvenanceEventAggregateDTO> createUnsampledEventDtos(final Query query) {
+        final ProvenanceEventAggregator aggregator = flowController.getProvenanceEventAggregator();
+        if (aggregator == null || query.getMinFileSize() != null || query.getMaxFileSize() != null) {
+            return null;
+        }
+
+        // the counts are kept only per component and event type, so no other search terms can be evaluated
+        Predicate<ProvenanceEventAggregate> filter = aggregate -> true;
+        for (final SearchTerm searchTerm : query.getSearchTerms()) {
+            final String fieldName = searchTerm.getSearchableField().getSearchableFieldName();
+            final Function<ProvenanceEventAggregate, String> valueFunction;
+            if (SearchableFields.ComponentID.getSearchableFieldName().equals(fieldName)) {
+                valueFunction = ProvenanceEventAggregate::getComponentId;
+            } else if (SearchableFields.EventType.getSearchableFieldName().equals(fieldName)) {
+                valueFunction = aggregate -> aggregate.getEventType().name();
+            } else {
+                return null;
+            }
+
+            final String value = searchTerm.getValue();
+            final boolean inverted = Boolean.TRUE.equals(searchTerm.isInverted());
+            filter = filter.and(aggregate -> value.equalsIgnoreCase(valueFunction.apply(aggregate)) != inverted);
+        }
+
+        final long startTime = query.getStartDate() == null ? 0L : query.getStartDate().getTime();
+        final long endTime = query.getEndDate() == null ? Long.MAX_VALUE : query.getEndDate().getTime();
+
+        final NiFiUser user = NiFiUserUtils.getNiFiUser();
+        final Map<String, Boolean> authorizedComponents = new HashMap<>();
+        final List<ProvenanceEventAggregateDTO> aggregateDtos = new ArrayList<>();
+        for (final ProvenanceEventAggregate aggregate : aggregator.getAggregates(null, startTime, endTime)) {
+            if (!filter.test(aggregate)) {
+                continue;
+            }
+
+            // only include the counts of the components whose provenance the user is allowed to see
+            final boolean authorized = authorizedComponents.computeIfAbsent(aggregate.getComponentId(), componentId -> {
+                try {
+                    return flowController.getProvenanceAuthorizableFactory().createProvenanceDataAuthorizable(componentId).isAuthorized(authorizer, RequestAction.READ, user);
+                } catch (final ResourceNotFoundException e) {
+                    return false;
+                }
+            });
+            if (!authorized) {
+                continue;
+            }
+
+            final ProvenanceEventAggregateDTO aggregateDto = new ProvenanceEventAggregateDTO();
+            aggregateDto.setComponentId(aggregate.getComponentId());
+            aggregateDto.setComponentType(aggregate.getComponentType());
+            aggregateDto.setEventType(aggregate.getEventType().name());
+            aggregateDto.setTimestamp(new Date(aggregate.getTimestamp()));
+            aggregateDto.setCount(aggregate.getCount());
+            aggregateDtos.add(aggregateDto);
+        }
+
+        return aggregateDtos;
+    }
+
     /**
      * Submits the specified lineage request.
      *
@@ -21,6 +21,8 @@ import org.apache.nifi.provenance.schema.EventFieldNames;
 import org.apache.nifi.provenance.schema.EventIdFirstHeaderSchema;
 import org.apache.nifi.provenance.schema.LookupTableEventRecord;
 import org.apache.nifi.provenance.schema.LookupTableEventSchema;
+import org.apache.nifi.provenance.serialization.BlockCodec;
+import org.apache.nifi.provenance.serialization.BlockCodecs;
 import org.apache.nifi.provenance.serialization.CompressableRecordWriter;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.toc.TocWriter;
@@ -76,7 +78,12 @@ public class EventIdFirstSchemaRecordWriter extends CompressableRecordWriter {
 
     public EventIdFirstSchemaRecordWriter(final File file, final AtomicLong idGenerator, final TocWriter writer, final boolean compressed,
         final int uncompressedBlockSize, final IdentifierLookup idLookup) throws IOException {
-        super(file, idGenerator, writer, compressed, uncompressedBlockSize);
+        this(file, idGenerator, writer, compressed ? BlockCodecs.GZIP : null, uncompressedBlockSize, idLookup);
+    }
+
+    public EventIdFirstSchemaRecordWriter(final File file, final AtomicLong idGenerator, final TocWriter writer, final BlockCodec codec,
+        final int uncompressedBlockSize, final IdentifierLookup idLookup) throws IOException {
+        super(file, idGenerator, writer, codec, uncompressedBlockSize);
 
         this.idLookup = idLookup;
         componentIdMap = idLookup.invertComponentIdentifiers();
@@ -20,6 +20,7 @@ import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -27,7 +28,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.provenance.ingest.OverflowPolicy;
 import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.provenance.serialization.BlockCodec;
+import org.apache.nifi.provenance.serialization.BlockCodecs;
+import org.apache.nifi.provenance.serialization.GZIPBlockCodec;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
@@ -39,6 +44,14 @@ public class RepositoryConfiguration {
     public static final String CONCURRENT_MERGE_THREADS = "nifi.provenance.repository.concurrent.merge.threads";
     public static final String WARM_CACHE_FREQUENCY = "nifi.provenance.repository.warm.cache.frequency";
     public static final String MAINTENACE_FREQUENCY = "nifi.provenance.repository.maintenance.frequency";
+    public static final String COMPRESSION_CODEC = "nifi.provenance.repository.compression.codec";
+    public static final String COLUMNAR_INDEX_ENABLED = "nifi.provenance.repository.columnar.index.enabled";
+    public static final String LINEAGE_INDEX_ENABLED = "nifi.provenance.repository.lineage.index.enabled";
+    public static final String LINEAGE_CACHE_SIZE = "nifi.provenance.repository.lineage.cache.size";
+    public static final String ASYNC_INGEST_ENABLED = "nifi.provenance.repository.async.ingest.enabled";
+    public static final String ASYNC_INGEST_BUFFER_SIZE = "nifi.provenance.repository.async.ingest.buffer.size";
+    public static final String ASYNC_INGEST_BATCH_SIZE = "nifi.provenance.repository.async.ingest.batch.size";
+    public static final String ASYNC_INGEST_OVERFLOW_POLICY = "nifi.provenance.repository.async.ingest.overflow.policy";
 
     private final Map<String, File> storageDirectories = new LinkedHashMap<>();
     private long recordLifeMillis = TimeUnit.MILLISECONDS.convert(24, TimeUnit.HOURS);
@@ -56,6 +69,14 @@ public class RepositoryConfiguration {
     private List<SearchableField> searchableFields = new ArrayList<>();
     private List<SearchableField> searchableAttributes = new ArrayList<>();
     private boolean compress = true;
+    private BlockCodec compressionCodec = BlockCodecs.GZIP;
+    private boolean columnarIndexEnabled = false;
+    private boolean lineageIndexEnabled = false;
+    private int lineageCacheSize = 1000;
+    private boolean asyncIngestEnabled = false;
+    private int asyncIngestBufferSize = 10_000;
+    private int asyncIngestBatchSize = 1000;
+    private OverflowPolicy asyncIngestOverflowPolicy = OverflowPolicy.BLOCK;
     private boolean alwaysSync = false;
     private int queryThreadPoolSize = 2;
     private int indexThreadPoolSize = 1;
@@ -226,6 +247,121 @@ public class RepositoryConfiguration {
         this.compress = compress;
     }
 
+    /**
+     * @return the codec that event files are compressed with when they are rolled over
+     */
+    public BlockCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * @param compressionCodec the codec to compress event files with when they are rolled over
+     */
+    public void setCompressionCodec(final BlockCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
+    /**
+     * @return <code>true</code> if the event time, component id and event type of each event should also be stored in a columnar
+     * file alongside its event file, so that queries on only those fields can be answered without the Lucene index
+     */
+    public boolean isColumnarIndexEnabled() {
+        return columnarIndexEnabled;
+    }
+
+    /**
+     * @param columnarIndexEnabled whether or not to store the columns of each event file
+     */
+    public void setColumnarIndexEnabled(final boolean columnarIndexEnabled) {
+        this.columnarIndexEnabled = columnarIndexEnabled;
+    }
+
+    /**
+     * @return <code>true</code> if the FlowFile UUIDs that each event links to should also be stored in a lineage index file alongside
+     * its event file, so that lineage can be computed without the Lucene index
+     */
+    public boolean isLineageIndexEnabled() {
+        return lineageIndexEnabled;
+    }
+
+    /**
+     * @param lineageIndexEnabled whether or not to store the lineage index of each event file
+     */
+    public void setLineageIndexEnabled(final boolean lineageIndexEnabled) {
+        this.lineageIndexEnabled = lineageIndexEnabled;
+    }
+
+    /**
+     * @return the maximum number of FlowFiles whose Event IDs are cached when the lineage index is enabled
+     */
+    public int getLineageCacheSize() {
+        return lineageCacheSize;
+    }
+
+    /**
+     * @param lineageCacheSize the maximum number of FlowFiles whose Event IDs are cached when the lineage index is enabled
+     */
+    public void setLineageCacheSize(final int lineageCacheSize) {
+        this.lineageCacheSize = lineageCacheSize;
+    }
+
+    /**
+     * @return <code>true</code> if events should be buffered and written to the repository by background threads, rather than
+     * by the threads that register them
+     */
+    public boolean isAsyncIngestEnabled() {
+        return asyncIngestEnabled;
+    }
+
+    /**
+     * @param asyncIngestEnabled whether or not events should be written to the repository by background threads
+     */
+    public void setAsyncIngestEnabled(final boolean asyncIngestEnabled) {
+        this.asyncIngestEnabled = asyncIngestEnabled;
+    }
+
+    /**
+     * @return the maximum number of events to buffer when asynchronous ingest is enabled
+     */
+    public int getAsyncIngestBufferSize() {
+        return asyncIngestBufferSize;
+    }
+
+    /**
+     * @param asyncIngestBufferSize the maximum number of events to buffer when asynchronous ingest is enabled
+     */
+    public void setAsyncIngestBufferSize(final int asyncIngestBufferSize) {
+        this.asyncIngestBufferSize = asyncIngestBufferSize;
+    }
+
+    /**
+     * @return the maximum number of buffered events to write at once when asynchronous ingest is enabled
+     */
+    public int getAsyncIngestBatchSize() {
+        return asyncIngestBatchSize;
+    }
+
+    /**
+     * @param asyncIngestBatchSize the maximum number of buffered events to write at once when asynchronous ingest is enabled
+     */
+    public void setAsyncIngestBatchSize(final int asyncIngestBatchSize) {
+        this.asyncIngestBatchSize = asyncIngestBatchSize;
+    }
+
+    /**
+     * @return what to do with events that are registered while the buffer is full, when asynchronous ingest is enabled
+     */
+    public OverflowPolicy getAsyncIngestOverflowPolicy() {
+        return asyncIngestOverflowPolicy;
+    }
+
+    /**
+     * @param asyncIngestOverflowPolicy what to do with events that are registered while the buffer is full
+     */
+    public void setAsyncIngestOverflowPolicy(final OverflowPolicy asyncIngestOverflowPolicy) {
+        this.asyncIngestOverflowPolicy = asyncIngestOverflowPolicy;
+    }
+
     /**
      * @return the number of threads to use to query the repo
      */
@@ -402,6 +538,21 @@ public class RepositoryConfiguration {
         final long rolloverBytes = DataUnit.parseDataSize(rolloverSize, DataUnit.B).longValue();
 
         final boolean compressOnRollover = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.PROVENANCE_COMPRESS_ON_ROLLOVER));
+        final BlockCodec compressionCodec = BlockCodecs.getCodec(nifiProperties.getProperty(COMPRESSION_CODEC, GZIPBlockCodec.NAME).trim());
+        final boolean columnarIndexEnabled = Boolean.parseBoolean(nifiProperties.getProperty(COLUMNAR_INDEX_ENABLED, "false"));
+        final boolean lineageIndexEnabled = Boolean.parseBoolean(nifiProperties.getProperty(LINEAGE_INDEX_ENABLED, "false"));
+        final int lineageCacheSize = nifiProperties.getIntegerProperty(LINEAGE_CACHE_SIZE, 1000);
+        final boolean asyncIngestEnabled = Boolean.parseBoolean(nifiProperties.getProperty(ASYNC_INGEST_ENABLED, "false"));
+        final int asyncIngestBufferSize = nifiProperties.getIntegerProperty(ASYNC_INGEST_BUFFER_SIZE, 10_000);
+        final int asyncIngestBatchSize = nifiProperties.getIntegerProperty(ASYNC_INGEST_BATCH_SIZE, 1000);
+        final String overflowPolicyName = nifiProperties.getProperty(ASYNC_INGEST_OVERFLOW_POLICY, OverflowPolicy.BLOCK.name()).trim();
+        final OverflowPolicy asyncIngestOverflowPolicy;
+        try {
+            asyncIngestOverflowPolicy = OverflowPolicy.valueOf(overflowPolicyName.toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for property " + ASYNC_INGEST_OVERFLOW_POLICY + ": " + overflowPolicyName
+                + "; valid values are " + Arrays.toString(OverflowPolicy.values()));
+        }
         final String indexedFieldString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS);
         final String indexedAttrString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES);
 
@@ -435,6 +586,14 @@ public class RepositoryConfiguration {
             config.addStorageDirectory(entry.getKey(), entry.getValue().toFile());
         }
         config.setCompressOnRollover(compressOnRollover);
+        config.setCompressionCodec(compressionCodec);
+        config.setColumnarIndexEnabled(columnarIndexEnabled);
+        config.setLineageIndexEnabled(lineageIndexEnabled);
+        config.setLineageCacheSize(lineageCacheSize);
+        config.setAsyncIngestEnabled(asyncIngestEnabled);
+        config.setAsyncIngestBufferSize(asyncIngestBufferSize);
+        config.setAsyncIngestBatchSize(asyncIngestBatchSize);
+        config.setAsyncIngestOverflowPolicy(asyncIngestOverflowPolicy);
         config.setSearchableFields(searchableFields);
         config.setSearchableAttributes(searchableAttributes);
         config.setMaxEventFileCapacity(rolloverBytes);
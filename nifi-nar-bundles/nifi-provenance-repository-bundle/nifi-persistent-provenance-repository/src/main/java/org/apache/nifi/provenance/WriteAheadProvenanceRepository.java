@@ -26,6 +26,7 @@ import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.UserEventAuthorizer;
 import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.index.lucene.LuceneEventIndex;
+import org.apache.nifi.provenance.ingest.EventIngester;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.StandardIndexManager;
@@ -58,6 +59,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -86,6 +88,12 @@ import java.util.Set;
  * stored on a separate physical partition on disk. As a result, this allows striping of data across multiple partitions in order to achieve linear scalability
  * across disks for far greater performance.
  * </p>
+ *
+ * <p>
+ * By default, events are stored and indexed by the thread that registers them. If asynchronous ingest is enabled, events are instead
+ * buffered by an {@link EventIngester} and stored and indexed in batches by background threads, so that a slow disk does not slow down
+ * the threads that register events.
+ * </p>
  */
 public class WriteAheadProvenanceRepository implements ProvenanceRepository {
     private static final Logger logger = LoggerFactory.getLogger(WriteAheadProvenanceRepository.class);
@@ -100,6 +108,7 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
     private EventReporter eventReporter;
     private Authorizer authorizer;
     private ProvenanceAuthorizableFactory resourceFactory;
+    private EventIngester eventIngester;
 
     /**
      * This constructor exists solely for the use of the Java Service Loader mechanism and should not be used.
@@ -166,6 +175,13 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         } else {
             logger.info("Provenance Event Index indicates that no events should be re-indexed upon startup. Will not wait for re-indexing to occur.");
         }
+
+        if (config.isAsyncIngestEnabled()) {
+            eventIngester = new EventIngester(config.getAsyncIngestBufferSize(), config.getAsyncIngestBatchSize(), config.getStorageDirectories().size(),
+                config.getAsyncIngestOverflowPolicy(), this::persistEvents, eventReporter, EVENT_CATEGORY);
+            logger.info("Provenance Events will be buffered, up to {} events, and written asynchronously in batches of up to {} events. Overflow policy is {}",
+                config.getAsyncIngestBufferSize(), config.getAsyncIngestBatchSize(), config.getAsyncIngestOverflowPolicy());
+        }
     }
 
     @Override
@@ -180,6 +196,15 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void registerEvents(final Iterable<ProvenanceEventRecord> events) {
+        final EventIngester ingester = eventIngester;
+        if (ingester != null && ingester.register(events)) {
+            return;
+        }
+
+        persistEvents(events);
+    }
+
+    private void persistEvents(final Iterable<ProvenanceEventRecord> events) {
         final StorageResult storageResult;
 
         try {
@@ -213,6 +238,16 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void close() {
+        final EventIngester ingester = eventIngester;
+        if (ingester != null) {
+            try {
+                ingester.shutdown(30, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting for buffered Provenance Events to be written");
+            }
+        }
+
         CloseableUtil.closeQuietly(eventStore, eventIndex);
     }
 
@@ -349,4 +384,10 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
             throw new IllegalArgumentException("There is no defined container with name " + containerName);
         }
     }
+
+    @Override
+    public Map<String, Long> getIngestStatistics() {
+        final EventIngester ingester = eventIngester;
+        return ingester == null ? Collections.emptyMap() : ingester.getStatistics();
+    }
 }
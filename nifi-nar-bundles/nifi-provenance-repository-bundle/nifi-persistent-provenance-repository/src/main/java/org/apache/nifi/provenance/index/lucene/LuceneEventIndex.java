@@ -28,6 +28,7 @@ import org.apache.nifi.authorization.user.NiFiUser;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.provenance.AsyncLineageSubmission;
 import org.apache.nifi.provenance.AsyncQuerySubmission;
+import org.apache.nifi.provenance.PlaceholderProvenanceEvent;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.SearchableFields;
@@ -45,7 +46,9 @@ import org.apache.nifi.provenance.lucene.LuceneUtil;
 import org.apache.nifi.provenance.search.Query;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.EventIdSearchResult;
 import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.store.lineage.LineageUuids;
 import org.apache.nifi.provenance.util.DirectoryUtils;
 import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.reporting.Severity;
@@ -63,10 +66,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -546,22 +551,38 @@ public class LuceneEventIndex implements EventIndex {
             throw new IllegalArgumentException(String.format("Cannot compute lineage for more than %s FlowFiles. This lineage contains %s.", MAX_LINEAGE_UUIDS, flowFileUuids.size()));
         }
 
-        final List<File> indexDirs = directoryManager.getDirectories(startTimestamp, endTimestamp);
-        final AsyncLineageSubmission submission = new AsyncLineageSubmission(computationType, eventId, flowFileUuids, indexDirs.size(), user == null ? null : user.getIdentity());
+        final List<File> indexDirectories = directoryManager.getDirectories(startTimestamp, endTimestamp);
+
+        // The submission has a step for each index directory. If the Event Store can find the events itself, all steps are completed at once.
+        final int numSteps = Math.max(1, indexDirectories.size());
+        final AsyncLineageSubmission submission = new AsyncLineageSubmission(computationType, eventId, flowFileUuids, numSteps, user == null ? null : user.getIdentity());
         lineageSubmissionMap.put(submission.getLineageIdentifier(), submission);
 
-        final BooleanQuery lineageQuery = buildLineageQuery(flowFileUuids);
-        final List<File> indexDirectories = directoryManager.getDirectories(startTimestamp, endTimestamp);
-        if (indexDirectories.isEmpty()) {
-            submission.getResult().update(Collections.emptyList(), 0L);
-        } else {
-            indexDirectories.sort(DirectoryUtils.OLDEST_INDEX_FIRST);
+        queryExecutor.submit(() -> {
+            // Check if the Event Store can find the events of these FlowFiles itself, without searching the index
+            try {
+                final Optional<EventIdSearchResult> searchResult = eventStore.searchLineage(flowFileUuids, MAX_LINEAGE_NODES);
+                if (searchResult.isPresent()) {
+                    logger.debug("Event Store produced {} of {} Event IDs for lineage of {}", searchResult.get().getEventIds().size(), searchResult.get().getTotalHitCount(), flowFileUuids);
+                    updateLineageFromEventStore(flowFileUuids, searchResult.get(), eventAuthorizer, submission.getResult(), numSteps);
+                    return;
+                }
+            } catch (final IOException e) {
+                logger.warn("Failed to search Event Store for lineage of {}; will search the index instead", flowFileUuids, e);
+            }
 
-            for (final File indexDir : indexDirectories) {
-                queryExecutor.submit(new QueryTask(lineageQuery, submission.getResult(), MAX_LINEAGE_NODES, indexManager, indexDir,
-                    eventStore, eventAuthorizer, EventTransformer.PLACEHOLDER_TRANSFORMER));
+            if (indexDirectories.isEmpty()) {
+                submission.getResult().update(Collections.emptyList(), 0L);
+            } else {
+                final BooleanQuery lineageQuery = buildLineageQuery(flowFileUuids);
+                indexDirectories.sort(DirectoryUtils.OLDEST_INDEX_FIRST);
+
+                for (final File indexDir : indexDirectories) {
+                    queryExecutor.submit(new QueryTask(lineageQuery, submission.getResult(), MAX_LINEAGE_NODES, indexManager, indexDir,
+                        eventStore, eventAuthorizer, EventTransformer.PLACEHOLDER_TRANSFORMER));
+                }
             }
-        }
+        });
 
         // Some computations will complete very quickly. In this case, we don't want to wait
         // for the client to submit a second query to obtain the result. Instead, we want to just
@@ -575,6 +596,36 @@ public class LuceneEventIndex implements EventIndex {
         return submission;
     }
 
+    private void updateLineageFromEventStore(final Collection<String> flowFileUuids, final EventIdSearchResult searchResult, final EventAuthorizer eventAuthorizer,
+        final StandardLineageResult result, final int numSteps) {
+
+        final Set<String> uuids = new HashSet<>(flowFileUuids);
+        try {
+            // The Event Store finds events by a hash of the FlowFile UUID, so we must check that each event is in fact linked to one of
+            // the FlowFiles. This must be done before unauthorized events are replaced by placeholders, which do not hold the linked UUIDs.
+            final List<ProvenanceEventRecord> events = eventStore.getEvents(searchResult.getEventIds(), EventAuthorizer.GRANT_ALL, EventTransformer.EMPTY_TRANSFORMER);
+            final List<ProvenanceEventRecord> lineageEvents = new ArrayList<>(events.size());
+            for (final ProvenanceEventRecord event : events) {
+                if (!Collections.disjoint(uuids, LineageUuids.getLinkedUuids(event))) {
+                    lineageEvents.add(eventAuthorizer.isAuthorized(event) ? event : new PlaceholderProvenanceEvent(event));
+                }
+            }
+
+            logger.debug("Retrieved {} of {} Events for lineage of {} from Event Store", lineageEvents.size(), searchResult.getEventIds().size(), flowFileUuids);
+            result.update(lineageEvents, searchResult.getTotalHitCount() - (events.size() - lineageEvents.size()));
+
+            // No index directory is searched, so the steps that were allotted to them are complete
+            for (int i = 1; i < numSteps; i++) {
+                result.update(Collections.emptyList(), 0L);
+            }
+        } catch (final Exception e) {
+            for (int i = 0; i < numSteps; i++) {
+                result.setError("Failed to retrieve Provenance Events from store; see logs for more details");
+            }
+            logger.error("Failed to retrieve Provenance Events from store", e);
+        }
+    }
+
     private BooleanQuery buildLineageQuery(final Collection<String> flowFileUuids) {
         // Create a query for all Events related to the FlowFiles of interest. We do this by adding all ID's as
         // "SHOULD" clauses and then setting the minimum required to 1.
@@ -602,36 +653,24 @@ public class LuceneEventIndex implements EventIndex {
         for (final CachedQuery cachedQuery : cachedQueries) {
             final Optional<List<Long>> eventIdListOption = cachedQuery.evaluate(query);
             if (eventIdListOption.isPresent()) {
-                final AsyncQuerySubmission submission = new AsyncQuerySubmission(query, 1, userId);
-                querySubmissionMap.put(query.getIdentifier(), submission);
-
                 final List<Long> eventIds = eventIdListOption.get();
                 logger.debug("Cached Query {} produced {} Event IDs for {}: {}", cachedQuery, eventIds.size(), query, eventIds);
 
-                queryExecutor.submit(() -> {
-                    List<ProvenanceEventRecord> events;
-                    try {
-                        events = eventStore.getEvents(eventIds, authorizer, EventTransformer.EMPTY_TRANSFORMER);
-                        logger.debug("Retrieved {} of {} Events from Event Store", events.size(), eventIds.size());
-
-                        submission.getResult().update(events, eventIds.size());
-                    } catch (final Exception e) {
-                        submission.getResult().setError("Failed to retrieve Provenance Events from store; see logs for more details");
-                        logger.error("Failed to retrieve Provenance Events from store", e);
-                    }
-                });
+                return submitQuery(query, eventIds, eventIds.size(), authorizer, userId);
+            }
+        }
 
-                // There are some queries that are optimized and will complete very quickly. As a result,
-                // we don't want to wait for the client to issue a second request, so we will give the query
-                // up to 500 milliseconds to complete before running.
-                try {
-                    submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
-                } catch (final InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+        // Check if the Event Store can answer the query itself, without searching the index
+        try {
+            final Optional<EventIdSearchResult> searchResult = eventStore.searchEventIds(query);
+            if (searchResult.isPresent()) {
+                final List<Long> eventIds = searchResult.get().getEventIds();
+                logger.debug("Event Store produced {} of {} matching Event IDs for {}", eventIds.size(), searchResult.get().getTotalHitCount(), query);
 
-                return submission;
+                return submitQuery(query, eventIds, searchResult.get().getTotalHitCount(), authorizer, userId);
             }
+        } catch (final IOException e) {
+            logger.warn("Failed to search Event Store for {}; will search the index instead", query, e);
         }
 
         final List<File> indexDirectories = directoryManager.getDirectories(
@@ -667,6 +706,35 @@ public class LuceneEventIndex implements EventIndex {
         return submission;
     }
 
+    private QuerySubmission submitQuery(final Query query, final List<Long> eventIds, final long totalHitCount, final EventAuthorizer authorizer, final String userId) {
+        final AsyncQuerySubmission submission = new AsyncQuerySubmission(query, 1, userId);
+        querySubmissionMap.put(query.getIdentifier(), submission);
+
+        queryExecutor.submit(() -> {
+            List<ProvenanceEventRecord> events;
+            try {
+                events = eventStore.getEvents(eventIds, authorizer, EventTransformer.EMPTY_TRANSFORMER);
+                logger.debug("Retrieved {} of {} Events from Event Store", events.size(), eventIds.size());
+
+                submission.getResult().update(events, totalHitCount);
+            } catch (final Exception e) {
+                submission.getResult().setError("Failed to retrieve Provenance Events from store; see logs for more details");
+                logger.error("Failed to retrieve Provenance Events from store", e);
+            }
+        });
+
+        // There are some queries that are optimized and will complete very quickly. As a result,
+        // we don't want to wait for the client to issue a second request, so we will give the query
+        // up to 500 milliseconds to complete before running.
+        try {
+            submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return submission;
+    }
+
 
     @Override
     public ComputeLineageSubmission submitLineageComputation(final String flowFileUuid, final NiFiUser user, final EventAuthorizer eventAuthorizer) {
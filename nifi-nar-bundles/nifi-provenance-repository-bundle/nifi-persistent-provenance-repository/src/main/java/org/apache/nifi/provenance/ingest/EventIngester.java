@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.ingest;
+
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
+import org.apache.nifi.reporting.Severity;
+import org.apache.nifi.util.FormatUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Decouples the threads that register Provenance Events from the threads that write them to the repository. Registered events are
+ * placed into a bounded buffer, and a number of writer threads drain the buffer in batches, handing each batch to the given writer.
+ * When the buffer is full, the configured {@link OverflowPolicy} determines whether the registering thread waits or the events are discarded.
+ * </p>
+ *
+ * <p>
+ * The events of a single call to {@link #register(Iterable)} are buffered, discarded and written together, so that they are always
+ * handed to the writer in the same batch, in the order in which they were registered, and are therefore assigned consecutive Event IDs.
+ * </p>
+ *
+ * <p>
+ * The depth of the buffer, the number of events written and discarded, and the time taken to write each batch are tracked and logged
+ * periodically. If any events are discarded, a warning is reported via the Event Reporter. The depth of the buffer, the number of
+ * events discarded, and the average and maximum time taken to write a batch are also available from {@link #getStatistics()}.
+ * </p>
+ *
+ * <p>
+ * Each registration holds the read lock of a ReadWriteLock from the time that it checks whether the ingester has been shut down until
+ * its events have been buffered or discarded, and {@link #shutdown(long, TimeUnit)} takes the write lock to stop accepting events. So once
+ * the ingester has been shut down, every event that was registered is in the buffer and is written before the writer threads stop.
+ * </p>
+ */
+public class EventIngester {
+    private static final Logger logger = LoggerFactory.getLogger(EventIngester.class);
+    static final int SAMPLE_RATE = 10;
+
+    private final BlockingDeque<List<ProvenanceEventRecord>> buffer = new LinkedBlockingDeque<>();
+    private final Semaphore bufferCapacity;
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final Consumer<List<ProvenanceEventRecord>> writer;
+    private final EventReporter eventReporter;
+    private final String eventCategory;
+    private final ExecutorService writerExecutor;
+    private final ScheduledExecutorService metricsExecutor;
+    private final ReadWriteLock registrationLock = new ReentrantReadWriteLock();
+    private volatile boolean stopped = false;
+
+    private final AtomicLong overflowCounter = new AtomicLong(0L);
+    private final LongAdder eventsWritten = new LongAdder();
+    private final LongAdder batchesWritten = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAccumulator maxWriteNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder eventsDropped = new LongAdder();
+    private final LongAdder eventsSampledOut = new LongAdder();
+    private long lastReportedDiscardCount = 0L;
+
+    /**
+     * @param bufferSize the maximum number of events to hold before the overflow policy applies
+     * @param batchSize the maximum number of events to hand to the writer at once
+     * @param writerThreads the number of threads that write events. Each batch is written by a single call to the writer, so when writing to a
+     * partitioned Event Store, using one thread per partition allows a batch to be written to each partition concurrently.
+     * @param overflowPolicy the policy to apply when the buffer is full
+     * @param writer writes a batch of events to the repository
+     * @param eventReporter the Event Reporter to warn if events are discarded
+     * @param eventCategory the category of the events to report
+     */
+    public EventIngester(final int bufferSize, final int batchSize, final int writerThreads, final OverflowPolicy overflowPolicy,
+                         final Consumer<List<ProvenanceEventRecord>> writer, final EventReporter eventReporter, final String eventCategory) {
+        this.bufferSize = bufferSize;
+        this.bufferCapacity = new Semaphore(bufferSize);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.writer = writer;
+        this.eventReporter = eventReporter;
+        this.eventCategory = eventCategory;
+
+        writerExecutor = Executors.newFixedThreadPool(writerThreads, new NamedThreadFactory("Write Provenance Events", true));
+        for (int i = 0; i < writerThreads; i++) {
+            writerExecutor.submit(this::writeEvents);
+        }
+
+        metricsExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Report Provenance Ingestion Metrics", true));
+        metricsExecutor.scheduleWithFixedDelay(this::reportMetrics, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Adds the given events to the buffer, applying the overflow policy to all of them if there is not enough room for them
+     *
+     * @param events the events to add, which are iterated over only once
+     * @return <code>false</code> if the ingester has been shut down, in which case none of the events were added and they must be
+     * written by the caller, <code>true</code> otherwise
+     */
+    public boolean register(final Iterable<ProvenanceEventRecord> events) {
+        final Lock readLock = registrationLock.readLock();
+        readLock.lock();
+        try {
+            if (stopped) {
+                return false;
+            }
+
+            addToBuffer(events);
+            return true;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void addToBuffer(final Iterable<ProvenanceEventRecord> events) {
+        final List<ProvenanceEventRecord> eventList = new ArrayList<>();
+        events.forEach(eventList::add);
+        if (eventList.isEmpty()) {
+            return;
+        }
+
+        // Events that are registered together are buffered as a single entry, which takes one permit per event. An entry with more
+        // events than the buffer can hold takes all of the permits so that it can be buffered once the buffer is empty.
+        final int permits = getPermits(eventList);
+        if (bufferCapacity.tryAcquire(permits)) {
+            buffer.offer(eventList);
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP:
+                eventsDropped.add(eventList.size());
+                break;
+            case SAMPLE:
+                if (overflowCounter.incrementAndGet() % SAMPLE_RATE != 0) {
+                    eventsSampledOut.add(eventList.size());
+                    break;
+                }
+                // Keep these events, waiting for room as if the policy were BLOCK
+            case BLOCK:
+            default:
+                try {
+                    bufferCapacity.acquire(permits);
+                    buffer.offer(eventList);
+                } catch (final InterruptedException e) {
+                    eventsDropped.add(eventList.size());
+                    logger.warn("Interrupted while waiting for room to buffer {} Provenance Events; the events will not be stored", eventList.size());
+                    Thread.currentThread().interrupt();
+                }
+                break;
+        }
+    }
+
+    private int getPermits(final List<ProvenanceEventRecord> eventList) {
+        return Math.min(eventList.size(), bufferSize);
+    }
+
+    private void writeEvents() {
+        final List<ProvenanceEventRecord> batch = new ArrayList<>(batchSize);
+
+        while (true) {
+            final List<ProvenanceEventRecord> first;
+            try {
+                first = buffer.pollFirst(100, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (first == null) {
+                if (stopped) {
+                    return;
+                }
+
+                continue;
+            }
+
+            takeFromBuffer(first, batch);
+
+            // Add further entries for as long as they fit into the batch. An entry that does not fit is put back at the head of the
+            // buffer, as the events of an entry are never split across batches.
+            List<ProvenanceEventRecord> next;
+            while (batch.size() < batchSize && (next = buffer.pollFirst()) != null) {
+                if (batch.size() + next.size() > batchSize) {
+                    buffer.offerFirst(next);
+                    break;
+                }
+
+                takeFromBuffer(next, batch);
+            }
+
+            final long start = System.nanoTime();
+            try {
+                writer.accept(batch);
+            } catch (final Exception e) {
+                logger.error("Failed to write {} Provenance Events to the repository", batch.size(), e);
+            }
+
+            final long nanos = System.nanoTime() - start;
+            writeNanos.add(nanos);
+            maxWriteNanos.accumulate(nanos);
+            eventsWritten.add(batch.size());
+            batchesWritten.increment();
+
+            batch.clear();
+        }
+    }
+
+    private void takeFromBuffer(final List<ProvenanceEventRecord> entry, final List<ProvenanceEventRecord> batch) {
+        batch.addAll(entry);
+        bufferCapacity.release(getPermits(entry));
+    }
+
+    private synchronized void reportMetrics() {
+        final long batches = batchesWritten.sumThenReset();
+        final long events = eventsWritten.sumThenReset();
+        final long nanos = writeNanos.sumThenReset();
+        final long maxNanos = maxWriteNanos.getThenReset();
+
+        logger.debug("Provenance Event buffer holds {} events; wrote {} events in {} batches in the last minute, taking {} millis on average and {} millis at most per batch",
+            getQueueDepth(), events, batches, batches == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(nanos / batches), TimeUnit.NANOSECONDS.toMillis(maxNanos));
+
+        final long discarded = getDroppedEventCount() + getSampledOutEventCount();
+        final long newlyDiscarded = discarded - lastReportedDiscardCount;
+        lastReportedDiscardCount = discarded;
+
+        if (newlyDiscarded > 0) {
+            final String message = String.format("The Provenance Event buffer was full, and %s Provenance Events were discarded in the last minute due to the %s overflow policy. "
+                + "The Provenance Repository is not able to keep up with the rate at which events are created. Wrote %s events, taking %s millis at most per batch.",
+                FormatUtils.formatCount(newlyDiscarded), overflowPolicy, FormatUtils.formatCount(events), TimeUnit.NANOSECONDS.toMillis(maxNanos));
+            logger.warn(message);
+            eventReporter.reportEvent(Severity.WARNING, eventCategory, message);
+        }
+    }
+
+    /**
+     * Stops accepting events, waits for the events that have already been buffered to be written, and stops the writer threads
+     *
+     * @param timeout the maximum amount of time to wait
+     * @param timeUnit the unit of the timeout
+     * @return <code>true</code> if all buffered events were written, <code>false</code> if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+
+        // Wait for registrations that are in progress to buffer their events. The writer threads keep draining the buffer meanwhile, so a
+        // registration that is waiting for room in the buffer is able to complete.
+        final Lock writeLock = registrationLock.writeLock();
+        final boolean locked = writeLock.tryLock(timeout, timeUnit);
+        try {
+            stopped = true;
+        } finally {
+            if (locked) {
+                writeLock.unlock();
+            }
+        }
+
+        if (!locked) {
+            logger.warn("Timed out waiting for Provenance Events that are being registered to be buffered; those events will not be stored");
+        }
+
+        metricsExecutor.shutdown();
+        writerExecutor.shutdown();
+
+        final boolean terminated = locked && writerExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if (terminated) {
+            // A writer thread that found the buffer empty just before the last registration buffered its events may have already stopped
+            final List<ProvenanceEventRecord> remaining = new ArrayList<>();
+            List<ProvenanceEventRecord> entry;
+            while ((entry = buffer.pollFirst()) != null) {
+                takeFromBuffer(entry, remaining);
+            }
+
+            if (!remaining.isEmpty()) {
+                writer.accept(remaining);
+            }
+        } else {
+            logger.warn("Timed out waiting for buffered Provenance Events to be written; {} events will not be stored", getQueueDepth());
+            writerExecutor.shutdownNow();
+        }
+
+        reportMetrics();
+        return terminated;
+    }
+
+    /**
+     * @return the number of events that are buffered, waiting to be written
+     */
+    public int getQueueDepth() {
+        return bufferSize - bufferCapacity.availablePermits();
+    }
+
+    /**
+     * @return the number of events that were discarded by the {@link OverflowPolicy#DROP DROP} policy, or because the registering
+     * thread was interrupted while waiting for room in the buffer
+     */
+    public long getDroppedEventCount() {
+        return eventsDropped.sum();
+    }
+
+    /**
+     * @return the number of events that were discarded by the {@link OverflowPolicy#SAMPLE SAMPLE} policy
+     */
+    public long getSampledOutEventCount() {
+        return eventsSampledOut.sum();
+    }
+
+    /**
+     * @return the depth of the buffer, the number of events that have been discarded, and the average and maximum time taken to write a
+     * batch since the metrics were last reported (at most one minute ago), keyed by a description of each statistic
+     */
+    public Map<String, Long> getStatistics() {
+        final long batches = batchesWritten.sum();
+        final long nanos = writeNanos.sum();
+
+        final Map<String, Long> statistics = new LinkedHashMap<>();
+        statistics.put("Buffered Events", (long) getQueueDepth());
+        statistics.put("Events Dropped", getDroppedEventCount());
+        statistics.put("Events Sampled Out", getSampledOutEventCount());
+        statistics.put("Average Batch Write Millis", batches == 0 ? 0L : TimeUnit.NANOSECONDS.toMillis(nanos / batches));
+        statistics.put("Max Batch Write Millis", TimeUnit.NANOSECONDS.toMillis(maxWriteNanos.get()));
+        return statistics;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.ingest;
+
+/**
+ * Determines what happens to a Provenance Event that is registered while the {@link EventIngester}'s buffer is full
+ */
+public enum OverflowPolicy {
+    /**
+     * The thread that registers the event waits until there is room in the buffer. No events are lost, but a slow disk
+     * slows down the threads that register events.
+     */
+    BLOCK,
+
+    /**
+     * Of the events that find the buffer full, every tenth event waits until there is room in the buffer, as with {@link #BLOCK};
+     * the others are discarded.
+     */
+    SAMPLE,
+
+    /**
+     * The event is discarded.
+     */
+    DROP;
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>
+ * A codec that is used to compress the blocks of a Provenance Event Journal. Each block is compressed independently of the others, so that
+ * a reader is able to seek directly to the block that is referenced by the Journal's Table of Contents and decompress only that block.
+ * </p>
+ *
+ * <p>
+ * The identifier of the codec is recorded in the header of the Table of Contents, so that a Journal can always be read using the codec that
+ * it was written with, regardless of the codec that is currently configured.
+ * </p>
+ */
+public interface BlockCodec {
+
+    /**
+     * @return the identifier that is recorded in the Table of Contents to indicate that a Journal's blocks were compressed using this codec.
+     * The value must be between 1 and 127, as 0 indicates that a Journal is not compressed
+     */
+    int getId();
+
+    /**
+     * @return the name that is used to refer to this codec in the configuration
+     */
+    String getName();
+
+    /**
+     * Creates an OutputStream that compresses the data written to it into a single block. The block is complete only once the returned stream has
+     * been closed, and closing the returned stream closes the given stream.
+     *
+     * @param out the stream to write the compressed block to
+     * @return an OutputStream that compresses data into the given stream
+     * @throws IOException if unable to write the block header to the given stream
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Creates an InputStream that decompresses a single block from the given stream
+     *
+     * @param in the stream to read the compressed block from
+     * @return an InputStream that provides the decompressed contents of the block
+     * @throws IOException if unable to read the block header from the given stream
+     */
+    InputStream decompress(InputStream in) throws IOException;
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import org.apache.nifi.provenance.toc.TocReader;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+
+public class BlockCodecs {
+    public static final BlockCodec GZIP = new GZIPBlockCodec();
+    public static final BlockCodec DEFLATE = new DeflateBlockCodec(2, "DEFLATE", Deflater.BEST_SPEED, Deflater.DEFAULT_STRATEGY);
+    public static final BlockCodec HUFFMAN = new DeflateBlockCodec(3, "HUFFMAN", Deflater.BEST_SPEED, Deflater.HUFFMAN_ONLY);
+    public static final BlockCodec LZ4 = new LZ4BlockCodec();
+
+    private static final List<BlockCodec> CODECS = Collections.unmodifiableList(Arrays.asList(GZIP, DEFLATE, HUFFMAN, LZ4));
+
+    public static List<BlockCodec> getCodecs() {
+        return CODECS;
+    }
+
+    /**
+     * Returns the codec with the given name, ignoring case
+     *
+     * @param name the name of the codec
+     * @return the codec with the given name
+     * @throws IllegalArgumentException if there is no codec with the given name
+     */
+    public static BlockCodec getCodec(final String name) {
+        for (final BlockCodec codec : CODECS) {
+            if (codec.getName().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+
+        final String validNames = CODECS.stream().map(BlockCodec::getName).collect(Collectors.joining(", "));
+        throw new IllegalArgumentException("Unknown Provenance Compression Codec '" + name + "'; valid values are " + validNames);
+    }
+
+    /**
+     * Returns the codec with the given identifier
+     *
+     * @param id the identifier of the codec, as recorded in a Table of Contents
+     * @return the codec with the given identifier
+     * @throws IOException if there is no codec with the given identifier
+     */
+    public static BlockCodec getCodec(final int id) throws IOException {
+        for (final BlockCodec codec : CODECS) {
+            if (codec.getId() == id) {
+                return codec;
+            }
+        }
+
+        throw new IOException("Cannot read Provenance Event Journal because it was compressed using a codec with identifier " + id + ", which is not known to this version");
+    }
+
+    /**
+     * Returns the codec that should be used to read the blocks of a compressed Journal. Tables of Contents that were written before the codec
+     * became configurable do not identify the codec, and the Journals that they describe were always compressed using GZIP.
+     *
+     * @param tocReader the Table of Contents for the Journal, or <code>null</code> if the Journal has no Table of Contents
+     * @return the codec to read the Journal's blocks with
+     * @throws IOException if the Table of Contents identifies a codec that is not known
+     */
+    public static BlockCodec getCodec(final TocReader tocReader) throws IOException {
+        if (tocReader == null || tocReader.getCompressionCodecId() == 0) {
+            return GZIP;
+        }
+
+        return getCodec(tocReader.getCompressionCodecId());
+    }
+}
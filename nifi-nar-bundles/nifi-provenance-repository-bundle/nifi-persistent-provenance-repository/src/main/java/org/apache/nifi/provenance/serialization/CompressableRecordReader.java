@@ -24,7 +24,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
-import java.util.zip.GZIPInputStream;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
 import org.apache.nifi.provenance.toc.TocReader;
@@ -40,7 +39,7 @@ public abstract class CompressableRecordReader implements RecordReader {
     private final ByteCountingInputStream rawInputStream;
     private final String filename;
     private final int serializationVersion;
-    private final boolean compressed;
+    private final BlockCodec codec;
     private final TocReader tocReader;
     private final int headerLength;
     private final int maxAttributeChars;
@@ -73,11 +72,11 @@ public abstract class CompressableRecordReader implements RecordReader {
 
         final InputStream readableStream;
         if (filename.endsWith(".gz")) {
-            readableStream = new BufferedInputStream(new GZIPInputStream(limitedStream));
-            compressed = true;
+            codec = BlockCodecs.getCodec(tocReader);
+            readableStream = new BufferedInputStream(codec.decompress(limitedStream));
         } else {
             readableStream = new BufferedInputStream(limitedStream);
-            compressed = false;
+            codec = null;
         }
 
         byteCountingIn = new ByteCountingInputStream(readableStream);
@@ -144,8 +143,8 @@ public abstract class CompressableRecordReader implements RecordReader {
         }
 
         final InputStream readableStream;
-        if (compressed) {
-            readableStream = new BufferedInputStream(new GZIPInputStream(limitedStream));
+        if (codec != null) {
+            readableStream = new BufferedInputStream(codec.decompress(limitedStream));
         } else {
             readableStream = new BufferedInputStream(limitedStream);
         }
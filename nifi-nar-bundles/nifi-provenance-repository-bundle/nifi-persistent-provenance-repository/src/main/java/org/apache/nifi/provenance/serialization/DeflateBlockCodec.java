@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses each block as a raw DEFLATE stream. Unlike {@link GZIPBlockCodec}, no header or trailer is written for each block and no
+ * CRC-32 checksum is calculated over the block's contents, which otherwise must be computed when the block is written and again every
+ * time that it is read. The Deflater's strategy can also be set to Huffman-only coding, which skips the search for repeated strings
+ * that accounts for most of the CPU time spent compressing, at the cost of a considerably lower compression ratio.
+ */
+public class DeflateBlockCodec implements BlockCodec {
+    private static final int BUFFER_SIZE = 65536;
+
+    private final int id;
+    private final String name;
+    private final int level;
+    private final int strategy;
+
+    public DeflateBlockCodec(final int id, final String name, final int level, final int strategy) {
+        this.id = id;
+        this.name = name;
+        this.level = level;
+        this.strategy = strategy;
+    }
+
+    @Override
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public OutputStream compress(final OutputStream out) {
+        final Deflater deflater = new Deflater(level, true);
+        deflater.setStrategy(strategy);
+
+        return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decompress(final InputStream in) {
+        final Inflater inflater = new Inflater(true);
+
+        // Use the default input buffer size, as the stream is sometimes read from a marked stream that must not be read too far past the mark
+        return new InflaterInputStream(in, inflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -25,7 +25,6 @@ import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.toc.TocWriter;
 import org.apache.nifi.provenance.util.CloseableUtil;
 import org.apache.nifi.stream.io.ByteCountingOutputStream;
-import org.apache.nifi.stream.io.GZIPOutputStream;
 import org.apache.nifi.stream.io.NonCloseableOutputStream;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.util.FormatUtils;
@@ -58,11 +57,13 @@ public class EventFileCompressor implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(EventFileCompressor.class);
     private final BlockingQueue<File> filesToCompress;
     private final EventFileManager eventFileManager;
+    private final BlockCodec codec;
     private volatile boolean shutdown = false;
 
-    public EventFileCompressor(final BlockingQueue<File> filesToCompress, final EventFileManager eventFileManager) {
+    public EventFileCompressor(final BlockingQueue<File> filesToCompress, final EventFileManager eventFileManager, final BlockCodec codec) {
         this.filesToCompress = filesToCompress;
         this.eventFileManager = eventFileManager;
+        this.codec = codec;
     }
 
     public void shutdown() {
@@ -111,8 +112,8 @@ public class EventFileCompressor implements Runnable {
                         outputFile = new File(uncompressedEventFile.getParentFile(), uncompressedEventFile.getName() + ".gz");
                         try {
                             tmpTocFile = new File(tocFile.getParentFile(), tocFile.getName() + ".tmp");
-                            tocWriter = new StandardTocWriter(tmpTocFile, true, false);
-                            compress(uncompressedEventFile, tocReader, outputFile, tocWriter);
+                            tocWriter = new StandardTocWriter(tmpTocFile, codec, false);
+                            compress(uncompressedEventFile, tocReader, outputFile, tocWriter, codec);
                             tocWriter.close();
                         } catch (final IOException ioe) {
                             logger.error("Failed to compress {} on rollover", uncompressedEventFile, ioe);
@@ -149,8 +150,8 @@ public class EventFileCompressor implements Runnable {
                 final long bytesAfter = outputFile.length();
                 final double reduction = 100 * (1 - (double) bytesAfter / (double) bytesBefore);
                 final String reductionTwoDecimals = String.format("%.2f", reduction);
-                logger.debug("Successfully compressed Provenance Event File {} in {} millis from {} to {}, a reduction of {}%",
-                    uncompressedEventFile, millis, FormatUtils.formatDataSize(bytesBefore), FormatUtils.formatDataSize(bytesAfter), reductionTwoDecimals);
+                logger.debug("Successfully compressed Provenance Event File {} using {} in {} millis from {} to {}, a reduction of {}%",
+                    uncompressedEventFile, codec, millis, FormatUtils.formatDataSize(bytesBefore), FormatUtils.formatDataSize(bytesAfter), reductionTwoDecimals);
             } catch (final InterruptedException e) {
                 Thread.currentThread().interrupt();
                 return;
@@ -160,7 +161,7 @@ public class EventFileCompressor implements Runnable {
         }
     }
 
-    private static void compress(final File input, final TocReader tocReader, final File output, final TocWriter tocWriter) throws IOException {
+    private static void compress(final File input, final TocReader tocReader, final File output, final TocWriter tocWriter, final BlockCodec codec) throws IOException {
         try (final InputStream fis = new FileInputStream(input);
             final OutputStream fos = new FileOutputStream(output);
             final ByteCountingOutputStream byteCountingOut = new ByteCountingOutputStream(fos)) {
@@ -182,8 +183,8 @@ public class EventFileCompressor implements Runnable {
                 final long blockStartOffset = byteCountingOut.getBytesWritten();
 
                 try (final OutputStream ncos = new NonCloseableOutputStream(byteCountingOut);
-                    final OutputStream gzipOut = new GZIPOutputStream(ncos, 1)) {
-                    StreamUtils.copy(fis, gzipOut, blockEnd - blockStart);
+                    final OutputStream compressedOut = codec.compress(ncos)) {
+                    StreamUtils.copy(fis, compressedOut, blockEnd - blockStart);
                 }
 
                 tocWriter.addBlockOffset(blockStartOffset, firstEventId);
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.serialization;
+
+import org.apache.nifi.stream.io.GZIPOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compresses each block as a GZIP member. This is the codec that Journals were always compressed with before the codec became configurable,
+ * so it is also used for any compressed Journal whose Table of Contents does not identify a codec.
+ */
+public class GZIPBlockCodec implements BlockCodec {
+    public static final int ID = 1;
+    public static final String NAME = "GZIP";
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public OutputStream compress(final OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, 1);
+    }
+
+    @Override
+    public InputStream decompress(final InputStream in) throws IOException {
+        return new GZIPInputStream(in);
+    }
+
+    @Override
+    public String toString() {
+        return NAME;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.serialization;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream.BlockSize;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream.Parameters;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compresses each block as an LZ4 frame, using the pure-Java implementation that is provided by Commons Compress. LZ4 gives up some
+ * compression ratio in exchange for much cheaper compression and, in particular, decompression than DEFLATE, which makes queries that must
+ * read many compressed blocks considerably less expensive. No content checksum is written, as with {@link DeflateBlockCodec}. The frame's end
+ * mark allows the end of the block to be detected without reading past it.
+ */
+public class LZ4BlockCodec implements BlockCodec {
+    public static final int ID = 4;
+    public static final String NAME = "LZ4";
+
+    private static final Parameters PARAMETERS = new Parameters(BlockSize.K64, false, false, false,
+        BlockLZ4CompressorOutputStream.createParameterBuilder().tunedForSpeed().build());
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public OutputStream compress(final OutputStream out) throws IOException {
+        return new FramedLZ4CompressorOutputStream(out, PARAMETERS);
+    }
+
+    @Override
+    public InputStream decompress(final InputStream in) throws IOException {
+        return new FramedLZ4CompressorInputStream(in);
+    }
+
+    @Override
+    public String toString() {
+        return NAME;
+    }
+}
@@ -37,7 +37,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.zip.GZIPInputStream;
 
 public class RecordReaders {
     /**
@@ -110,12 +109,13 @@ public class RecordReaders {
             }
 
             final File tocFile = TocUtil.getTocFile(file);
+            final TocReader tocReader = tocFile.exists() ? new StandardTocReader(tocFile) : null;
 
             final InputStream bufferedInStream = new BufferedInputStream(fis);
             final String serializationName;
             try {
                 bufferedInStream.mark(4096);
-                final InputStream in = filename.endsWith(".gz") ? new GZIPInputStream(bufferedInStream) : bufferedInStream;
+                final InputStream in = filename.endsWith(".gz") ? BlockCodecs.getCodec(tocReader).decompress(bufferedInStream) : bufferedInStream;
                 final DataInputStream dis = new DataInputStream(in);
                 serializationName = dis.readUTF();
                 bufferedInStream.reset();
@@ -126,35 +126,31 @@ public class RecordReaders {
 
             switch (serializationName) {
                 case StandardRecordReader.SERIALIZATION_NAME: {
-                    if (tocFile.exists()) {
-                        final TocReader tocReader = new StandardTocReader(tocFile);
+                    if (tocReader != null) {
                         return new StandardRecordReader(bufferedInStream, filename, tocReader, maxAttributeChars);
                     } else {
                         return new StandardRecordReader(bufferedInStream, filename, maxAttributeChars);
                     }
                 }
                 case ByteArraySchemaRecordWriter.SERIALIZATION_NAME: {
-                    if (tocFile.exists()) {
-                        final TocReader tocReader = new StandardTocReader(tocFile);
+                    if (tocReader != null) {
                         return new ByteArraySchemaRecordReader(bufferedInStream, filename, tocReader, maxAttributeChars);
                     } else {
                         return new ByteArraySchemaRecordReader(bufferedInStream, filename, maxAttributeChars);
                     }
                 }
                 case EventIdFirstSchemaRecordWriter.SERIALIZATION_NAME: {
-                    if (!tocFile.exists()) {
+                    if (tocReader == null) {
                         throw new FileNotFoundException("Cannot create TOC Reader because the file " + tocFile + " does not exist");
                     }
 
-                    final TocReader tocReader = new StandardTocReader(tocFile);
                     return new EventIdFirstSchemaRecordReader(bufferedInStream, filename, tocReader, maxAttributeChars);
                 }
                 case EncryptedSchemaRecordReader.SERIALIZATION_NAME: {
-                    if (!tocFile.exists()) {
+                    if (tocReader == null) {
                         throw new FileNotFoundException("Cannot create TOC Reader because the file " + tocFile + " does not exist");
                     }
 
-                    final TocReader tocReader = new StandardTocReader(tocFile);
                     // Return a reader with no eventEncryptor because this method contract cannot change, then inject the encryptor from the writer in the calling method
                     return new EncryptedSchemaRecordReader(bufferedInStream, filename, tocReader, maxAttributeChars, null);
                 }
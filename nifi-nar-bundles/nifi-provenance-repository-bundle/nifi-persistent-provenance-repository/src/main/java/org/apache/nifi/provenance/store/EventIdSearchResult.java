@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store;
+
+import java.util.List;
+
+public class EventIdSearchResult {
+    private final List<Long> eventIds;
+    private final long totalHitCount;
+
+    public EventIdSearchResult(final List<Long> eventIds, final long totalHitCount) {
+        this.eventIds = eventIds;
+        this.totalHitCount = totalHitCount;
+    }
+
+    /**
+     * @return the IDs of the matching events, newest first, limited to the query's maximum number of results
+     */
+    public List<Long> getEventIds() {
+        return eventIds;
+    }
+
+    /**
+     * @return the total number of events that matched, which may be larger than the number of Event IDs returned
+     */
+    public long getTotalHitCount() {
+        return totalHitCount;
+    }
+
+    @Override
+    public String toString() {
+        return "EventIdSearchResult[eventIds=" + eventIds.size() + ", totalHitCount=" + totalHitCount + "]";
+    }
+}
@@ -21,11 +21,13 @@ import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.EventTransformer;
 import org.apache.nifi.provenance.index.EventIndex;
+import org.apache.nifi.provenance.search.Query;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -131,4 +133,30 @@ public interface EventStore extends Closeable {
      * @throws IOException if unable to retrieve records from the store
      */
     EventIterator getEventsByTimestamp(long minTimestamp, long maxTimestamp) throws IOException;
+
+    /**
+     * Determines the ID's of the events that match the given query without making use of an Event Index, if the store is able to do so
+     * efficiently for the given query.
+     *
+     * @param query the query
+     * @return the ID's of the matching events, or an empty Optional if the store cannot answer the query itself
+     * @throws IOException if unable to search the store
+     */
+    default Optional<EventIdSearchResult> searchEventIds(Query query) throws IOException {
+        return Optional.empty();
+    }
+
+    /**
+     * Determines the ID's of the events that belong to the lineage of any of the given FlowFiles without making use of an Event Index,
+     * if the store is able to do so. These are the events that an Event Index would find by searching its FlowFile UUID field. Because the
+     * store may identify FlowFiles by a hash of their UUID, the caller must verify that each event is in fact linked to one of the FlowFiles.
+     *
+     * @param flowFileUuids the UUIDs of the FlowFiles
+     * @param maxResults the maximum number of Event ID's to return
+     * @return the ID's of the events, or an empty Optional if the store cannot determine them itself
+     * @throws IOException if unable to search the store
+     */
+    default Optional<EventIdSearchResult> searchLineage(Collection<String> flowFileUuids, int maxResults) throws IOException {
+        return Optional.empty();
+    }
 }
@@ -19,18 +19,29 @@ package org.apache.nifi.provenance.store;
 
 import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.index.EventIndex;
+import org.apache.nifi.provenance.search.Query;
 import org.apache.nifi.provenance.serialization.EventFileCompressor;
 import org.apache.nifi.provenance.store.iterator.AggregateEventIterator;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFilter;
+import org.apache.nifi.provenance.store.columnar.MatchingEventIds;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
+import org.apache.nifi.provenance.store.lineage.LineageCache;
+import org.apache.nifi.provenance.store.lineage.LineageUuids;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -48,6 +59,7 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
     private final List<EventFileCompressor> fileCompressors = Collections.synchronizedList(new ArrayList<>());
     private final EventReporter eventReporter;
     private final EventFileManager fileManager;
+    private final LineageCache lineageCache;
 
     public PartitionedWriteAheadEventStore(final RepositoryConfiguration repoConfig, final RecordWriterFactory recordWriterFactory,
         final RecordReaderFactory recordReaderFactory, final EventReporter eventReporter, final EventFileManager fileManager) {
@@ -58,6 +70,7 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
         final AtomicLong idGenerator = new AtomicLong(0L);
         this.fileManager = fileManager;
         this.partitions = createPartitions(repoConfig, recordWriterFactory, recordReaderFactory, idGenerator);
+        this.lineageCache = repoConfig.isLineageIndexEnabled() ? new LineageCache(repoConfig.getLineageCacheSize()) : null;
 
         // Creates tasks to compress data on rollover
         if (repoConfig.isCompressOnRollover()) {
@@ -90,7 +103,7 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
     public void initialize() throws IOException {
         if (repoConfig.isCompressOnRollover()) {
             for (int i = 0; i < repoConfig.getIndexThreadPoolSize(); i++) {
-                final EventFileCompressor compressor = new EventFileCompressor(filesToCompress, fileManager);
+                final EventFileCompressor compressor = new EventFileCompressor(filesToCompress, fileManager, repoConfig.getCompressionCodec());
                 compressionExecutor.submit(compressor);
                 fileCompressors.add(compressor);
             }
@@ -112,6 +125,16 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
         }
     }
 
+    @Override
+    public StorageResult addEvents(final Iterable<ProvenanceEventRecord> events) throws IOException {
+        final StorageResult storageResult = super.addEvents(events);
+        if (lineageCache != null) {
+            lineageCache.eventsAdded(storageResult.getStorageLocations());
+        }
+
+        return storageResult;
+    }
+
     @Override
     public void reindexLatestEvents(final EventIndex eventIndex) {
         final List<WriteAheadStorePartition> partitions = getPartitions();
@@ -153,4 +176,111 @@ public class PartitionedWriteAheadEventStore extends PartitionedEventStore {
 
         return new AggregateEventIterator(eventIterators);
     }
+
+    @Override
+    public Optional<EventIdSearchResult> searchEventIds(final Query query) throws IOException {
+        if (!repoConfig.isColumnarIndexEnabled()) {
+            return Optional.empty();
+        }
+
+        final Optional<ColumnarEventFilter> filter = ColumnarEventFilter.fromQuery(query);
+        if (!filter.isPresent()) {
+            return Optional.empty();
+        }
+
+        final MatchingEventIds matches = new MatchingEventIds(query.getMaxResults());
+        for (final WriteAheadStorePartition partition : getPartitions()) {
+            if (!partition.searchColumns(filter.get(), matches)) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(matches.toResult());
+    }
+
+    @Override
+    public Optional<EventIdSearchResult> searchLineage(final Collection<String> flowFileUuids, final int maxResults) throws IOException {
+        if (lineageCache == null) {
+            return Optional.empty();
+        }
+
+        final long minEventId = getMinEventId();
+        final Set<Long> eventIds = new HashSet<>();
+        final Map<String, LineageCache.Reservation> reservations = new HashMap<>();
+        for (final String flowFileUuid : flowFileUuids) {
+            final long[] cachedEventIds = lineageCache.getEventIds(flowFileUuid, minEventId);
+            if (cachedEventIds == null) {
+                reservations.put(flowFileUuid, lineageCache.reserve(flowFileUuid));
+            } else {
+                for (final long eventId : cachedEventIds) {
+                    eventIds.add(eventId);
+                }
+            }
+        }
+
+        if (!reservations.isEmpty()) {
+            final Map<String, List<Long>> foundEventIds;
+            try {
+                foundEventIds = searchLineageIndex(reservations.keySet());
+            } catch (final IOException | RuntimeException e) {
+                reservations.forEach(lineageCache::abandon);
+                throw e;
+            }
+
+            if (foundEventIds == null) {
+                reservations.forEach(lineageCache::abandon);
+                return Optional.empty();
+            }
+
+            for (final Map.Entry<String, LineageCache.Reservation> entry : reservations.entrySet()) {
+                final List<Long> found = foundEventIds.get(entry.getKey());
+                lineageCache.complete(entry.getKey(), entry.getValue(), found.stream().mapToLong(Long::longValue).toArray());
+                eventIds.addAll(found);
+            }
+        }
+
+        final MatchingEventIds matches = new MatchingEventIds(maxResults);
+        eventIds.forEach(matches::add);
+        return Optional.of(matches.toResult());
+    }
+
+    /**
+     * @return the smallest ID that any event in the store may have, as events with smaller IDs have been aged off from every partition
+     */
+    private long getMinEventId() {
+        long minEventId = Long.MAX_VALUE;
+        for (final WriteAheadStorePartition partition : getPartitions()) {
+            final long partitionMinEventId = partition.getMinEventId();
+            if (partitionMinEventId >= 0) {
+                minEventId = Math.min(minEventId, partitionMinEventId);
+            }
+        }
+
+        return minEventId == Long.MAX_VALUE ? -1L : minEventId;
+    }
+
+    private Map<String, List<Long>> searchLineageIndex(final Collection<String> flowFileUuids) throws IOException {
+        final Map<String, List<Long>> foundEventIds = new HashMap<>();
+        final Map<Long, List<String>> uuidsByHash = new HashMap<>();
+        for (final String flowFileUuid : flowFileUuids) {
+            foundEventIds.put(flowFileUuid, new ArrayList<>());
+            uuidsByHash.computeIfAbsent(LineageUuids.hash(flowFileUuid), hash -> new ArrayList<>()).add(flowFileUuid);
+        }
+
+        final long[] hashes = uuidsByHash.keySet().stream().mapToLong(Long::longValue).toArray();
+
+        for (final WriteAheadStorePartition partition : getPartitions()) {
+            final boolean searched = partition.searchLineage(hashes, (hash, eventId) -> {
+                for (final String flowFileUuid : uuidsByHash.get(hash)) {
+                    foundEventIds.get(flowFileUuid).add(eventId);
+                }
+            });
+
+            if (!searched) {
+                return null;
+            }
+        }
+
+        return foundEventIds;
+    }
 }
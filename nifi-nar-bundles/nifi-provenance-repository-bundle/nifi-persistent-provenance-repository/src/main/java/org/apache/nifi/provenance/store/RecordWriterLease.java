@@ -18,6 +18,8 @@
 package org.apache.nifi.provenance.store;
 
 import org.apache.nifi.provenance.serialization.RecordWriter;
+import org.apache.nifi.provenance.store.columnar.EventColumnsBuilder;
+import org.apache.nifi.provenance.store.lineage.LineageIndexBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +29,8 @@ public class RecordWriterLease {
     private final Logger logger = LoggerFactory.getLogger(RecordWriterLease.class);
 
     private final RecordWriter writer;
+    private final EventColumnsBuilder columnsBuilder;
+    private final LineageIndexBuilder lineageBuilder;
     private final long maxBytes;
     private final int maxEvents;
     private final long maxSystemTime;
@@ -35,7 +39,14 @@ public class RecordWriterLease {
     private boolean closed = false;
 
     public RecordWriterLease(final RecordWriter writer, final long maxBytes, final int maxEvents, final long maxMillis) {
+        this(writer, maxBytes, maxEvents, maxMillis, null, null);
+    }
+
+    public RecordWriterLease(final RecordWriter writer, final long maxBytes, final int maxEvents, final long maxMillis, final EventColumnsBuilder columnsBuilder,
+                             final LineageIndexBuilder lineageBuilder) {
         this.writer = writer;
+        this.columnsBuilder = columnsBuilder;
+        this.lineageBuilder = lineageBuilder;
         this.maxBytes = maxBytes;
         this.maxEvents = maxEvents;
 
@@ -51,6 +62,22 @@ public class RecordWriterLease {
         return writer;
     }
 
+    /**
+     * @return the builder that accumulates the columns of the events written to this lease's writer, or <code>null</code> if
+     * the Columnar Index is not enabled
+     */
+    public EventColumnsBuilder getColumnsBuilder() {
+        return columnsBuilder;
+    }
+
+    /**
+     * @return the builder that accumulates the lineage index of the events written to this lease's writer, or <code>null</code> if
+     * the Lineage Index is not enabled
+     */
+    public LineageIndexBuilder getLineageBuilder() {
+        return lineageBuilder;
+    }
+
     public synchronized boolean tryClaim() {
         if (rolloverState.isRollover()) {
             return false;
@@ -26,9 +26,18 @@ import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.serialization.RecordReader;
 import org.apache.nifi.provenance.serialization.RecordWriter;
 import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.columnar.ColumnFile;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventFilter;
+import org.apache.nifi.provenance.store.columnar.EventColumnSource;
+import org.apache.nifi.provenance.store.columnar.EventColumnStore;
+import org.apache.nifi.provenance.store.columnar.EventColumnsBuilder;
+import org.apache.nifi.provenance.store.columnar.MatchingEventIds;
 import org.apache.nifi.provenance.store.iterator.EventIterator;
 import org.apache.nifi.provenance.store.iterator.SelectiveRecordReaderEventIterator;
 import org.apache.nifi.provenance.store.iterator.SequentialRecordReaderEventIterator;
+import org.apache.nifi.provenance.store.lineage.LineageIndexBuilder;
+import org.apache.nifi.provenance.store.lineage.LineageIndexStore;
+import org.apache.nifi.provenance.store.lineage.LineageMatchHandler;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.util.DirectoryUtils;
 import org.apache.nifi.provenance.util.NamedThreadFactory;
@@ -41,6 +50,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -52,13 +62,18 @@ import java.util.Optional;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -74,6 +89,11 @@ public class WriteAheadStorePartition implements EventStorePartition {
     private final AtomicLong idGenerator;
     private final AtomicLong maxEventId = new AtomicLong(-1L);
     private final EventFileManager eventFileManager;
+    private final EventColumnStore columnStore;
+    private final LineageIndexStore lineageStore;
+    private final List<ExecutorService> indexRebuildExecutors = new CopyOnWriteArrayList<>();
+    private final ExecutorService indexWriteExecutor;
+    private final ConcurrentMap<File, RecordWriterLease> unwrittenIndexLeases = new ConcurrentHashMap<>();
     private volatile boolean closed = false;
 
     private AtomicReference<RecordWriterLease> eventWriterLeaseRef = new AtomicReference<>();
@@ -92,6 +112,9 @@ public class WriteAheadStorePartition implements EventStorePartition {
         this.recordReaderFactory = recordReaderFactory;
         this.filesToCompress = filesToCompress;
         this.eventFileManager = eventFileManager;
+        this.columnStore = repoConfig.isColumnarIndexEnabled() ? new EventColumnStore() : null;
+        this.lineageStore = repoConfig.isLineageIndexEnabled() ? new LineageIndexStore() : null;
+        this.indexWriteExecutor = columnStore == null && lineageStore == null ? null : Executors.newSingleThreadExecutor(new NamedThreadFactory("Write Provenance Indexes", true));
     }
 
     @Override
@@ -102,6 +125,15 @@ public class WriteAheadStorePartition implements EventStorePartition {
         if (lease != null) {
             lease.close();
         }
+
+        for (final ExecutorService executor : indexRebuildExecutors) {
+            executor.shutdownNow();
+        }
+
+        // Any index that has not yet been written is rebuilt when the partition is next initialized
+        if (indexWriteExecutor != null) {
+            indexWriteExecutor.shutdownNow();
+        }
     }
 
     @Override
@@ -165,6 +197,63 @@ public class WriteAheadStorePartition implements EventStorePartition {
         final long nextPartitionId = maxEventId + 1;
         final long updatedId = idGenerator.updateAndGet(curVal -> Math.max(curVal, nextPartitionId));
         logger.info("After recovering {}, next Event ID to be generated will be {}", partitionDirectory, updatedId);
+
+        // Event Files that were written before an index was enabled, or whose index was not written because NiFi was stopped
+        // before the file was rolled over, have no index file. Until they do, searches fall back to the Lucene index,
+        // so we build them in the background, newest first, as the most recent events are the ones most often queried.
+        if (columnStore != null) {
+            rebuildMissingIndexes(fileList, "Provenance Event Columns", columnStore::hasColumns,
+                eventFile -> columnStore.rebuild(eventFile, recordReaderFactory), columnStore::delete);
+        }
+        if (lineageStore != null) {
+            rebuildMissingIndexes(fileList, "Provenance Lineage Index", lineageStore::hasIndex,
+                eventFile -> lineageStore.rebuild(eventFile, recordReaderFactory), lineageStore::delete);
+        }
+    }
+
+    private void rebuildMissingIndexes(final List<File> eventFiles, final String indexName, final Predicate<File> hasIndex, final EventFileIndexer indexer,
+                                       final Predicate<File> deleteIndex) {
+        final List<File> filesWithoutIndex = eventFiles.stream()
+            .filter(file -> !hasIndex.test(file))
+            .collect(Collectors.toList());
+
+        if (filesWithoutIndex.isEmpty()) {
+            return;
+        }
+
+        logger.info("Building {} for {} Event Files in {}", indexName, filesWithoutIndex.size(), partitionDirectory);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Build " + indexName, true));
+        indexRebuildExecutors.add(executor);
+        executor.submit(() -> {
+            for (final File eventFile : filesWithoutIndex) {
+                if (closed) {
+                    return;
+                }
+
+                try {
+                    final int entryCount = indexer.rebuild(eventFile);
+                    logger.debug("Built {} with {} entries for {}", indexName, entryCount, eventFile);
+                } catch (final EOFException | FileNotFoundException | NoSuchFileException e) {
+                    logger.debug("Could not build {} for {} because it was aged off", indexName, eventFile);
+                } catch (final Exception e) {
+                    logger.warn("Failed to build {} for {}; searches will use the Lucene index instead", indexName, eventFile, e);
+                }
+
+                // The file may have been aged off while we were reading it, in which case its index must not be kept around.
+                synchronized (minEventIdToPathMap) {
+                    if (!minEventIdToPathMap.containsKey(DirectoryUtils.getMinId(eventFile))) {
+                        deleteIndex.test(eventFile);
+                    }
+                }
+            }
+
+            executor.shutdown();
+        });
+    }
+
+    private interface EventFileIndexer {
+        int rebuild(File eventFile) throws IOException;
     }
 
 
@@ -203,6 +292,16 @@ public class WriteAheadStorePartition implements EventStorePartition {
         final RecordWriter writer = lease.getWriter();
         try {
             storageMap = addEvents(events, writer);
+
+            final EventColumnsBuilder columnsBuilder = lease.getColumnsBuilder();
+            if (columnsBuilder != null) {
+                storageMap.forEach((event, summary) -> columnsBuilder.add(summary.getEventId(), event));
+            }
+
+            final LineageIndexBuilder lineageBuilder = lease.getLineageBuilder();
+            if (lineageBuilder != null) {
+                storageMap.forEach((event, summary) -> lineageBuilder.add(summary.getEventId(), event));
+            }
         } finally {
             lease.relinquishClaim();
         }
@@ -273,11 +372,25 @@ public class WriteAheadStorePartition implements EventStorePartition {
         final RecordWriter updatedWriter = recordWriterFactory.createWriter(updatedEventFile, idGenerator, false, true);
         updatedWriter.writeHeader(nextEventId);
 
-        final RecordWriterLease updatedLease = new RecordWriterLease(updatedWriter, config.getMaxEventFileCapacity(), config.getMaxEventFileCount(), config.getMaxEventFileLife(TimeUnit.MILLISECONDS));
+        final EventColumnsBuilder columnsBuilder = columnStore == null ? null : new EventColumnsBuilder();
+        final LineageIndexBuilder lineageBuilder = lineageStore == null ? null : new LineageIndexBuilder();
+        final RecordWriterLease updatedLease = new RecordWriterLease(updatedWriter, config.getMaxEventFileCapacity(), config.getMaxEventFileCount(),
+            config.getMaxEventFileLife(TimeUnit.MILLISECONDS), columnsBuilder, lineageBuilder);
+
+        // The indexes of the current Event File must remain searchable in memory from the moment it stops being the Active Event File
+        final boolean indexesUnwritten = lease != null && indexWriteExecutor != null && (lease.getColumnsBuilder() != null || lease.getLineageBuilder() != null);
+        if (indexesUnwritten) {
+            unwrittenIndexLeases.put(lease.getWriter().getFile(), lease);
+        }
+
         final boolean updated = eventWriterLeaseRef.compareAndSet(lease, updatedLease);
 
         if (!updated) {
             logger.trace("Did not update Event Writer Lease. Will remain {}. Not rolling over Lease.", lease);
+            if (indexesUnwritten) {
+                unwrittenIndexLeases.remove(lease.getWriter().getFile());
+            }
+
             try {
                 updatedWriter.close();
             } catch (final Exception e) {
@@ -291,6 +404,7 @@ public class WriteAheadStorePartition implements EventStorePartition {
         logger.trace("Updated lease from {} to {}", lease, updatedLease);
         if (lease != null) {
             lease.close();
+            submitIndexWrite(lease);
         }
 
         synchronized (minEventIdToPathMap) {
@@ -314,6 +428,59 @@ public class WriteAheadStorePartition implements EventStorePartition {
         return true;
     }
 
+    /**
+     * Writes the indexes of the rolled-over Event File in the background, so that the thread that rolled over the Event File does not
+     * wait for the events to be sorted and written. Until the indexes are written, they are searched in memory.
+     */
+    private void submitIndexWrite(final RecordWriterLease lease) {
+        final File eventFile = lease.getWriter().getFile();
+        if (!unwrittenIndexLeases.containsKey(eventFile)) {
+            return;
+        }
+
+        try {
+            indexWriteExecutor.submit(() -> {
+                try {
+                    writeColumns(lease);
+                    writeLineageIndex(lease);
+                } finally {
+                    unwrittenIndexLeases.remove(eventFile);
+                }
+            });
+        } catch (final RejectedExecutionException ree) {
+            unwrittenIndexLeases.remove(eventFile);
+            logger.debug("Did not write the indexes of {} because {} is closed", eventFile, this);
+        }
+    }
+
+    private void writeColumns(final RecordWriterLease lease) {
+        final EventColumnsBuilder columnsBuilder = lease.getColumnsBuilder();
+        if (columnStore == null || columnsBuilder == null) {
+            return;
+        }
+
+        final File eventFile = lease.getWriter().getFile();
+        try {
+            columnStore.write(eventFile, columnsBuilder.build());
+        } catch (final IOException e) {
+            logger.warn("Failed to write Provenance Event Columns for {}; queries will use the Lucene index instead", eventFile, e);
+        }
+    }
+
+    private void writeLineageIndex(final RecordWriterLease lease) {
+        final LineageIndexBuilder lineageBuilder = lease.getLineageBuilder();
+        if (lineageStore == null || lineageBuilder == null) {
+            return;
+        }
+
+        final File eventFile = lease.getWriter().getFile();
+        try {
+            lineageStore.write(eventFile, lineageBuilder.build());
+        } catch (final IOException e) {
+            logger.warn("Failed to write Provenance Lineage Index for {}; lineage will be computed using the Lucene index instead", eventFile, e);
+        }
+    }
+
     private Map<ProvenanceEventRecord, StorageSummary> addEvents(final Iterable<ProvenanceEventRecord> events, final RecordWriter writer) throws IOException {
         final Map<ProvenanceEventRecord, StorageSummary> locationMap = new HashMap<>();
 
@@ -571,6 +738,14 @@ public class WriteAheadStorePartition implements EventStorePartition {
                 logger.warn("Failed to remove Provenance Table-of-Contents file {}; this file should be cleaned up manually", tocFile);
             }
 
+            if (columnStore != null && !columnStore.delete(file)) {
+                logger.warn("Failed to remove Provenance Event Column file {}; this file should be cleaned up manually", EventColumnStore.getColumnFile(file));
+            }
+
+            if (lineageStore != null && !lineageStore.delete(file)) {
+                logger.warn("Failed to remove Provenance Lineage Index file {}; this file should be cleaned up manually", LineageIndexStore.getLineageFile(file));
+            }
+
             return true;
         } finally {
             eventFileManager.releaseWriteLock(file);
@@ -697,6 +872,128 @@ public class WriteAheadStorePartition implements EventStorePartition {
     }
 
 
+    /**
+     * Scans the columns of each Event File in this partition, newest first, adding the IDs of the events that match the given filter.
+     * The events of the Active Event File, and of any Event File whose columns have not yet been written, are scanned from memory.
+     *
+     * @param filter the filter to apply
+     * @param matches the matches to add to
+     * @return <code>true</code> if all Event Files were scanned, <code>false</code> if any Event File has no columns, in which case
+     * the query must be answered in some other way
+     * @throws IOException if unable to read the columns of an Event File
+     */
+    boolean searchColumns(final ColumnarEventFilter filter, final MatchingEventIds matches) throws IOException {
+        if (columnStore == null) {
+            return false;
+        }
+
+        final List<File> eventFiles;
+        synchronized (minEventIdToPathMap) {
+            eventFiles = new ArrayList<>(minEventIdToPathMap.values());
+        }
+        Collections.reverse(eventFiles);
+
+        final RecordWriterLease activeLease = eventWriterLeaseRef.get();
+        final File activeEventFile = activeLease == null ? null : activeLease.getWriter().getFile();
+
+        for (final File eventFile : eventFiles) {
+            if (eventFile.equals(activeEventFile) && activeLease.getColumnsBuilder() != null) {
+                filter.scan(activeLease.getColumnsBuilder().build(), matches);
+                continue;
+            }
+
+            final RecordWriterLease unwrittenLease = unwrittenIndexLeases.get(eventFile);
+            if (unwrittenLease != null && unwrittenLease.getColumnsBuilder() != null) {
+                filter.scan(unwrittenLease.getColumnsBuilder().build(), matches);
+                continue;
+            }
+
+            final Optional<ColumnFile> columnFile;
+            try {
+                columnFile = columnStore.getColumns(eventFile);
+            } catch (final FileNotFoundException | NoSuchFileException e) {
+                logger.debug("Provenance Event Columns for {} were aged off while searching", eventFile);
+                continue;
+            }
+
+            if (!columnFile.isPresent()) {
+                logger.debug("{} has no Provenance Event Columns for {}; cannot search columns", this, eventFile);
+                return false;
+            }
+
+            try (final EventColumnSource source = columnFile.get().open()) {
+                filter.scan(source, matches);
+            } catch (final FileNotFoundException | NoSuchFileException e) {
+                logger.debug("Provenance Event Columns for {} were aged off while searching", eventFile);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Searches the lineage index of each Event File in this partition for the events that are linked to the given FlowFile UUID hashes.
+     * The lineage index of the Active Event File, and of any Event File whose lineage index has not yet been written, is searched in memory.
+     *
+     * @param uuidHashes the hashes of the FlowFile UUIDs to search for
+     * @param handler the handler to notify of each matching event
+     * @return <code>true</code> if all Event Files were searched, <code>false</code> if any Event File has no lineage index, in which case
+     * the lineage must be computed in some other way
+     * @throws IOException if unable to read the lineage index of an Event File
+     */
+    boolean searchLineage(final long[] uuidHashes, final LineageMatchHandler handler) throws IOException {
+        if (lineageStore == null) {
+            return false;
+        }
+
+        final List<File> eventFiles;
+        synchronized (minEventIdToPathMap) {
+            eventFiles = new ArrayList<>(minEventIdToPathMap.values());
+        }
+
+        final RecordWriterLease activeLease = eventWriterLeaseRef.get();
+        final File activeEventFile = activeLease == null ? null : activeLease.getWriter().getFile();
+
+        for (final File eventFile : eventFiles) {
+            if (eventFile.equals(activeEventFile) && activeLease.getLineageBuilder() != null) {
+                activeLease.getLineageBuilder().search(uuidHashes, handler);
+                continue;
+            }
+
+            final RecordWriterLease unwrittenLease = unwrittenIndexLeases.get(eventFile);
+            if (unwrittenLease != null && unwrittenLease.getLineageBuilder() != null) {
+                unwrittenLease.getLineageBuilder().search(uuidHashes, handler);
+                continue;
+            }
+
+            try {
+                if (!lineageStore.search(eventFile, uuidHashes, handler) && !isAgedOff(eventFile)) {
+                    logger.debug("{} has no Provenance Lineage Index for {}; cannot search lineage index", this, eventFile);
+                    return false;
+                }
+            } catch (final FileNotFoundException | NoSuchFileException e) {
+                logger.debug("Provenance Lineage Index for {} was aged off while searching", eventFile);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the ID of the first event in the oldest Event File of this partition, or <code>-1</code> if this partition has no Event Files
+     */
+    long getMinEventId() {
+        synchronized (minEventIdToPathMap) {
+            return minEventIdToPathMap.isEmpty() ? -1L : minEventIdToPathMap.firstKey();
+        }
+    }
+
+    private boolean isAgedOff(final File eventFile) {
+        synchronized (minEventIdToPathMap) {
+            return !minEventIdToPathMap.containsKey(DirectoryUtils.getMinId(eventFile));
+        }
+    }
+
     EventIterator getEventsByTimestamp(final long minTimestmap, final long maxTimestamp) throws IOException {
         // Get a list of all Files and order them based on their ID such that the largest ID is first.
         // This allows us to step through the event files in order and read the first event in the file.
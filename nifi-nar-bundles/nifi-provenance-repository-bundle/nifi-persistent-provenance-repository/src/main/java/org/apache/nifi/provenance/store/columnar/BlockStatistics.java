@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+/**
+ * Minimum and maximum values of the columns within one block of an {@link EventColumnSource}. A filter can skip any block whose
+ * statistics show that none of its events could match, without reading the block's columns.
+ */
+public class BlockStatistics {
+    private final int firstIndex;
+    private final int eventCount;
+    private final long minEventId;
+    private final long maxEventId;
+    private final long minEventTime;
+    private final long maxEventTime;
+    private final long eventTypeMask;
+    private final int minComponentCode;
+    private final int maxComponentCode;
+
+    public BlockStatistics(final int firstIndex, final int eventCount, final long minEventId, final long maxEventId, final long minEventTime, final long maxEventTime,
+                           final long eventTypeMask, final int minComponentCode, final int maxComponentCode) {
+        this.firstIndex = firstIndex;
+        this.eventCount = eventCount;
+        this.minEventId = minEventId;
+        this.maxEventId = maxEventId;
+        this.minEventTime = minEventTime;
+        this.maxEventTime = maxEventTime;
+        this.eventTypeMask = eventTypeMask;
+        this.minComponentCode = minComponentCode;
+        this.maxComponentCode = maxComponentCode;
+    }
+
+    /**
+     * @return the index of the block's first event within the columns
+     */
+    public int getFirstIndex() {
+        return firstIndex;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public long getMinEventId() {
+        return minEventId;
+    }
+
+    public long getMaxEventId() {
+        return maxEventId;
+    }
+
+    public long getMinEventTime() {
+        return minEventTime;
+    }
+
+    public long getMaxEventTime() {
+        return maxEventTime;
+    }
+
+    /**
+     * @return a bit mask that has the bit at the ordinal of each Event Type that occurs within the block set
+     */
+    public long getEventTypeMask() {
+        return eventTypeMask;
+    }
+
+    public int getMinComponentCode() {
+        return minComponentCode;
+    }
+
+    public int getMaxComponentCode() {
+        return maxComponentCode;
+    }
+
+    @Override
+    public String toString() {
+        return "BlockStatistics[firstIndex=" + firstIndex + ", events=" + eventCount + ", eventIds=" + minEventId + "-" + maxEventId
+            + ", eventTimes=" + minEventTime + "-" + maxEventTime + "]";
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.stream.io.ByteCountingInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * A Column File that was written by {@link EventColumns#write(File)}. The file consists of a header, which holds the Component ID
+ * dictionary and the statistics of each block, followed by each column in turn. Only the header is held in memory; the columns are read
+ * from disk one block at a time, and only for the blocks and columns that a query needs.
+ * </p>
+ */
+public class ColumnFile {
+    private final File file;
+    private final int eventCount;
+    private final String[] componentIds;
+    private final List<BlockStatistics> blocks;
+    private final long eventIdsOffset;
+
+    private ColumnFile(final File file, final int eventCount, final String[] componentIds, final List<BlockStatistics> blocks, final long headerLength) {
+        this.file = file;
+        this.eventCount = eventCount;
+        this.componentIds = componentIds;
+        this.blocks = blocks;
+        this.eventIdsOffset = headerLength;
+    }
+
+    public static ColumnFile read(final File file) throws IOException {
+        try (final InputStream fis = new FileInputStream(file);
+             final ByteCountingInputStream countingIn = new ByteCountingInputStream(new BufferedInputStream(fis));
+             final DataInputStream in = new DataInputStream(countingIn)) {
+
+            final int version = in.readInt();
+            if (version != EventColumns.VERSION) {
+                throw new IOException("Cannot read Provenance Column File " + file + " because it was written using version " + version + " of the format, which is not supported");
+            }
+
+            final int eventCount = in.readInt();
+
+            final String[] componentIds = new String[in.readInt()];
+            for (int i = 0; i < componentIds.length; i++) {
+                componentIds[i] = in.readUTF();
+            }
+
+            final int blockCount = in.readInt();
+            final List<BlockStatistics> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                blocks.add(new BlockStatistics(in.readInt(), in.readInt(), in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readInt(), in.readInt()));
+            }
+
+            return new ColumnFile(file, eventCount, componentIds, Collections.unmodifiableList(blocks), countingIn.getBytesConsumed());
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public List<BlockStatistics> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @return a source that reads the columns of this file. The file is opened when the first column is read, so that the file is not
+     * opened at all if the statistics of its blocks rule out every block, and it is held open until the source is closed.
+     */
+    public EventColumnSource open() {
+        return new ColumnFileSource();
+    }
+
+    private class ColumnFileSource implements EventColumnSource {
+        private FileChannel channel;
+
+        @Override
+        public String[] getComponentIds() {
+            return componentIds;
+        }
+
+        @Override
+        public List<BlockStatistics> getBlocks() {
+            return blocks;
+        }
+
+        @Override
+        public long[] readEventIds(final BlockStatistics block) throws IOException {
+            final ByteBuffer buffer = read(eventIdsOffset, 8, block);
+            final long[] values = new long[block.getEventCount()];
+            buffer.asLongBuffer().get(values);
+            return values;
+        }
+
+        @Override
+        public long[] readEventTimes(final BlockStatistics block) throws IOException {
+            final ByteBuffer buffer = read(eventIdsOffset + 8L * eventCount, 8, block);
+            final long[] values = new long[block.getEventCount()];
+            buffer.asLongBuffer().get(values);
+            return values;
+        }
+
+        @Override
+        public byte[] readEventTypes(final BlockStatistics block) throws IOException {
+            return read(eventIdsOffset + 16L * eventCount, 1, block).array();
+        }
+
+        @Override
+        public int[] readComponentCodes(final BlockStatistics block) throws IOException {
+            final ByteBuffer buffer = read(eventIdsOffset + 17L * eventCount, 4, block);
+            final int[] values = new int[block.getEventCount()];
+            buffer.asIntBuffer().get(values);
+            return values;
+        }
+
+        private ByteBuffer read(final long columnOffset, final int valueLength, final BlockStatistics block) throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            }
+
+            final ByteBuffer buffer = ByteBuffer.allocate(valueLength * block.getEventCount());
+            long position = columnOffset + (long) valueLength * block.getFirstIndex();
+            while (buffer.hasRemaining()) {
+                final int bytesRead = channel.read(buffer, position);
+                if (bytesRead < 0) {
+                    throw new IOException("Provenance Column File " + file + " is truncated");
+                }
+                position += bytesRead;
+            }
+
+            buffer.flip();
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnFile[" + file + "]";
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.SearchTerm;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * <p>
+ * A Provenance Query that can be evaluated against {@link EventColumnSource}s. Only queries that filter on nothing other than the
+ * Event Time, Component ID and Event Type can be evaluated, which covers the queries that are issued for the latest events of a given
+ * component and for time ranges. Search terms are matched the same way that the Lucene index matches them: case-insensitively, and
+ * all terms must be satisfied.
+ * </p>
+ *
+ * <p>
+ * Before reading any of a block's columns, the filter compares the block's statistics to the query and skips the block if none of its
+ * events can match. For the blocks that are read, only the columns that the query filters on are read, in addition to the Event IDs.
+ * </p>
+ */
+public class ColumnarEventFilter {
+    private static final String COMPONENT_ID_FIELD_NAME = SearchableFields.ComponentID.getSearchableFieldName();
+    private static final String EVENT_TYPE_FIELD_NAME = SearchableFields.EventType.getSearchableFieldName();
+    private static final long ALL_EVENT_TYPES = (1L << ProvenanceEventType.values().length) - 1;
+
+    private final long minEventTime;
+    private final long maxEventTime;
+    private final long eventTypeMask;
+    private final Set<String> requiredComponentIds;
+    private final Set<String> excludedComponentIds;
+
+    private ColumnarEventFilter(final long minEventTime, final long maxEventTime, final long eventTypeMask, final Set<String> requiredComponentIds,
+                                final Set<String> excludedComponentIds) {
+        this.minEventTime = minEventTime;
+        this.maxEventTime = maxEventTime;
+        this.eventTypeMask = eventTypeMask;
+        this.requiredComponentIds = requiredComponentIds;
+        this.excludedComponentIds = excludedComponentIds;
+    }
+
+    /**
+     * Creates a filter for the given query, if the query can be evaluated using only the columns
+     *
+     * @param query the query
+     * @return a filter for the query, or an empty Optional if the query filters on anything that is not held in the columns
+     */
+    public static Optional<ColumnarEventFilter> fromQuery(final Query query) {
+        if (query.getMinFileSize() != null || query.getMaxFileSize() != null) {
+            return Optional.empty();
+        }
+
+        long eventTypeMask = ALL_EVENT_TYPES;
+        final Set<String> requiredComponentIds = new HashSet<>();
+        final Set<String> excludedComponentIds = new HashSet<>();
+
+        for (final SearchTerm searchTerm : query.getSearchTerms()) {
+            final String value = searchTerm.getValue();
+            if (value == null || value.contains("*") || value.contains("?")) {
+                return Optional.empty();
+            }
+
+            final boolean inverted = Boolean.TRUE.equals(searchTerm.isInverted());
+            final String fieldName = searchTerm.getSearchableField().getSearchableFieldName();
+            if (COMPONENT_ID_FIELD_NAME.equals(fieldName)) {
+                final String componentId = value.toLowerCase(Locale.ROOT);
+                if (inverted) {
+                    excludedComponentIds.add(componentId);
+                } else {
+                    requiredComponentIds.add(componentId);
+                }
+            } else if (EVENT_TYPE_FIELD_NAME.equals(fieldName)) {
+                final long typeMask = getEventTypeMask(value);
+                eventTypeMask &= inverted ? ~typeMask : typeMask;
+            } else {
+                return Optional.empty();
+            }
+        }
+
+        final long minEventTime = query.getStartDate() == null ? Long.MIN_VALUE : query.getStartDate().getTime();
+        final long maxEventTime = query.getEndDate() == null ? Long.MAX_VALUE : query.getEndDate().getTime();
+        return Optional.of(new ColumnarEventFilter(minEventTime, maxEventTime, eventTypeMask, requiredComponentIds, excludedComponentIds));
+    }
+
+    private static long getEventTypeMask(final String value) {
+        for (final ProvenanceEventType eventType : ProvenanceEventType.values()) {
+            if (eventType.name().equalsIgnoreCase(value)) {
+                return 1L << eventType.ordinal();
+            }
+        }
+
+        // No event has an unknown Event Type
+        return 0L;
+    }
+
+    private boolean isTimeFiltered() {
+        return minEventTime != Long.MIN_VALUE || maxEventTime != Long.MAX_VALUE;
+    }
+
+    private boolean isEventTypeFiltered() {
+        return eventTypeMask != ALL_EVENT_TYPES;
+    }
+
+    /**
+     * Adds the IDs of the events within the given source that match this filter to the given matches
+     *
+     * @param source the columns to scan
+     * @param matches the matches to add to
+     * @throws IOException if unable to read the columns
+     */
+    public void scan(final EventColumnSource source, final MatchingEventIds matches) throws IOException {
+        if (eventTypeMask == 0L || requiredComponentIds.size() > 1) {
+            return;
+        }
+
+        final String[] componentIds = source.getComponentIds();
+
+        int requiredCode = -1;
+        if (!requiredComponentIds.isEmpty()) {
+            requiredCode = Arrays.binarySearch(componentIds, requiredComponentIds.iterator().next());
+            if (requiredCode < 0) {
+                return;
+            }
+        }
+
+        boolean[] excludedCodes = null;
+        for (final String excludedComponentId : excludedComponentIds) {
+            final int code = Arrays.binarySearch(componentIds, excludedComponentId);
+            if (code >= 0) {
+                if (excludedCodes == null) {
+                    excludedCodes = new boolean[componentIds.length];
+                }
+                excludedCodes[code] = true;
+            }
+        }
+
+        final boolean timeFiltered = isTimeFiltered();
+        final boolean eventTypeFiltered = isEventTypeFiltered();
+        final boolean componentFiltered = requiredCode >= 0 || excludedCodes != null;
+
+        final List<BlockStatistics> blocks = source.getBlocks();
+        for (int blockIndex = blocks.size() - 1; blockIndex >= 0; blockIndex--) {
+            final BlockStatistics block = blocks.get(blockIndex);
+            if (!isPossibleMatch(block, requiredCode)) {
+                continue;
+            }
+
+            // If every event in the block matches, and none of them would be collected, there is no need to read the block at all
+            if (excludedCodes == null && isCompleteMatch(block, requiredCode) && !matches.isCollected(block.getMaxEventId())) {
+                matches.addUncollected(block.getEventCount());
+                continue;
+            }
+
+            final long[] eventIds = source.readEventIds(block);
+            final long[] eventTimes = timeFiltered ? source.readEventTimes(block) : null;
+            final byte[] eventTypes = eventTypeFiltered ? source.readEventTypes(block) : null;
+            final int[] componentCodes = componentFiltered ? source.readComponentCodes(block) : null;
+
+            for (int i = eventIds.length - 1; i >= 0; i--) {
+                if (timeFiltered && (eventTimes[i] < minEventTime || eventTimes[i] > maxEventTime)) {
+                    continue;
+                }
+                if (eventTypeFiltered && (eventTypeMask & (1L << eventTypes[i])) == 0) {
+                    continue;
+                }
+                if (requiredCode >= 0 && componentCodes[i] != requiredCode) {
+                    continue;
+                }
+                if (excludedCodes != null && excludedCodes[componentCodes[i]]) {
+                    continue;
+                }
+
+                matches.add(eventIds[i]);
+            }
+        }
+    }
+
+    private boolean isPossibleMatch(final BlockStatistics block, final int requiredCode) {
+        if (block.getMaxEventTime() < minEventTime || block.getMinEventTime() > maxEventTime) {
+            return false;
+        }
+        if ((block.getEventTypeMask() & eventTypeMask) == 0) {
+            return false;
+        }
+
+        return requiredCode < 0 || (requiredCode >= block.getMinComponentCode() && requiredCode <= block.getMaxComponentCode());
+    }
+
+    private boolean isCompleteMatch(final BlockStatistics block, final int requiredCode) {
+        if (block.getMinEventTime() < minEventTime || block.getMaxEventTime() > maxEventTime) {
+            return false;
+        }
+        if ((block.getEventTypeMask() & ~eventTypeMask) != 0) {
+            return false;
+        }
+
+        return requiredCode < 0 || (block.getMinComponentCode() == requiredCode && block.getMaxComponentCode() == requiredCode);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarEventFilter[eventTimes=" + minEventTime + "-" + maxEventTime + ", eventTypeMask=" + Long.toHexString(eventTypeMask)
+            + ", componentIds=" + requiredComponentIds + ", excludedComponentIds=" + excludedComponentIds + "]";
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>
+ * The columns of the fields that Provenance queries most often filter on, for the events of a single Event File. The events are ordered
+ * by Event ID and divided into blocks, and each column is read one block at a time so that only the blocks and columns that a query
+ * needs are read.
+ * </p>
+ *
+ * <p>
+ * Component Identifiers are dictionary-encoded: the component column holds the index of each event's Component ID within the sorted,
+ * lower-cased array returned by {@link #getComponentIds()}. Because the dictionary is sorted, the minimum and maximum codes of a block
+ * are also the minimum and maximum Component IDs of the block.
+ * </p>
+ */
+public interface EventColumnSource extends Closeable {
+
+    /**
+     * @return the sorted, lower-cased Component IDs that the component column refers to
+     */
+    String[] getComponentIds();
+
+    /**
+     * @return the statistics of each block, in order of Event ID
+     */
+    List<BlockStatistics> getBlocks();
+
+    long[] readEventIds(BlockStatistics block) throws IOException;
+
+    long[] readEventTimes(BlockStatistics block) throws IOException;
+
+    byte[] readEventTypes(BlockStatistics block) throws IOException;
+
+    int[] readComponentCodes(BlockStatistics block) throws IOException;
+}
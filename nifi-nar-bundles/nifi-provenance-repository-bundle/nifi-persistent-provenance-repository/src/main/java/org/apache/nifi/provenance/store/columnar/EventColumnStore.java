@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.lucene.LuceneUtil;
+import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.store.RecordReaderFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Manages the Column Files of the Event Files in one partition of the Provenance Repository. Each Event File's Column File is kept in a
+ * <code>columns</code> directory alongside the Event File, in the same way as its Table of Contents, and the header of each Column File
+ * is cached once it has been read.
+ */
+public class EventColumnStore {
+    private final ConcurrentMap<File, ColumnFile> columnFiles = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the Column File for the given Event File. Note that the file that is returned may not exist.
+     *
+     * @param eventFile the Event File
+     * @return the Column File for the given Event File
+     */
+    public static File getColumnFile(final File eventFile) {
+        final File columnDir = new File(eventFile.getParentFile(), "columns");
+        final String basename = LuceneUtil.substringBefore(eventFile.getName(), ".prov");
+        return new File(columnDir, basename + ".cols");
+    }
+
+    public boolean hasColumns(final File eventFile) {
+        return getColumnFile(eventFile).exists();
+    }
+
+    /**
+     * @param eventFile the Event File
+     * @return the Column File for the given Event File, or an empty Optional if the Event File has no Column File
+     * @throws IOException if unable to read the Column File's header
+     */
+    public Optional<ColumnFile> getColumns(final File eventFile) throws IOException {
+        final File file = getColumnFile(eventFile);
+
+        final ColumnFile cached = columnFiles.get(file);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        if (!file.exists()) {
+            return Optional.empty();
+        }
+
+        final ColumnFile columnFile = ColumnFile.read(file);
+        columnFiles.put(file, columnFile);
+        return Optional.of(columnFile);
+    }
+
+    public void write(final File eventFile, final EventColumns columns) throws IOException {
+        final File file = getColumnFile(eventFile);
+        columns.write(file);
+        columnFiles.remove(file);
+    }
+
+    /**
+     * Creates the Column File for the given Event File by reading all of its events
+     *
+     * @param eventFile the Event File
+     * @param recordReaderFactory the factory to create a reader for the Event File
+     * @return the number of events in the Event File
+     * @throws IOException if unable to read the Event File or write the Column File
+     */
+    public int rebuild(final File eventFile, final RecordReaderFactory recordReaderFactory) throws IOException {
+        final EventColumnsBuilder builder = new EventColumnsBuilder();
+
+        try (final RecordReader reader = recordReaderFactory.newRecordReader(eventFile, Collections.emptyList(), 36)) {
+            ProvenanceEventRecord event;
+            while ((event = reader.nextRecord()) != null) {
+                builder.add(event.getEventId(), event);
+            }
+        }
+
+        write(eventFile, builder.build());
+        return builder.size();
+    }
+
+    /**
+     * Deletes the Column File for the given Event File
+     *
+     * @param eventFile the Event File
+     * @return <code>false</code> if the Column File exists and could not be deleted, <code>true</code> otherwise
+     */
+    public boolean delete(final File eventFile) {
+        final File file = getColumnFile(eventFile);
+        columnFiles.remove(file);
+        return !file.exists() || file.delete();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The columns of an Event File, held in memory. This is used for the Event File that is currently being written to, and to create the
+ * Column File for an Event File once it has been rolled over.
+ */
+public class EventColumns implements EventColumnSource {
+    static final int VERSION = 1;
+    static final int BLOCK_SIZE = 1024;
+
+    private final long[] eventIds;
+    private final long[] eventTimes;
+    private final byte[] eventTypes;
+    private final int[] componentCodes;
+    private final String[] componentIds;
+    private final List<BlockStatistics> blocks;
+
+    EventColumns(final long[] eventIds, final long[] eventTimes, final byte[] eventTypes, final int[] componentCodes, final String[] componentIds) {
+        this.eventIds = eventIds;
+        this.eventTimes = eventTimes;
+        this.eventTypes = eventTypes;
+        this.componentCodes = componentCodes;
+        this.componentIds = componentIds;
+        this.blocks = Collections.unmodifiableList(createBlocks());
+    }
+
+    private List<BlockStatistics> createBlocks() {
+        final List<BlockStatistics> blocks = new ArrayList<>(eventIds.length / BLOCK_SIZE + 1);
+
+        for (int firstIndex = 0; firstIndex < eventIds.length; firstIndex += BLOCK_SIZE) {
+            final int end = Math.min(eventIds.length, firstIndex + BLOCK_SIZE);
+
+            long minTime = Long.MAX_VALUE;
+            long maxTime = Long.MIN_VALUE;
+            long typeMask = 0L;
+            int minCode = Integer.MAX_VALUE;
+            int maxCode = Integer.MIN_VALUE;
+            for (int i = firstIndex; i < end; i++) {
+                minTime = Math.min(minTime, eventTimes[i]);
+                maxTime = Math.max(maxTime, eventTimes[i]);
+                typeMask |= 1L << eventTypes[i];
+                minCode = Math.min(minCode, componentCodes[i]);
+                maxCode = Math.max(maxCode, componentCodes[i]);
+            }
+
+            blocks.add(new BlockStatistics(firstIndex, end - firstIndex, eventIds[firstIndex], eventIds[end - 1], minTime, maxTime, typeMask, minCode, maxCode));
+        }
+
+        return blocks;
+    }
+
+    public int getEventCount() {
+        return eventIds.length;
+    }
+
+    @Override
+    public String[] getComponentIds() {
+        return componentIds;
+    }
+
+    @Override
+    public List<BlockStatistics> getBlocks() {
+        return blocks;
+    }
+
+    @Override
+    public long[] readEventIds(final BlockStatistics block) {
+        return Arrays.copyOfRange(eventIds, block.getFirstIndex(), block.getFirstIndex() + block.getEventCount());
+    }
+
+    @Override
+    public long[] readEventTimes(final BlockStatistics block) {
+        return Arrays.copyOfRange(eventTimes, block.getFirstIndex(), block.getFirstIndex() + block.getEventCount());
+    }
+
+    @Override
+    public byte[] readEventTypes(final BlockStatistics block) {
+        return Arrays.copyOfRange(eventTypes, block.getFirstIndex(), block.getFirstIndex() + block.getEventCount());
+    }
+
+    @Override
+    public int[] readComponentCodes(final BlockStatistics block) {
+        return Arrays.copyOfRange(componentCodes, block.getFirstIndex(), block.getFirstIndex() + block.getEventCount());
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Writes the columns to the given file in the format that is read by {@link ColumnFile}. The file is first written under a temporary
+     * name and then renamed, so that a Column File that exists is always complete.
+     *
+     * @param file the file to write to
+     * @throws IOException if unable to write the file
+     */
+    public void write(final File file) throws IOException {
+        final File directory = file.getParentFile();
+        if (!directory.exists()) {
+            Files.createDirectories(directory.toPath());
+        }
+
+        final File tempFile = new File(directory, file.getName() + ".tmp");
+        try (final OutputStream fos = new FileOutputStream(tempFile);
+             final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 65536))) {
+
+            out.writeInt(VERSION);
+            out.writeInt(eventIds.length);
+
+            out.writeInt(componentIds.length);
+            for (final String componentId : componentIds) {
+                out.writeUTF(componentId);
+            }
+
+            out.writeInt(blocks.size());
+            for (final BlockStatistics block : blocks) {
+                out.writeInt(block.getFirstIndex());
+                out.writeInt(block.getEventCount());
+                out.writeLong(block.getMinEventId());
+                out.writeLong(block.getMaxEventId());
+                out.writeLong(block.getMinEventTime());
+                out.writeLong(block.getMaxEventTime());
+                out.writeLong(block.getEventTypeMask());
+                out.writeInt(block.getMinComponentCode());
+                out.writeInt(block.getMaxComponentCode());
+            }
+
+            for (final long eventId : eventIds) {
+                out.writeLong(eventId);
+            }
+            for (final long eventTime : eventTimes) {
+                out.writeLong(eventTime);
+            }
+            out.write(eventTypes);
+            for (final int componentCode : componentCodes) {
+                out.writeInt(componentCode);
+            }
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.util.IndexSort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Accumulates the columns of the events that are written to an Event File. Events may be added in any order, as several threads write
+ * to the same Event File concurrently; {@link #build()} orders them by Event ID.
+ */
+public class EventColumnsBuilder {
+    private long[] eventIds = new long[EventColumns.BLOCK_SIZE];
+    private long[] eventTimes = new long[EventColumns.BLOCK_SIZE];
+    private byte[] eventTypes = new byte[EventColumns.BLOCK_SIZE];
+    private int[] componentCodes = new int[EventColumns.BLOCK_SIZE];
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> componentIds = new ArrayList<>();
+    private long maxEventId = Long.MIN_VALUE;
+    private boolean sorted = true;
+    private int size = 0;
+
+    public synchronized void add(final long eventId, final ProvenanceEventRecord event) {
+        if (size == eventIds.length) {
+            final int capacity = size * 2;
+            eventIds = Arrays.copyOf(eventIds, capacity);
+            eventTimes = Arrays.copyOf(eventTimes, capacity);
+            eventTypes = Arrays.copyOf(eventTypes, capacity);
+            componentCodes = Arrays.copyOf(componentCodes, capacity);
+        }
+
+        final String componentId = event.getComponentId();
+        final String normalizedId = componentId == null ? "" : componentId.toLowerCase(Locale.ROOT);
+        Integer code = codes.get(normalizedId);
+        if (code == null) {
+            code = componentIds.size();
+            codes.put(normalizedId, code);
+            componentIds.add(normalizedId);
+        }
+
+        if (eventId < maxEventId) {
+            sorted = false;
+        }
+        maxEventId = Math.max(maxEventId, eventId);
+
+        eventIds[size] = eventId;
+        eventTimes[size] = event.getEventTime();
+        eventTypes[size] = (byte) event.getEventType().ordinal();
+        componentCodes[size] = code;
+        size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Builds the columns of the events that have been added so far. The monitor of this builder is held only to copy the columns, so
+     * that building the columns of the Active Event File for a query does not hold up the threads that add events to it. The Component
+     * IDs are dictionary-encoded as they are added, and the events are usually added in order of Event ID, in which case no sort is needed.
+     *
+     * @return the columns of the events that have been added so far
+     */
+    public EventColumns build() {
+        final long[] ids;
+        final long[] times;
+        final byte[] types;
+        final int[] addedCodes;
+        final String[] addedComponentIds;
+        final boolean inOrder;
+        synchronized (this) {
+            ids = Arrays.copyOf(eventIds, size);
+            times = Arrays.copyOf(eventTimes, size);
+            types = Arrays.copyOf(eventTypes, size);
+            addedCodes = Arrays.copyOf(componentCodes, size);
+            addedComponentIds = componentIds.toArray(new String[0]);
+            inOrder = sorted;
+        }
+
+        // Map the code of each Component ID, in the order that it was added, to its index in the sorted dictionary
+        final String[] dictionary = addedComponentIds.clone();
+        Arrays.sort(dictionary);
+        final int[] dictionaryCodes = new int[addedComponentIds.length];
+        for (int i = 0; i < addedComponentIds.length; i++) {
+            dictionaryCodes[i] = Arrays.binarySearch(dictionary, addedComponentIds[i]);
+        }
+
+        if (inOrder) {
+            for (int i = 0; i < addedCodes.length; i++) {
+                addedCodes[i] = dictionaryCodes[addedCodes[i]];
+            }
+
+            return new EventColumns(ids, times, types, addedCodes, dictionary);
+        }
+
+        final int[] order = IndexSort.sortedOrder(ids.length, (a, b) -> Long.compare(ids[a], ids[b]));
+        final long[] sortedIds = new long[ids.length];
+        final long[] sortedTimes = new long[ids.length];
+        final byte[] sortedTypes = new byte[ids.length];
+        final int[] sortedCodes = new int[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            final int index = order[i];
+            sortedIds[i] = ids[index];
+            sortedTimes[i] = times[index];
+            sortedTypes[i] = types[index];
+            sortedCodes[i] = dictionaryCodes[addedCodes[index]];
+        }
+
+        return new EventColumns(sortedIds, sortedTimes, sortedTypes, sortedCodes, dictionary);
+    }
+}
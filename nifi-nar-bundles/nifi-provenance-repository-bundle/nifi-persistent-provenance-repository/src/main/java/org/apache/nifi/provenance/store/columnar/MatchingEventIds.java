@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.provenance.store.EventIdSearchResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the IDs of the newest matching events, up to a maximum number, while counting every match.
+ */
+public class MatchingEventIds {
+    private final int maxResults;
+    private final PriorityQueue<Long> newestIds;
+    private long totalHitCount = 0L;
+
+    public MatchingEventIds(final int maxResults) {
+        this.maxResults = maxResults;
+        this.newestIds = new PriorityQueue<>(Math.min(maxResults, 1000) + 1);
+    }
+
+    public void add(final long eventId) {
+        totalHitCount++;
+
+        if (newestIds.size() < maxResults) {
+            newestIds.add(eventId);
+        } else if (maxResults > 0 && eventId > newestIds.peek()) {
+            newestIds.poll();
+            newestIds.add(eventId);
+        }
+    }
+
+    /**
+     * Counts matching events whose IDs need not be collected, because {@link #isCollected(long)} returned <code>false</code> for the largest of them
+     *
+     * @param count the number of matching events
+     */
+    public void addUncollected(final long count) {
+        totalHitCount += count;
+    }
+
+    /**
+     * @param eventId the ID of a matching event
+     * @return <code>true</code> if an event with the given ID would be among the IDs collected so far
+     */
+    public boolean isCollected(final long eventId) {
+        return newestIds.size() < maxResults || (maxResults > 0 && eventId > newestIds.peek());
+    }
+
+    public EventIdSearchResult toResult() {
+        final List<Long> eventIds = new ArrayList<>(newestIds);
+        eventIds.sort(Collections.reverseOrder());
+        return new EventIdSearchResult(eventIds, totalHitCount);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.store.lineage;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.serialization.StorageSummary;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * A least-recently-used cache of the Event IDs that are linked to each FlowFile, so that expanding the lineage of the same FlowFiles
+ * again, as happens each time a user expands a node of a lineage graph, does not require searching the lineage index again. Each entry
+ * is only the list of Event IDs for one FlowFile UUID, not a computed lineage graph, so the graph is still built from the events each time.
+ * </p>
+ *
+ * <p>
+ * The cache is kept up to date incrementally rather than invalidated: each event that is added to the repository is appended to the
+ * entries of the FlowFiles that it is linked to. To ensure that no event is missed while an entry is being computed, the entry is
+ * {@link #reserve(String) reserved} before the lineage index is searched; events that are added during the search are then appended to the
+ * reservation, and those that were added before it are found by the search.
+ * </p>
+ *
+ * <p>
+ * Entries are ordered by when they were last served or reserved. Appending events does not count as a use, so the FlowFiles that are
+ * still active do not keep entries in the cache that no user has asked for since.
+ * </p>
+ *
+ * <p>
+ * Events are added far more often than lineage is computed, so appending them does not take the cache's monitor. The entries are also
+ * held in a concurrent map that is used to find the entries to append to, and each entry guards its own Event IDs.
+ * </p>
+ */
+public class LineageCache {
+    private final Map<String, Reservation> entries;  // guarded by synchronizing on this
+    // Holds the same entries as the LRU map, which is modified only while synchronized, but may be read without synchronizing
+    private final ConcurrentMap<String, Reservation> reservationsByUuid = new ConcurrentHashMap<>();
+
+    public LineageCache(final int maxSize) {
+        this.entries = new LinkedHashMap<String, Reservation>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Reservation> eldest) {
+                if (size() > maxSize) {
+                    reservationsByUuid.remove(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param flowFileUuid the UUID of the FlowFile
+     * @param minEventId the smallest ID of any event that has not been aged off; the IDs of events that have been aged off are discarded
+     * @return the IDs of the events that are linked to the FlowFile, in ascending order, or <code>null</code> if they are not cached
+     */
+    public synchronized long[] getEventIds(final String flowFileUuid, final long minEventId) {
+        final Reservation reservation = entries.get(flowFileUuid);
+        if (reservation == null || !reservation.isComplete()) {
+            return null;
+        }
+
+        // Move the entry to the end of the iteration order, as it is now the most recently used
+        entries.remove(flowFileUuid);
+        entries.put(flowFileUuid, reservation);
+        return reservation.getEventIds(minEventId);
+    }
+
+    /**
+     * Reserves an entry for the given FlowFile, replacing any entry that is already cached for it. This must be called before the
+     * lineage index is searched for the FlowFile's events.
+     *
+     * @param flowFileUuid the UUID of the FlowFile
+     * @return the reservation, which must later be {@link #complete(String, Reservation, long[]) completed} or {@link #abandon(String, Reservation) abandoned}
+     */
+    public synchronized Reservation reserve(final String flowFileUuid) {
+        final Reservation reservation = new Reservation();
+        entries.remove(flowFileUuid);
+        reservationsByUuid.put(flowFileUuid, reservation);
+        entries.put(flowFileUuid, reservation);
+        return reservation;
+    }
+
+    /**
+     * Completes a reservation with the results of searching the lineage index. If the reservation has since been replaced or evicted,
+     * the results are not cached.
+     *
+     * @param flowFileUuid the UUID of the FlowFile
+     * @param reservation the reservation
+     * @param eventIds the IDs of the events that the search found
+     */
+    public synchronized void complete(final String flowFileUuid, final Reservation reservation, final long[] eventIds) {
+        if (entries.get(flowFileUuid) != reservation) {
+            return;
+        }
+
+        reservation.complete(eventIds);
+    }
+
+    public synchronized void abandon(final String flowFileUuid, final Reservation reservation) {
+        if (entries.remove(flowFileUuid, reservation)) {
+            reservationsByUuid.remove(flowFileUuid, reservation);
+        }
+    }
+
+    /**
+     * Appends the given events to the entries of the FlowFiles that they are linked to
+     *
+     * @param events the events that were added to the repository and where they were stored
+     */
+    public void eventsAdded(final Map<ProvenanceEventRecord, StorageSummary> events) {
+        if (reservationsByUuid.isEmpty()) {
+            return;
+        }
+
+        for (final Map.Entry<ProvenanceEventRecord, StorageSummary> entry : events.entrySet()) {
+            for (final String uuid : LineageUuids.getLinkedUuids(entry.getKey())) {
+                final Reservation reservation = reservationsByUuid.get(uuid);
+                if (reservation != null) {
+                    reservation.add(entry.getValue().getEventId());
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return reservationsByUuid.size();
+    }
+
+    /**
+     * An entry of the cache, which holds the IDs of the events that are linked to one FlowFile. Its state is guarded by synchronizing on it.
+     */
+    public static final class Reservation {
+        private long[] eventIds = new long[8];
+        private int size = 0;
+        private boolean complete = false;
+
+        private Reservation() {
+        }
+
+        private synchronized boolean isComplete() {
+            return complete;
+        }
+
+        private synchronized void complete(final long[] foundEventIds) {
+            for (final long eventId : foundEventIds) {
+                add(eventId);
+            }
+            complete = true;
+        }
+
+        private synchronized void add(final long eventId) {
+            if (size == eventIds.length) {
+                eventIds = Arrays.copyOf(eventIds, size * 2);
+            }
+            eventIds[size++] = eventId;
+        }
+
+        private synchronized long[] getEventIds(final long minEventId) {
+            // The same event may have been both found by the search and appended while the search was running
+            final long[] sorted = Arrays.copyOf(eventIds, size);
+            Arrays.sort(sorted);
+            final long[] retained = Arrays.stream(sorted).filter(eventId -> eventId >= minEventId).distinct().toArray();
+
+            // Keep only the events that remain, so that the entries of long-lived FlowFiles do not grow without bound
+            eventIds = retained.length == 0 ? new long[8] : retained.clone();
+            size = retained.length;
+            return retained;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.store.lineage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * The lineage index of an Event File: the edges between FlowFiles and the events in the file, as pairs of FlowFile UUID hash and
+ * Event ID, sorted by hash. Finding the events of a FlowFile is then a binary search rather than a query of the Lucene index.
+ * </p>
+ *
+ * <p>
+ * A Lineage Index File consists of a version and an entry count, followed by the hash of every entry and then the Event ID of every
+ * entry. The file is searched in place, by reading only the hashes that the binary search visits and the Event IDs that match, so
+ * only the index of the Event File that is currently being written to is held in memory.
+ * </p>
+ */
+public class LineageIndex {
+    static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+
+    private final long[] uuidHashes;
+    private final long[] eventIds;
+
+    LineageIndex(final long[] uuidHashes, final long[] eventIds) {
+        this.uuidHashes = uuidHashes;
+        this.eventIds = eventIds;
+    }
+
+    public int getEntryCount() {
+        return uuidHashes.length;
+    }
+
+    /**
+     * Finds the events that are linked to any of the given hashes
+     *
+     * @param hashes the hashes of the FlowFile UUIDs to search for
+     * @param handler the handler to notify of each match
+     */
+    public void search(final long[] hashes, final LineageMatchHandler handler) {
+        for (final long hash : hashes) {
+            for (int i = lowerBound(hash); i < uuidHashes.length && uuidHashes[i] == hash; i++) {
+                handler.onMatch(hash, eventIds[i]);
+            }
+        }
+    }
+
+    private int lowerBound(final long hash) {
+        int low = 0;
+        int high = uuidHashes.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (uuidHashes[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Writes the index to the given file in the format that is read by {@link #search(File, long[], LineageMatchHandler)}. The file is first
+     * written under a temporary name and then renamed, so that a Lineage Index File that exists is always complete.
+     *
+     * @param file the file to write to
+     * @throws IOException if unable to write the file
+     */
+    public void write(final File file) throws IOException {
+        final File directory = file.getParentFile();
+        if (!directory.exists()) {
+            Files.createDirectories(directory.toPath());
+        }
+
+        final File tempFile = new File(directory, file.getName() + ".tmp");
+        try (final OutputStream fos = new FileOutputStream(tempFile);
+             final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 65536))) {
+
+            out.writeInt(VERSION);
+            out.writeInt(uuidHashes.length);
+            for (final long uuidHash : uuidHashes) {
+                out.writeLong(uuidHash);
+            }
+            for (final long eventId : eventIds) {
+                out.writeLong(eventId);
+            }
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Finds the events that are linked to any of the given hashes in a Lineage Index File that was written by {@link #write(File)}
+     *
+     * @param file the Lineage Index File
+     * @param hashes the hashes of the FlowFile UUIDs to search for
+     * @param handler the handler to notify of each match
+     * @throws IOException if unable to read the file
+     */
+    public static void search(final File file, final long[] hashes, final LineageMatchHandler handler) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
+            read(channel, 0L, buffer);
+
+            final int version = buffer.getInt(0);
+            if (version != VERSION) {
+                throw new IOException("Cannot read Provenance Lineage Index File " + file + " because it was written using version " + version
+                    + " of the format, which is not supported");
+            }
+
+            final int entryCount = buffer.getInt(4);
+            final long eventIdsOffset = HEADER_LENGTH + 8L * entryCount;
+
+            for (final long hash : hashes) {
+                int low = 0;
+                int high = entryCount;
+                while (low < high) {
+                    final int mid = (low + high) >>> 1;
+                    if (readLong(channel, HEADER_LENGTH + 8L * mid, buffer) < hash) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+
+                for (int i = low; i < entryCount && readLong(channel, HEADER_LENGTH + 8L * i, buffer) == hash; i++) {
+                    handler.onMatch(hash, readLong(channel, eventIdsOffset + 8L * i, buffer));
+                }
+            }
+        }
+    }
+
+    private static long readLong(final FileChannel channel, final long position, final ByteBuffer buffer) throws IOException {
+        read(channel, position, buffer);
+        return buffer.getLong(0);
+    }
+
+    private static void read(final FileChannel channel, final long position, final ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            final int bytesRead = channel.read(buffer, position + buffer.position());
+            if (bytesRead < 0) {
+                throw new EOFException("Lineage Index File ended unexpectedly");
+            }
+        }
+    }
+}
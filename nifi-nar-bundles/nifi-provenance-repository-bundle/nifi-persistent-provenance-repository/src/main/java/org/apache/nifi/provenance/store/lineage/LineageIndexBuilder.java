@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.store.lineage;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.util.IndexSort;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates the lineage index of the events that are written to an Event File: one entry for each FlowFile UUID that each event
+ * is {@link LineageUuids#getLinkedUuids(ProvenanceEventRecord) linked} to.
+ */
+public class LineageIndexBuilder {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] uuidHashes = new long[INITIAL_CAPACITY];
+    private long[] eventIds = new long[INITIAL_CAPACITY];
+    private int size = 0;
+
+    public synchronized void add(final long eventId, final ProvenanceEventRecord event) {
+        for (final String uuid : LineageUuids.getLinkedUuids(event)) {
+            if (size == uuidHashes.length) {
+                final int capacity = size * 2;
+                uuidHashes = Arrays.copyOf(uuidHashes, capacity);
+                eventIds = Arrays.copyOf(eventIds, capacity);
+            }
+
+            uuidHashes[size] = LineageUuids.hash(uuid);
+            eventIds[size] = eventId;
+            size++;
+        }
+    }
+
+    /**
+     * @return the number of entries, which is at least the number of events added
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Finds the events that are linked to any of the given hashes by scanning the entries in the order that they were added, so that
+     * the index of the Active Event File can be searched without sorting it. Entries are only ever appended, and a full array is
+     * replaced rather than modified, so the monitor of this builder is held only to read the arrays and the number of entries.
+     *
+     * @param hashes the hashes of the FlowFile UUIDs to search for
+     * @param handler the handler to notify of each match
+     */
+    public void search(final long[] hashes, final LineageMatchHandler handler) {
+        final long[] addedHashes;
+        final long[] addedIds;
+        final int entryCount;
+        synchronized (this) {
+            addedHashes = uuidHashes;
+            addedIds = eventIds;
+            entryCount = size;
+        }
+
+        final long[] sortedHashes = hashes.clone();
+        Arrays.sort(sortedHashes);
+        for (int i = 0; i < entryCount; i++) {
+            if (Arrays.binarySearch(sortedHashes, addedHashes[i]) >= 0) {
+                handler.onMatch(addedHashes[i], addedIds[i]);
+            }
+        }
+    }
+
+    public LineageIndex build() {
+        final long[] addedHashes;
+        final long[] addedIds;
+        synchronized (this) {
+            addedHashes = Arrays.copyOf(uuidHashes, size);
+            addedIds = Arrays.copyOf(eventIds, size);
+        }
+
+        final int[] order = IndexSort.sortedOrder(addedHashes.length, (a, b) -> {
+            final int hashComparison = Long.compare(addedHashes[a], addedHashes[b]);
+            return hashComparison == 0 ? Long.compare(addedIds[a], addedIds[b]) : hashComparison;
+        });
+
+        final long[] sortedHashes = new long[order.length];
+        final long[] sortedIds = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedHashes[i] = addedHashes[order[i]];
+            sortedIds[i] = addedIds[order[i]];
+        }
+
+        return new LineageIndex(sortedHashes, sortedIds);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.store.lineage;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.lucene.LuceneUtil;
+import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.store.RecordReaderFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Manages the Lineage Index Files of the Event Files in one partition of the Provenance Repository. Each Event File's Lineage Index
+ * File is kept in a <code>lineage</code> directory alongside the Event File, in the same way as its Table of Contents.
+ */
+public class LineageIndexStore {
+
+    /**
+     * Returns the Lineage Index File for the given Event File. Note that the file that is returned may not exist.
+     *
+     * @param eventFile the Event File
+     * @return the Lineage Index File for the given Event File
+     */
+    public static File getLineageFile(final File eventFile) {
+        final File lineageDir = new File(eventFile.getParentFile(), "lineage");
+        final String basename = LuceneUtil.substringBefore(eventFile.getName(), ".prov");
+        return new File(lineageDir, basename + ".lin");
+    }
+
+    public boolean hasIndex(final File eventFile) {
+        return getLineageFile(eventFile).exists();
+    }
+
+    /**
+     * Finds the events in the given Event File that are linked to any of the given hashes
+     *
+     * @param eventFile the Event File
+     * @param hashes the hashes of the FlowFile UUIDs to search for
+     * @param handler the handler to notify of each match
+     * @return <code>false</code> if the Event File has no Lineage Index File, <code>true</code> otherwise
+     * @throws IOException if unable to read the Lineage Index File
+     */
+    public boolean search(final File eventFile, final long[] hashes, final LineageMatchHandler handler) throws IOException {
+        final File file = getLineageFile(eventFile);
+        if (!file.exists()) {
+            return false;
+        }
+
+        LineageIndex.search(file, hashes, handler);
+        return true;
+    }
+
+    public void write(final File eventFile, final LineageIndex index) throws IOException {
+        index.write(getLineageFile(eventFile));
+    }
+
+    /**
+     * Creates the Lineage Index File for the given Event File by reading all of its events
+     *
+     * @param eventFile the Event File
+     * @param recordReaderFactory the factory to create a reader for the Event File
+     * @return the number of entries in the Lineage Index File
+     * @throws IOException if unable to read the Event File or write the Lineage Index File
+     */
+    public int rebuild(final File eventFile, final RecordReaderFactory recordReaderFactory) throws IOException {
+        final LineageIndexBuilder builder = new LineageIndexBuilder();
+
+        try (final RecordReader reader = recordReaderFactory.newRecordReader(eventFile, Collections.emptyList(), 36)) {
+            ProvenanceEventRecord event;
+            while ((event = reader.nextRecord()) != null) {
+                builder.add(event.getEventId(), event);
+            }
+        }
+
+        write(eventFile, builder.build());
+        return builder.size();
+    }
+
+    /**
+     * Deletes the Lineage Index File for the given Event File
+     *
+     * @param eventFile the Event File
+     * @return <code>false</code> if the Lineage Index File exists and could not be deleted, <code>true</code> otherwise
+     */
+    public boolean delete(final File eventFile) {
+        final File file = getLineageFile(eventFile);
+        return !file.exists() || file.delete();
+    }
+}
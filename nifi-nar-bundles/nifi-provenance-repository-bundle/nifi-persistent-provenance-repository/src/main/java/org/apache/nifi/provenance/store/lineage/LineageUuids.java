@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.store.lineage;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Determines which FlowFiles an event belongs to for the purpose of computing lineage. These are the same FlowFile UUIDs that the
+ * Lucene index stores in the FlowFile UUID field of the event's document: the UUID of the FlowFile that the event is about, the
+ * children of a FORK, CLONE or REPLAY event, the parents of a JOIN event, and the UUID that the source system used for a RECEIVE event.
+ */
+public final class LineageUuids {
+
+    private LineageUuids() {
+    }
+
+    /**
+     * @param event the event
+     * @return the UUIDs of the FlowFiles whose lineage includes the given event
+     */
+    public static Set<String> getLinkedUuids(final ProvenanceEventRecord event) {
+        final Set<String> uuids = new LinkedHashSet<>();
+        if (event.getFlowFileUuid() != null) {
+            uuids.add(event.getFlowFileUuid());
+        }
+
+        final ProvenanceEventType eventType = event.getEventType();
+        if (eventType == ProvenanceEventType.FORK || eventType == ProvenanceEventType.CLONE || eventType == ProvenanceEventType.REPLAY) {
+            uuids.addAll(event.getChildUuids());
+        } else if (eventType == ProvenanceEventType.JOIN) {
+            uuids.addAll(event.getParentUuids());
+        } else if (eventType == ProvenanceEventType.RECEIVE && event.getSourceSystemFlowFileIdentifier() != null) {
+            final String sourceIdentifier = event.getSourceSystemFlowFileIdentifier();
+            final int lastColon = sourceIdentifier.lastIndexOf(":");
+            if (lastColon > -1 && lastColon < sourceIdentifier.length() - 2) {
+                uuids.add(sourceIdentifier.substring(lastColon + 1));
+            }
+        }
+
+        return uuids;
+    }
+
+    /**
+     * Returns a 64-bit hash of the given FlowFile UUID. The lineage index stores these hashes rather than the UUIDs themselves, so an
+     * event that is found by hash may, very rarely, not actually be linked to the FlowFile; callers must check the event itself.
+     *
+     * @param uuid the FlowFile UUID
+     * @return the hash of the UUID
+     */
+    public static long hash(final String uuid) {
+        // FNV-1a, followed by the MurmurHash3 finalizer to spread the bits of the similar UUIDs that a node generates
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < uuid.length(); i++) {
+            hash ^= uuid.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
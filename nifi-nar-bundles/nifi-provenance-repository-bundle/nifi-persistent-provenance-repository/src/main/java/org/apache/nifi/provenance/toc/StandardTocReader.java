@@ -30,14 +30,15 @@ import java.io.IOException;
  * Expects .toc file to be in the following format;
  *
  * byte 0: version
- * byte 1: boolean: compressionFlag -> 0 = journal is NOT compressed, 1 = journal is compressed
+ * byte 1: compression codec id -> 0 = journal is NOT compressed, otherwise the id of the BlockCodec that the journal is compressed with
+ *         (1 = GZIP, 2 = DEFLATE, 3 = HUFFMAN, 4 = LZ4). Versions before the codec became configurable only wrote 0 or 1.
  * byte 2-9: long: offset of block 0
  * byte 10-17: long: offset of block 1
  * ...
  * byte (N*8+2)-(N*8+9): long: offset of block N
  */
 public class StandardTocReader implements TocReader {
-    private final boolean compressed;
+    private final int compressionCodecId;
     private final long[] offsets;
     private final long[] firstEventIds;
     private final File file;
@@ -60,14 +61,13 @@ public class StandardTocReader implements TocReader {
             final int version = buffer[0];
             final int compressionFlag = buffer[1];
 
-            if ( compressionFlag == 0 ) {
-                compressed = false;
-            } else if ( compressionFlag == 1 ) {
-                compressed = true;
-            } else {
+            // The compression flag was originally only 0 or 1, for uncompressed and GZIP-compressed Journals. It now identifies the codec
+            // that the Journal is compressed with, and GZIP was assigned the identifier 1 so that older TOC files are read the same way.
+            if ( compressionFlag < 0 ) {
                 throw new IOException("Table of Contents file " + file + " appears to be corrupt: could not read 'compression flag' from header; "
-                    + "expected value of 0 or 1 but got " + compressionFlag);
+                    + "expected a non-negative value but got " + compressionFlag);
             }
+            compressionCodecId = compressionFlag;
 
             final int blockInfoBytes;
             switch (version) {
@@ -115,7 +115,12 @@ public class StandardTocReader implements TocReader {
 
     @Override
     public boolean isCompressed() {
-        return compressed;
+        return compressionCodecId != 0;
+    }
+
+    @Override
+    public int getCompressionCodecId() {
+        return compressionCodecId;
     }
 
     @Override
@@ -191,6 +196,6 @@ public class StandardTocReader implements TocReader {
 
     @Override
     public String toString() {
-        return "StandardTocReader[file=" + file + ", compressed=" + compressed + "]";
+        return "StandardTocReader[file=" + file + ", compressed=" + isCompressed() + "]";
     }
 }
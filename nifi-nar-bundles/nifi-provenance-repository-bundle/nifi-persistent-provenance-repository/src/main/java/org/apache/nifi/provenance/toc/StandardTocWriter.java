@@ -23,6 +23,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 
+import org.apache.nifi.provenance.serialization.BlockCodec;
+import org.apache.nifi.provenance.serialization.BlockCodecs;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +56,16 @@ public class StandardTocWriter implements TocWriter {
      * @throws IOException if unable to write header info to the specified file
      */
     public StandardTocWriter(final File file, final boolean compressionFlag, final boolean alwaysSync) throws IOException {
+        this(file, compressionFlag ? BlockCodecs.GZIP : null, alwaysSync);
+    }
+
+    /**
+     * Creates a StandardTocWriter that writes to the given file.
+     * @param file the file to write to
+     * @param codec the codec that the journal's blocks are compressed with, or <code>null</code> if the journal is not compressed
+     * @throws IOException if unable to write header info to the specified file
+     */
+    public StandardTocWriter(final File file, final BlockCodec codec, final boolean alwaysSync) throws IOException {
         final File tocDir = file.getParentFile();
         if ( !tocDir.exists() ) {
             Files.createDirectories(tocDir.toPath());
@@ -65,7 +77,7 @@ public class StandardTocWriter implements TocWriter {
 
         final byte[] header = new byte[2];
         header[0] = VERSION;
-        header[1] = (byte) (compressionFlag ? 1 : 0);
+        header[1] = (byte) (codec == null ? 0 : codec.getId());
         fos.write(header);
         fos.flush();
 
@@ -37,6 +37,15 @@ public interface TocReader extends Closeable {
      */
     boolean isCompressed();
 
+    /**
+     * Returns the identifier of the codec that the blocks of the corresponding Journal file are compressed with. Tables of Contents that
+     * were written before the codec became configurable record only whether or not the Journal is compressed, in which case this method
+     * returns <code>1</code> for a compressed Journal, which is the identifier of the GZIP codec.
+     *
+     * @return the identifier of the codec that the Journal is compressed with, or <code>0</code> if the Journal is not compressed
+     */
+    int getCompressionCodecId();
+
     /**
      * @return the file that holds the TOC information
      */
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.util;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Sorts the indexes of parallel primitive arrays, so that the arrays can be put in order without boxing each index
+ */
+public class IndexSort {
+
+    /**
+     * Returns the indexes <code>0</code> through <code>size - 1</code>, ordered by the given comparator. The sort is a stable merge sort.
+     *
+     * @param size the number of indexes to sort
+     * @param comparator compares the elements at two indexes
+     * @return the sorted indexes
+     */
+    public static int[] sortedOrder(final int size, final IntBinaryOperator comparator) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                final int mid = Math.min(low + width, size);
+                final int high = Math.min(low + 2 * width, size);
+
+                int left = low;
+                int right = mid;
+                for (int i = low; i < high; i++) {
+                    if (left < mid && (right >= high || comparator.applyAsInt(order[left], order[right]) <= 0)) {
+                        buffer[i] = order[left++];
+                    } else {
+                        buffer[i] = order[right++];
+                    }
+                }
+            }
+
+            final int[] sorted = buffer;
+            buffer = order;
+            order = sorted;
+        }
+
+        return order;
+    }
+}
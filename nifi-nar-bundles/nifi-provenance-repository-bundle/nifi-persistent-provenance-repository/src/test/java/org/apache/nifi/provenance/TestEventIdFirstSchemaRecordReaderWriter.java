@@ -17,7 +17,10 @@
 
 package org.apache.nifi.provenance;
 
+import org.apache.nifi.provenance.serialization.BlockCodec;
+import org.apache.nifi.provenance.serialization.BlockCodecs;
 import org.apache.nifi.provenance.serialization.RecordReader;
+import org.apache.nifi.provenance.serialization.RecordReaders;
 import org.apache.nifi.provenance.serialization.RecordWriter;
 import org.apache.nifi.provenance.toc.StandardTocReader;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
@@ -33,10 +36,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
@@ -45,6 +50,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestEventIdFirstSchemaRecordReaderWriter extends AbstractTestRecordReaderWriter {
     private final AtomicLong idGenerator = new AtomicLong(0L);
@@ -406,6 +412,50 @@ public class TestEventIdFirstSchemaRecordReaderWriter extends AbstractTestRecord
         FileUtils.deleteFile(journalFile.getParentFile(), true);
     }
 
+    @Test
+    public void testBlockCodecs() throws IOException {
+        for (final BlockCodec codec : BlockCodecs.getCodecs()) {
+            final File compressedJournalFile = new File("target/storage/" + UUID.randomUUID() + "/testBlockCodecs.prov.gz");
+            final File compressedTocFile = TocUtil.getTocFile(compressedJournalFile);
+            final TocWriter tocWriter = new StandardTocWriter(compressedTocFile, codec, false);
+
+            final int numEvents = 10;
+            final List<ProvenanceEventRecord> events = new ArrayList<>();
+            try (final RecordWriter writer = new EventIdFirstSchemaRecordWriter(compressedJournalFile, idGenerator, tocWriter, codec, 100, IdentifierLookup.EMPTY)) {
+                writer.writeHeader(0L);
+                for (int i = 0; i < numEvents; i++) {
+                    final ProvenanceEventRecord event = createEvent();
+                    events.add(event);
+                    writer.writeRecords(Collections.singletonList(event));
+                }
+            }
+
+            try (final RecordReader reader = RecordReaders.newRecordReader(compressedJournalFile, null, 2048)) {
+                assertEquals(codec.getId(), reader.getTocReader().getCompressionCodecId());
+                assertTrue(reader.getTocReader().getBlockOffset(1) > 0);
+
+                for (int i = 0; i < numEvents; i++) {
+                    final StandardProvenanceEventRecord recovered = reader.nextRecord();
+                    assertNotNull(recovered, "Failed to read event " + i + " using codec " + codec);
+                    assertEquals(i, recovered.getEventId());
+                    assertEquals(events.get(i).getUpdatedAttributes(), recovered.getUpdatedAttributes());
+                }
+
+                assertNull(reader.nextRecord());
+            }
+
+            try (final RecordReader reader = RecordReaders.newRecordReader(compressedJournalFile, null, 2048)) {
+                final Optional<ProvenanceEventRecord> eventOption = reader.skipToEvent(8);
+                assertTrue(eventOption.isPresent());
+                assertEquals(8, eventOption.get().getEventId());
+                assertEquals(events.get(8).getUpdatedAttributes(), eventOption.get().getUpdatedAttributes());
+            }
+
+            FileUtils.deleteFile(compressedJournalFile.getParentFile(), true);
+            idGenerator.set(0L);
+        }
+    }
+
     @Override
     protected RecordWriter createWriter(final File file, final TocWriter tocWriter, final boolean compressed, final int uncompressedBlockSize) throws IOException {
         return new EventIdFirstSchemaRecordWriter(file, idGenerator, tocWriter, compressed, uncompressedBlockSize, IdentifierLookup.EMPTY);
@@ -38,6 +38,7 @@ import org.apache.nifi.provenance.search.SearchTerms;
 import org.apache.nifi.provenance.search.SearchableField;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.ArrayListEventStore;
+import org.apache.nifi.provenance.store.EventIdSearchResult;
 import org.apache.nifi.provenance.store.EventStore;
 import org.apache.nifi.provenance.store.StorageResult;
 import org.apache.nifi.util.Tuple;
@@ -52,14 +53,18 @@ import org.mockito.stubbing.Answer;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -237,6 +242,64 @@ public class TestLuceneEventIndex {
         assertEquals("4444", eventMap.get(ProvenanceEventType.UNKNOWN).get(0).getFlowFileUuid());
     }
 
+    @Test
+    public void testLineageFromEventStoreSearch() throws InterruptedException {
+        final RepositoryConfiguration repoConfig = createConfig(1);
+        final IndexManager indexManager = new StandardIndexManager(repoConfig);
+
+        // The Event Store finds the events by a hash of the FlowFile UUID, so it may return events of other FlowFiles
+        final AtomicReference<String> searchThreadName = new AtomicReference<>();
+        final ArrayListEventStore eventStore = new ArrayListEventStore() {
+            @Override
+            public Optional<EventIdSearchResult> searchLineage(final Collection<String> flowFileUuids, final int maxResults) {
+                searchThreadName.set(Thread.currentThread().getName());
+                return Optional.of(new EventIdSearchResult(Arrays.asList(3L, 2L, 1L, 0L), 4L));
+            }
+        };
+
+        final LuceneEventIndex index = new LuceneEventIndex(repoConfig, indexManager, 3, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        final ProvenanceEventRecord fork = new StandardProvenanceEventRecord.Builder()
+                .fromEvent(createEvent("4444"))
+                .setEventType(ProvenanceEventType.FORK)
+                .setEventId(idGenerator.getAndIncrement())
+                .setChildUuids(Collections.singletonList("1234"))
+                .build();
+
+        // None of the events are added to the index, so the lineage can only have come from the Event Store
+        eventStore.addEvent(createEvent("1234"));
+        eventStore.addEvent(createEvent("5678"));
+        eventStore.addEvent(fork);
+        eventStore.addEvent(createEvent("1234"));
+
+        final EventAuthorizer denyForkEvents = new EventAuthorizer() {
+            @Override
+            public boolean isAuthorized(ProvenanceEventRecord event) {
+                return event.getEventType() != ProvenanceEventType.FORK;
+            }
+
+            @Override
+            public void authorize(ProvenanceEventRecord event) throws AccessDeniedException {
+            }
+        };
+
+        final ComputeLineageSubmission submission = index.submitLineageComputation("1234", createUser(), denyForkEvents);
+        assertTrue(submission.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+
+        final Map<ProvenanceEventType, List<LineageNode>> eventMap = submission.getResult().getNodes().stream()
+                .filter(n -> n.getNodeType() == LineageNodeType.PROVENANCE_EVENT_NODE)
+                .collect(Collectors.groupingBy(n -> ((ProvenanceEventLineageNode) n).getEventType()));
+
+        assertEquals(2, eventMap.size());
+        assertEquals(2, eventMap.get(ProvenanceEventType.CONTENT_MODIFIED).size());
+        eventMap.get(ProvenanceEventType.CONTENT_MODIFIED).forEach(node -> assertEquals("1234", node.getFlowFileUuid()));
+        assertEquals(1, eventMap.get(ProvenanceEventType.UNKNOWN).size());
+
+        // The Event Store is searched by the query threads rather than by the thread that submitted the computation
+        assertTrue(searchThreadName.get().startsWith("Provenance Query"));
+    }
+
     @Test
     public void testUnauthorizedEventsGetFilteredForQuery() throws InterruptedException {
         final RepositoryConfiguration repoConfig = createConfig(1);
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.ingest;
+
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Timeout(10)
+public class TestEventIngester {
+
+    @Test
+    public void testEventsWrittenInBatches() throws InterruptedException {
+        final List<ProvenanceEventRecord> written = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        final EventIngester ingester = new EventIngester(100, 25, 2, OverflowPolicy.BLOCK, batch -> {
+            batchSizes.add(batch.size());
+            written.addAll(batch);
+        }, EventReporter.NO_OP, "Unit Test");
+
+        final List<ProvenanceEventRecord> events = createEvents(5000);
+        for (int i = 0; i < events.size(); i += 10) {
+            assertTrue(ingester.register(events.subList(i, i + 10)));
+        }
+
+        // The events of a single registration are larger than a batch but are still written together
+        final List<ProvenanceEventRecord> largeRegistration = createEvents(60);
+        assertTrue(ingester.register(largeRegistration));
+
+        assertTrue(ingester.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(5060, written.size());
+        assertTrue(written.containsAll(events));
+        assertTrue(batchSizes.contains(60));
+        batchSizes.stream().filter(size -> size != 60).forEach(size -> {
+            assertTrue(size <= 25);
+            assertEquals(0, size % 10);
+        });
+
+        final int largeRegistrationStart = written.indexOf(largeRegistration.get(0));
+        assertEquals(largeRegistration, written.subList(largeRegistrationStart, largeRegistrationStart + 60));
+
+        assertEquals(0L, ingester.getDroppedEventCount());
+        assertEquals(0L, ingester.getSampledOutEventCount());
+        assertEquals(0, ingester.getQueueDepth());
+
+        // Once shut down, the caller must write the events itself
+        assertFalse(ingester.register(createEvents(1)));
+    }
+
+    @Test
+    public void testBlockPolicy() throws InterruptedException {
+        final BlockedWriter writer = new BlockedWriter();
+        final EventIngester ingester = fillBuffer(writer, OverflowPolicy.BLOCK);
+
+        final Thread registerThread = new Thread(() -> ingester.register(createEvents(1)));
+        registerThread.start();
+        registerThread.join(100L);
+        assertTrue(registerThread.isAlive());
+
+        writer.release();
+        registerThread.join();
+        assertTrue(ingester.shutdown(5, TimeUnit.SECONDS));
+
+        assertEquals(12, writer.getWrittenCount());
+        assertEquals(0L, ingester.getDroppedEventCount());
+    }
+
+    @Test
+    public void testShutdownWaitsForRegistrationInProgress() throws InterruptedException {
+        final BlockedWriter writer = new BlockedWriter();
+        final EventIngester ingester = fillBuffer(writer, OverflowPolicy.BLOCK);
+
+        final AtomicBoolean registered = new AtomicBoolean(false);
+        final Thread registerThread = new Thread(() -> registered.set(ingester.register(createEvents(1))));
+        registerThread.start();
+        registerThread.join(100L);
+        assertTrue(registerThread.isAlive());
+
+        // The registration has already begun, so its events must be written even though shutdown begins before they are buffered
+        final AtomicBoolean shutdown = new AtomicBoolean(false);
+        final Thread shutdownThread = new Thread(() -> {
+            try {
+                shutdown.set(ingester.shutdown(5, TimeUnit.SECONDS));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        shutdownThread.start();
+        shutdownThread.join(100L);
+        assertTrue(shutdownThread.isAlive());
+
+        writer.release();
+        registerThread.join();
+        shutdownThread.join();
+
+        assertTrue(registered.get());
+        assertTrue(shutdown.get());
+        assertEquals(12, writer.getWrittenCount());
+        assertFalse(ingester.register(createEvents(1)));
+    }
+
+    @Test
+    public void testInterruptedRegistrationCountedAsDropped() throws InterruptedException {
+        final BlockedWriter writer = new BlockedWriter();
+        final EventIngester ingester = fillBuffer(writer, OverflowPolicy.BLOCK);
+
+        Thread.currentThread().interrupt();
+        assertTrue(ingester.register(createEvents(5)));
+        assertTrue(Thread.interrupted());
+        assertEquals(5L, ingester.getDroppedEventCount());
+
+        writer.release();
+        assertTrue(ingester.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(11, writer.getWrittenCount());
+    }
+
+    @Test
+    public void testDropPolicy() throws InterruptedException {
+        final BlockedWriter writer = new BlockedWriter();
+        final EventIngester ingester = fillBuffer(writer, OverflowPolicy.DROP);
+
+        ingester.register(createEvents(100));
+        assertEquals(100L, ingester.getDroppedEventCount());
+        assertEquals(10, ingester.getQueueDepth());
+
+        final Map<String, Long> statistics = ingester.getStatistics();
+        assertEquals(Long.valueOf(10L), statistics.get("Buffered Events"));
+        assertEquals(Long.valueOf(100L), statistics.get("Events Dropped"));
+        assertEquals(Long.valueOf(0L), statistics.get("Events Sampled Out"));
+        assertEquals(Long.valueOf(0L), statistics.get("Average Batch Write Millis"));
+        assertEquals(Long.valueOf(0L), statistics.get("Max Batch Write Millis"));
+
+        writer.release();
+        assertTrue(ingester.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(11, writer.getWrittenCount());
+    }
+
+    @Test
+    public void testSamplePolicy() throws InterruptedException {
+        final BlockedWriter writer = new BlockedWriter();
+        final EventIngester ingester = fillBuffer(writer, OverflowPolicy.SAMPLE);
+
+        // Events are sampled per registration, so all of the events of a registration are discarded together
+        ingester.register(createEvents(5));
+        for (int i = 0; i < EventIngester.SAMPLE_RATE - 2; i++) {
+            ingester.register(createEvents(1));
+        }
+        assertEquals(EventIngester.SAMPLE_RATE + 3, ingester.getSampledOutEventCount());
+
+        // The next registration that finds the buffer full is kept, so its thread must wait for room
+        final Thread registerThread = new Thread(() -> ingester.register(createEvents(1)));
+        registerThread.start();
+        registerThread.join(100L);
+        assertTrue(registerThread.isAlive());
+
+        writer.release();
+        registerThread.join();
+        assertTrue(ingester.shutdown(5, TimeUnit.SECONDS));
+
+        assertEquals(12, writer.getWrittenCount());
+        assertEquals(EventIngester.SAMPLE_RATE + 3, ingester.getSampledOutEventCount());
+        assertEquals(0L, ingester.getDroppedEventCount());
+    }
+
+    /**
+     * Creates an ingester whose buffer holds 10 events and whose single writer thread has taken 1 event and is blocked writing it,
+     * then fills the buffer
+     */
+    private EventIngester fillBuffer(final BlockedWriter writer, final OverflowPolicy overflowPolicy) throws InterruptedException {
+        final EventIngester ingester = new EventIngester(10, 10, 1, overflowPolicy, writer, EventReporter.NO_OP, "Unit Test");
+        ingester.register(createEvents(1));
+        writer.awaitWriting();
+
+        ingester.register(createEvents(10));
+        assertEquals(10, ingester.getQueueDepth());
+        return ingester;
+    }
+
+    private List<ProvenanceEventRecord> createEvents(final int count) {
+        final List<ProvenanceEventRecord> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new StandardProvenanceEventRecord.Builder()
+                .setEventType(ProvenanceEventType.CREATE)
+                .setComponentId("component-1")
+                .setComponentType("unit test")
+                .setEventTime(System.currentTimeMillis())
+                .setFlowFileEntryDate(System.currentTimeMillis())
+                .setLineageStartDate(System.currentTimeMillis())
+                .setFlowFileUUID(UUID.randomUUID().toString())
+                .setAttributes(Collections.emptyMap(), Collections.emptyMap())
+                .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+                .build());
+        }
+
+        return events;
+    }
+
+    private static class BlockedWriter implements Consumer<List<ProvenanceEventRecord>> {
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private int writtenCount = 0;
+
+        @Override
+        public void accept(final List<ProvenanceEventRecord> batch) {
+            writing.countDown();
+            try {
+                released.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            synchronized (this) {
+                writtenCount += batch.size();
+            }
+        }
+
+        void awaitWriting() throws InterruptedException {
+            writing.await();
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        synchronized int getWrittenCount() {
+            return writtenCount;
+        }
+    }
+}
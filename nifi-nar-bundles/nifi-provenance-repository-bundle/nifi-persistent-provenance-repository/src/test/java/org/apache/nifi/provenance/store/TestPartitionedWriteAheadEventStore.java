@@ -24,9 +24,12 @@ import org.apache.nifi.provenance.IdentifierLookup;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.ProvenanceEventType;
 import org.apache.nifi.provenance.RepositoryConfiguration;
+import org.apache.nifi.provenance.SearchableFields;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.EventTransformer;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.SearchTerms;
 import org.apache.nifi.provenance.serialization.RecordReaders;
 import org.apache.nifi.provenance.serialization.RecordWriters;
 import org.apache.nifi.provenance.serialization.StorageSummary;
@@ -453,6 +456,171 @@ public class TestPartitionedWriteAheadEventStore {
     }
 
 
+    @Test
+    public void testSearchEventIdsWithColumnarIndex() throws IOException {
+        final RepositoryConfiguration config = createConfig();
+        config.setMaxEventFileCount(100);
+        config.setColumnarIndexEnabled(true);
+
+        final PartitionedWriteAheadEventStore store = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        store.initialize();
+
+        for (int i = 0; i < 1000; i++) {
+            final ProvenanceEventRecord event = new StandardProvenanceEventRecord.Builder()
+                .fromEvent(createEvent())
+                .setComponentId(i % 2 == 0 ? "component-1" : "component-2")
+                .build();
+            store.addEvents(Collections.singleton(event));
+        }
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-2", null));
+        query.setMaxResults(10);
+
+        final Optional<EventIdSearchResult> result = store.searchEventIds(query);
+        assertTrue(result.isPresent());
+        assertEquals(500L, result.get().getTotalHitCount());
+
+        // The ID's of the 10 latest events for component-2, newest first
+        final List<Long> eventIds = result.get().getEventIds();
+        assertEquals(10, eventIds.size());
+        long previousEventId = Long.MAX_VALUE;
+        for (final long eventId : eventIds) {
+            assertTrue(eventId < previousEventId);
+            previousEventId = eventId;
+        }
+
+        final List<ProvenanceEventRecord> events = store.getEvents(eventIds, EventAuthorizer.GRANT_ALL, EventTransformer.EMPTY_TRANSFORMER);
+        assertEquals(10, events.size());
+        events.forEach(event -> assertEquals("component-2", event.getComponentId()));
+        assertEquals(store.getMaxEventId(), (long) eventIds.get(0));
+
+        // Queries on other fields must be answered by the Event Index
+        final Query uuidQuery = new Query(UUID.randomUUID().toString());
+        uuidQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.FlowFileUUID, events.get(0).getFlowFileUuid(), null));
+        assertFalse(store.searchEventIds(uuidQuery).isPresent());
+    }
+
+    @Test
+    public void testSearchEventIdsRebuildsMissingColumns() throws Exception {
+        final RepositoryConfiguration config = createConfig(1);
+        config.setMaxEventFileCount(100);
+
+        final PartitionedWriteAheadEventStore store = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        store.initialize();
+        for (int i = 0; i < 350; i++) {
+            store.addEvents(Collections.singleton(createEvent()));
+        }
+        store.close();
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-1", null));
+        assertFalse(store.searchEventIds(query).isPresent());
+
+        // Enabling the Columnar Index should build the columns of the existing Event Files in the background
+        config.setColumnarIndexEnabled(true);
+        final PartitionedWriteAheadEventStore recoveredStore = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        recoveredStore.initialize();
+        recoveredStore.addEvents(Collections.singleton(createEvent()));
+
+        Optional<EventIdSearchResult> result = recoveredStore.searchEventIds(query);
+        for (int i = 0; i < 100 && !result.isPresent(); i++) {
+            Thread.sleep(100L);
+            result = recoveredStore.searchEventIds(query);
+        }
+
+        assertTrue(result.isPresent());
+        assertEquals(351L, result.get().getTotalHitCount());
+        recoveredStore.close();
+    }
+
+    @Test
+    public void testSearchLineageWithLineageIndex() throws IOException {
+        final RepositoryConfiguration config = createConfig();
+        config.setMaxEventFileCount(100);
+        config.setLineageIndexEnabled(true);
+
+        final PartitionedWriteAheadEventStore store = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        store.initialize();
+
+        final List<String> childUuids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            childUuids.add(UUID.randomUUID().toString());
+        }
+
+        final ProvenanceEventRecord parent = createEvent();
+        final ProvenanceEventRecord fork = new StandardProvenanceEventRecord.Builder()
+            .fromEvent(parent)
+            .setEventType(ProvenanceEventType.FORK)
+            .setChildUuids(childUuids)
+            .build();
+
+        store.addEvents(Collections.singleton(parent));
+        store.addEvents(Collections.singleton(fork));
+        for (final String childUuid : childUuids) {
+            store.addEvents(Collections.singleton(createEvent(childUuid)));
+            store.addEvents(Collections.singleton(createEvent()));
+            store.addEvents(Collections.singleton(createEvent(childUuid)));
+        }
+
+        // The parent's own event and the FORK event
+        final Optional<EventIdSearchResult> parentResult = store.searchLineage(Collections.singleton(parent.getFlowFileUuid()), 1000);
+        assertTrue(parentResult.isPresent());
+        assertEquals(2L, parentResult.get().getTotalHitCount());
+
+        // The FORK event and the child's own events, which are spread across several Event Files
+        final String childUuid = childUuids.get(0);
+        final Optional<EventIdSearchResult> childResult = store.searchLineage(Collections.singleton(childUuid), 1000);
+        assertTrue(childResult.isPresent());
+        assertEquals(3L, childResult.get().getTotalHitCount());
+
+        final List<ProvenanceEventRecord> events = store.getEvents(childResult.get().getEventIds(), EventAuthorizer.GRANT_ALL, EventTransformer.EMPTY_TRANSFORMER);
+        assertEquals(3, events.size());
+        assertEquals(1L, events.stream().filter(event -> event.getEventType() == ProvenanceEventType.FORK).count());
+        assertEquals(2L, events.stream().filter(event -> event.getFlowFileUuid().equals(childUuid)).count());
+
+        // Events that are added after the lineage was cached must be added to the cached lineage
+        store.addEvents(Collections.singleton(createEvent(childUuid)));
+        final Optional<EventIdSearchResult> updatedResult = store.searchLineage(Arrays.asList(childUuid, childUuids.get(1)), 1000);
+        assertTrue(updatedResult.isPresent());
+        assertEquals(6L, updatedResult.get().getTotalHitCount());
+        assertEquals(store.getMaxEventId(), (long) updatedResult.get().getEventIds().get(0));
+
+        store.close();
+    }
+
+    @Test
+    public void testSearchLineageRebuildsMissingLineageIndex() throws Exception {
+        final RepositoryConfiguration config = createConfig(1);
+        config.setMaxEventFileCount(100);
+
+        final PartitionedWriteAheadEventStore store = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        store.initialize();
+        final String uuid = UUID.randomUUID().toString();
+        for (int i = 0; i < 350; i++) {
+            store.addEvents(Collections.singleton(i % 50 == 0 ? createEvent(uuid) : createEvent()));
+        }
+        store.close();
+
+        assertFalse(store.searchLineage(Collections.singleton(uuid), 1000).isPresent());
+
+        // Enabling the Lineage Index should build the lineage index of the existing Event Files in the background
+        config.setLineageIndexEnabled(true);
+        final PartitionedWriteAheadEventStore recoveredStore = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        recoveredStore.initialize();
+        recoveredStore.addEvents(Collections.singleton(createEvent(uuid)));
+
+        Optional<EventIdSearchResult> result = recoveredStore.searchLineage(Collections.singleton(uuid), 1000);
+        for (int i = 0; i < 100 && !result.isPresent(); i++) {
+            Thread.sleep(100L);
+            result = recoveredStore.searchLineage(Collections.singleton(uuid), 1000);
+        }
+
+        assertTrue(result.isPresent());
+        assertEquals(8L, result.get().getTotalHitCount());
+        recoveredStore.close();
+    }
+
     private RepositoryConfiguration createConfig() {
         return createConfig(2);
     }
@@ -478,7 +646,10 @@ public class TestPartitionedWriteAheadEventStore {
 
 
     private ProvenanceEventRecord createEvent() {
-        final String uuid = UUID.randomUUID().toString();
+        return createEvent(UUID.randomUUID().toString());
+    }
+
+    private ProvenanceEventRecord createEvent(final String uuid) {
         final Map<String, String> previousAttributes = new HashMap<>();
         previousAttributes.put("uuid", uuid);
         final Map<String, String> updatedAttributes = new HashMap<>();
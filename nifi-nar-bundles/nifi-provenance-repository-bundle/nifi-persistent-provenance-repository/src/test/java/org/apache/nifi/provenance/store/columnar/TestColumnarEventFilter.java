@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.SearchTerms;
+import org.apache.nifi.provenance.store.EventIdSearchResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestColumnarEventFilter {
+    private static final int EVENT_COUNT = 5000;
+    private static final long START_TIME = 1_600_000_000_000L;
+    private static final String[] COMPONENT_IDS = {"Component-A", "component-b", "component-c"};
+    private static final ProvenanceEventType[] EVENT_TYPES = {ProvenanceEventType.CREATE, ProvenanceEventType.ATTRIBUTES_MODIFIED, ProvenanceEventType.DROP};
+
+    @Test
+    public void testComponentAndTimeRangeQueryAgainstColumnFile() throws IOException {
+        final File file = new File("target/storage/" + getClass().getSimpleName() + "/" + UUID.randomUUID() + "/columns/0.cols");
+        createColumns().write(file);
+
+        final ColumnFile columnFile = ColumnFile.read(file);
+        assertEquals((EVENT_COUNT + EventColumns.BLOCK_SIZE - 1) / EventColumns.BLOCK_SIZE, columnFile.getBlocks().size());
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "COMPONENT-B", null));
+        query.setStartDate(new Date(START_TIME + 1000));
+        query.setEndDate(new Date(START_TIME + 3999));
+        query.setMaxResults(10);
+
+        final EventIdSearchResult result;
+        try (final EventColumnSource source = columnFile.open()) {
+            result = search(query, source);
+        }
+
+        assertMatches(id -> id % 3 == 1 && id >= 1000 && id <= 3999, 10, result);
+    }
+
+    @Test
+    public void testEventTypeAndInvertedComponentQuery() throws IOException {
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.EventType, "drop", null));
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-c", true));
+        query.setMaxResults(EVENT_COUNT);
+
+        final EventIdSearchResult result = search(query, createColumns());
+        assertMatches(id -> (id / 1000) % 3 == 2 && id % 3 != 2, EVENT_COUNT, result);
+    }
+
+    @Test
+    public void testColumnsOfEventsAddedInOrder() throws IOException {
+        final EventColumnsBuilder builder = new EventColumnsBuilder();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            builder.add(i, createEvent(i));
+        }
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-a", null));
+        query.setMaxResults(10);
+
+        final EventIdSearchResult result = search(query, builder.build());
+        assertMatches(id -> id % 3 == 0, 10, result);
+        assertEquals(search(query, createColumns()).getEventIds(), result.getEventIds());
+    }
+
+    @Test
+    public void testWholeBlocksCountedWithoutCollecting() throws IOException {
+        // Every event matches, so only the most recent events should be collected but all should be counted
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.setStartDate(new Date(START_TIME));
+        query.setMaxResults(5);
+
+        final EventIdSearchResult result = search(query, createColumns());
+        assertMatches(id -> true, 5, result);
+    }
+
+    @Test
+    public void testNoMatches() throws IOException {
+        final Query unknownComponent = new Query(UUID.randomUUID().toString());
+        unknownComponent.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-z", null));
+        assertEquals(0L, search(unknownComponent, createColumns()).getTotalHitCount());
+
+        final Query outOfRange = new Query(UUID.randomUUID().toString());
+        outOfRange.setStartDate(new Date(START_TIME + EVENT_COUNT));
+        assertEquals(0L, search(outOfRange, createColumns()).getTotalHitCount());
+
+        final Query twoComponents = new Query(UUID.randomUUID().toString());
+        twoComponents.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-a", null));
+        twoComponents.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-b", null));
+        assertEquals(0L, search(twoComponents, createColumns()).getTotalHitCount());
+    }
+
+    @Test
+    public void testUnsupportedQueries() {
+        final Query wildcard = new Query(UUID.randomUUID().toString());
+        wildcard.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-*", null));
+        assertFalse(ColumnarEventFilter.fromQuery(wildcard).isPresent());
+
+        final Query flowFileUuid = new Query(UUID.randomUUID().toString());
+        flowFileUuid.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.FlowFileUUID, UUID.randomUUID().toString(), null));
+        assertFalse(ColumnarEventFilter.fromQuery(flowFileUuid).isPresent());
+
+        final Query fileSize = new Query(UUID.randomUUID().toString());
+        fileSize.setMinFileSize("1 KB");
+        assertFalse(ColumnarEventFilter.fromQuery(fileSize).isPresent());
+
+        final Query timeRange = new Query(UUID.randomUUID().toString());
+        timeRange.setEndDate(new Date());
+        assertTrue(ColumnarEventFilter.fromQuery(timeRange).isPresent());
+    }
+
+    private EventIdSearchResult search(final Query query, final EventColumnSource source) throws IOException {
+        final Optional<ColumnarEventFilter> filter = ColumnarEventFilter.fromQuery(query);
+        assertTrue(filter.isPresent());
+
+        final MatchingEventIds matches = new MatchingEventIds(query.getMaxResults());
+        filter.get().scan(source, matches);
+        return matches.toResult();
+    }
+
+    private void assertMatches(final LongPredicate expectedMatch, final int maxResults, final EventIdSearchResult result) {
+        final List<Long> expected = new ArrayList<>();
+        for (long id = EVENT_COUNT - 1; id >= 0; id--) {
+            if (expectedMatch.test(id)) {
+                expected.add(id);
+            }
+        }
+
+        assertEquals(expected.size(), result.getTotalHitCount());
+        assertEquals(expected.subList(0, Math.min(maxResults, expected.size())), result.getEventIds());
+    }
+
+    private EventColumns createColumns() {
+        // Add the events out of order to ensure that the columns are ordered by Event ID
+        final EventColumnsBuilder builder = new EventColumnsBuilder();
+        for (int i = EVENT_COUNT - 1; i >= 0; i--) {
+            builder.add(i, createEvent(i));
+        }
+
+        assertEquals(EVENT_COUNT, builder.size());
+        return builder.build();
+    }
+
+    private ProvenanceEventRecord createEvent(final long eventId) {
+        final String uuid = UUID.randomUUID().toString();
+        final Map<String, String> attributes = Collections.singletonMap("uuid", uuid);
+
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventType(EVENT_TYPES[(int) (eventId / 1000) % EVENT_TYPES.length])
+            .setComponentId(COMPONENT_IDS[(int) (eventId % COMPONENT_IDS.length)])
+            .setComponentType("unit test")
+            .setAttributes(attributes, Collections.emptyMap())
+            .setEventTime(START_TIME + eventId)
+            .setFlowFileEntryDate(START_TIME)
+            .setLineageStartDate(START_TIME)
+            .setFlowFileUUID(uuid)
+            .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+            .build();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance.store.lineage;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TestLineageCache {
+
+    @Test
+    public void testAppendingEventsDoesNotKeepEntryCached() {
+        final LineageCache cache = new LineageCache(2);
+        cache.complete("a", cache.reserve("a"), new long[] {1L});
+        cache.complete("b", cache.reserve("b"), new long[] {2L});
+
+        // Events of FlowFile 'a' are still being added, but 'a' is the least recently used entry and must be evicted first
+        cache.eventsAdded(Collections.singletonMap(createEvent("a"), new StorageSummary(3L, "1.prov", null, 0, 0L, 0L)));
+        cache.complete("c", cache.reserve("c"), new long[] {4L});
+
+        assertNull(cache.getEventIds("a", 0L));
+        assertNotNull(cache.getEventIds("b", 0L));
+
+        // Serving an entry makes it the most recently used
+        cache.complete("d", cache.reserve("d"), new long[] {5L});
+        assertNotNull(cache.getEventIds("b", 0L));
+        assertNull(cache.getEventIds("c", 0L));
+    }
+
+    @Test
+    public void testAgedOffEventsNotServed() {
+        final LineageCache cache = new LineageCache(10);
+        cache.complete("a", cache.reserve("a"), new long[] {1L, 5L, 8L});
+        cache.eventsAdded(Collections.singletonMap(createEvent("a"), new StorageSummary(12L, "1.prov", null, 0, 0L, 0L)));
+
+        assertArrayEquals(new long[] {1L, 5L, 8L, 12L}, cache.getEventIds("a", 0L));
+        assertArrayEquals(new long[] {8L, 12L}, cache.getEventIds("a", 6L));
+        assertArrayEquals(new long[] {12L}, cache.getEventIds("a", 10L));
+        assertArrayEquals(new long[0], cache.getEventIds("a", 20L));
+    }
+
+    @Test
+    public void testEventsAddedWhileReservedAreRetained() {
+        final LineageCache cache = new LineageCache(1);
+        final LineageCache.Reservation reservation = cache.reserve("a");
+        cache.eventsAdded(Collections.singletonMap(createEvent("a"), new StorageSummary(7L, "1.prov", null, 0, 0L, 0L)));
+        assertNull(cache.getEventIds("a", 0L));
+
+        cache.complete("a", reservation, new long[] {3L, 7L});
+        assertArrayEquals(new long[] {3L, 7L}, cache.getEventIds("a", 0L));
+
+        // Evicting the entry must also stop events from being appended to it
+        cache.complete("b", cache.reserve("b"), new long[] {9L});
+        assertEquals(1, cache.size());
+        assertNull(cache.getEventIds("a", 0L));
+    }
+
+    private ProvenanceEventRecord createEvent(final String uuid) {
+        return new StandardProvenanceEventRecord.Builder()
+            .setEventType(ProvenanceEventType.CONTENT_MODIFIED)
+            .setAttributes(Collections.singletonMap("uuid", uuid), Collections.emptyMap())
+            .setComponentId("component-1")
+            .setComponentType("unit test")
+            .setEventTime(System.currentTimeMillis())
+            .setFlowFileEntryDate(System.currentTimeMillis())
+            .setFlowFileUUID(uuid)
+            .setLineageStartDate(System.currentTimeMillis())
+            .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+            .build();
+    }
+}
@@ -18,6 +18,7 @@ package org.apache.nifi.provenance.toc;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.DataOutputStream;
@@ -27,6 +28,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.UUID;
 
+import org.apache.nifi.provenance.serialization.BlockCodecs;
 import org.junit.jupiter.api.Test;
 
 public class TestStandardTocReader {
@@ -62,6 +64,37 @@ public class TestStandardTocReader {
         }
     }
 
+    @Test
+    public void testReadsCompressionCodec() throws IOException {
+        final File file = new File("target/" + UUID.randomUUID());
+        try (final StandardTocWriter writer = new StandardTocWriter(file, BlockCodecs.HUFFMAN, false)) {
+            writer.addBlockOffset(0L, 0L);
+        }
+
+        try {
+            try (final StandardTocReader reader = new StandardTocReader(file)) {
+                assertTrue(reader.isCompressed());
+                assertEquals(BlockCodecs.HUFFMAN.getId(), reader.getCompressionCodecId());
+                assertSame(BlockCodecs.HUFFMAN, BlockCodecs.getCodec(reader));
+            }
+        } finally {
+            file.delete();
+        }
+
+        // A TOC written before the codec was recorded only flags the Journal as compressed, which always meant GZIP
+        try (final StandardTocWriter writer = new StandardTocWriter(file, true, false)) {
+            writer.addBlockOffset(0L, 0L);
+        }
+
+        try {
+            try (final StandardTocReader reader = new StandardTocReader(file)) {
+                assertTrue(reader.isCompressed());
+                assertSame(BlockCodecs.GZIP, BlockCodecs.getCodec(reader));
+            }
+        } finally {
+            file.delete();
+        }
+    }
 
     @Test
     public void testGetBlockIndexV1() throws IOException {
@@ -25,6 +25,7 @@ import org.apache.nifi.annotation.documentation.Tags;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.event.transport.configuration.TransportProtocol;
 import org.apache.nifi.event.transport.netty.DelimitedInputStream;
+import org.apache.nifi.event.transport.netty.FileChannelRegion;
 import org.apache.nifi.event.transport.netty.NettyEventSenderFactory;
 import org.apache.nifi.event.transport.netty.StreamingNettyEventSenderFactory;
 import org.apache.nifi.flowfile.FlowFile;
@@ -83,20 +84,25 @@ public class PutTCP extends AbstractPutEventProcessor {
 
         try {
             StopWatch stopWatch = new StopWatch(true);
-            session.read(flowFile, new InputStreamCallback() {
-                @Override
-                public void process(final InputStream in) throws IOException {
-                    InputStream event = in;
+            final String delimiter = getOutgoingMessageDelimiter(context, flowFile);
+            final byte[] delimiterBytes = delimiter == null ? null : delimiter.getBytes(Charset.forName(context.getProperty(CHARSET).getValue()));
 
-                    String delimiter = getOutgoingMessageDelimiter(context, flowFile);
-                    if (delimiter != null) {
-                        final Charset charSet = Charset.forName(context.getProperty(CHARSET).getValue());
-                        event = new DelimitedInputStream(in, delimiter.getBytes(charSet));
-                    }
+            // Send directly from the Content Repository's file where possible so that the content is not copied through the heap
+            final boolean sentFileRegion = session.readFileRegion(flowFile, (channel, position, count) -> eventSender.sendEvent(new FileChannelRegion(channel, position, count, delimiterBytes)));
+            if (!sentFileRegion) {
+                session.read(flowFile, new InputStreamCallback() {
+                    @Override
+                    public void process(final InputStream in) throws IOException {
+                        InputStream event = in;
+
+                        if (delimiterBytes != null) {
+                            event = new DelimitedInputStream(in, delimiterBytes);
+                        }
 
-                    eventSender.sendEvent(event);
-                }
-            });
+                        eventSender.sendEvent(event);
+                    }
+                });
+            }
 
             session.getProvenanceReporter().send(flowFile, transitUri, stopWatch.getElapsed(TimeUnit.MILLISECONDS));
             session.transfer(flowFile, REL_SUCCESS);
@@ -24,10 +24,15 @@ import org.apache.nifi.event.transport.configuration.TransportProtocol;
 import org.apache.nifi.event.transport.message.ByteArrayMessage;
 import org.apache.nifi.event.transport.netty.ByteArrayMessageNettyEventServerFactory;
 import org.apache.nifi.event.transport.netty.NettyEventServerFactory;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.io.FileRegionCallback;
 import org.apache.nifi.remote.io.socket.NetworkUtils;
 import org.apache.nifi.security.util.TemporaryKeyStoreBuilder;
 import org.apache.nifi.security.util.TlsConfiguration;
 import org.apache.nifi.ssl.SSLContextService;
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.MockProcessSession;
+import org.apache.nifi.util.SharedSessionState;
 import org.apache.nifi.util.TestRunner;
 import org.apache.nifi.util.TestRunners;
 import org.apache.nifi.web.util.ssl.SslContextUtils;
@@ -35,16 +40,27 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.rules.Timeout;
 import org.mockito.Mockito;
 
 import javax.net.ssl.SSLContext;
+import java.io.File;
+import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -68,14 +84,19 @@ public class TestPutTCP {
     private final static String OUTGOING_MESSAGE_DELIMITER_MULTI_CHAR = "{delimiter}\r\n";
     private final static String[] EMPTY_FILE = { "" };
     private final static String[] VALID_FILES = { "abcdefghijklmnopqrstuvwxyz", "zyxwvutsrqponmlkjihgfedcba", "12345678", "343424222", "!@£$%^&*()_+:|{}[];\\" };
+    private final static byte[] FILE_REGION_PADDING = "padding".getBytes(StandardCharsets.UTF_8);
 
     @Rule
     public Timeout timeout = new Timeout(30, TimeUnit.SECONDS);
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private EventServer eventServer;
     private int port;
     private TestRunner runner;
     private BlockingQueue<ByteArrayMessage> messages;
+    private FileRegionProcessSession fileRegionSession;
 
     @Before
     public void setup() throws Exception {
@@ -215,6 +236,23 @@ public class TestPutTCP {
         assertMessagesReceived(testData, LOAD_TEST_ITERATIONS);
     }
 
+    @Test
+    public void testRunSuccessFileRegion() throws Exception {
+        configureProperties(TCP_SERVER_ADDRESS, OUTGOING_MESSAGE_DELIMITER, false);
+        createTestServer(port);
+        sendTestDataAsFileRegions(VALID_FILES);
+        assertFileRegionMessagesReceived(VALID_FILES);
+    }
+
+    @Test
+    public void testRunSuccessFileRegionLargeValidFile() throws Exception {
+        configureProperties(TCP_SERVER_ADDRESS, OUTGOING_MESSAGE_DELIMITER, true);
+        createTestServer(port);
+        final String[] testData = createContent(VALID_LARGE_FILE_SIZE);
+        sendTestDataAsFileRegions(testData);
+        assertFileRegionMessagesReceived(testData);
+    }
+
     private void createTestServer(final int port) throws Exception {
         createTestServer(port, null);
     }
@@ -265,6 +303,42 @@ public class TestPutTCP {
         }
     }
 
+    /**
+     * Sends the test data through a session that provides each FlowFile's content as a region of a file, padded on both sides,
+     * as the Content Repository does. The mock session of the Test Runner holds content in memory only, so PutTCP would otherwise
+     * fall back to sending the content as a stream.
+     */
+    private void sendTestDataAsFileRegions(final String[] testData) throws IOException {
+        // Run once without any FlowFiles so that the processor is scheduled and its sender is created
+        runner.run(1, false, true);
+
+        final PutTCP processor = (PutTCP) runner.getProcessor();
+        final SharedSessionState sharedState = new SharedSessionState(processor, new AtomicLong());
+        for (final String item : testData) {
+            final MockFlowFile flowFile = new MockFlowFile(sharedState.nextFlowFileId());
+            flowFile.setData(item.getBytes(StandardCharsets.UTF_8));
+            sharedState.getFlowFileQueue().offer(flowFile);
+        }
+
+        fileRegionSession = new FileRegionProcessSession(sharedState, processor, temporaryFolder.newFolder());
+        for (int i = 0; i < testData.length; i++) {
+            processor.onTrigger(runner.getProcessContext(), () -> fileRegionSession);
+        }
+    }
+
+    private void assertFileRegionMessagesReceived(final String[] sentData) throws Exception {
+        fileRegionSession.assertAllFlowFilesTransferred(PutTCP.REL_SUCCESS, sentData.length);
+        assertEquals("Content not sent as file regions", sentData.length, fileRegionSession.getFileRegionsRead());
+
+        // Each FlowFile is sent in turn, so the server receives the content in the same order
+        for (final String item : sentData) {
+            final ByteArrayMessage message = messages.take();
+            assertEquals(item, new String(message.getMessage(), StandardCharsets.UTF_8));
+        }
+
+        assertNull("Unexpected extra messages found", messages.poll());
+    }
+
     private void assertTransfers(final int successCount) {
         runner.assertTransferCount(PutTCP.REL_SUCCESS, successCount);
         runner.assertTransferCount(PutTCP.REL_FAILURE, 0);
@@ -300,6 +374,45 @@ public class TestPutTCP {
         return new String[] { new String(content) };
     }
 
+    private static class FileRegionProcessSession extends MockProcessSession {
+        private final File directory;
+        private final AtomicInteger fileRegionsRead = new AtomicInteger();
+
+        FileRegionProcessSession(final SharedSessionState sharedState, final PutTCP processor, final File directory) {
+            super(sharedState, processor);
+            this.directory = directory;
+        }
+
+        @Override
+        public boolean readFileRegion(final FlowFile flowFile, final FileRegionCallback reader) {
+            final byte[] content = ((MockFlowFile) flowFile).getData();
+
+            try {
+                final File file = new File(directory, "region-" + flowFile.getId());
+                try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                    channel.write(ByteBuffer.wrap(FILE_REGION_PADDING));
+                    channel.write(ByteBuffer.wrap(content));
+                    channel.write(ByteBuffer.wrap(FILE_REGION_PADDING));
+                }
+
+                try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    reader.process(channel, FILE_REGION_PADDING.length, content.length);
+                }
+
+                Files.delete(file.toPath());
+            } catch (final IOException e) {
+                throw new AssertionError("Failed to provide content of " + flowFile + " as a file region", e);
+            }
+
+            fileRegionsRead.incrementAndGet();
+            return true;
+        }
+
+        int getFileRegionsRead() {
+            return fileRegionsRead.get();
+        }
+    }
+
     private byte[] getDelimiter() {
         String delimiter = runner.getProcessContext().getProperty(PutTCP.OUTGOING_MESSAGE_DELIMITER).getValue();
         if (delimiter != null) {
@@ -234,6 +234,11 @@ public class StatelessProcessScheduler implements ProcessScheduler {
     public void registerEvent(final Connectable worker) {
     }
 
+    @Override
+    public boolean isEventRegistrationRequired(final SchedulingStrategy strategy) {
+        return false;
+    }
+
     @Override
     public void setMaxThreadCount(final SchedulingStrategy strategy, final int maxThreadCount) {
     }